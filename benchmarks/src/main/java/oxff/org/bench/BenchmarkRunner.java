@@ -0,0 +1,37 @@
+/*
+ * Copyright (c) 2024. All rights reserved.
+ */
+
+package oxff.org.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * 基准测试入口
+ * 
+ * 接受与 JMH 相同的命令行参数，在此基础上默认启用 GC 分析器（等同于 -prof gc），
+ * 使结果同时包含吞吐量、平均耗时和分配速率。
+ * 
+ * 示例：
+ *   java -jar benchmarks.jar                                   # 运行全部基准
+ *   java -jar benchmarks.jar ContentAnalyzer -p bodySize=65536 # 只运行部分基准和参数
+ *   java -jar benchmarks.jar -rf json -rff result.json         # 输出 JSON 结果用于对比
+ */
+public final class BenchmarkRunner {
+    
+    private BenchmarkRunner() {
+    }
+    
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        ChainedOptionsBuilder builder = new OptionsBuilder().parent(commandLine);
+        if (commandLine.getProfilers().isEmpty()) {
+            builder.addProfiler(GCProfiler.class);
+        }
+        new Runner(builder.build()).run();
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2024. All rights reserved.
+ */
+
+package oxff.org.bench;
+
+import oxff.org.util.ContentAnalyzer;
+import oxff.org.util.HttpBodyView;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ContentAnalyzer 基准测试，覆盖 containsTextContent 的每个重载
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ContentAnalyzerBenchmark {
+    
+    private final ContentAnalyzer analyzer = new ContentAnalyzer();
+    
+    @Benchmark
+    public boolean containsTextContentBytes(Corpus corpus) {
+        return analyzer.containsTextContent(corpus.body);
+    }
+    
+    @Benchmark
+    public boolean containsTextContentRequest(Corpus corpus) {
+        return analyzer.containsTextContent(corpus.request);
+    }
+    
+    @Benchmark
+    public boolean containsTextContentResponse(Corpus corpus) {
+        return analyzer.containsTextContent(corpus.response);
+    }
+    
+    @Benchmark
+    public boolean containsTextContentBodyView(Corpus corpus) {
+        return analyzer.containsTextContent(HttpBodyView.of(corpus.response));
+    }
+}
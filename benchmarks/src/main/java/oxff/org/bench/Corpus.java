@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2024. All rights reserved.
+ */
+
+package oxff.org.bench;
+
+import burp.api.montoya.http.message.HttpHeader;
+import burp.api.montoya.http.message.requests.HttpRequest;
+import burp.api.montoya.http.message.responses.HttpResponse;
+import oxff.org.testkit.CallRecorder;
+import oxff.org.testkit.FakeHttpHeader;
+import oxff.org.testkit.FakeHttpMessage;
+import oxff.org.testkit.FakeHttpService;
+import oxff.org.testkit.FakeObjectFactory;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 基准测试语料
+ * 
+ * 按参数组合生成正文及对应的 HTTP 请求/响应（另有分块传输和 gzip 压缩的响应）：
+ * - bodySize：正文大小
+ * - contentType：json / html / none（无 Content-Type，触发内容检测）/ binary
+ * - leadingBlankLines：正文开头的空行数
+ * - binaryMix：文本正文中随机替换为任意字节（含 NULL）的比例
+ * 
+ * 使用固定随机种子，每次运行生成的语料完全相同。
+ */
+@State(Scope.Benchmark)
+public class Corpus {
+    
+    @Param({"1024", "65536", "1048576"})
+    public int bodySize;
+    
+    @Param({"json", "html", "none", "binary"})
+    public String contentType;
+    
+    @Param({"0", "8"})
+    public int leadingBlankLines;
+    
+    @Param({"0.0", "0.01"})
+    public double binaryMix;
+    
+    public byte[] body;
+    public HttpRequest request;
+    public HttpResponse response;
+    public HttpResponse chunkedResponse;
+    public HttpResponse gzipResponse;
+    
+    @Setup(Level.Trial)
+    public void generate() {
+        CallRecorder recorder = new CallRecorder();
+        FakeObjectFactory.install(recorder);
+        Random random = new Random(0x5EED);
+        
+        byte[] payload = "binary".equals(contentType)
+            ? binaryPayload(random, bodySize)
+            : textPayload(random, bodySize, binaryMix);
+        
+        byte[] blank = "\r\n".repeat(leadingBlankLines).getBytes(StandardCharsets.ISO_8859_1);
+        body = new byte[blank.length + payload.length];
+        System.arraycopy(blank, 0, body, 0, blank.length);
+        System.arraycopy(payload, 0, body, blank.length, payload.length);
+        
+        List<HttpHeader> headers = new ArrayList<>();
+        headers.add(new FakeHttpHeader("Host", "example.com"));
+        String mediaType = mediaType(contentType);
+        if (mediaType != null) {
+            headers.add(new FakeHttpHeader("Content-Type", mediaType));
+        }
+        headers.add(new FakeHttpHeader("Content-Length", String.valueOf(body.length)));
+        
+        request = FakeHttpMessage.request(new FakeHttpService("example.com", 443, true), "POST /api/items HTTP/1.1",
+            headers, body, recorder);
+        response = FakeHttpMessage.response("HTTP/1.1 200 OK", headers, body, recorder);
+        
+        // 整个正文作为一个分块
+        byte[] chunked = chunked(body);
+        List<HttpHeader> chunkedHeaders = new ArrayList<>(headers.subList(0, headers.size() - 1));
+        chunkedHeaders.add(new FakeHttpHeader("Transfer-Encoding", "chunked"));
+        chunkedResponse = FakeHttpMessage.response("HTTP/1.1 200 OK", chunkedHeaders, chunked, recorder);
+        
+        byte[] gzip = gzip(body);
+        List<HttpHeader> gzipHeaders = new ArrayList<>(headers.subList(0, headers.size() - 1));
+        gzipHeaders.add(new FakeHttpHeader("Content-Encoding", "gzip"));
+        gzipHeaders.add(new FakeHttpHeader("Content-Length", String.valueOf(gzip.length)));
+        gzipResponse = FakeHttpMessage.response("HTTP/1.1 200 OK", gzipHeaders, gzip, recorder);
+    }
+    
+    private static byte[] chunked(byte[] data) {
+        byte[] head = (Integer.toHexString(data.length) + "\r\n").getBytes(StandardCharsets.ISO_8859_1);
+        byte[] tail = "\r\n0\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1);
+        byte[] result = new byte[head.length + data.length + tail.length];
+        System.arraycopy(head, 0, result, 0, head.length);
+        System.arraycopy(data, 0, result, head.length, data.length);
+        System.arraycopy(tail, 0, result, head.length + data.length, tail.length);
+        return result;
+    }
+    
+    private static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+    
+    private static String mediaType(String contentType) {
+        switch (contentType) {
+            case "json":
+                return "application/json; charset=utf-8";
+            case "html":
+                return "text/html; charset=UTF-8";
+            case "binary":
+                return "application/octet-stream";
+            default:
+                return null;
+        }
+    }
+    
+    private byte[] textPayload(Random random, int size, double mix) {
+        String line = "html".equals(contentType)
+            ? "<div class=\"row\"><span>item %d</span><a href=\"/items/%d\">详情</a></div>\n"
+            : "{\"id\":%d,\"name\":\"item-%d\",\"tags\":[\"alpha\",\"beta\"],\"note\":\"中文说明\"}\n";
+        
+        StringBuilder sb = new StringBuilder(size + 128);
+        int index = 0;
+        while (sb.length() < size) {
+            sb.append(String.format(line, index, index));
+            index++;
+        }
+        byte[] bytes = sb.toString().getBytes(StandardCharsets.UTF_8);
+        byte[] result = new byte[size];
+        System.arraycopy(bytes, 0, result, 0, size);
+        
+        int replaced = (int) (size * mix);
+        for (int i = 0; i < replaced; i++) {
+            result[random.nextInt(size)] = (byte) random.nextInt(256);
+        }
+        return result;
+    }
+    
+    private static byte[] binaryPayload(Random random, int size) {
+        byte[] result = new byte[size];
+        random.nextBytes(result);
+        // PNG 魔数
+        result[0] = (byte) 0x89;
+        result[1] = 0x50;
+        result[2] = 0x4E;
+        result[3] = 0x47;
+        return result;
+    }
+}
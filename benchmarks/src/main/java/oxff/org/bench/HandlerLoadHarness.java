@@ -0,0 +1,411 @@
+/*
+ * Copyright (c) 2024. All rights reserved.
+ */
+
+package oxff.org.bench;
+
+import burp.api.montoya.MontoyaApi;
+import burp.api.montoya.core.ToolType;
+import burp.api.montoya.http.handler.HttpRequestToBeSent;
+import burp.api.montoya.http.handler.HttpResponseReceived;
+import burp.api.montoya.http.message.HttpHeader;
+import burp.api.montoya.http.message.requests.HttpRequest;
+import burp.api.montoya.http.message.responses.HttpResponse;
+import oxff.org.config.ConfigSnapshot;
+import oxff.org.config.LargeBodyPolicy;
+import oxff.org.config.PluginConfig;
+import oxff.org.handler.EndpointBypassTable;
+import oxff.org.handler.HttpMessageHandler;
+import oxff.org.logging.AsyncLogger;
+import oxff.org.logging.LogLevel;
+import oxff.org.metrics.MessageDirection;
+import oxff.org.metrics.MetricsSnapshot;
+import oxff.org.metrics.ProcessingMetrics;
+import oxff.org.testkit.CallRecorder;
+import oxff.org.testkit.FakeHttpHeader;
+import oxff.org.testkit.FakeHttpMessage;
+import oxff.org.testkit.FakeHttpService;
+import oxff.org.testkit.FakeMontoyaApi;
+import oxff.org.util.MediaTypeClassifier;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * HttpMessageHandler 多线程负载测试
+ * 
+ * Burp 会在多个线程上同时调用 HttpHandler。这里用 N 个线程驱动真实的 HttpMessageHandler
+ * （包括 MessageProcessor、ContentAnalyzer、PluginConfig、自适应跳过表和异步日志），
+ * 同时由另一个线程像设置面板保存配置一样不断发布新的配置快照，输出：
+ * - 各线程数下的吞吐量及相对单线程的扩展倍数
+ * - 每次调用耗时的 p50/p99/p99.9（微秒）
+ * - 正确性：每条输出的正文只能是原样或单线程下的清理结果；处理统计的收到数必须等于调用次数，
+ *   且每条消息恰好记录一次结果（已清理或跳过）
+ * 
+ * 任何正确性检查失败时以非零状态码退出。
+ * 
+ * 用法（在项目根目录执行 mvn -pl benchmarks -am package）：
+ *   java -cp benchmarks/target/benchmarks.jar oxff.org.bench.HandlerLoadHarness [选项]
+ * 
+ * 选项：
+ *   -t 1,2,4,8,16,32,64   线程数列表
+ *   -w 2                  每轮预热秒数
+ *   -d 5                  每轮测量秒数
+ *   -c 10                 配置变更间隔（毫秒），0 表示不变更配置
+ *   -v 8                  每 N 次调用校验一次输出正文，0 表示不校验
+ */
+public final class HandlerLoadHarness {
+    
+    // 语料中的端点数，每个端点一组请求/响应
+    private static final int ENDPOINTS = 64;
+    
+    private static final ToolType[] TOOLS = {
+        ToolType.PROXY, ToolType.REPEATER, ToolType.INTRUDER, ToolType.EXTENSIONS
+    };
+    
+    // 测量阶段
+    private static final int WARMUP = 0;
+    private static final int MEASURE = 1;
+    private static final int STOP = 2;
+    
+    private static volatile int phase;
+    
+    private HandlerLoadHarness() {
+    }
+    
+    public static void main(String[] args) throws Exception {
+        int[] threadCounts = {1, 2, 4, 8, 16, 32, 64};
+        int warmupSeconds = 2;
+        int measureSeconds = 5;
+        int configIntervalMillis = 10;
+        int verifyEvery = 8;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "-t":
+                    threadCounts = Arrays.stream(value.split(",")).mapToInt(s -> Integer.parseInt(s.trim())).toArray();
+                    break;
+                case "-w":
+                    warmupSeconds = Integer.parseInt(value);
+                    break;
+                case "-d":
+                    measureSeconds = Integer.parseInt(value);
+                    break;
+                case "-c":
+                    configIntervalMillis = Integer.parseInt(value);
+                    break;
+                case "-v":
+                    verifyEvery = Integer.parseInt(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("未知选项: " + args[i]);
+            }
+        }
+        
+        FakeMontoyaApi kit = new FakeMontoyaApi(false);
+        MontoyaApi api = kit.api();
+        
+        // 生成语料，并在单线程、默认配置（关闭自适应跳过）下计算每条消息的期望输出
+        HttpRequest[] requests = new HttpRequest[ENDPOINTS];
+        HttpResponse[] responses = new HttpResponse[ENDPOINTS];
+        generateCorpus(requests, responses, kit.recorder());
+        byte[][] originalBodies = new byte[ENDPOINTS][];
+        byte[][] expectedRequestBodies = new byte[ENDPOINTS][];
+        byte[][] expectedResponseBodies = new byte[ENDPOINTS][];
+        PluginConfig referenceConfig = new PluginConfig(api);
+        referenceConfig.publish(ConfigSnapshot.defaults().withAdaptiveBypass(false));
+        AsyncLogger referenceLogger = new AsyncLogger(api.logging(), referenceConfig);
+        HttpMessageHandler reference = new HttpMessageHandler(referenceConfig, new ProcessingMetrics(),
+            referenceLogger, new EndpointBypassTable());
+        for (int i = 0; i < ENDPOINTS; i++) {
+            originalBodies[i] = requests[i].body().getBytes();
+            expectedRequestBodies[i] = reference.handleHttpRequestToBeSent(
+                FakeHttpMessage.requestToBeSent(requests[i], ToolType.PROXY, i)).request().body().getBytes();
+            expectedResponseBodies[i] = reference.handleHttpResponseReceived(
+                FakeHttpMessage.responseReceived(responses[i], requests[i], ToolType.PROXY, i)).response().body().getBytes();
+        }
+        referenceLogger.close();
+        
+        System.out.printf("端点 %d 个，预热 %d 秒，测量 %d 秒，配置变更间隔 %d 毫秒，每 %d 次调用校验一次%n",
+            ENDPOINTS, warmupSeconds, measureSeconds, configIntervalMillis, verifyEvery);
+        System.out.printf("%8s %14s %8s %10s %10s %10s %10s %8s%n",
+            "threads", "ops/s", "scaling", "p50(us)", "p99(us)", "p999(us)", "configs", "errors");
+        
+        // 扩展倍数以第一轮的单线程平均吞吐量为基准
+        double baselinePerThread = 0;
+        long totalErrors = 0;
+        for (int threads : threadCounts) {
+            double[] result = run(api, threads, warmupSeconds, measureSeconds, configIntervalMillis, verifyEvery,
+                requests, responses, originalBodies, expectedRequestBodies, expectedResponseBodies);
+            if (baselinePerThread == 0) {
+                baselinePerThread = result[0] / threads;
+            }
+            System.out.printf("%8d %14.0f %7.2fx %10.1f %10.1f %10.1f %10d %8d%n",
+                threads, result[0], result[0] / baselinePerThread,
+                result[2] / 1000.0, result[3] / 1000.0, result[4] / 1000.0, (long) result[5], (long) result[1]);
+            totalErrors += (long) result[1];
+        }
+        if (totalErrors > 0) {
+            System.out.println("正确性检查失败: " + totalErrors + " 处错误");
+            System.exit(1);
+        }
+    }
+    
+    /**
+     * 以指定线程数运行一轮
+     * 
+     * @return {吞吐量（次/秒）, 错误数, p50, p99, p99.9（纳秒）, 配置变更次数}
+     */
+    private static double[] run(MontoyaApi api, int threads, int warmupSeconds, int measureSeconds,
+                                int configIntervalMillis, int verifyEvery,
+                                HttpRequest[] requests, HttpResponse[] responses, byte[][] originalBodies,
+                                byte[][] expectedRequestBodies, byte[][] expectedResponseBodies) throws Exception {
+        // 每轮使用新的处理器，避免上一轮的自适应跳过学习结果影响本轮
+        PluginConfig config = new PluginConfig(api);
+        ProcessingMetrics metrics = new ProcessingMetrics();
+        AsyncLogger logger = new AsyncLogger(api.logging(), config);
+        EndpointBypassTable bypassTable = new EndpointBypassTable();
+        HttpMessageHandler handler = new HttpMessageHandler(config, metrics, logger, bypassTable);
+        
+        // 预先包装每个端点在各工具下的消息，测量时不再创建测试替身
+        HttpRequestToBeSent[][] toBeSent = new HttpRequestToBeSent[TOOLS.length][ENDPOINTS];
+        HttpResponseReceived[][] received = new HttpResponseReceived[TOOLS.length][ENDPOINTS];
+        for (int t = 0; t < TOOLS.length; t++) {
+            for (int i = 0; i < ENDPOINTS; i++) {
+                toBeSent[t][i] = FakeHttpMessage.requestToBeSent(requests[i], TOOLS[t], i);
+                received[t][i] = FakeHttpMessage.responseReceived(responses[i], requests[i], TOOLS[t], i);
+            }
+        }
+        
+        LatencyRecorder[] recorders = new LatencyRecorder[threads];
+        long[] measuredOps = new long[threads];
+        AtomicLong calls = new AtomicLong();
+        AtomicLong errors = new AtomicLong();
+        AtomicLong configChanges = new AtomicLong();
+        phase = WARMUP;
+        
+        Thread[] workers = new Thread[threads];
+        for (int w = 0; w < threads; w++) {
+            int worker = w;
+            recorders[w] = new LatencyRecorder();
+            workers[w] = new Thread(() -> {
+                LatencyRecorder recorder = recorders[worker];
+                long ops = 0;
+                long localCalls = 0;
+                int sequence = worker * 7;
+                int currentPhase;
+                while ((currentPhase = phase) != STOP) {
+                    int index = sequence % ENDPOINTS;
+                    int tool = (sequence / ENDPOINTS) % TOOLS.length;
+                    boolean response = (sequence & 1) == 1;
+                    sequence++;
+                    
+                    long start = System.nanoTime();
+                    byte[] output = null;
+                    boolean verify = verifyEvery > 0 && sequence % verifyEvery == 0;
+                    if (response) {
+                        HttpResponse result = handler.handleHttpResponseReceived(received[tool][index]).response();
+                        long elapsed = System.nanoTime() - start;
+                        if (currentPhase == MEASURE) {
+                            recorder.record(elapsed);
+                            ops++;
+                        }
+                        if (verify) {
+                            output = result.body().getBytes();
+                        }
+                    } else {
+                        HttpRequest result = handler.handleHttpRequestToBeSent(toBeSent[tool][index]).request();
+                        long elapsed = System.nanoTime() - start;
+                        if (currentPhase == MEASURE) {
+                            recorder.record(elapsed);
+                            ops++;
+                        }
+                        if (verify) {
+                            output = result.body().getBytes();
+                        }
+                    }
+                    localCalls++;
+                    
+                    // 并发修改配置时输出只能是原样（跳过）或与单线程结果一致
+                    if (output != null) {
+                        byte[] expected = response ? expectedResponseBodies[index] : expectedRequestBodies[index];
+                        if (!Arrays.equals(output, expected) && !Arrays.equals(output, originalBodies[index])) {
+                            errors.incrementAndGet();
+                        }
+                    }
+                }
+                measuredOps[worker] = ops;
+                calls.addAndGet(localCalls);
+            }, "load-worker-" + w);
+        }
+        
+        // 模拟在设置面板中反复修改并保存配置
+        List<ConfigSnapshot> variants = configVariants();
+        Thread configChanger = new Thread(() -> {
+            int index = 0;
+            while (phase != STOP && configIntervalMillis > 0) {
+                config.publish(variants.get(index % variants.size()));
+                if (index % 10 == 9) {
+                    bypassTable.reset(); // 相当于"重置学习状态"
+                }
+                index++;
+                configChanges.incrementAndGet();
+                try {
+                    Thread.sleep(configIntervalMillis);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }, "load-config-changer");
+        
+        for (Thread worker : workers) {
+            worker.start();
+        }
+        configChanger.start();
+        
+        Thread.sleep(warmupSeconds * 1000L);
+        phase = MEASURE;
+        long measureStart = System.nanoTime();
+        Thread.sleep(measureSeconds * 1000L);
+        phase = STOP;
+        long measureNanos = System.nanoTime() - measureStart;
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        configChanger.join();
+        logger.close();
+        
+        LatencyRecorder merged = new LatencyRecorder();
+        long ops = 0;
+        for (int w = 0; w < threads; w++) {
+            merged.add(recorders[w]);
+            ops += measuredOps[w];
+        }
+        
+        // 统计计数器在并发下不能丢失更新：收到数等于调用次数，每条消息恰好记录一次结果
+        MetricsSnapshot snapshot = metrics.snapshot();
+        long seen = 0;
+        long outcomes = 0;
+        for (ToolType tool : TOOLS) {
+            for (MessageDirection direction : MessageDirection.values()) {
+                seen += snapshot.getSeen(tool, direction);
+                outcomes += snapshot.getModified(tool, direction) + snapshot.getSkipped(tool, direction);
+            }
+        }
+        if (seen != calls.get()) {
+            System.out.printf("  统计不一致: 收到 %d 条，实际调用 %d 次%n", seen, calls.get());
+            errors.incrementAndGet();
+        }
+        if (outcomes != seen) {
+            System.out.printf("  统计不一致: 收到 %d 条，已清理与跳过合计 %d 条%n", seen, outcomes);
+            errors.incrementAndGet();
+        }
+        
+        return new double[]{
+            ops / (measureNanos / 1e9), errors.get(),
+            merged.percentile(50), merged.percentile(99), merged.percentile(99.9), configChanges.get()
+        };
+    }
+    
+    /**
+     * 在设置面板中可能保存的配置组合
+     * 
+     * 只改变是否处理和如何检测，不改变清理策略，因此每条消息的输出只能是原样或单线程下的清理结果。
+     */
+    private static List<ConfigSnapshot> configVariants() {
+        ConfigSnapshot defaults = ConfigSnapshot.defaults();
+        List<ConfigSnapshot> variants = new ArrayList<>();
+        variants.add(defaults);
+        variants.add(defaults.withSniffWindow(4 * 1024, 1024));
+        variants.add(defaults.withAdaptiveBypass(true));
+        variants.add(defaults.withTargetScopeOnly(true).withLogLevel(LogLevel.DEBUG));
+        variants.add(defaults.withEnabledModules(EnumSet.of(ToolType.PROXY, ToolType.REPEATER)));
+        variants.add(defaults.withSniffWindow(0, 0)
+            .withMediaTypes(MediaTypeClassifier.DEFAULT_TEXT_TYPES, MediaTypeClassifier.DEFAULT_BINARY_TYPES));
+        variants.add(defaults.withBodySizeLimits(64 * 1024, 1024 * 1024, LargeBodyPolicy.SKIP));
+        variants.add(defaults.withCustomBinarySignatures(Collections.singletonList("7B22")));
+        return variants;
+    }
+    
+    /**
+     * 生成语料：不同大小、Content-Type 和开头空行数的组合，每个端点使用不同的路径
+     */
+    private static void generateCorpus(HttpRequest[] requests, HttpResponse[] responses, CallRecorder recorder) {
+        FakeHttpService service = new FakeHttpService("example.com", 443, true);
+        Random random = new Random(0x5EED);
+        for (int i = 0; i < ENDPOINTS; i++) {
+            String contentType;
+            int size;
+            int blankLines;
+            switch (i % 6) {
+                case 0:
+                    contentType = "application/json";
+                    size = 1024;
+                    blankLines = 4;
+                    break;
+                case 1:
+                    contentType = "application/json";
+                    size = 1024;
+                    blankLines = 0;
+                    break;
+                case 2:
+                    contentType = "text/html; charset=UTF-8";
+                    size = 16 * 1024;
+                    blankLines = 2;
+                    break;
+                case 3:
+                    contentType = null;
+                    size = 4 * 1024;
+                    blankLines = 3;
+                    break;
+                case 4:
+                    contentType = "image/png";
+                    size = 8 * 1024;
+                    blankLines = 0;
+                    break;
+                default:
+                    contentType = "application/json";
+                    size = 256 * 1024;
+                    blankLines = 8;
+                    break;
+            }
+            
+            byte[] body;
+            if (contentType != null && contentType.startsWith("image/")) {
+                body = new byte[size];
+                random.nextBytes(body);
+                body[0] = (byte) 0x89;
+                body[1] = 0x50;
+                body[2] = 0x4E;
+                body[3] = 0x47;
+            } else {
+                StringBuilder sb = new StringBuilder("\r\n".repeat(blankLines));
+                int line = 0;
+                while (sb.length() < size) {
+                    sb.append("{\"id\":").append(line).append(",\"name\":\"item-").append(line).append("\"}\n");
+                    if (line % 10 == 9) {
+                        sb.append("\n\n");
+                    }
+                    line++;
+                }
+                body = sb.toString().getBytes(StandardCharsets.UTF_8);
+            }
+            
+            List<HttpHeader> headers = new ArrayList<>();
+            headers.add(new FakeHttpHeader("Host", "example.com"));
+            if (contentType != null) {
+                headers.add(new FakeHttpHeader("Content-Type", contentType));
+            }
+            headers.add(new FakeHttpHeader("Content-Length", String.valueOf(body.length)));
+            requests[i] = FakeHttpMessage.request(service, "POST /api/endpoint-" + i + "?page=1 HTTP/1.1", headers, body,
+                recorder);
+            responses[i] = FakeHttpMessage.response("HTTP/1.1 200 OK", headers, body, recorder);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright (c) 2024. All rights reserved.
+ */
+
+package oxff.org.bench;
+
+import oxff.org.util.HttpMessageCleaner;
+import oxff.org.util.ProcessingResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HttpMessageCleaner 基准测试
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class HttpMessageCleanerBenchmark {
+    
+    private final HttpMessageCleaner cleaner = new HttpMessageCleaner();
+    
+    @Benchmark
+    public ProcessingResult removeLeadingBlankLinesWithResult(Corpus corpus) {
+        return cleaner.removeLeadingBlankLinesWithResult(corpus.body);
+    }
+    
+    @Benchmark
+    public byte[] cleanTextContent(Corpus corpus) {
+        return cleaner.cleanTextContent(corpus.body);
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2024. All rights reserved.
+ */
+
+package oxff.org.bench;
+
+/**
+ * 负载测试使用的耗时直方图
+ * 
+ * 插件自身的 LatencyHistogram 按 2 的幂分桶，误差最大为 2 倍，不适合比较 p99/p99.9。
+ * 这里每个 2 的幂再细分为 16 个子桶，相对误差不超过 1/16。
+ * 每个工作线程使用自己的实例（不加锁），测量结束后再合并。
+ */
+final class LatencyRecorder {
+    
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    
+    private final long[] counts = new long[(64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS];
+    private long total;
+    
+    void record(long nanos) {
+        counts[indexOf(Math.max(0, nanos))]++;
+        total++;
+    }
+    
+    void add(LatencyRecorder other) {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        total += other.total;
+    }
+    
+    long count() {
+        return total;
+    }
+    
+    /**
+     * 估算百分位数
+     * 
+     * @param percentile 百分位（0-100）
+     * @return 所在子桶的上界（纳秒），没有样本时返回 0
+     */
+    long percentile(double percentile) {
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(total * percentile / 100.0);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return upperBound(i);
+            }
+        }
+        return upperBound(counts.length - 1);
+    }
+    
+    private static int indexOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+    }
+    
+    private static long upperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        int sub = index % SUB_BUCKETS;
+        long width = 1L << (exponent - SUB_BUCKET_BITS);
+        return ((SUB_BUCKETS + sub) * width) + width - 1;
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2024. All rights reserved.
+ */
+
+package oxff.org.bench;
+
+import burp.api.montoya.MontoyaApi;
+import burp.api.montoya.http.message.requests.HttpRequest;
+import burp.api.montoya.http.message.responses.HttpResponse;
+import oxff.org.cleaning.CleaningStrategyType;
+import oxff.org.config.ConfigSnapshot;
+import oxff.org.config.PluginConfig;
+import oxff.org.logging.AsyncLogger;
+import oxff.org.processor.MessageProcessor;
+import oxff.org.testkit.FakeMontoyaApi;
+import oxff.org.util.ContentCoding;
+import oxff.org.util.FusedBodyScanner;
+import oxff.org.util.HttpBodyView;
+import oxff.org.util.HttpProcessingResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.EnumSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MessageProcessor 基准测试
+ * 
+ * 与 HttpMessageHandler 一样先创建正文视图并做融合扫描，再调用对应的处理入口：
+ * 清理流水线（默认只去掉开头空行，以及开头/合并/结尾三种策略）、原始报文模式、分块传输和 gzip 压缩的正文。
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MessageProcessorBenchmark {
+    
+    private final MontoyaApi api = new FakeMontoyaApi(false).api();
+    private final MessageProcessor processor = new MessageProcessor(new AsyncLogger(api.logging(), new PluginConfig(api)));
+    private final FusedBodyScanner scanner = new FusedBodyScanner();
+    private final ConfigSnapshot snapshot = ConfigSnapshot.defaults()
+        .withCompressedBodies(true, PluginConfig.DEFAULT_MAX_DECODED_SIZE);
+    private final ConfigSnapshot multiStageSnapshot = snapshot.withCleaningStrategies(
+        EnumSet.of(CleaningStrategyType.LEADING, CleaningStrategyType.COLLAPSE, CleaningStrategyType.TRAILING));
+    
+    @Benchmark
+    public HttpProcessingResult processRequest(Corpus corpus) {
+        return processRequest(corpus, snapshot);
+    }
+    
+    @Benchmark
+    public HttpProcessingResult processResponse(Corpus corpus) {
+        return processResponse(corpus, snapshot);
+    }
+    
+    @Benchmark
+    public HttpProcessingResult processRequestMultiStage(Corpus corpus) {
+        return processRequest(corpus, multiStageSnapshot);
+    }
+    
+    @Benchmark
+    public HttpProcessingResult processResponseMultiStage(Corpus corpus) {
+        return processResponse(corpus, multiStageSnapshot);
+    }
+    
+    @Benchmark
+    public HttpProcessingResult processRequestRaw(Corpus corpus) {
+        HttpBodyView body = HttpBodyView.of(corpus.request);
+        return processor.processRequestRaw(corpus.request, body, scan(corpus, body));
+    }
+    
+    @Benchmark
+    public HttpProcessingResult processResponseRaw(Corpus corpus) {
+        HttpBodyView body = HttpBodyView.of(corpus.response);
+        return processor.processResponseRaw(corpus.response, body, scan(corpus, body));
+    }
+    
+    @Benchmark
+    public HttpProcessingResult processChunkedResponse(Corpus corpus) {
+        HttpBodyView body = HttpBodyView.of(corpus.chunkedResponse);
+        scanner.scanChunked(body, classify(corpus), snapshot);
+        return processor.processChunkedResponse(corpus.chunkedResponse, body);
+    }
+    
+    @Benchmark
+    public HttpProcessingResult processEncodedResponse(Corpus corpus) {
+        HttpBodyView body = HttpBodyView.of(corpus.gzipResponse);
+        return processor.processEncodedResponse(corpus.gzipResponse, body, ContentCoding.GZIP, snapshot);
+    }
+    
+    private HttpProcessingResult processRequest(Corpus corpus, ConfigSnapshot config) {
+        HttpRequest request = corpus.request;
+        HttpBodyView body = HttpBodyView.of(request);
+        long scanResult = scan(corpus, body);
+        return processor.processRequest(request, body, scanResult, config.cleaningPipelineFor(body.length()));
+    }
+    
+    private HttpProcessingResult processResponse(Corpus corpus, ConfigSnapshot config) {
+        HttpResponse response = corpus.response;
+        HttpBodyView body = HttpBodyView.of(response);
+        long scanResult = scan(corpus, body);
+        return processor.processResponse(response, body, scanResult, config.cleaningPipelineFor(body.length()));
+    }
+    
+    private long scan(Corpus corpus, HttpBodyView body) {
+        return scanner.scan(body, classify(corpus), snapshot);
+    }
+    
+    /**
+     * 与 HttpMessageHandler 一致：只有没有声明 Content-Type 时才检测内容类型
+     */
+    private static boolean classify(Corpus corpus) {
+        return "none".equals(corpus.contentType);
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2024. All rights reserved.
+ */
+
+package oxff.org;
+
+import oxff.org.batch.DumpCleaningSummary;
+import oxff.org.batch.DumpDirectoryCleaner;
+import oxff.org.cleaning.CleaningStrategyType;
+import oxff.org.config.ConfigSnapshot;
+import oxff.org.har.HarCleaner;
+import oxff.org.har.HarCleaningSummary;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * 命令行入口：在 Burp Suite 之外批量清理导出的流量
+ * 
+ * 插件 JAR 的 Main-Class 指向本类，直接用 java -jar 运行：
+ * 
+ *   java -jar RemoveExtraBlankLines-1.3.6.jar har [-s 策略,...] input.har output.har
+ *   java -jar RemoveExtraBlankLines-1.3.6.jar dir [-o 输出目录] [-r 报告] [-p 线程数] [-n] 输入目录
+ * 
+ * 清理规则与插件默认配置一致。har 命令用 -s 指定清理策略（leading、collapse、trailing、
+ * normalize_line_endings，默认只去掉开头空行）；dir 命令按原始报文模式处理 .http/.txt 文件。
+ * 完成后输出统计；参数错误返回 2，处理失败（dir 命令中有文件出错）返回 1。
+ */
+public class RemoveExtraBlankLinesCli {
+    
+    private static final String USAGE = String.join(System.lineSeparator(),
+        "用法:",
+        "  java -jar RemoveExtraBlankLines.jar har [-s 策略,...] <输入.har> <输出.har>",
+        "  java -jar RemoveExtraBlankLines.jar dir [-o 输出目录] [-r 报告文件] [-p 线程数] [-n] <输入目录>",
+        "",
+        "har 选项:",
+        "  -s  清理策略，逗号分隔: leading, collapse, trailing, normalize_line_endings（默认 leading）",
+        "",
+        "dir 选项（处理目录树中的 .http/.txt 原始报文，去掉起始行之前和正文开头的空行）:",
+        "  -o  输出目录，按相同的相对路径写出全部文件；省略时原地替换被清理的文件",
+        "  -r  报告文件，列出被清理和出错的文件",
+        "  -p  工作线程数（默认 CPU 数）",
+        "  -n  试运行，只统计不写文件");
+    
+    public static void main(String[] args) {
+        System.exit(run(args));
+    }
+    
+    /**
+     * 执行命令
+     * 
+     * @param args 命令行参数
+     * @return 退出码
+     */
+    public static int run(String[] args) {
+        if (args.length > 0 && "har".equals(args[0])) {
+            return runHar(args);
+        }
+        if (args.length > 0 && "dir".equals(args[0])) {
+            return runDirectory(args);
+        }
+        System.err.println(USAGE);
+        return 2;
+    }
+    
+    /**
+     * 清理 HAR 文件
+     */
+    private static int runHar(String[] args) {
+        ConfigSnapshot snapshot = ConfigSnapshot.defaults();
+        int index = 1;
+        try {
+            if (index + 1 < args.length && "-s".equals(args[index])) {
+                snapshot = snapshot.withCleaningStrategies(parseStrategies(args[index + 1]));
+                index += 2;
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            return 2;
+        }
+        if (args.length - index != 2) {
+            System.err.println(USAGE);
+            return 2;
+        }
+        
+        Path input = Paths.get(args[index]);
+        Path output = Paths.get(args[index + 1]);
+        try {
+            HarCleaningSummary summary = new HarCleaner(snapshot).clean(input, output);
+            System.out.println("清理策略: " + snapshot.getCleaningPipeline().describe());
+            System.out.print(summary.toDisplayString());
+            return 0;
+        } catch (IOException e) {
+            System.err.println("处理 " + input + " 失败: " + e.getMessage());
+            return 1;
+        }
+    }
+    
+    /**
+     * 并行清理目录树中的原始报文文件
+     */
+    private static int runDirectory(String[] args) {
+        Path output = null;
+        Path report = null;
+        int parallelism = Runtime.getRuntime().availableProcessors();
+        boolean dryRun = false;
+        int index = 1;
+        try {
+            while (index < args.length - 1) {
+                String option = args[index];
+                if ("-n".equals(option)) {
+                    dryRun = true;
+                    index++;
+                } else if ("-o".equals(option)) {
+                    output = Paths.get(args[index + 1]);
+                    index += 2;
+                } else if ("-r".equals(option)) {
+                    report = Paths.get(args[index + 1]);
+                    index += 2;
+                } else if ("-p".equals(option)) {
+                    parallelism = Integer.parseInt(args[index + 1]);
+                    if (parallelism < 1) {
+                        throw new IllegalArgumentException("线程数必须大于 0");
+                    }
+                    index += 2;
+                } else {
+                    break;
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            return 2;
+        }
+        if (args.length - index != 1) {
+            System.err.println(USAGE);
+            return 2;
+        }
+        
+        Path input = Paths.get(args[index]);
+        try {
+            DumpCleaningSummary summary = new DumpDirectoryCleaner(ConfigSnapshot.defaults(), input, output, dryRun)
+                .run(parallelism, report);
+            System.out.print(summary.toDisplayString());
+            return summary.getErrors() > 0 ? 1 : 0;
+        } catch (IOException e) {
+            System.err.println("处理 " + input + " 失败: " + e.getMessage());
+            return 1;
+        }
+    }
+    
+    /**
+     * 解析逗号分隔的清理策略名称
+     */
+    private static Set<CleaningStrategyType> parseStrategies(String value) {
+        Set<CleaningStrategyType> strategies = EnumSet.noneOf(CleaningStrategyType.class);
+        for (String name : value.split(",")) {
+            String trimmed = name.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            try {
+                strategies.add(CleaningStrategyType.valueOf(trimmed.toUpperCase(Locale.ROOT)));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("未知的清理策略: " + trimmed);
+            }
+        }
+        return strategies;
+    }
+}
@@ -11,8 +11,12 @@ package oxff.org;
 import burp.api.montoya.BurpExtension;
 import burp.api.montoya.MontoyaApi;
 import oxff.org.config.PluginConfig;
+import oxff.org.handler.EndpointBypassTable;
 import oxff.org.handler.HttpMessageHandler;
+import oxff.org.logging.AsyncLogger;
+import oxff.org.metrics.ProcessingMetrics;
 import oxff.org.ui.SettingsPanel;
+import oxff.org.util.ByteScanners;
 
 /**
  * Burp Suite 插件: 去除 HTTP 请求或响应报文头和体之间的多余空行
@@ -26,35 +30,52 @@ import oxff.org.ui.SettingsPanel;
  * - 模块化设计，便于维护和扩展
  * - 模块生效控制（proxy, repeater, intruder, extensions）
  * - 目标域控制（可基于Burp Suite的目标范围）
+ * - 处理统计（按模块和方向统计数量、跳过原因和耗时）
+ * - 自适应跳过（从未需要清理的端点只做抽样检查）
  */
 public class RemoveExtraBlankLinesExtension implements BurpExtension {
     
-    @SuppressWarnings("unused")
-    private MontoyaApi api;
     private PluginConfig config;
+    private ProcessingMetrics metrics;
+    private AsyncLogger logger;
+    private EndpointBypassTable bypassTable;
     
     @Override
     public void initialize(MontoyaApi api) {
-        this.api = api;
-        
         // 设置插件名称
         api.extension().setName("Remove Extra Blank Lines");
         
         // 初始化配置管理器
         this.config = new PluginConfig(api);
         
-        // 注册 HTTP 处理器，传入配置
-        api.http().registerHttpHandler(new HttpMessageHandler(api, config));
+        // 初始化处理指标
+        this.metrics = new ProcessingMetrics();
+        
+        // 初始化异步日志记录器
+        this.logger = new AsyncLogger(api.logging(), config);
+        
+        // 初始化端点自适应跳过表
+        this.bypassTable = new EndpointBypassTable();
+        
+        // 注册 HTTP 处理器，传入配置、处理指标、日志记录器和自适应跳过表
+        api.http().registerHttpHandler(new HttpMessageHandler(config, metrics, logger, bypassTable));
         
         // 创建并注册设置面板
-        SettingsPanel settingsPanel = new SettingsPanel(api, config);
+        SettingsPanel settingsPanel = new SettingsPanel(api, config, metrics, bypassTable);
         api.userInterface().registerSuiteTab(settingsPanel.getTitle(), settingsPanel);
         
+        // 插件卸载时停止统计刷新，并写出剩余的日志
+        api.extension().registerUnloadingHandler(() -> {
+            settingsPanel.dispose();
+            logger.close();
+        });
+        
         // 输出初始化日志
         api.logging().logToOutput("Remove Extra Blank Lines 插件已加载");
         api.logging().logToOutput("支持智能二进制检测和模块化设计");
         api.logging().logToOutput("支持模块生效控制和目标域控制");
         api.logging().logToOutput("已注册图形化配置面板，可在主界面标签页中访问");
+        api.logging().logToOutput("字节扫描实现: " + ByteScanners.describe());
         
         // 输出当前配置信息
         api.logging().logToOutput(config.getConfigDescription());
@@ -68,4 +89,22 @@ public class RemoveExtraBlankLinesExtension implements BurpExtension {
     public PluginConfig getConfig() {
         return config;
     }
+    
+    /**
+     * 获取处理指标
+     * 
+     * @return 处理指标实例
+     */
+    public ProcessingMetrics getMetrics() {
+        return metrics;
+    }
+    
+    /**
+     * 获取端点自适应跳过表
+     * 
+     * @return 自适应跳过表实例
+     */
+    public EndpointBypassTable getBypassTable() {
+        return bypassTable;
+    }
 } 
\ No newline at end of file
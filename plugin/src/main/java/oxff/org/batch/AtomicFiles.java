@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2024. All rights reserved.
+ */
+
+package oxff.org.batch;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * 原子地写入文件
+ * 
+ * 先写入目标目录中的临时文件，再用 ATOMIC_MOVE 替换目标文件。读取方要么看到旧文件，要么看到完整的新文件；
+ * 进程中途退出时只会留下以 ".tmp" 结尾的临时文件，不会留下写了一半的目标文件。
+ * 文件系统不支持原子移动时退回普通的替换。
+ */
+public final class AtomicFiles {
+    
+    private AtomicFiles() {
+    }
+    
+    /**
+     * 原子地写入字节数组
+     * 
+     * @param target 目标文件
+     * @param data 文件内容
+     */
+    public static void write(Path target, byte[] data) throws IOException {
+        Path temp = createTemp(target);
+        try {
+            Files.write(temp, data);
+            moveIntoPlace(temp, target);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+    
+    /**
+     * 原子地复制文件
+     * 
+     * @param source 源文件
+     * @param target 目标文件
+     */
+    public static void copy(Path source, Path target) throws IOException {
+        Path temp = createTemp(target);
+        try {
+            Files.copy(source, temp, StandardCopyOption.REPLACE_EXISTING);
+            moveIntoPlace(temp, target);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+    
+    /**
+     * 在目标文件所在目录中创建临时文件（同一文件系统内才能原子移动）
+     * 
+     * @param target 目标文件
+     * @return 临时文件
+     */
+    public static Path createTemp(Path target) throws IOException {
+        Path directory = target.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        return Files.createTempFile(directory, "." + target.getFileName(), ".tmp");
+    }
+    
+    /**
+     * 用临时文件替换目标文件
+     * 
+     * @param temp 已写完的临时文件
+     * @param target 目标文件
+     */
+    public static void moveIntoPlace(Path temp, Path target) throws IOException {
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
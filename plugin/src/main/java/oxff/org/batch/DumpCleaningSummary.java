@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2024. All rights reserved.
+ */
+
+package oxff.org.batch;
+
+import oxff.org.metrics.SkipReason;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 目录批量清理的统计结果
+ * 
+ * 由多个工作线程同时累加，计数器使用 LongAdder 避免竞争。
+ */
+public class DumpCleaningSummary {
+    
+    private final LongAdder files = new LongAdder();
+    private final LongAdder bytesRead = new LongAdder();
+    private final LongAdder modified = new LongAdder();
+    private final LongAdder bytesRemoved = new LongAdder();
+    private final LongAdder[] skipped = new LongAdder[SkipReason.values().length];
+    private volatile long elapsedMillis;
+    
+    public DumpCleaningSummary() {
+        for (int i = 0; i < skipped.length; i++) {
+            skipped[i] = new LongAdder();
+        }
+    }
+    
+    void recordFile(long size) {
+        files.increment();
+        bytesRead.add(size);
+    }
+    
+    void recordModified(long removed) {
+        modified.increment();
+        bytesRemoved.add(removed);
+    }
+    
+    void recordSkipped(SkipReason reason) {
+        skipped[reason.ordinal()].increment();
+    }
+    
+    void setElapsedMillis(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+    
+    /**
+     * 获取处理的文件数
+     */
+    public long getFiles() {
+        return files.sum();
+    }
+    
+    /**
+     * 获取读取的总字节数
+     */
+    public long getBytesRead() {
+        return bytesRead.sum();
+    }
+    
+    public long getModified() {
+        return modified.sum();
+    }
+    
+    public long getBytesRemoved() {
+        return bytesRemoved.sum();
+    }
+    
+    public long getSkipped(SkipReason reason) {
+        return skipped[reason.ordinal()].sum();
+    }
+    
+    /**
+     * 获取处理出错的文件数
+     */
+    public long getErrors() {
+        return getSkipped(SkipReason.ERROR);
+    }
+    
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+    
+    /**
+     * 格式化为多行文本，用于命令行输出和报告
+     * 
+     * @return 格式化后的统计信息
+     */
+    public String toDisplayString() {
+        double seconds = Math.max(1, elapsedMillis) / 1000.0;
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("文件数: %d，已清理: %d，移除字节: %d%n", getFiles(), getModified(), getBytesRemoved()));
+        sb.append(String.format("耗时: %.1f 秒，%.0f 个文件/秒，%.1f MB/s%n", seconds, getFiles() / seconds,
+            getBytesRead() / seconds / (1024 * 1024)));
+        
+        sb.append(System.lineSeparator()).append("跳过原因:").append(System.lineSeparator());
+        for (SkipReason reason : SkipReason.values()) {
+            long count = getSkipped(reason);
+            if (count > 0) {
+                sb.append(String.format("  %-20s %10d%n", reason.getDisplayName(), count));
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2024. All rights reserved.
+ */
+
+package oxff.org.batch;
+
+import oxff.org.config.ConfigSnapshot;
+import oxff.org.metrics.SkipReason;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * 并行清理目录树中的原始报文文件（.http、.txt）
+ * 
+ * 目录遍历和文件处理都是 ForkJoinPool 中的任务（见 DumpDirectoryTask），由工作窃取平衡负载。
+ * 每个文件由 DumpFileCleaner 处理，结果原子地写出：
+ * - 指定输出目录时按相同的相对路径写出全部文件，未修改的文件原样复制
+ * - 未指定输出目录时原地替换被清理的文件，未修改的文件不写
+ * - 试运行时只统计，不写任何文件
+ * 
+ * 单个文件出错时记录到统计和报告中，继续处理其他文件。
+ */
+public class DumpDirectoryCleaner {
+    
+    private final Path inputRoot;
+    private final Path outputRoot;
+    private final boolean dryRun;
+    private final DumpFileCleaner fileCleaner;
+    private final DumpCleaningSummary summary = new DumpCleaningSummary();
+    private volatile DumpReport report;
+    
+    /**
+     * @param snapshot 使用的配置
+     * @param inputRoot 输入目录
+     * @param outputRoot 输出目录，为 null 时原地替换
+     * @param dryRun 是否只统计不写出
+     */
+    public DumpDirectoryCleaner(ConfigSnapshot snapshot, Path inputRoot, Path outputRoot, boolean dryRun) {
+        this.inputRoot = inputRoot.toAbsolutePath().normalize();
+        this.outputRoot = outputRoot != null ? outputRoot.toAbsolutePath().normalize() : null;
+        this.dryRun = dryRun;
+        this.fileCleaner = new DumpFileCleaner(snapshot);
+    }
+    
+    /**
+     * 执行清理
+     * 
+     * @param parallelism 工作线程数
+     * @param reportPath 报告文件路径，为 null 时不写报告
+     * @return 统计结果
+     */
+    public DumpCleaningSummary run(int parallelism, Path reportPath) throws IOException {
+        if (!Files.isDirectory(inputRoot)) {
+            throw new IOException("输入目录不存在: " + inputRoot);
+        }
+        if (outputRoot != null && outputRoot.startsWith(inputRoot)) {
+            throw new IOException("输出目录不能位于输入目录中: " + outputRoot);
+        }
+        
+        long start = System.currentTimeMillis();
+        try (DumpReport openedReport = reportPath != null ? new DumpReport(reportPath) : null) {
+            report = openedReport;
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                pool.invoke(new DumpDirectoryTask(this, inputRoot));
+            } finally {
+                pool.shutdown();
+            }
+            summary.setElapsedMillis(System.currentTimeMillis() - start);
+            if (openedReport != null) {
+                openedReport.commit(summary.toDisplayString());
+            }
+        } finally {
+            report = null;
+        }
+        return summary;
+    }
+    
+    /**
+     * 是否处理该文件（按扩展名 .http 和 .txt 判断）
+     */
+    boolean accepts(Path file) {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        return (name.endsWith(".http") || name.endsWith(".txt")) && Files.isRegularFile(file, LinkOption.NOFOLLOW_LINKS);
+    }
+    
+    /**
+     * 清理单个文件并写出结果
+     */
+    void cleanFile(Path file) {
+        Path relative = inputRoot.relativize(file);
+        try {
+            byte[] cleaned = fileCleaner.clean(file, summary);
+            long removed = cleaned != null ? Files.size(file) - cleaned.length : 0;
+            if (!dryRun) {
+                Path target = outputRoot != null ? outputRoot.resolve(relative) : file;
+                if (cleaned != null) {
+                    AtomicFiles.write(target, cleaned);
+                } else if (outputRoot != null) {
+                    AtomicFiles.copy(file, target);
+                }
+            }
+            DumpReport current = report;
+            if (cleaned != null && current != null) {
+                current.modified(relative, removed);
+            }
+        } catch (IOException | RuntimeException e) {
+            recordError(file, e);
+        }
+    }
+    
+    /**
+     * 记录出错的文件或目录
+     * 
+     * @param path 输入目录中的文件或目录
+     * @param e 异常
+     */
+    void recordError(Path path, Exception e) {
+        summary.recordSkipped(SkipReason.ERROR);
+        DumpReport current = report;
+        if (current != null) {
+            try {
+                current.error(inputRoot.relativize(path), String.valueOf(e.getMessage()));
+            } catch (IOException ignored) {
+                // 报告写入失败时只保留统计
+            }
+        }
+    }
+    
+    /**
+     * 获取统计结果
+     */
+    public DumpCleaningSummary getSummary() {
+        return summary;
+    }
+}
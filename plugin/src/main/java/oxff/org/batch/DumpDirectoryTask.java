@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2024. All rights reserved.
+ */
+
+package oxff.org.batch;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * 遍历一个目录的 fork/join 任务
+ * 
+ * 边列目录边派生任务：每个子目录一个任务，文件每 BATCH_SIZE 个组成一个批次任务。
+ * 派生的任务进入当前工作线程的队列，空闲线程从其他线程的队列尾部窃取，
+ * 目录大小和文件大小不均匀时负载也能自动平衡。不跟随符号链接，避免目录环。
+ */
+class DumpDirectoryTask extends RecursiveAction {
+    
+    private static final long serialVersionUID = 1L;
+    
+    // 每个批次任务处理的文件数
+    static final int BATCH_SIZE = 32;
+    
+    private final DumpDirectoryCleaner cleaner;
+    private final Path directory;
+    
+    DumpDirectoryTask(DumpDirectoryCleaner cleaner, Path directory) {
+        this.cleaner = cleaner;
+        this.directory = directory;
+    }
+    
+    @Override
+    protected void compute() {
+        List<ForkJoinTask<?>> tasks = new ArrayList<>();
+        List<Path> batch = new ArrayList<>(BATCH_SIZE);
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (Path path : stream) {
+                if (Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
+                    tasks.add(new DumpDirectoryTask(cleaner, path).fork());
+                } else if (cleaner.accepts(path)) {
+                    batch.add(path);
+                    if (batch.size() == BATCH_SIZE) {
+                        tasks.add(new DumpFileBatchTask(cleaner, batch).fork());
+                        batch = new ArrayList<>(BATCH_SIZE);
+                    }
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            cleaner.recordError(directory, e);
+        }
+        
+        // 最后一个不满的批次在当前线程直接处理
+        if (!batch.isEmpty()) {
+            new DumpFileBatchTask(cleaner, batch).invoke();
+        }
+        for (ForkJoinTask<?> task : tasks) {
+            task.join();
+        }
+    }
+}
@@ -0,0 +1,32 @@
+/*
+ * Copyright (c) 2024. All rights reserved.
+ */
+
+package oxff.org.batch;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * 处理一批文件的 fork/join 任务
+ */
+class DumpFileBatchTask extends RecursiveAction {
+    
+    private static final long serialVersionUID = 1L;
+    
+    private final DumpDirectoryCleaner cleaner;
+    private final List<Path> files;
+    
+    DumpFileBatchTask(DumpDirectoryCleaner cleaner, List<Path> files) {
+        this.cleaner = cleaner;
+        this.files = files;
+    }
+    
+    @Override
+    protected void compute() {
+        for (Path file : files) {
+            cleaner.cleanFile(file);
+        }
+    }
+}
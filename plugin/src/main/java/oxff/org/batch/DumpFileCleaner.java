@@ -0,0 +1,169 @@
+/*
+ * Copyright (c) 2024. All rights reserved.
+ */
+
+package oxff.org.batch;
+
+import oxff.org.config.ConfigSnapshot;
+import oxff.org.metrics.SkipReason;
+import oxff.org.util.ContentAnalyzer;
+import oxff.org.util.ContentCoding;
+import oxff.org.util.HttpBodyView;
+import oxff.org.util.MediaTypeClassifier;
+import oxff.org.util.RawMessageCleaner;
+import oxff.org.util.RawMessageHead;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * 清理单个原始报文文件（完整的 HTTP 请求或响应）
+ * 
+ * 大文件用 FileChannel.map 映射，小文件直接读入（逐个映射小文件的系统调用开销高于一次读取）。
+ * 先在映射的字节上完成判断：由 RawMessageHead 定位头部，检查 Content-Type/Content-Encoding、查看起始行之前和正文开头
+ * 是否可能有空行。大部分已经规范的文件在这一步就结束，不复制到堆上；
+ * 只有可能需要清理的文件才复制为字节数组，连同已经解析的头部交给 RawMessageCleaner 一次拼接出新报文。
+ * 
+ * 无状态，可以被多个工作线程共享。
+ */
+public class DumpFileCleaner {
+    
+    // 不小于该大小的文件使用内存映射
+    static final int MAP_THRESHOLD = 64 * 1024;
+    
+    private final ConfigSnapshot snapshot;
+    private final RawMessageCleaner rawCleaner = new RawMessageCleaner();
+    private final ContentAnalyzer contentAnalyzer = new ContentAnalyzer();
+    
+    /**
+     * @param snapshot 使用的配置（大小上限、Content-Type 分类规则等）
+     */
+    public DumpFileCleaner(ConfigSnapshot snapshot) {
+        this.snapshot = snapshot;
+    }
+    
+    /**
+     * 清理文件
+     * 
+     * @param file 报文文件
+     * @param summary 统计结果，文件数和读取字节数在这里累加
+     * @return 清理后的报文；未修改时返回 null，原因已记录到 summary
+     */
+    public byte[] clean(Path file, DumpCleaningSummary summary) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            summary.recordFile(size);
+            if (size == 0) {
+                summary.recordSkipped(SkipReason.TOO_SHORT);
+                return null;
+            }
+            if (size > Integer.MAX_VALUE - 8) {
+                summary.recordSkipped(SkipReason.TOO_LARGE);
+                return null;
+            }
+            
+            ByteBuffer buffer = size >= MAP_THRESHOLD
+                ? channel.map(FileChannel.MapMode.READ_ONLY, 0, size)
+                : readFully(channel, (int) size);
+            RawMessageHead head = RawMessageHead.parse(buffer);
+            SkipReason reason = check(buffer, head);
+            if (reason != null) {
+                summary.recordSkipped(reason);
+                return null;
+            }
+            
+            // 复制后偏移量不变，头部不再重新解析
+            byte[] message = toArray(buffer);
+            byte[] cleaned = clean(message, head);
+            if (cleaned == null) {
+                summary.recordSkipped(SkipReason.BINARY_CONTENT);
+                return null;
+            }
+            if (cleaned == message) {
+                summary.recordSkipped(SkipReason.NO_CHANGE);
+                return null;
+            }
+            summary.recordModified(message.length - cleaned.length);
+            return cleaned;
+        }
+    }
+    
+    /**
+     * 在映射的字节上判断文件是否可能需要清理，不复制数据
+     * 
+     * @param head 头部位置，没有头部结束标记时为 null
+     * @return 不需要处理的原因；可能需要清理时返回 null
+     */
+    private SkipReason check(ByteBuffer buffer, RawMessageHead head) {
+        if (head == null) {
+            // 没有头部结束标记，不是完整的报文
+            return SkipReason.TOO_SHORT;
+        }
+        int size = buffer.limit();
+        int bodyOffset = head.bodyOffset();
+        
+        if (ContentCoding.parse(head.contentEncoding()) != ContentCoding.IDENTITY) {
+            return SkipReason.ENCODED;
+        }
+        if (snapshot.isTooLarge(size - bodyOffset)) {
+            return SkipReason.TOO_LARGE;
+        }
+        if (snapshot.getMediaTypeClassifier().classify(head.contentType()) == MediaTypeClassifier.Category.BINARY) {
+            return SkipReason.BINARY_CONTENT_TYPE;
+        }
+        
+        // 起始行之前没有空行、正文不以空白开头且不是分块传输时，清理器不会做任何修改
+        if (head.lead() == 0 && !head.isChunked() && (bodyOffset == size || !isWhitespace(buffer.get(bodyOffset)))) {
+            return SkipReason.NO_CHANGE;
+        }
+        return null;
+    }
+    
+    /**
+     * 检查内容后清理完整报文
+     * 
+     * @param head check() 中解析的头部位置
+     * @return 清理后的报文（未修改时为原数组）；正文为二进制时返回 null
+     */
+    private byte[] clean(byte[] message, RawMessageHead head) {
+        if (snapshot.getMediaTypeClassifier().classify(head.contentType()) == MediaTypeClassifier.Category.UNKNOWN) {
+            byte[] body = Arrays.copyOfRange(message, head.bodyOffset(), message.length);
+            if (!contentAnalyzer.containsTextContent(HttpBodyView.of(body), snapshot)) {
+                return null;
+            }
+        }
+        return rawCleaner.clean(message, head);
+    }
+    
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\r' || b == '\n';
+    }
+    
+    private static ByteBuffer readFully(FileChannel channel, int size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                break;
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+    
+    /**
+     * 获取缓冲区的字节数组：直接读入的缓冲区复用底层数组，映射的缓冲区复制一次
+     */
+    private static byte[] toArray(ByteBuffer buffer) {
+        int size = buffer.limit();
+        if (buffer.hasArray() && buffer.arrayOffset() == 0 && buffer.array().length == size) {
+            return buffer.array();
+        }
+        byte[] bytes = new byte[size];
+        buffer.get(0, bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2024. All rights reserved.
+ */
+
+package oxff.org.batch;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * 目录批量清理的报告文件
+ * 
+ * 每个被清理或出错的文件一行，边处理边写入临时文件，内存占用与文件数量无关；
+ * commit() 写入汇总后原子地移动到报告路径，处理中断时不会留下不完整的报告。
+ */
+public class DumpReport implements Closeable {
+    
+    private final Path target;
+    private final Path temp;
+    private final BufferedWriter writer;
+    private boolean closed;
+    
+    /**
+     * 创建报告
+     * 
+     * @param target 报告文件路径
+     */
+    public DumpReport(Path target) throws IOException {
+        this.target = target;
+        this.temp = AtomicFiles.createTemp(target);
+        this.writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8);
+    }
+    
+    /**
+     * 记录一个被清理的文件
+     */
+    public synchronized void modified(Path file, long bytesRemoved) throws IOException {
+        writer.write("已清理\t" + file + "\t" + bytesRemoved);
+        writer.newLine();
+    }
+    
+    /**
+     * 记录一个处理出错的文件
+     */
+    public synchronized void error(Path file, String message) throws IOException {
+        writer.write("出错\t" + file + "\t" + message);
+        writer.newLine();
+    }
+    
+    /**
+     * 写入汇总并把报告原子地移动到目标路径
+     * 
+     * @param summary 汇总文本
+     */
+    public synchronized void commit(String summary) throws IOException {
+        writer.newLine();
+        writer.write(summary);
+        writer.close();
+        closed = true;
+        AtomicFiles.moveIntoPlace(temp, target);
+    }
+    
+    /**
+     * 放弃未提交的报告，删除临时文件
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (!closed) {
+            writer.close();
+            closed = true;
+        }
+        Files.deleteIfExists(temp);
+    }
+}
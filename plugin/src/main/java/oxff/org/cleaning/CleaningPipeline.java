@@ -0,0 +1,342 @@
+/*
+ * Copyright (c) 2024. All rights reserved.
+ */
+
+package oxff.org.cleaning;
+
+import oxff.org.util.BufferPool;
+import oxff.org.util.FusedBodyScanner;
+import oxff.org.util.HttpBodyView;
+import oxff.org.util.HttpMessageCleaner;
+import oxff.org.util.ProcessingResult;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 预编译的清理流水线
+ * 
+ * 在配置变化时由选中的策略编译一次（保存在 ConfigSnapshot 中），处理时不再做任何判断或分配：
+ * 1. 按开销顺序执行边界策略，得到需要保留的范围 [start, end)
+ * 2. 如果有逐行策略，在该范围内只扫描一遍，所有逐行策略在同一次扫描中生效；
+ *    输出缓冲区只在第一次出现差异时从 BufferPool 借用，最终结果按实际长度复制一次，未修改时不复制
+ * 3. 没有逐行策略时，结果直接截取原始 ByteArray，不复制
+ * 
+ * 只选择"去掉开头空行"时直接复用 FusedBodyScanner 的扫描结果，行为与原有处理完全一致。
+ */
+public final class CleaningPipeline {
+    
+    private static final CleaningPipeline LEADING_ONLY = compile(EnumSet.of(CleaningStrategyType.LEADING));
+    
+    private static final byte[] SINGLE_LF = {'\n'};
+    private static final byte[] CRLF = {'\r', '\n'};
+    
+    private static final BufferPool BUFFER_POOL = BufferPool.shared();
+    
+    private final Set<CleaningStrategyType> types;
+    private final CleaningStrategy[] boundaryStages;
+    private final CleaningStrategy[] lineStages;
+    private final boolean leadingOnly;
+    private final HttpMessageCleaner messageCleaner;
+    
+    // 只包含边界策略的流水线，用于超过完整分析上限的正文
+    private CleaningPipeline boundaryOnly;
+    
+    private CleaningPipeline(Set<CleaningStrategyType> types, List<CleaningStrategy> boundary, List<CleaningStrategy> line) {
+        this.types = types;
+        this.boundaryStages = boundary.toArray(new CleaningStrategy[0]);
+        this.lineStages = line.toArray(new CleaningStrategy[0]);
+        this.leadingOnly = lineStages.length == 0 && boundaryStages.length == 1
+            && boundaryStages[0].getType() == CleaningStrategyType.LEADING;
+        this.messageCleaner = new HttpMessageCleaner();
+    }
+    
+    /**
+     * 编译清理流水线
+     * 
+     * @param selected 选中的策略类型，可以为空（不做任何清理）
+     * @return 编译后的流水线
+     */
+    public static CleaningPipeline compile(Collection<CleaningStrategyType> selected) {
+        Set<CleaningStrategyType> types = selected.isEmpty()
+            ? EnumSet.noneOf(CleaningStrategyType.class) : EnumSet.copyOf(selected);
+        
+        List<CleaningStrategy> boundary = new ArrayList<>();
+        List<CleaningStrategy> line = new ArrayList<>();
+        for (CleaningStrategyType type : types) {
+            CleaningStrategy strategy = type.getStrategy();
+            (strategy.isLineStage() ? line : boundary).add(strategy);
+        }
+        boundary.sort(Comparator.comparingInt(CleaningStrategy::getCost));
+        line.sort(Comparator.comparingInt(CleaningStrategy::getCost));
+        
+        CleaningPipeline pipeline = new CleaningPipeline(Collections.unmodifiableSet(types), boundary, line);
+        pipeline.boundaryOnly = line.isEmpty()
+            ? pipeline
+            : new CleaningPipeline(pipeline.types, boundary, Collections.emptyList());
+        if (pipeline.boundaryOnly != pipeline) {
+            pipeline.boundaryOnly.boundaryOnly = pipeline.boundaryOnly;
+        }
+        return pipeline;
+    }
+    
+    /**
+     * 获取只去掉开头空行的流水线（插件的默认清理方式）
+     */
+    public static CleaningPipeline leadingOnly() {
+        return LEADING_ONLY;
+    }
+    
+    /**
+     * 获取选中的策略类型（只读）
+     */
+    public Set<CleaningStrategyType> getTypes() {
+        return types;
+    }
+    
+    /**
+     * 是否只去掉开头空行
+     * 
+     * 此时 FusedBodyScanner 的扫描结果已经能确定是否需要修改，无需再调用 clean。
+     */
+    public boolean isLeadingOnly() {
+        return leadingOnly;
+    }
+    
+    /**
+     * 是否不做任何清理
+     */
+    public boolean isEmpty() {
+        return boundaryStages.length == 0 && lineStages.length == 0;
+    }
+    
+    /**
+     * 获取只包含边界策略的流水线（开销与正文大小无关，用于超过完整分析上限的正文）
+     */
+    public CleaningPipeline boundaryOnly() {
+        return boundaryOnly;
+    }
+    
+    /**
+     * 获取按执行顺序排列的策略名称，用于日志和界面显示
+     */
+    public String describe() {
+        if (isEmpty()) {
+            return "不清理";
+        }
+        StringBuilder sb = new StringBuilder();
+        for (CleaningStrategy stage : boundaryStages) {
+            sb.append(sb.length() > 0 ? " → " : "").append(stage.getType().getDisplayName());
+        }
+        for (CleaningStrategy stage : lineStages) {
+            sb.append(sb.length() > 0 ? " → " : "").append(stage.getType().getDisplayName());
+        }
+        return sb.toString();
+    }
+    
+    /**
+     * 按融合扫描的结果清理正文视图
+     * 
+     * @param body 正文视图
+     * @param scanResult FusedBodyScanner 返回的打包结果
+     * @return 清理结果，包含处理后的字节数组和修改标记
+     */
+    public ProcessingResult clean(HttpBodyView body, long scanResult) {
+        if (leadingOnly) {
+            return messageCleaner.removeLeadingBlankLinesWithResult(body, scanResult);
+        }
+        return clean(body);
+    }
+    
+    /**
+     * 清理字节数组（不依赖 Montoya 运行环境）
+     * 
+     * @param bytes 正文字节数组
+     * @return 清理结果，包含处理后的字节数组和修改标记
+     */
+    public ProcessingResult clean(byte[] bytes) {
+        return clean(HttpBodyView.of(bytes));
+    }
+    
+    /**
+     * 清理正文视图
+     * 
+     * @param body 正文视图
+     * @return 清理结果，包含处理后的字节数组和修改标记
+     */
+    public ProcessingResult clean(HttpBodyView body) {
+        int length = body.length();
+        if (length == 0 || isEmpty()) {
+            return unchanged(body);
+        }
+        
+        // 1. 边界策略收窄范围
+        int start = 0;
+        int end = length;
+        for (CleaningStrategy stage : boundaryStages) {
+            start = stage.trimStart(body, start, end);
+            end = stage.trimEnd(body, start, end);
+            if (start >= end) {
+                // 整个正文都是空行，保留一个换行符
+                if (length == 1 && body.getByte(0) == '\n') {
+                    return unchanged(body);
+                }
+                return new ProcessingResult(new byte[]{'\n'}, true);
+            }
+        }
+        
+        // 2. 逐行策略在收窄后的范围内一次完成
+        if (lineStages.length > 0) {
+            ProcessingResult cleaned = applyLineStages(body.bytes(), start, end, body.byteArray() != null);
+            if (cleaned != null) {
+                return cleaned;
+            }
+        }
+        
+        // 3. 只有边界被收窄，直接截取
+        if (start == 0 && end == length) {
+            return unchanged(body);
+        }
+        if (body.byteArray() != null && !body.isMaterialized()) {
+            return new ProcessingResult(body.byteArray().subArray(start, end), true);
+        }
+        return new ProcessingResult(Arrays.copyOfRange(body.bytes(), start, end), true);
+    }
+    
+    /**
+     * 在 [from, to) 范围内逐行执行所有逐行策略
+     * 
+     * 行以 \n 或 \r\n 分隔；只包含 <= 0x20 字节的行视为空行。
+     * 保留的行之间输出上一个保留行的换行符（可被策略改写），在第一次出现差异之前不写入任何数据。
+     * 输出缓冲区从缓冲区池借用，最终结果只复制一次。
+     * 
+     * @param asByteArray true=结果为 Montoya ByteArray（正文来自 Burp），false=结果为 byte[]
+     * @return 清理结果；与 [from, to) 的内容完全一致时返回 null
+     */
+    private ProcessingResult applyLineStages(byte[] bytes, int from, int to, boolean asByteArray) {
+        byte[] out = null;
+        try {
+            int outLength = 0;
+                
+            int preferred = FusedBodyScanner.LINE_ENDING_NONE;
+            boolean anyKept = false;
+            boolean previousKeptBlank = false;
+            // 上一个保留行的换行符位置，在写入下一个保留行之前输出
+            int separatorStart = from;
+            int separatorEnd = from;
+            
+            int lineStart = from;
+            while (lineStart <= to) {
+                int i = lineStart;
+                boolean blank = true;
+                while (i < to && bytes[i] != '\n') {
+                    if ((bytes[i] & 0xFF) > 0x20) {
+                        blank = false;
+                    }
+                    i++;
+                }
+                
+                int contentEnd;
+                int next;
+                if (i < to) {
+                    contentEnd = (i > lineStart && bytes[i - 1] == '\r') ? i - 1 : i;
+                    next = i + 1;
+                    if (preferred == FusedBodyScanner.LINE_ENDING_NONE) {
+                        preferred = contentEnd < i ? FusedBodyScanner.LINE_ENDING_CRLF : FusedBodyScanner.LINE_ENDING_LF;
+                    }
+                } else {
+                    if (lineStart == from) {
+                        // 整个范围只有一行
+                        return null;
+                    }
+                    contentEnd = to;
+                    next = to + 1;
+                }
+                
+                boolean keep = true;
+                for (CleaningStrategy stage : lineStages) {
+                    if (!stage.keepLine(blank, anyKept, previousKeptBlank)) {
+                        keep = false;
+                        break;
+                    }
+                }
+                
+                if (keep) {
+                    if (anyKept) {
+                        int original = separatorEnd - separatorStart == 2
+                            ? FusedBodyScanner.LINE_ENDING_CRLF : FusedBodyScanner.LINE_ENDING_LF;
+                        int ending = original;
+                        for (CleaningStrategy stage : lineStages) {
+                            ending = stage.lineEnding(ending, preferred);
+                        }
+                        if (out == null && ending != original) {
+                            out = startOutput(bytes, from, separatorStart, to);
+                            outLength = separatorStart - from;
+                        }
+                        if (out != null) {
+                            byte[] separator = ending == FusedBodyScanner.LINE_ENDING_CRLF ? CRLF : SINGLE_LF;
+                            out = ensureCapacity(out, outLength, outLength + separator.length + (contentEnd - lineStart));
+                            System.arraycopy(separator, 0, out, outLength, separator.length);
+                            outLength += separator.length;
+                        }
+                    }
+                    if (out != null) {
+                        int contentLength = contentEnd - lineStart;
+                        out = ensureCapacity(out, outLength, outLength + contentLength);
+                        System.arraycopy(bytes, lineStart, out, outLength, contentLength);
+                        outLength += contentLength;
+                    }
+                    separatorStart = contentEnd;
+                    separatorEnd = Math.min(next, to);
+                    anyKept = true;
+                    previousKeptBlank = blank;
+                } else if (out == null) {
+                    // 第一次删除行：此前保留的内容与原数组完全一致，一次性复制过来
+                    int kept = anyKept ? separatorStart : from;
+                    out = startOutput(bytes, from, kept, to);
+                    outLength = kept - from;
+                }
+                
+                lineStart = next;
+            }
+            
+            if (out == null) {
+                return null;
+            }
+            return ProcessingResult.copyOf(out, outLength, asByteArray);
+        } finally {
+            BUFFER_POOL.release(out);
+        }
+    }
+    
+    /**
+     * 返回未修改的结果，优先使用原始 ByteArray，不复制
+     */
+    private static ProcessingResult unchanged(HttpBodyView body) {
+        if (body.byteArray() != null) {
+            return new ProcessingResult(body.byteArray(), false);
+        }
+        return new ProcessingResult(body.bytes(), false);
+    }
+    
+    /**
+     * 从缓冲区池借用输出缓冲区并复制与原数组一致的前缀
+     */
+    private static byte[] startOutput(byte[] bytes, int from, int keptEnd, int to) {
+        int length = to - from;
+        // 统一为 \r\n 时输出可能比输入长，预留少量余量
+        byte[] out = BUFFER_POOL.acquire(length + (length >>> 4) + 16);
+        System.arraycopy(bytes, from, out, 0, keptEnd - from);
+        return out;
+    }
+    
+    private static byte[] ensureCapacity(byte[] out, int used, int required) {
+        return BUFFER_POOL.grow(out, used, required);
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2024. All rights reserved.
+ */
+
+package oxff.org.cleaning;
+
+import oxff.org.util.HttpBodyView;
+
+/**
+ * 清理策略
+ * 
+ * 策略分为两类，由 CleaningPipeline 组合为一次处理：
+ * - 边界策略：只扫描正文开头或结尾的空行，收窄需要保留的范围，开销与正文大小无关
+ * - 逐行策略：在同一次逐行扫描中决定每行是否保留、换行符如何输出
+ * 
+ * 每个策略声明自己的开销，流水线按开销从低到高排列：先执行边界策略，
+ * 逐行扫描只覆盖收窄后的范围；每行的判断也按开销顺序进行，遇到删除即停止。
+ * 
+ * 策略本身不保存任何处理状态，可以被多个处理线程共享。
+ */
+public interface CleaningStrategy {
+    
+    // 只扫描开头或结尾的空行
+    int COST_BOUNDARY = 1;
+    
+    // 逐行判断是否保留
+    int COST_LINE = 10;
+    
+    // 逐行改写换行符（可能需要输出比输入更多的字节）
+    int COST_REWRITE = 20;
+    
+    /**
+     * 获取策略类型
+     */
+    CleaningStrategyType getType();
+    
+    /**
+     * 获取策略的相对开销，流水线按从低到高的顺序执行
+     */
+    int getCost();
+    
+    /**
+     * 是否需要逐行扫描整个正文
+     */
+    boolean isLineStage();
+    
+    /**
+     * 边界策略：收窄需要保留的范围的起始位置
+     * 
+     * @param body 正文视图
+     * @param from 当前范围的起始位置（包含）
+     * @param to 当前范围的结束位置（不包含）
+     * @return 新的起始位置，不修改时返回 from
+     */
+    default int trimStart(HttpBodyView body, int from, int to) {
+        return from;
+    }
+    
+    /**
+     * 边界策略：收窄需要保留的范围的结束位置
+     * 
+     * @param body 正文视图
+     * @param from 当前范围的起始位置（包含）
+     * @param to 当前范围的结束位置（不包含）
+     * @return 新的结束位置，不修改时返回 to
+     */
+    default int trimEnd(HttpBodyView body, int from, int to) {
+        return to;
+    }
+    
+    /**
+     * 逐行策略：判断一行是否保留
+     * 
+     * @param blank 该行是否为空行
+     * @param anyKept 此前是否已经保留过任何行
+     * @param previousKeptBlank 上一个保留的行是否为空行
+     * @return 保留返回 true
+     */
+    default boolean keepLine(boolean blank, boolean anyKept, boolean previousKeptBlank) {
+        return true;
+    }
+    
+    /**
+     * 逐行策略：决定两行之间输出的换行符
+     * 
+     * @param original 原有的换行符（FusedBodyScanner.LINE_ENDING_LF 或 LINE_ENDING_CRLF）
+     * @param preferred 正文中第一个换行符的类型
+     * @return 要输出的换行符类型
+     */
+    default int lineEnding(int original, int preferred) {
+        return original;
+    }
+}
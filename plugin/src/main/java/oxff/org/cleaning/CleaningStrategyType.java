@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) 2024. All rights reserved.
+ */
+
+package oxff.org.cleaning;
+
+/**
+ * 可选的清理策略
+ */
+public enum CleaningStrategyType {
+    LEADING("去掉开头空行"),
+    COLLAPSE("合并连续空行"),
+    TRAILING("去掉结尾空行"),
+    NORMALIZE_LINE_ENDINGS("统一换行符");
+    
+    private final String displayName;
+    
+    CleaningStrategyType(String displayName) {
+        this.displayName = displayName;
+    }
+    
+    /**
+     * 获取界面显示名称
+     */
+    public String getDisplayName() {
+        return displayName;
+    }
+    
+    /**
+     * 获取该类型对应的策略实例（策略无状态，全局共享）
+     */
+    public CleaningStrategy getStrategy() {
+        switch (this) {
+            case LEADING:
+                return LeadingBlankLinesStrategy.INSTANCE;
+            case COLLAPSE:
+                return CollapseBlankLinesStrategy.INSTANCE;
+            case TRAILING:
+                return TrailingBlankLinesStrategy.INSTANCE;
+            case NORMALIZE_LINE_ENDINGS:
+                return LineEndingNormalizationStrategy.INSTANCE;
+            default:
+                throw new IllegalStateException("未知的清理策略: " + this);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright (c) 2024. All rights reserved.
+ */
+
+package oxff.org.cleaning;
+
+/**
+ * 合并连续的空行，每组连续空行只保留第一个
+ * 
+ * 与 HttpMessageCleaner.cleanTextContent 使用相同的空行定义：只包含 <= 0x20 字节的行。
+ */
+public class CollapseBlankLinesStrategy implements CleaningStrategy {
+    
+    static final CollapseBlankLinesStrategy INSTANCE = new CollapseBlankLinesStrategy();
+    
+    private CollapseBlankLinesStrategy() {
+    }
+    
+    @Override
+    public CleaningStrategyType getType() {
+        return CleaningStrategyType.COLLAPSE;
+    }
+    
+    @Override
+    public int getCost() {
+        return COST_LINE;
+    }
+    
+    @Override
+    public boolean isLineStage() {
+        return true;
+    }
+    
+    @Override
+    public boolean keepLine(boolean blank, boolean anyKept, boolean previousKeptBlank) {
+        return !blank || !anyKept || !previousKeptBlank;
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright (c) 2024. All rights reserved.
+ */
+
+package oxff.org.cleaning;
+
+import oxff.org.util.HttpBodyView;
+import oxff.org.util.HttpMessageCleaner;
+
+/**
+ * 去掉正文开头的空行（插件原有的清理方式）
+ * 
+ * 空行指只包含空格和制表符的行，遇到第一个其他字节即停止扫描。
+ * 只使用该策略时，流水线直接复用 FusedBodyScanner 的扫描结果，不再重复扫描。
+ */
+public class LeadingBlankLinesStrategy implements CleaningStrategy {
+    
+    static final LeadingBlankLinesStrategy INSTANCE = new LeadingBlankLinesStrategy();
+    
+    private final HttpMessageCleaner messageCleaner = new HttpMessageCleaner();
+    
+    private LeadingBlankLinesStrategy() {
+    }
+    
+    @Override
+    public CleaningStrategyType getType() {
+        return CleaningStrategyType.LEADING;
+    }
+    
+    @Override
+    public int getCost() {
+        return COST_BOUNDARY;
+    }
+    
+    @Override
+    public boolean isLineStage() {
+        return false;
+    }
+    
+    @Override
+    public int trimStart(HttpBodyView body, int from, int to) {
+        return messageCleaner.findContentStart(body, from, to);
+    }
+}
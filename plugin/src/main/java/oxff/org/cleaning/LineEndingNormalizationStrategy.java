@@ -0,0 +1,38 @@
+/*
+ * Copyright (c) 2024. All rights reserved.
+ */
+
+package oxff.org.cleaning;
+
+/**
+ * 统一换行符：所有行都使用正文中第一个换行符的类型（\n 或 \r\n）
+ * 
+ * 单独的 \r 不视为换行符，原样保留。
+ */
+public class LineEndingNormalizationStrategy implements CleaningStrategy {
+    
+    static final LineEndingNormalizationStrategy INSTANCE = new LineEndingNormalizationStrategy();
+    
+    private LineEndingNormalizationStrategy() {
+    }
+    
+    @Override
+    public CleaningStrategyType getType() {
+        return CleaningStrategyType.NORMALIZE_LINE_ENDINGS;
+    }
+    
+    @Override
+    public int getCost() {
+        return COST_REWRITE;
+    }
+    
+    @Override
+    public boolean isLineStage() {
+        return true;
+    }
+    
+    @Override
+    public int lineEnding(int original, int preferred) {
+        return preferred;
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2024. All rights reserved.
+ */
+
+package oxff.org.cleaning;
+
+import oxff.org.util.HttpBodyView;
+
+/**
+ * 去掉正文结尾的空行
+ * 
+ * 从正文末尾向前扫描，保留最后一个非空行及其换行符，之后只包含空格、制表符和换行符的部分全部去掉。
+ * 开销只与结尾空白的长度相关。
+ */
+public class TrailingBlankLinesStrategy implements CleaningStrategy {
+    
+    static final TrailingBlankLinesStrategy INSTANCE = new TrailingBlankLinesStrategy();
+    
+    private TrailingBlankLinesStrategy() {
+    }
+    
+    @Override
+    public CleaningStrategyType getType() {
+        return CleaningStrategyType.TRAILING;
+    }
+    
+    @Override
+    public int getCost() {
+        return COST_BOUNDARY + 1;
+    }
+    
+    @Override
+    public boolean isLineStage() {
+        return false;
+    }
+    
+    @Override
+    public int trimEnd(HttpBodyView body, int from, int to) {
+        // 1. 向前找到最后一个非空白字节
+        int last = to - 1;
+        while (last >= from && isBlankByte(body.getByte(last))) {
+            last--;
+        }
+        if (last < from) {
+            return from; // 整个范围都是空白
+        }
+        
+        // 2. 跳过该行行尾的空格和制表符，保留紧随其后的一个换行符
+        int i = last + 1;
+        while (i < to && (body.getByte(i) == ' ' || body.getByte(i) == '\t')) {
+            i++;
+        }
+        if (i >= to) {
+            return to; // 最后一行没有换行符，无需修改
+        }
+        if (body.getByte(i) == '\r' && i + 1 < to && body.getByte(i + 1) == '\n') {
+            return i + 2;
+        }
+        return i + 1;
+    }
+    
+    private static boolean isBlankByte(byte b) {
+        return b == ' ' || b == '\t' || b == '\r' || b == '\n';
+    }
+}
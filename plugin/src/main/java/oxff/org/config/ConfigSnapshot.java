@@ -0,0 +1,448 @@
+/*
+ * Copyright (c) 2024. All rights reserved.
+ */
+
+package oxff.org.config;
+
+import burp.api.montoya.core.ToolType;
+import oxff.org.cleaning.CleaningPipeline;
+import oxff.org.cleaning.CleaningStrategyType;
+import oxff.org.logging.LogLevel;
+import oxff.org.util.BinarySignatureTable;
+import oxff.org.util.MediaTypeClassifier;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 不可变的配置快照
+ * 
+ * 所有字段在构造时确定，之后不再变化；魔数表、Content-Type分类器和清理流水线也在创建时编译完成。
+ * PluginConfig 通过一个 volatile 引用发布快照，修改配置时整体替换，
+ * HTTP 处理线程每条消息读取一次快照，无需加锁即可看到一致的配置。
+ * 
+ * 修改通过 with* 方法完成，每次从当前快照复制出 Builder，只改动相关字段后构造一个新快照。
+ */
+public final class ConfigSnapshot {
+    
+    // 默认启用的模块（所有支持的模块）
+    static final Set<ToolType> DEFAULT_ENABLED_MODULES = Collections.unmodifiableSet(EnumSet.of(
+        ToolType.PROXY,
+        ToolType.REPEATER,
+        ToolType.INTRUDER,
+        ToolType.EXTENSIONS
+    ));
+    
+    private static final ConfigSnapshot DEFAULTS = new Builder().build();
+    
+    private final Set<ToolType> enabledModules;
+    // 按 ToolType.ordinal() 索引的启用标记，处理线程的模块检查只需一次数组读取
+    private final boolean[] moduleEnabled;
+    private final boolean targetScopeOnly;
+    private final int sniffWindowSize;
+    private final int sniffTailSize;
+    private final List<String> customBinarySignatures;
+    private final BinarySignatureTable binarySignatureTable;
+    private final List<String> textMediaTypes;
+    private final List<String> binaryMediaTypes;
+    private final MediaTypeClassifier mediaTypeClassifier;
+    private final LogLevel logLevel;
+    private final boolean adaptiveBypass;
+    private final int maxAnalysisSize;
+    private final int maxCleanSize;
+    private final LargeBodyPolicy largeBodyPolicy;
+    private final Set<CleaningStrategyType> cleaningStrategies;
+    private final CleaningPipeline cleaningPipeline;
+    private final boolean rawMode;
+    private final boolean decodeCompressed;
+    private final int maxDecodedSize;
+    
+    private ConfigSnapshot(Builder builder) {
+        this.enabledModules = builder.enabledModules;
+        this.moduleEnabled = new boolean[ToolType.values().length];
+        for (ToolType toolType : enabledModules) {
+            moduleEnabled[toolType.ordinal()] = true;
+        }
+        this.targetScopeOnly = builder.targetScopeOnly;
+        this.sniffWindowSize = builder.sniffWindowSize;
+        this.sniffTailSize = builder.sniffTailSize;
+        this.customBinarySignatures = builder.customBinarySignatures;
+        this.binarySignatureTable = builder.binarySignatureTable;
+        this.textMediaTypes = builder.textMediaTypes;
+        this.binaryMediaTypes = builder.binaryMediaTypes;
+        this.mediaTypeClassifier = builder.mediaTypeClassifier;
+        this.logLevel = builder.logLevel;
+        this.adaptiveBypass = builder.adaptiveBypass;
+        this.maxAnalysisSize = builder.maxAnalysisSize;
+        this.maxCleanSize = builder.maxCleanSize;
+        this.largeBodyPolicy = builder.largeBodyPolicy;
+        this.cleaningStrategies = builder.cleaningPipeline.getTypes();
+        this.cleaningPipeline = builder.cleaningPipeline;
+        this.rawMode = builder.rawMode;
+        this.decodeCompressed = builder.decodeCompressed;
+        this.maxDecodedSize = builder.maxDecodedSize;
+    }
+    
+    /**
+     * 获取默认配置快照
+     */
+    public static ConfigSnapshot defaults() {
+        return DEFAULTS;
+    }
+    
+    /**
+     * 检查指定的工具类型是否启用
+     * 
+     * @param toolType 工具类型
+     * @return 如果启用返回 true
+     */
+    public boolean isModuleEnabled(ToolType toolType) {
+        return moduleEnabled[toolType.ordinal()];
+    }
+    
+    /**
+     * 获取启用的模块集合（只读）
+     */
+    public Set<ToolType> getEnabledModules() {
+        return enabledModules;
+    }
+    
+    public boolean isTargetScopeOnly() {
+        return targetScopeOnly;
+    }
+    
+    public int getSniffWindowSize() {
+        return sniffWindowSize;
+    }
+    
+    public int getSniffTailSize() {
+        return sniffTailSize;
+    }
+    
+    public List<String> getCustomBinarySignatures() {
+        return customBinarySignatures;
+    }
+    
+    public BinarySignatureTable getBinarySignatureTable() {
+        return binarySignatureTable;
+    }
+    
+    public List<String> getTextMediaTypes() {
+        return textMediaTypes;
+    }
+    
+    public List<String> getBinaryMediaTypes() {
+        return binaryMediaTypes;
+    }
+    
+    public MediaTypeClassifier getMediaTypeClassifier() {
+        return mediaTypeClassifier;
+    }
+    
+    public LogLevel getLogLevel() {
+        return logLevel;
+    }
+    
+    public boolean isAdaptiveBypass() {
+        return adaptiveBypass;
+    }
+    
+    public int getMaxAnalysisSize() {
+        return maxAnalysisSize;
+    }
+    
+    public int getMaxCleanSize() {
+        return maxCleanSize;
+    }
+    
+    public LargeBodyPolicy getLargeBodyPolicy() {
+        return largeBodyPolicy;
+    }
+    
+    /**
+     * 获取选中的清理策略（只读）
+     */
+    public Set<CleaningStrategyType> getCleaningStrategies() {
+        return cleaningStrategies;
+    }
+    
+    /**
+     * 获取由选中的清理策略编译而成的流水线
+     */
+    public CleaningPipeline getCleaningPipeline() {
+        return cleaningPipeline;
+    }
+    
+    public boolean isRawMode() {
+        return rawMode;
+    }
+    
+    public boolean isDecodeCompressed() {
+        return decodeCompressed;
+    }
+    
+    public int getMaxDecodedSize() {
+        return maxDecodedSize;
+    }
+    
+    /**
+     * 获取指定长度的正文使用的清理流水线
+     * 
+     * 正文超过完整分析上限时只执行边界策略，不逐行扫描整个正文。
+     * 
+     * @param bodyLength 正文长度（字节）
+     * @return 清理流水线
+     */
+    public CleaningPipeline cleaningPipelineFor(int bodyLength) {
+        return exceedsAnalysisLimit(bodyLength) ? cleaningPipeline.boundaryOnly() : cleaningPipeline;
+    }
+    
+    /**
+     * 判断指定长度的正文是否因超过大小上限而不处理
+     * 
+     * 超过清理上限的正文总是跳过；超过完整分析上限的正文按 LargeBodyPolicy 决定是否跳过。
+     * 
+     * @param bodyLength 正文长度（字节）
+     * @return 如果应该跳过返回 true
+     */
+    public boolean isTooLarge(int bodyLength) {
+        if (maxCleanSize > 0 && bodyLength > maxCleanSize) {
+            return true;
+        }
+        return largeBodyPolicy == LargeBodyPolicy.SKIP && exceedsAnalysisLimit(bodyLength);
+    }
+    
+    /**
+     * 获取指定长度的正文实际使用的检测窗口大小
+     * 
+     * 正文超过完整分析上限时，即使配置为扫描整个正文，也只检查默认大小的开头窗口。
+     * 
+     * @param bodyLength 正文长度（字节）
+     * @return 开头窗口大小（字节），0 表示扫描整个正文
+     */
+    public int sniffWindowFor(int bodyLength) {
+        if (sniffWindowSize == 0 && exceedsAnalysisLimit(bodyLength)) {
+            return PluginConfig.DEFAULT_SNIFF_WINDOW_SIZE;
+        }
+        return sniffWindowSize;
+    }
+    
+    private boolean exceedsAnalysisLimit(int bodyLength) {
+        return maxAnalysisSize > 0 && bodyLength > maxAnalysisSize;
+    }
+    
+    /**
+     * 返回替换了启用模块的新快照
+     * 
+     * @param modules 要启用的模块集合
+     */
+    public ConfigSnapshot withEnabledModules(Set<ToolType> modules) {
+        Set<ToolType> copy = modules.isEmpty() ? EnumSet.noneOf(ToolType.class) : EnumSet.copyOf(modules);
+        Builder builder = new Builder(this);
+        builder.enabledModules = Collections.unmodifiableSet(copy);
+        return builder.build();
+    }
+    
+    /**
+     * 返回替换了目标域设置的新快照
+     * 
+     * @param targetScopeOnly true=仅对目标域生效，false=对所有域生效
+     */
+    public ConfigSnapshot withTargetScopeOnly(boolean targetScopeOnly) {
+        Builder builder = new Builder(this);
+        builder.targetScopeOnly = targetScopeOnly;
+        return builder.build();
+    }
+    
+    /**
+     * 返回替换了内容检测窗口的新快照
+     * 
+     * @param sniffWindowSize 开头窗口大小（字节），0 表示扫描整个正文，负数按 0 处理
+     * @param sniffTailSize 结尾采样大小（字节），0 表示不采样结尾，负数按 0 处理
+     */
+    public ConfigSnapshot withSniffWindow(int sniffWindowSize, int sniffTailSize) {
+        Builder builder = new Builder(this);
+        builder.sniffWindowSize = Math.max(0, sniffWindowSize);
+        builder.sniffTailSize = Math.max(0, sniffTailSize);
+        return builder.build();
+    }
+    
+    /**
+     * 返回替换了自定义二进制魔数的新快照，魔数与内置魔数一起重新编译为查找表
+     * 
+     * @param signatures 十六进制表示的魔数列表，例如 "89 50 4E 47"
+     * @throws IllegalArgumentException 如果某个魔数格式无效
+     */
+    public ConfigSnapshot withCustomBinarySignatures(List<String> signatures) {
+        List<String> normalized = normalizeList(signatures);
+        List<byte[]> parsed = new ArrayList<>();
+        for (String signature : normalized) {
+            parsed.add(BinarySignatureTable.parseHex(signature));
+        }
+        Builder builder = new Builder(this);
+        builder.customBinarySignatures = normalized;
+        builder.binarySignatureTable = parsed.isEmpty()
+            ? BinarySignatureTable.defaults()
+            : BinarySignatureTable.compile(parsed);
+        return builder.build();
+    }
+    
+    /**
+     * 返回替换了文本和二进制媒体类型列表的新快照，并重新编译Content-Type分类器
+     * 
+     * @param textTypes 文本类型规则，例如 "application/json"、"text/*"
+     * @param binaryTypes 二进制类型规则，例如 "image/*"
+     */
+    public ConfigSnapshot withMediaTypes(List<String> textTypes, List<String> binaryTypes) {
+        List<String> text = normalizeList(textTypes);
+        List<String> binary = normalizeList(binaryTypes);
+        Builder builder = new Builder(this);
+        builder.textMediaTypes = text;
+        builder.binaryMediaTypes = binary;
+        builder.mediaTypeClassifier = MediaTypeClassifier.compile(text, binary);
+        return builder.build();
+    }
+    
+    /**
+     * 返回替换了日志级别的新快照
+     * 
+     * @param logLevel 日志级别，为null时使用默认级别
+     */
+    public ConfigSnapshot withLogLevel(LogLevel logLevel) {
+        Builder builder = new Builder(this);
+        builder.logLevel = logLevel != null ? logLevel : PluginConfig.DEFAULT_LOG_LEVEL;
+        return builder.build();
+    }
+    
+    /**
+     * 返回替换了自适应跳过设置的新快照
+     * 
+     * @param adaptiveBypass 是否对从未需要清理的端点启用快速通道
+     */
+    public ConfigSnapshot withAdaptiveBypass(boolean adaptiveBypass) {
+        Builder builder = new Builder(this);
+        builder.adaptiveBypass = adaptiveBypass;
+        return builder.build();
+    }
+    
+    /**
+     * 返回替换了正文大小上限的新快照
+     * 
+     * @param maxAnalysisSize 完整分析的正文上限（字节），0 表示不限制，负数按 0 处理
+     * @param maxCleanSize 清理的正文上限（字节），0 表示不限制，负数按 0 处理
+     * @param policy 超过完整分析上限时的处理方式，为null时使用默认方式
+     */
+    public ConfigSnapshot withBodySizeLimits(int maxAnalysisSize, int maxCleanSize, LargeBodyPolicy policy) {
+        Builder builder = new Builder(this);
+        builder.maxAnalysisSize = Math.max(0, maxAnalysisSize);
+        builder.maxCleanSize = Math.max(0, maxCleanSize);
+        builder.largeBodyPolicy = policy != null ? policy : PluginConfig.DEFAULT_LARGE_BODY_POLICY;
+        return builder.build();
+    }
+    
+    /**
+     * 返回替换了清理策略的新快照，并重新编译清理流水线
+     * 
+     * @param strategies 选中的清理策略，可以为空（不做任何清理）
+     */
+    public ConfigSnapshot withCleaningStrategies(Set<CleaningStrategyType> strategies) {
+        Builder builder = new Builder(this);
+        builder.cleaningPipeline = CleaningPipeline.compile(strategies);
+        return builder.build();
+    }
+    
+    /**
+     * 返回替换了原始报文模式设置的新快照
+     * 
+     * @param rawMode 是否直接在完整报文字节上清理（只去掉开头空行时生效）
+     */
+    public ConfigSnapshot withRawMode(boolean rawMode) {
+        Builder builder = new Builder(this);
+        builder.rawMode = rawMode;
+        return builder.build();
+    }
+    
+    /**
+     * 返回替换了压缩正文处理设置的新快照
+     * 
+     * @param decodeCompressed 是否解压 gzip/deflate 正文后清理再重新压缩
+     * @param maxDecodedSize 解压后的正文上限（字节），小于 1 时按 1 处理
+     */
+    public ConfigSnapshot withCompressedBodies(boolean decodeCompressed, int maxDecodedSize) {
+        Builder builder = new Builder(this);
+        builder.decodeCompressed = decodeCompressed;
+        builder.maxDecodedSize = Math.max(1, maxDecodedSize);
+        return builder.build();
+    }
+    
+    /**
+     * 去掉空白项并返回只读列表
+     */
+    private static List<String> normalizeList(List<String> values) {
+        List<String> result = new ArrayList<>();
+        for (String value : values) {
+            if (value != null && !value.trim().isEmpty()) {
+                result.add(value.trim());
+            }
+        }
+        return Collections.unmodifiableList(result);
+    }
+    
+    /**
+     * 构造快照用的可变字段集合
+     * 
+     * 无参构造为默认配置，复制构造从已有快照开始；with* 方法只修改相关的字段，
+     * 其余字段原样带入新快照。
+     */
+    private static final class Builder {
+        private Set<ToolType> enabledModules = DEFAULT_ENABLED_MODULES;
+        private boolean targetScopeOnly = false;
+        private int sniffWindowSize = PluginConfig.DEFAULT_SNIFF_WINDOW_SIZE;
+        private int sniffTailSize = PluginConfig.DEFAULT_SNIFF_TAIL_SIZE;
+        private List<String> customBinarySignatures = Collections.emptyList();
+        private BinarySignatureTable binarySignatureTable = BinarySignatureTable.defaults();
+        private List<String> textMediaTypes = MediaTypeClassifier.DEFAULT_TEXT_TYPES;
+        private List<String> binaryMediaTypes = MediaTypeClassifier.DEFAULT_BINARY_TYPES;
+        private MediaTypeClassifier mediaTypeClassifier = MediaTypeClassifier.defaults();
+        private LogLevel logLevel = PluginConfig.DEFAULT_LOG_LEVEL;
+        private boolean adaptiveBypass = PluginConfig.DEFAULT_ADAPTIVE_BYPASS;
+        private int maxAnalysisSize = PluginConfig.DEFAULT_MAX_ANALYSIS_SIZE;
+        private int maxCleanSize = PluginConfig.DEFAULT_MAX_CLEAN_SIZE;
+        private LargeBodyPolicy largeBodyPolicy = PluginConfig.DEFAULT_LARGE_BODY_POLICY;
+        private CleaningPipeline cleaningPipeline = CleaningPipeline.compile(PluginConfig.DEFAULT_CLEANING_STRATEGIES);
+        private boolean rawMode = PluginConfig.DEFAULT_RAW_MODE;
+        private boolean decodeCompressed = PluginConfig.DEFAULT_DECODE_COMPRESSED;
+        private int maxDecodedSize = PluginConfig.DEFAULT_MAX_DECODED_SIZE;
+        
+        private Builder() {
+        }
+        
+        private Builder(ConfigSnapshot source) {
+            this.enabledModules = source.enabledModules;
+            this.targetScopeOnly = source.targetScopeOnly;
+            this.sniffWindowSize = source.sniffWindowSize;
+            this.sniffTailSize = source.sniffTailSize;
+            this.customBinarySignatures = source.customBinarySignatures;
+            this.binarySignatureTable = source.binarySignatureTable;
+            this.textMediaTypes = source.textMediaTypes;
+            this.binaryMediaTypes = source.binaryMediaTypes;
+            this.mediaTypeClassifier = source.mediaTypeClassifier;
+            this.logLevel = source.logLevel;
+            this.adaptiveBypass = source.adaptiveBypass;
+            this.maxAnalysisSize = source.maxAnalysisSize;
+            this.maxCleanSize = source.maxCleanSize;
+            this.largeBodyPolicy = source.largeBodyPolicy;
+            this.cleaningPipeline = source.cleaningPipeline;
+            this.rawMode = source.rawMode;
+            this.decodeCompressed = source.decodeCompressed;
+            this.maxDecodedSize = source.maxDecodedSize;
+        }
+        
+        private ConfigSnapshot build() {
+            return new ConfigSnapshot(this);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+/*
+ * Copyright (c) 2024. All rights reserved.
+ */
+
+package oxff.org.config;
+
+/**
+ * 正文超过完整分析上限时的处理方式
+ */
+public enum LargeBodyPolicy {
+    SKIP("直接跳过"),
+    HEAD_ONLY("只检查开头窗口");
+    
+    private final String displayName;
+    
+    LargeBodyPolicy(String displayName) {
+        this.displayName = displayName;
+    }
+    
+    /**
+     * 获取界面显示名称
+     */
+    public String getDisplayName() {
+        return displayName;
+    }
+    
+    @Override
+    public String toString() {
+        return displayName;
+    }
+}
@@ -0,0 +1,573 @@
+/*
+ * Copyright (c) 2024. All rights reserved.
+ */
+
+package oxff.org.config;
+
+import burp.api.montoya.MontoyaApi;
+import burp.api.montoya.core.ToolType;
+import burp.api.montoya.http.message.HttpRequestResponse;
+import burp.api.montoya.http.message.requests.HttpRequest;
+import oxff.org.cleaning.CleaningStrategyType;
+import oxff.org.logging.LogLevel;
+import oxff.org.util.BinarySignatureTable;
+import oxff.org.util.MediaTypeClassifier;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.UnaryOperator;
+
+/**
+ * 插件配置管理器
+ * 
+ * 负责管理插件的各种配置选项：
+ * - 模块生效控制（proxy, repeater, intruder, extensions）
+ * - 目标域名控制（基于Burp Suite的目标范围设置，判断结果按端点缓存）
+ * - 内容检测窗口（无Content-Type时只采样正文的开头和结尾）
+ * - 自定义二进制魔数（与内置魔数一起编译为查找表）
+ * - 文本/二进制媒体类型列表（编译为Content-Type分类器）
+ * - 日志级别
+ * - 自适应跳过（从未需要清理的端点走快速通道）
+ * - 正文大小上限（限制单条消息的最坏耗时和内存占用）
+ * - 清理策略（编译为一次完成的清理流水线）
+ * - 原始报文模式（直接在完整报文字节上清理，不通过 withBody() 重建）
+ * 
+ * 配置保存在不可变的 ConfigSnapshot 中，通过 volatile 引用发布。
+ * 设置面板点击"应用"时通过 update() 在当前快照的基础上构造完整的新快照并一次性替换，
+ * HTTP 处理线程通过 getSnapshot() 每条消息读取一次，读取无锁且前后一致。
+ * 单项的 set* 方法同样以整体替换快照的方式生效；所有"读取-修改-发布"都持有同一把锁，并发修改不会互相覆盖。
+ */
+public class PluginConfig {
+    
+    // 默认的内容检测窗口大小（字节），0 表示扫描整个正文
+    public static final int DEFAULT_SNIFF_WINDOW_SIZE = 8 * 1024;
+    
+    // 默认的结尾采样大小（字节），0 表示不采样结尾
+    public static final int DEFAULT_SNIFF_TAIL_SIZE = 0;
+    
+    // 默认的日志级别：输出周期汇总，不输出每条消息的明细
+    public static final LogLevel DEFAULT_LOG_LEVEL = LogLevel.INFO;
+    
+    // 默认关闭自适应跳过：快速通道中的消息不检查，只有明确需要吞吐量时才启用
+    public static final boolean DEFAULT_ADAPTIVE_BYPASS = false;
+    
+    // 默认的完整分析上限（字节），0 表示不限制
+    public static final int DEFAULT_MAX_ANALYSIS_SIZE = 16 * 1024 * 1024;
+    
+    // 默认的清理上限（字节），0 表示不限制
+    public static final int DEFAULT_MAX_CLEAN_SIZE = 64 * 1024 * 1024;
+    
+    // 默认在超过完整分析上限时只检查开头窗口
+    public static final LargeBodyPolicy DEFAULT_LARGE_BODY_POLICY = LargeBodyPolicy.HEAD_ONLY;
+    
+    // 默认只去掉正文开头的空行（插件原有的清理方式）
+    public static final Set<CleaningStrategyType> DEFAULT_CLEANING_STRATEGIES =
+        Collections.unmodifiableSet(EnumSet.of(CleaningStrategyType.LEADING));
+    
+    // 默认通过 withBody() 替换正文
+    public static final boolean DEFAULT_RAW_MODE = false;
+    
+    // 默认跳过带 Content-Encoding 的压缩正文
+    public static final boolean DEFAULT_DECODE_COMPRESSED = false;
+    
+    // 默认的解压后正文上限（字节）
+    public static final int DEFAULT_MAX_DECODED_SIZE = 8 * 1024 * 1024;
+    
+    private final MontoyaApi api;
+    
+    // 目标域判断结果缓存，目标范围变化时自动清空
+    private final ScopeDecisionCache scopeCache;
+    
+    // 当前生效的配置快照
+    private volatile ConfigSnapshot snapshot;
+    
+    /**
+     * 构造函数
+     * 
+     * @param api Montoya API 实例
+     */
+    public PluginConfig(MontoyaApi api) {
+        this.api = api;
+        this.scopeCache = new ScopeDecisionCache(api.scope());
+        
+        // 使用默认配置（默认对所有域生效）
+        this.snapshot = ConfigSnapshot.defaults();
+        
+        logCurrentConfig();
+    }
+    
+    /**
+     * 获取当前生效的配置快照
+     * 
+     * 处理一条消息时应只调用一次，并在整个处理过程中使用同一个快照。
+     * 
+     * @return 不可变的配置快照
+     */
+    public ConfigSnapshot getSnapshot() {
+        return snapshot;
+    }
+    
+    /**
+     * 发布新的配置快照，替换后新处理的消息立即使用新配置
+     * 
+     * @param newSnapshot 新的配置快照
+     */
+    public synchronized void publish(ConfigSnapshot newSnapshot) {
+        this.snapshot = newSnapshot;
+    }
+    
+    /**
+     * 在当前快照的基础上修改配置并发布
+     * 
+     * 读取、修改和发布在同一把锁内完成，与 set* 方法互斥，不会丢失并发的修改。
+     * change 抛出异常时不发布任何修改。
+     * 
+     * @param change 由当前快照构造新快照的函数，不应执行耗时操作
+     * @return 发布的新快照
+     */
+    public synchronized ConfigSnapshot update(UnaryOperator<ConfigSnapshot> change) {
+        ConfigSnapshot next = change.apply(snapshot);
+        this.snapshot = next;
+        return next;
+    }
+    
+    /**
+     * 检查指定的工具类型是否启用
+     * 
+     * @param toolType 工具类型
+     * @return 如果启用返回 true，否则返回 false
+     */
+    public boolean isModuleEnabled(ToolType toolType) {
+        return snapshot.isModuleEnabled(toolType);
+    }
+    
+    /**
+     * 设置启用的模块
+     * 
+     * @param modules 要启用的模块集合
+     */
+    public synchronized void setEnabledModules(Set<ToolType> modules) {
+        this.snapshot = snapshot.withEnabledModules(modules);
+    }
+    
+    /**
+     * 启用指定模块
+     * 
+     * @param toolType 要启用的模块
+     */
+    public synchronized void enableModule(ToolType toolType) {
+        Set<ToolType> modules = getEnabledModules();
+        modules.add(toolType);
+        this.snapshot = snapshot.withEnabledModules(modules);
+    }
+    
+    /**
+     * 禁用指定模块
+     * 
+     * @param toolType 要禁用的模块
+     */
+    public synchronized void disableModule(ToolType toolType) {
+        Set<ToolType> modules = getEnabledModules();
+        modules.remove(toolType);
+        this.snapshot = snapshot.withEnabledModules(modules);
+    }
+    
+    /**
+     * 检查HTTP请求是否在目标范围内
+     * 
+     * @param request HTTP请求
+     * @return 如果在范围内返回 true，否则返回 false
+     */
+    public boolean isInTargetScope(HttpRequest request) {
+        return isInTargetScope(snapshot, request);
+    }
+    
+    /**
+     * 按指定的配置快照检查HTTP请求是否在目标范围内
+     * 
+     * @param config 配置快照
+     * @param request HTTP请求
+     * @return 如果在范围内返回 true，否则返回 false
+     */
+    public boolean isInTargetScope(ConfigSnapshot config, HttpRequest request) {
+        if (!config.isTargetScopeOnly()) {
+            // 如果没有启用目标域限制，所有请求都被允许
+            return true;
+        }
+        
+        try {
+            // 检查请求是否在Burp Suite定义的目标范围内（相同端点的结果从缓存读取）
+            return scopeCache.isInScope(request);
+        } catch (Exception e) {
+            api.logging().logToError("检查目标范围时出错: " + e.getMessage());
+            // 出错时默认允许处理
+            return true;
+        }
+    }
+    
+    /**
+     * 获取目标域判断结果缓存
+     * 
+     * @return 目标域判断结果缓存
+     */
+    public ScopeDecisionCache getScopeCache() {
+        return scopeCache;
+    }
+    
+    /**
+     * 检查HTTP请求响应对是否在目标范围内
+     * 
+     * @param requestResponse HTTP请求响应对
+     * @return 如果在范围内返回 true，否则返回 false
+     */
+    public boolean isInTargetScope(HttpRequestResponse requestResponse) {
+        return isInTargetScope(requestResponse.request());
+    }
+    
+    /**
+     * 设置是否只对目标域生效
+     * 
+     * @param targetScopeOnly true=仅对目标域生效，false=对所有域生效
+     */
+    public synchronized void setTargetScopeOnly(boolean targetScopeOnly) {
+        this.snapshot = snapshot.withTargetScopeOnly(targetScopeOnly);
+    }
+    
+    /**
+     * 获取当前是否只对目标域生效
+     * 
+     * @return true=仅对目标域生效，false=对所有域生效
+     */
+    public boolean isTargetScopeOnly() {
+        return snapshot.isTargetScopeOnly();
+    }
+    
+    /**
+     * 设置内容检测的开头窗口大小
+     * 
+     * @param sniffWindowSize 窗口大小（字节），0 表示扫描整个正文
+     */
+    public synchronized void setSniffWindowSize(int sniffWindowSize) {
+        this.snapshot = snapshot.withSniffWindow(sniffWindowSize, snapshot.getSniffTailSize());
+    }
+    
+    /**
+     * 获取内容检测的开头窗口大小
+     * 
+     * @return 窗口大小（字节），0 表示扫描整个正文
+     */
+    public int getSniffWindowSize() {
+        return snapshot.getSniffWindowSize();
+    }
+    
+    /**
+     * 设置内容检测的结尾采样大小
+     * 
+     * @param sniffTailSize 结尾采样大小（字节），0 表示不采样结尾
+     */
+    public synchronized void setSniffTailSize(int sniffTailSize) {
+        this.snapshot = snapshot.withSniffWindow(snapshot.getSniffWindowSize(), sniffTailSize);
+    }
+    
+    /**
+     * 获取内容检测的结尾采样大小
+     * 
+     * @return 结尾采样大小（字节），0 表示不采样结尾
+     */
+    public int getSniffTailSize() {
+        return snapshot.getSniffTailSize();
+    }
+    
+    /**
+     * 设置自定义二进制魔数，并与内置魔数一起重新编译查找表
+     * 
+     * @param signatures 十六进制表示的魔数列表，例如 "89 50 4E 47"
+     * @throws IllegalArgumentException 如果某个魔数格式无效
+     */
+    public synchronized void setCustomBinarySignatures(List<String> signatures) {
+        this.snapshot = snapshot.withCustomBinarySignatures(signatures);
+    }
+    
+    /**
+     * 获取自定义二进制魔数
+     * 
+     * @return 十六进制表示的魔数列表（只读）
+     */
+    public List<String> getCustomBinarySignatures() {
+        return snapshot.getCustomBinarySignatures();
+    }
+    
+    /**
+     * 获取编译后的二进制魔数查找表
+     * 
+     * @return 包含内置和自定义魔数的查找表
+     */
+    public BinarySignatureTable getBinarySignatureTable() {
+        return snapshot.getBinarySignatureTable();
+    }
+    
+    /**
+     * 设置文本和二进制媒体类型列表，并重新编译Content-Type分类器
+     * 
+     * @param textTypes 文本类型规则，例如 "application/json"、"text/*"
+     * @param binaryTypes 二进制类型规则，例如 "image/*"
+     */
+    public synchronized void setMediaTypes(List<String> textTypes, List<String> binaryTypes) {
+        this.snapshot = snapshot.withMediaTypes(textTypes, binaryTypes);
+    }
+    
+    /**
+     * 获取文本媒体类型列表
+     * 
+     * @return 文本类型规则（只读）
+     */
+    public List<String> getTextMediaTypes() {
+        return snapshot.getTextMediaTypes();
+    }
+    
+    /**
+     * 获取二进制媒体类型列表
+     * 
+     * @return 二进制类型规则（只读）
+     */
+    public List<String> getBinaryMediaTypes() {
+        return snapshot.getBinaryMediaTypes();
+    }
+    
+    /**
+     * 获取编译后的Content-Type分类器
+     * 
+     * @return Content-Type分类器
+     */
+    public MediaTypeClassifier getMediaTypeClassifier() {
+        return snapshot.getMediaTypeClassifier();
+    }
+    
+    /**
+     * 设置日志的最低输出级别
+     * 
+     * @param logLevel 日志级别，为null时使用默认级别
+     */
+    public synchronized void setLogLevel(LogLevel logLevel) {
+        this.snapshot = snapshot.withLogLevel(logLevel);
+    }
+    
+    /**
+     * 获取日志的最低输出级别
+     * 
+     * @return 日志级别
+     */
+    public LogLevel getLogLevel() {
+        return snapshot.getLogLevel();
+    }
+    
+    /**
+     * 设置是否启用自适应跳过
+     * 
+     * @param adaptiveBypass true=从未需要清理的端点只做抽样检查
+     */
+    public synchronized void setAdaptiveBypass(boolean adaptiveBypass) {
+        this.snapshot = snapshot.withAdaptiveBypass(adaptiveBypass);
+    }
+    
+    /**
+     * 获取是否启用自适应跳过
+     */
+    public boolean isAdaptiveBypass() {
+        return snapshot.isAdaptiveBypass();
+    }
+    
+    /**
+     * 设置正文大小上限
+     * 
+     * @param maxAnalysisSize 完整分析的正文上限（字节），0 表示不限制
+     * @param maxCleanSize 清理的正文上限（字节），0 表示不限制
+     * @param policy 超过完整分析上限时的处理方式
+     */
+    public synchronized void setBodySizeLimits(int maxAnalysisSize, int maxCleanSize, LargeBodyPolicy policy) {
+        this.snapshot = snapshot.withBodySizeLimits(maxAnalysisSize, maxCleanSize, policy);
+    }
+    
+    /**
+     * 获取完整分析的正文上限
+     * 
+     * @return 上限（字节），0 表示不限制
+     */
+    public int getMaxAnalysisSize() {
+        return snapshot.getMaxAnalysisSize();
+    }
+    
+    /**
+     * 获取清理的正文上限
+     * 
+     * @return 上限（字节），0 表示不限制
+     */
+    public int getMaxCleanSize() {
+        return snapshot.getMaxCleanSize();
+    }
+    
+    /**
+     * 获取超过完整分析上限时的处理方式
+     */
+    public LargeBodyPolicy getLargeBodyPolicy() {
+        return snapshot.getLargeBodyPolicy();
+    }
+    
+    /**
+     * 设置清理策略
+     * 
+     * @param strategies 选中的清理策略，可以为空（不做任何清理）
+     */
+    public synchronized void setCleaningStrategies(Set<CleaningStrategyType> strategies) {
+        this.snapshot = snapshot.withCleaningStrategies(strategies);
+    }
+    
+    /**
+     * 获取选中的清理策略（副本）
+     */
+    public Set<CleaningStrategyType> getCleaningStrategies() {
+        Set<CleaningStrategyType> strategies = snapshot.getCleaningStrategies();
+        return strategies.isEmpty() ? EnumSet.noneOf(CleaningStrategyType.class) : EnumSet.copyOf(strategies);
+    }
+    
+    /**
+     * 设置是否启用原始报文模式
+     * 
+     * @param rawMode true=直接在完整报文字节上清理并更新Content-Length
+     */
+    public synchronized void setRawMode(boolean rawMode) {
+        this.snapshot = snapshot.withRawMode(rawMode);
+    }
+    
+    /**
+     * 获取是否启用原始报文模式
+     */
+    public boolean isRawMode() {
+        return snapshot.isRawMode();
+    }
+    
+    /**
+     * 设置压缩正文的处理方式
+     * 
+     * @param decodeCompressed true=解压 gzip/deflate 正文后清理再重新压缩，false=直接跳过压缩正文
+     * @param maxDecodedSize 解压后的正文上限（字节），超过时跳过
+     */
+    public synchronized void setCompressedBodies(boolean decodeCompressed, int maxDecodedSize) {
+        this.snapshot = snapshot.withCompressedBodies(decodeCompressed, maxDecodedSize);
+    }
+    
+    /**
+     * 获取是否解压压缩正文后清理
+     */
+    public boolean isDecodeCompressed() {
+        return snapshot.isDecodeCompressed();
+    }
+    
+    /**
+     * 获取解压后的正文上限
+     * 
+     * @return 上限（字节）
+     */
+    public int getMaxDecodedSize() {
+        return snapshot.getMaxDecodedSize();
+    }
+    
+    /**
+     * 获取当前启用的模块集合（副本）
+     * 
+     * @return 当前启用的模块集合
+     */
+    public Set<ToolType> getEnabledModules() {
+        Set<ToolType> modules = snapshot.getEnabledModules();
+        return modules.isEmpty() ? EnumSet.noneOf(ToolType.class) : EnumSet.copyOf(modules);
+    }
+    
+    /**
+     * 重置为默认配置
+     */
+    public void resetToDefaults() {
+        publish(ConfigSnapshot.defaults());
+    }
+    
+    /**
+     * 记录当前配置到日志
+     */
+    private void logCurrentConfig() {
+        ConfigSnapshot current = snapshot;
+        api.logging().logToOutput("插件配置已更新:");
+        api.logging().logToOutput("  启用的模块: " + current.getEnabledModules());
+        api.logging().logToOutput("  目标域限制: " + (current.isTargetScopeOnly() ? "仅目标域" : "所有域"));
+        api.logging().logToOutput("  内容检测窗口: " + describeSniffWindow(current));
+        api.logging().logToOutput("  自定义魔数: " + current.getCustomBinarySignatures().size() + " 个");
+        api.logging().logToOutput("  媒体类型规则: 文本 " + current.getTextMediaTypes().size() + " 条，二进制 " + current.getBinaryMediaTypes().size() + " 条");
+        api.logging().logToOutput("  日志级别: " + current.getLogLevel());
+        api.logging().logToOutput("  自适应跳过: " + (current.isAdaptiveBypass() ? "启用" : "禁用"));
+        api.logging().logToOutput("  正文大小上限: " + describeBodySizeLimits(current));
+        api.logging().logToOutput("  清理策略: " + current.getCleaningPipeline().describe());
+        api.logging().logToOutput("  原始报文模式: " + (current.isRawMode() ? "启用" : "禁用"));
+        api.logging().logToOutput("  压缩正文: " + describeCompressedBodies(current));
+    }
+    
+    /**
+     * 获取配置的文本描述
+     * 
+     * @return 配置描述字符串
+     */
+    public String getConfigDescription() {
+        ConfigSnapshot current = snapshot;
+        StringBuilder sb = new StringBuilder();
+        sb.append("Remove Extra Blank Lines 插件配置:\n");
+        sb.append("启用的模块: ").append(current.getEnabledModules()).append("\n");
+        sb.append("作用范围: ").append(current.isTargetScopeOnly() ? "仅Burp Suite目标域" : "所有域").append("\n");
+        sb.append("内容检测窗口: ").append(describeSniffWindow(current)).append("\n");
+        sb.append("自定义魔数: ").append(current.getCustomBinarySignatures().size()).append(" 个\n");
+        sb.append("媒体类型规则: 文本 ").append(current.getTextMediaTypes().size())
+          .append(" 条，二进制 ").append(current.getBinaryMediaTypes().size()).append(" 条\n");
+        sb.append("日志级别: ").append(current.getLogLevel()).append("\n");
+        sb.append("自适应跳过: ").append(current.isAdaptiveBypass() ? "启用" : "禁用").append("\n");
+        sb.append("正文大小上限: ").append(describeBodySizeLimits(current)).append("\n");
+        sb.append("清理策略: ").append(current.getCleaningPipeline().describe()).append("\n");
+        sb.append("原始报文模式: ").append(current.isRawMode() ? "启用" : "禁用").append("\n");
+        sb.append("压缩正文: ").append(describeCompressedBodies(current));
+        return sb.toString();
+    }
+    
+    /**
+     * 获取内容检测窗口的文本描述
+     */
+    private static String describeSniffWindow(ConfigSnapshot config) {
+        if (config.getSniffWindowSize() == 0) {
+            return "扫描整个正文";
+        }
+        String desc = "开头 " + config.getSniffWindowSize() + " 字节";
+        if (config.getSniffTailSize() > 0) {
+            desc += " + 结尾 " + config.getSniffTailSize() + " 字节";
+        }
+        return desc;
+    }
+    
+    /**
+     * 获取正文大小上限的文本描述
+     */
+    private static String describeBodySizeLimits(ConfigSnapshot config) {
+        return "完整分析 " + describeLimit(config.getMaxAnalysisSize())
+            + "（超出时" + config.getLargeBodyPolicy().getDisplayName() + "），清理 "
+            + describeLimit(config.getMaxCleanSize());
+    }
+    
+    /**
+     * 获取压缩正文处理方式的文本描述
+     */
+    private static String describeCompressedBodies(ConfigSnapshot config) {
+        if (!config.isDecodeCompressed()) {
+            return "跳过";
+        }
+        return "解压 gzip/deflate 后清理（解压上限 " + config.getMaxDecodedSize() + " 字节）";
+    }
+    
+    private static String describeLimit(int bytes) {
+        return bytes == 0 ? "不限制" : bytes + " 字节";
+    }
+}
@@ -0,0 +1,31 @@
+/*
+ * Copyright (c) 2024. All rights reserved.
+ */
+
+package oxff.org.config;
+
+/**
+ * 缓存的单个目标域判断结果，记录最近一次使用的时间供淘汰使用
+ */
+final class ScopeDecision {
+    
+    private final boolean inScope;
+    private volatile long lastUsed;
+    
+    ScopeDecision(boolean inScope, long now) {
+        this.inScope = inScope;
+        this.lastUsed = now;
+    }
+    
+    /**
+     * 读取判断结果并更新最近使用时间
+     */
+    boolean use(long now) {
+        lastUsed = now;
+        return inScope;
+    }
+    
+    long getLastUsed() {
+        return lastUsed;
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2024. All rights reserved.
+ */
+
+package oxff.org.config;
+
+import burp.api.montoya.http.HttpService;
+import burp.api.montoya.http.message.requests.HttpRequest;
+import burp.api.montoya.scope.Scope;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 目标域判断结果缓存
+ * 
+ * 以 协议 + 主机 + 端口 + 路径（不含查询参数）为键缓存 Scope.isInScope 的结果，
+ * Proxy 和 Intruder 反复访问同一端点时无需每次拼接完整 URL 并调用 Burp。
+ * 
+ * - 缓存条目数有上限，达到上限时淘汰最久未使用的一部分条目，常用端点保留在缓存中
+ * - Burp Suite 的目标范围变化时（ScopeChangeHandler 通知）整体清空；
+ *   清空时递增代数，清空前按旧范围得出、清空后才写入的结果会被丢弃
+ * - 查询参数不参与判断：Burp 的范围规则按 URL 前缀或主机/路径匹配，与查询参数无关
+ */
+public class ScopeDecisionCache {
+    
+    // 缓存条目数上限
+    private static final int MAX_ENTRIES = 4096;
+    
+    // 每次淘汰的比例（按最久未使用）
+    private static final int EVICTION_DIVISOR = 8;
+    
+    private final Scope scope;
+    private final Map<String, ScopeDecision> decisions;
+    private final LongAdder hits;
+    private final LongAdder misses;
+    // 目标范围变化的次数，用于丢弃按旧范围得出的判断结果
+    private final AtomicInteger generation;
+    private final ReentrantLock evictionLock;
+    
+    /**
+     * 构造函数，并注册目标范围变化的通知
+     * 
+     * @param scope Burp Suite 目标范围接口
+     */
+    public ScopeDecisionCache(Scope scope) {
+        this.scope = scope;
+        this.decisions = new ConcurrentHashMap<>();
+        this.hits = new LongAdder();
+        this.misses = new LongAdder();
+        this.generation = new AtomicInteger();
+        this.evictionLock = new ReentrantLock();
+        scope.registerScopeChangeHandler(scopeChange -> clear());
+    }
+    
+    /**
+     * 判断请求是否在目标范围内（优先使用缓存）
+     * 
+     * @param request HTTP请求
+     * @return 如果在范围内返回 true
+     */
+    public boolean isInScope(HttpRequest request) {
+        String key = cacheKey(request);
+        long now = System.currentTimeMillis();
+        ScopeDecision cached = decisions.get(key);
+        if (cached != null) {
+            hits.increment();
+            return cached.use(now);
+        }
+        
+        misses.increment();
+        // 先读取代数再调用 Burp：判断期间目标范围发生变化时，结果不写入缓存
+        int expected = generation.get();
+        boolean inScope = scope.isInScope(request.url());
+        if (decisions.size() >= MAX_ENTRIES) {
+            evictLeastRecentlyUsed();
+        }
+        ScopeDecision decision = new ScopeDecision(inScope, now);
+        decisions.put(key, decision);
+        if (generation.get() != expected) {
+            // 写入前后目标范围发生了变化，撤销这条可能过期的结果
+            decisions.remove(key, decision);
+        }
+        return inScope;
+    }
+    
+    /**
+     * 清空缓存（目标范围变化时自动调用）
+     */
+    public void clear() {
+        generation.incrementAndGet();
+        decisions.clear();
+    }
+    
+    /**
+     * 获取当前缓存的条目数
+     */
+    public int size() {
+        return decisions.size();
+    }
+    
+    /**
+     * 获取缓存命中次数
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+    
+    /**
+     * 获取缓存未命中（实际调用 Burp 判断）的次数
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+    
+    /**
+     * 淘汰最久未使用的一部分条目
+     */
+    private void evictLeastRecentlyUsed() {
+        if (!evictionLock.tryLock()) {
+            return; // 其他线程正在淘汰
+        }
+        try {
+            if (decisions.size() < MAX_ENTRIES) {
+                return;
+            }
+            // 使用时间会被处理线程并发更新，先取快照再排序，找出需要淘汰的时间界限
+            List<Map.Entry<String, ScopeDecision>> entries = new ArrayList<>(decisions.entrySet());
+            long[] lastUsed = new long[entries.size()];
+            for (int i = 0; i < lastUsed.length; i++) {
+                lastUsed[i] = entries.get(i).getValue().getLastUsed();
+            }
+            long[] sorted = lastUsed.clone();
+            Arrays.sort(sorted);
+            int count = Math.max(1, sorted.length / EVICTION_DIVISOR);
+            long threshold = sorted[count - 1];
+            for (int i = 0; i < lastUsed.length && count > 0; i++) {
+                if (lastUsed[i] <= threshold) {
+                    Map.Entry<String, ScopeDecision> entry = entries.get(i);
+                    decisions.remove(entry.getKey(), entry.getValue());
+                    count--;
+                }
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+    
+    /**
+     * 生成缓存键：协议://主机:端口/路径
+     */
+    private static String cacheKey(HttpRequest request) {
+        HttpService service = request.httpService();
+        String path = request.pathWithoutQuery();
+        String host = service.host();
+        return new StringBuilder(host.length() + path.length() + 16)
+            .append(service.secure() ? "https://" : "http://")
+            .append(host)
+            .append(':')
+            .append(service.port())
+            .append(path)
+            .toString();
+    }
+}
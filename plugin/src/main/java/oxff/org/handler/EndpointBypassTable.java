@@ -0,0 +1,216 @@
+/*
+ * Copyright (c) 2024. All rights reserved.
+ */
+
+package oxff.org.handler;
+
+import burp.api.montoya.http.message.requests.HttpRequest;
+import oxff.org.config.ConfigSnapshot;
+import oxff.org.metrics.MessageDirection;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * 端点自适应跳过表
+ * 
+ * 按 方向 + 方法 + 主机 + 路径（不含查询参数）记录每个端点的清理统计（见 EndpointStats），
+ * 让从未需要清理的端点跳过内容分析。同一路径的 GET 和 POST 分别学习，
+ * 空正文的 GET 不会让同一路径的 POST 进入快速通道。
+ * 
+ * 表的大小有上限：条目数超过上限时淘汰最久未访问的一部分条目；
+ * 路径过长时截断，单个条目的内存占用也有上限。
+ * 淘汰由发现超限的处理线程尝试执行，其他线程不会等待。
+ * 
+ * 学习结果只在学习时的配置下成立（例如关闭解压时压缩正文一律跳过），
+ * 发布新的配置快照后清除所有学习到的状态，按新配置重新学习。
+ */
+public class EndpointBypassTable {
+    
+    // 条目数上限
+    static final int MAX_ENTRIES = 2048;
+    
+    // 每次淘汰的比例（按最久未访问）
+    private static final int EVICTION_DIVISOR = 8;
+    
+    // 键中路径的最大长度
+    private static final int MAX_PATH_LENGTH = 128;
+    
+    private final Map<String, EndpointStats> endpoints;
+    private final ReentrantLock evictionLock;
+    private final AtomicReference<ConfigSnapshot> learnedUnder;
+    private final LongSupplier clock;
+    
+    public EndpointBypassTable() {
+        this(System::currentTimeMillis);
+    }
+    
+    /**
+     * @param clock 毫秒时钟（测试时用于控制访问时间）
+     */
+    EndpointBypassTable(LongSupplier clock) {
+        this.endpoints = new ConcurrentHashMap<>();
+        this.evictionLock = new ReentrantLock();
+        this.learnedUnder = new AtomicReference<>();
+        this.clock = clock;
+    }
+    
+    /**
+     * 获取请求对应端点的统计，不存在时创建
+     * 
+     * @param direction 消息方向
+     * @param request HTTP请求（响应时传入发起响应的请求）
+     * @param snapshot 本条消息使用的配置快照，与上次学习时的快照不同时先清除学习状态
+     * @return 端点统计
+     */
+    public EndpointStats lookup(MessageDirection direction, HttpRequest request, ConfigSnapshot snapshot) {
+        ConfigSnapshot previous = learnedUnder.get();
+        if (previous != snapshot && learnedUnder.compareAndSet(previous, snapshot)) {
+            endpoints.clear();
+        }
+        
+        String key = endpointKey(direction, request);
+        EndpointStats stats = endpoints.get(key);
+        if (stats != null) {
+            return stats;
+        }
+        
+        if (endpoints.size() >= MAX_ENTRIES) {
+            evictOldest();
+        }
+        return endpoints.computeIfAbsent(key, k -> new EndpointStats(k, clock.getAsLong()));
+    }
+    
+    /**
+     * 判断本条消息是否可以直接放行
+     */
+    public boolean shouldBypass(EndpointStats stats) {
+        return stats.shouldBypass(clock.getAsLong());
+    }
+    
+    /**
+     * 获取当前所有端点的统计（按完整处理次数降序）
+     */
+    public List<EndpointStats> entries() {
+        // 处理次数会被处理线程并发更新，先取快照再按快照排序
+        List<EndpointStats> list = new ArrayList<>(endpoints.values());
+        long[] observed = new long[list.size()];
+        Integer[] order = new Integer[observed.length];
+        for (int i = 0; i < observed.length; i++) {
+            observed[i] = list.get(i).getObserved();
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(observed[b], observed[a]));
+        List<EndpointStats> sorted = new ArrayList<>(order.length);
+        for (Integer index : order) {
+            sorted.add(list.get(index));
+        }
+        return sorted;
+    }
+    
+    /**
+     * 生成用于界面显示的端点列表
+     * 
+     * @param limit 最多显示的端点数
+     * @return 多行文本
+     */
+    public String toDisplayString(int limit) {
+        List<EndpointStats> list = entries();
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("已记录 %d 个端点（上限 %d），%d 个处于快速通道%n",
+            list.size(), MAX_ENTRIES, countBypassing(list)));
+        sb.append(String.format("%-6s %10s %10s %10s  %s%n", "状态", "完整处理", "已清理", "已跳过", "端点"));
+        int shown = Math.min(limit, list.size());
+        for (int i = 0; i < shown; i++) {
+            EndpointStats stats = list.get(i);
+            sb.append(String.format("%-6s %,10d %,10d %,10d  %s%n",
+                stats.isBypassing() ? "跳过" : "学习",
+                stats.getObserved(), stats.getModified(), stats.getBypassed(), stats.getKey()));
+        }
+        if (list.size() > shown) {
+            sb.append(String.format("... 另有 %d 个端点未显示%n", list.size() - shown));
+        }
+        return sb.toString();
+    }
+    
+    /**
+     * 获取当前处于快速通道的端点数
+     */
+    public int getBypassingCount() {
+        return countBypassing(endpoints.values());
+    }
+    
+    private static int countBypassing(Iterable<EndpointStats> list) {
+        int count = 0;
+        for (EndpointStats stats : list) {
+            if (stats.isBypassing()) {
+                count++;
+            }
+        }
+        return count;
+    }
+    
+    /**
+     * 获取当前记录的端点数
+     */
+    public int size() {
+        return endpoints.size();
+    }
+    
+    /**
+     * 清除所有学习到的状态
+     */
+    public void reset() {
+        endpoints.clear();
+    }
+    
+    /**
+     * 淘汰最久未访问的一部分条目
+     */
+    private void evictOldest() {
+        if (!evictionLock.tryLock()) {
+            return; // 其他线程正在淘汰
+        }
+        try {
+            if (endpoints.size() < MAX_ENTRIES) {
+                return;
+            }
+            // 访问时间会被处理线程并发更新，先取快照再排序，找出需要淘汰的时间界限
+            List<EndpointStats> list = new ArrayList<>(endpoints.values());
+            long[] lastSeen = new long[list.size()];
+            for (int i = 0; i < lastSeen.length; i++) {
+                lastSeen[i] = list.get(i).getLastSeen();
+            }
+            long[] sorted = lastSeen.clone();
+            Arrays.sort(sorted);
+            int count = Math.max(1, sorted.length / EVICTION_DIVISOR);
+            long threshold = sorted[count - 1];
+            for (int i = 0; i < lastSeen.length && count > 0; i++) {
+                if (lastSeen[i] <= threshold) {
+                    EndpointStats stats = list.get(i);
+                    endpoints.remove(stats.getKey(), stats);
+                    count--;
+                }
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+    
+    /**
+     * 生成端点键：方向 方法 主机/路径
+     */
+    private static String endpointKey(MessageDirection direction, HttpRequest request) {
+        String path = request.pathWithoutQuery();
+        if (path.length() > MAX_PATH_LENGTH) {
+            path = path.substring(0, MAX_PATH_LENGTH);
+        }
+        return direction.getDisplayName() + " " + request.method() + " " + request.httpService().host() + path;
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2024. All rights reserved.
+ */
+
+package oxff.org.handler;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 单个端点（方向 + 方法 + 主机 + 路径）的清理统计
+ * 
+ * 连续多次完整处理都无需清理的端点进入快速通道：之后的消息直接放行，
+ * 只按固定间隔抽样完整处理一次；抽样发现需要清理时立即退出快速通道。
+ * 曾经需要清理过的端点要连续更多次无需清理才会再次进入快速通道。
+ */
+public class EndpointStats {
+    
+    // 从未需要清理的端点进入快速通道所需的连续无需清理次数
+    static final int LEARNING_SAMPLES = 100;
+    
+    // 曾经需要清理的端点再次进入快速通道所需的连续无需清理次数
+    static final int RELEARNING_SAMPLES = LEARNING_SAMPLES * 10;
+    
+    // 快速通道中每多少条消息抽样完整处理一次
+    static final int PROBE_INTERVAL = 64;
+    
+    private final String key;
+    private final AtomicLong observed;
+    private final AtomicLong modified;
+    private final AtomicLong bypassed;
+    private final AtomicInteger consecutiveClean;
+    private final AtomicInteger bypassCounter;
+    private volatile long lastSeen;
+    
+    EndpointStats(String key, long now) {
+        this.key = key;
+        this.observed = new AtomicLong();
+        this.modified = new AtomicLong();
+        this.bypassed = new AtomicLong();
+        this.consecutiveClean = new AtomicInteger();
+        this.bypassCounter = new AtomicInteger();
+        this.lastSeen = now;
+    }
+    
+    /**
+     * 判断本条消息是否可以直接放行
+     * 
+     * @return 处于快速通道且不是抽样消息时返回 true
+     */
+    boolean shouldBypass(long now) {
+        lastSeen = now;
+        if (!isBypassing()) {
+            return false;
+        }
+        if (bypassCounter.incrementAndGet() % PROBE_INTERVAL == 0) {
+            return false; // 抽样完整处理
+        }
+        bypassed.incrementAndGet();
+        return true;
+    }
+    
+    /**
+     * 记录一次完整处理的结果
+     * 
+     * @param wasModified 本次处理是否修改了消息
+     */
+    void recordOutcome(boolean wasModified) {
+        observed.incrementAndGet();
+        if (wasModified) {
+            modified.incrementAndGet();
+            consecutiveClean.set(0);
+        } else if (consecutiveClean.get() < RELEARNING_SAMPLES) {
+            consecutiveClean.incrementAndGet();
+        }
+    }
+    
+    /**
+     * 是否处于快速通道
+     */
+    public boolean isBypassing() {
+        int required = modified.get() == 0 ? LEARNING_SAMPLES : RELEARNING_SAMPLES;
+        return consecutiveClean.get() >= required;
+    }
+    
+    /**
+     * 获取端点标识（方向 方法 主机/路径）
+     */
+    public String getKey() {
+        return key;
+    }
+    
+    /**
+     * 获取完整处理的次数（包括抽样）
+     */
+    public long getObserved() {
+        return observed.get();
+    }
+    
+    /**
+     * 获取被修改的次数
+     */
+    public long getModified() {
+        return modified.get();
+    }
+    
+    /**
+     * 获取通过快速通道直接放行的次数
+     */
+    public long getBypassed() {
+        return bypassed.get();
+    }
+    
+    /**
+     * 获取最近一次访问的时间（毫秒）
+     */
+    public long getLastSeen() {
+        return lastSeen;
+    }
+}
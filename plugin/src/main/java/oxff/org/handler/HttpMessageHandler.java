@@ -0,0 +1,427 @@
+/*
+ * Copyright (c) 2024. All rights reserved.
+ */
+
+package oxff.org.handler;
+
+import burp.api.montoya.core.ToolType;
+import burp.api.montoya.http.handler.HttpHandler;
+import burp.api.montoya.http.handler.HttpRequestToBeSent;
+import burp.api.montoya.http.handler.HttpResponseReceived;
+import burp.api.montoya.http.handler.RequestToBeSentAction;
+import burp.api.montoya.http.handler.ResponseReceivedAction;
+import burp.api.montoya.http.message.HttpMessage;
+import burp.api.montoya.http.message.requests.HttpRequest;
+import oxff.org.cleaning.CleaningPipeline;
+import oxff.org.cleaning.CleaningStrategyType;
+import oxff.org.config.ConfigSnapshot;
+import oxff.org.config.PluginConfig;
+import oxff.org.logging.AsyncLogger;
+import oxff.org.logging.LogLevel;
+import oxff.org.metrics.MessageDirection;
+import oxff.org.metrics.ProcessingMetrics;
+import oxff.org.metrics.SkipReason;
+import oxff.org.processor.MessageProcessor;
+import oxff.org.util.ContentAnalyzer;
+import oxff.org.util.ContentCoding;
+import oxff.org.util.FusedBodyScanner;
+import oxff.org.util.HttpBodyView;
+import oxff.org.util.HttpProcessingResult;
+import oxff.org.util.MediaTypeClassifier;
+
+import static burp.api.montoya.http.handler.RequestToBeSentAction.continueWith;
+import static burp.api.montoya.http.handler.ResponseReceivedAction.continueWith;
+
+/**
+ * HTTP 消息处理器
+ * 
+ * 负责拦截和处理所有通过 Burp Suite 的 HTTP 请求和响应
+ * 
+ * 主要功能：
+ * - 拦截 HTTP 请求和响应
+ * - 根据配置决定是否处理（模块控制、域名控制）
+ * - 优先检查HTTP头部Content-Type信息
+ * - 通过融合扫描一次完成内容分类和空行定位
+ * - 委托给专门的处理器进行处理（可选原始报文模式，直接在完整报文上清理）
+ * - 通过异步日志记录处理结果和错误信息（按主机汇总，按键限流）
+ * - 按模块和方向统计处理数量、跳过原因和耗时
+ * - 按端点学习清理结果，从未需要清理的端点只做抽样检查（见 EndpointBypassTable，Repeater 消息除外）
+ */
+public class HttpMessageHandler implements HttpHandler {
+    
+    // 扫描结果：不需要处理（打包结果的最高位从不使用，因此不会与有效结果冲突）
+    private static final long SKIP = -1L;
+    
+    // 扫描结果：正文内容不需要处理（二进制或无需清理），与 SKIP 不同，会计入端点学习
+    private static final long SKIP_UNCHANGED = -2L;
+    
+    private final AsyncLogger logger;
+    private final MessageProcessor messageProcessor;
+    private final ContentAnalyzer contentAnalyzer;
+    private final FusedBodyScanner bodyScanner;
+    private final PluginConfig config;
+    private final ProcessingMetrics metrics;
+    private final EndpointBypassTable bypassTable;
+    
+    /**
+     * 构造函数
+     * 
+     * @param config 插件配置管理器
+     * @param metrics 处理指标
+     * @param logger 异步日志记录器
+     * @param bypassTable 端点自适应跳过表
+     */
+    public HttpMessageHandler(PluginConfig config, ProcessingMetrics metrics, AsyncLogger logger,
+                              EndpointBypassTable bypassTable) {
+        this.logger = logger;
+        this.messageProcessor = new MessageProcessor(logger);
+        this.contentAnalyzer = new ContentAnalyzer(config);
+        this.bodyScanner = new FusedBodyScanner(config);
+        this.config = config;
+        this.metrics = metrics;
+        this.bypassTable = bypassTable;
+    }
+    
+    @Override
+    public RequestToBeSentAction handleHttpRequestToBeSent(HttpRequestToBeSent requestToBeSent) {
+        long startTime = System.nanoTime();
+        ToolType tool = requestToBeSent.toolSource().toolType();
+        metrics.recordSeen(tool, MessageDirection.REQUEST);
+        try {
+            // 检查是否应该处理这个请求
+            // 每条消息只读取一次配置快照，后续检查都基于同一份配置
+            ConfigSnapshot snapshot = config.getSnapshot();
+            
+            if (!shouldProcessRequest(requestToBeSent, tool, snapshot)) {
+                return continueWith(requestToBeSent);
+            }
+            
+            // 从未需要清理的端点直接放行，只按间隔抽样完整处理
+            EndpointStats endpoint = null;
+            if (usesAdaptiveBypass(snapshot, tool)) {
+                endpoint = bypassTable.lookup(MessageDirection.REQUEST, requestToBeSent, snapshot);
+                if (bypassTable.shouldBypass(endpoint)) {
+                    metrics.recordSkipped(tool, MessageDirection.REQUEST, SkipReason.BYPASSED);
+                    return continueWith(requestToBeSent);
+                }
+            }
+            
+            // 每条消息只创建一次正文视图，一次扫描同时完成分类和空行定位
+            HttpBodyView body = HttpBodyView.of(requestToBeSent);
+            boolean chunked = contentAnalyzer.isChunked(requestToBeSent);
+            ContentCoding coding = contentAnalyzer.getContentCoding(requestToBeSent);
+            long scanResult = scanHttpContent(requestToBeSent, body, tool, MessageDirection.REQUEST, snapshot, chunked, coding);
+            if (scanResult == SKIP_UNCHANGED) {
+                recordOutcome(endpoint, body, false);
+                return continueWith(requestToBeSent);
+            }
+            if (scanResult == SKIP) {
+                return continueWith(requestToBeSent);
+            }
+            
+            // 按扫描结果执行消息处理，不再重复扫描正文
+            CleaningPipeline pipeline = snapshot.cleaningPipelineFor(body.length());
+            HttpProcessingResult result;
+            if (coding != ContentCoding.IDENTITY) {
+                result = messageProcessor.processEncodedRequest(requestToBeSent, body, coding, snapshot);
+            } else if (chunked) {
+                result = messageProcessor.processChunkedRequest(requestToBeSent, body);
+            } else if (useRawMode(requestToBeSent, snapshot, pipeline)) {
+                result = messageProcessor.processRequestRaw(requestToBeSent, body, scanResult);
+            } else {
+                result = messageProcessor.processRequest(requestToBeSent, body, scanResult, pipeline);
+            }
+            recordOutcome(endpoint, body, result.wasModified());
+            
+            if (result.wasModified()) {
+                metrics.recordModified(tool, MessageDirection.REQUEST, result.getBytesRemoved());
+                String host = requestToBeSent.httpService().host();
+                logger.recordCleaned(MessageDirection.REQUEST, host);
+                logger.log(LogLevel.DEBUG, host, () -> "已清理请求中的多余空行: " + requestToBeSent.url());
+                return continueWith(result.getProcessedRequest());
+            } else {
+                metrics.recordSkipped(tool, MessageDirection.REQUEST, SkipReason.NO_CHANGE);
+                return continueWith(requestToBeSent);
+            }
+            
+        } catch (Exception e) {
+            metrics.recordSkipped(tool, MessageDirection.REQUEST, SkipReason.ERROR);
+            logger.log(LogLevel.ERROR, "process-request", () -> "处理请求时出错: " + e.getMessage());
+            return continueWith(requestToBeSent);
+        } finally {
+            metrics.recordLatency(MessageDirection.REQUEST, System.nanoTime() - startTime);
+        }
+    }
+    
+    @Override
+    public ResponseReceivedAction handleHttpResponseReceived(HttpResponseReceived responseReceived) {
+        long startTime = System.nanoTime();
+        ToolType tool = responseReceived.toolSource().toolType();
+        metrics.recordSeen(tool, MessageDirection.RESPONSE);
+        try {
+            // 检查是否应该处理这个响应
+            // 每条消息只读取一次配置快照，后续检查都基于同一份配置
+            ConfigSnapshot snapshot = config.getSnapshot();
+            
+            if (!shouldProcessResponse(responseReceived, tool, snapshot)) {
+                return continueWith(responseReceived);
+            }
+            
+            // 从未需要清理的端点直接放行，只按间隔抽样完整处理
+            EndpointStats endpoint = null;
+            if (usesAdaptiveBypass(snapshot, tool)) {
+                endpoint = bypassTable.lookup(MessageDirection.RESPONSE, responseReceived.initiatingRequest(), snapshot);
+                if (bypassTable.shouldBypass(endpoint)) {
+                    metrics.recordSkipped(tool, MessageDirection.RESPONSE, SkipReason.BYPASSED);
+                    return continueWith(responseReceived);
+                }
+            }
+            
+            // 每条消息只创建一次正文视图，一次扫描同时完成分类和空行定位
+            HttpBodyView body = HttpBodyView.of(responseReceived);
+            boolean chunked = contentAnalyzer.isChunked(responseReceived);
+            ContentCoding coding = contentAnalyzer.getContentCoding(responseReceived);
+            long scanResult = scanHttpContent(responseReceived, body, tool, MessageDirection.RESPONSE, snapshot, chunked, coding);
+            if (scanResult == SKIP_UNCHANGED) {
+                recordOutcome(endpoint, body, false);
+                return continueWith(responseReceived);
+            }
+            if (scanResult == SKIP) {
+                return continueWith(responseReceived);
+            }
+            
+            // 按扫描结果执行消息处理，不再重复扫描正文
+            CleaningPipeline pipeline = snapshot.cleaningPipelineFor(body.length());
+            HttpProcessingResult result;
+            if (coding != ContentCoding.IDENTITY) {
+                result = messageProcessor.processEncodedResponse(responseReceived, body, coding, snapshot);
+            } else if (chunked) {
+                result = messageProcessor.processChunkedResponse(responseReceived, body);
+            } else if (useRawMode(responseReceived, snapshot, pipeline)) {
+                result = messageProcessor.processResponseRaw(responseReceived, body, scanResult);
+            } else {
+                result = messageProcessor.processResponse(responseReceived, body, scanResult, pipeline);
+            }
+            recordOutcome(endpoint, body, result.wasModified());
+            
+            if (result.wasModified()) {
+                metrics.recordModified(tool, MessageDirection.RESPONSE, result.getBytesRemoved());
+                HttpRequest initiatingRequest = responseReceived.initiatingRequest();
+                String host = initiatingRequest.httpService().host();
+                logger.recordCleaned(MessageDirection.RESPONSE, host);
+                logger.log(LogLevel.DEBUG, host, () -> "已清理响应中的多余空行: " + initiatingRequest.url());
+                return continueWith(result.getProcessedResponse());
+            } else {
+                metrics.recordSkipped(tool, MessageDirection.RESPONSE, SkipReason.NO_CHANGE);
+                return continueWith(responseReceived);
+            }
+            
+        } catch (Exception e) {
+            metrics.recordSkipped(tool, MessageDirection.RESPONSE, SkipReason.ERROR);
+            logger.log(LogLevel.ERROR, "process-response", () -> "处理响应时出错: " + e.getMessage());
+            return continueWith(responseReceived);
+        } finally {
+            metrics.recordLatency(MessageDirection.RESPONSE, System.nanoTime() - startTime);
+        }
+    }
+    
+    /**
+     * 判断是否以原始报文模式处理
+     * 
+     * 原始报文模式只实现"去掉开头空行"；选择了其他清理策略或消息为 HTTP/2 时仍通过 withBody() 替换正文。
+     * 
+     * @param message HTTP请求或响应
+     * @param snapshot 本条消息使用的配置快照
+     * @param pipeline 本条消息使用的清理流水线
+     * @return 如果使用原始报文模式返回 true
+     */
+    private boolean useRawMode(HttpMessage message, ConfigSnapshot snapshot, CleaningPipeline pipeline) {
+        return snapshot.isRawMode() && pipeline.isLeadingOnly() && !"HTTP/2".equals(message.httpVersion());
+    }
+    
+    /**
+     * 判断本条消息是否参与自适应跳过
+     * 
+     * Repeater 中的请求通常是手工编辑的，与之前的流量无关，因此从不跳过也不参与学习。
+     * 
+     * @param snapshot 本条消息使用的配置快照
+     * @param tool 发出请求的工具类型
+     * @return 如果参与自适应跳过返回 true
+     */
+    private static boolean usesAdaptiveBypass(ConfigSnapshot snapshot, ToolType tool) {
+        return snapshot.isAdaptiveBypass() && tool != ToolType.REPEATER;
+    }
+    
+    /**
+     * 记录一次完整处理的结果，供自适应跳过学习
+     * 
+     * 空正文不可能需要清理，不能作为端点"从未需要清理"的依据，因此不计入学习。
+     * 由配置决定的跳过（压缩、过大、未选择策略等）也不调用这里，只记录根据正文内容做出的判断。
+     * 
+     * @param endpoint 端点统计，未启用自适应跳过时为 null
+     * @param body 本条消息的正文视图
+     * @param modified 本次处理是否修改了消息
+     */
+    private void recordOutcome(EndpointStats endpoint, HttpBodyView body, boolean modified) {
+        if (endpoint != null && body.length() > 0) {
+            endpoint.recordOutcome(modified);
+        }
+    }
+    
+    /**
+     * 判断是否应该处理指定的请求
+     * 
+     * @param requestToBeSent HTTP 请求
+     * @param tool 发出请求的工具类型
+     * @param snapshot 本条消息使用的配置快照
+     * @return 如果应该处理返回 true，否则返回 false
+     */
+    private boolean shouldProcessRequest(HttpRequestToBeSent requestToBeSent, ToolType tool, ConfigSnapshot snapshot) {
+        try {
+            // 1. 检查当前工具类型是否启用
+            if (!snapshot.isModuleEnabled(tool)) {
+                metrics.recordSkipped(tool, MessageDirection.REQUEST, SkipReason.MODULE_DISABLED);
+                return false;
+            }
+            
+            // 2. 检查是否在目标范围内
+            if (!config.isInTargetScope(snapshot, requestToBeSent)) {
+                metrics.recordSkipped(tool, MessageDirection.REQUEST, SkipReason.OUT_OF_SCOPE);
+                return false;
+            }
+            
+            // 3. 消息内容由 scanHttpContent 基于共享的正文视图检查
+            return true;
+            
+        } catch (Exception e) {
+            metrics.recordSkipped(tool, MessageDirection.REQUEST, SkipReason.ERROR);
+            logger.log(LogLevel.ERROR, "check-request", () -> "检查请求处理条件时出错: " + e.getMessage());
+            return false;
+        }
+    }
+    
+    /**
+     * 判断是否应该处理指定的响应
+     * 
+     * @param responseReceived HTTP 响应
+     * @param tool 发出请求的工具类型
+     * @param snapshot 本条消息使用的配置快照
+     * @return 如果应该处理返回 true，否则返回 false
+     */
+    private boolean shouldProcessResponse(HttpResponseReceived responseReceived, ToolType tool, ConfigSnapshot snapshot) {
+        try {
+            // 1. 检查当前工具类型是否启用
+            if (!snapshot.isModuleEnabled(tool)) {
+                metrics.recordSkipped(tool, MessageDirection.RESPONSE, SkipReason.MODULE_DISABLED);
+                return false;
+            }
+            
+            // 2. 检查是否在目标范围内（基于请求）
+            if (!config.isInTargetScope(snapshot, responseReceived.initiatingRequest())) {
+                metrics.recordSkipped(tool, MessageDirection.RESPONSE, SkipReason.OUT_OF_SCOPE);
+                return false;
+            }
+            
+            // 3. 消息内容由 scanHttpContent 基于共享的正文视图检查
+            return true;
+            
+        } catch (Exception e) {
+            metrics.recordSkipped(tool, MessageDirection.RESPONSE, SkipReason.ERROR);
+            logger.log(LogLevel.ERROR, "check-response", () -> "检查响应处理条件时出错: " + e.getMessage());
+            return false;
+        }
+    }
+    
+    /**
+     * 扫描HTTP消息内容，判断是否需要处理（优先检查Content-Type）
+     * 
+     * 正文超过大小上限时直接跳过；Content-Type 为二进制时直接跳过；为文本时只定位开头空行；
+     * 无法确定时由 FusedBodyScanner 在同一次扫描中完成分类和空行定位。
+     * 分块传输编码的正文只做分类，是否需要修改由 ChunkedBodyCleaner 按分块判断。
+     * 带 Content-Encoding 的正文默认跳过；启用解压时不扫描压缩后的字节，分类和清理在解压后进行。
+     * 
+     * 由配置决定的跳过返回 SKIP；根据正文内容判断不需要处理时返回 SKIP_UNCHANGED，
+     * 只有后者说明端点的内容不需要清理，可以计入自适应跳过的学习。
+     * 
+     * @param message HTTP请求或响应
+     * @param body 消息的正文视图
+     * @param tool 工具类型（用于统计跳过原因）
+     * @param direction 消息方向（用于统计跳过原因）
+     * @param snapshot 本条消息使用的配置快照
+     * @param chunked 正文是否为分块传输编码
+     * @param coding 正文的内容编码
+     * @return 打包的扫描结果，不需要处理时返回 SKIP 或 SKIP_UNCHANGED
+     */
+    private long scanHttpContent(HttpMessage message, HttpBodyView body, ToolType tool, MessageDirection direction,
+                                 ConfigSnapshot snapshot, boolean chunked, ContentCoding coding) {
+        try {
+            // 如果消息太短，跳过处理（由头部偏移量和正文长度计算，无需序列化整条消息）
+            if (body.messageLength() < 10) {
+                metrics.recordSkipped(tool, direction, SkipReason.TOO_SHORT);
+                return SKIP;
+            }
+            
+            // 压缩后的字节不能直接清理：默认直接跳过；启用解压时只支持单一的 gzip/deflate 编码，
+            // 分块传输的压缩正文需要先合并分块，同样跳过
+            if (coding != ContentCoding.IDENTITY
+                    && (!snapshot.isDecodeCompressed() || !coding.isDecodable() || chunked)) {
+                metrics.recordSkipped(tool, direction, SkipReason.ENCODED);
+                return SKIP;
+            }
+            
+            // 超过大小上限的正文不分析也不清理，限制单条消息的最坏耗时和内存占用
+            if (snapshot.isTooLarge(body.length())) {
+                metrics.recordSkipped(tool, direction, SkipReason.TOO_LARGE);
+                return SKIP;
+            }
+            
+            // 没有选择任何清理策略（按正文长度取实际使用的流水线，与 MessageProcessor 的处理保持一致）
+            CleaningPipeline pipeline = snapshot.cleaningPipelineFor(body.length());
+            if (pipeline.isEmpty()) {
+                metrics.recordSkipped(tool, direction, SkipReason.NO_CHANGE);
+                return SKIP;
+            }
+            
+            MediaTypeClassifier.Category declared = contentAnalyzer.classifyContentType(message, snapshot);
+            if (declared == MediaTypeClassifier.Category.BINARY) {
+                metrics.recordSkipped(tool, direction, SkipReason.BINARY_CONTENT_TYPE);
+                return SKIP_UNCHANGED;
+            }
+            
+            // 压缩正文的内容检测和清理在解压后由 MessageProcessor 完成
+            if (coding != ContentCoding.IDENTITY) {
+                return 0L;
+            }
+            
+            // 分块正文只检测第一个分块的数据，不检测分块大小行
+            boolean classify = declared == MediaTypeClassifier.Category.UNKNOWN;
+            long scanResult = chunked
+                ? bodyScanner.scanChunked(body, classify, snapshot)
+                : bodyScanner.scan(body, classify, snapshot);
+            if (FusedBodyScanner.isBinary(scanResult)) {
+                metrics.recordSkipped(tool, direction, SkipReason.BINARY_CONTENT);
+                return SKIP_UNCHANGED;
+            }
+            // 分块正文的开头是分块大小行，只能去掉第一个包含内容的分块开头的空行，由 ChunkedBodyCleaner 判断
+            if (chunked) {
+                if (!pipeline.getTypes().contains(CleaningStrategyType.LEADING)) {
+                    metrics.recordSkipped(tool, direction, SkipReason.NO_CHANGE);
+                    return SKIP;
+                }
+                return scanResult;
+            }
+            
+            // 只去掉开头空行时扫描结果已经能确定是否需要修改，其他策略需要由清理流水线判断
+            if (!FusedBodyScanner.isModified(scanResult) && pipeline.isLeadingOnly()) {
+                metrics.recordSkipped(tool, direction, SkipReason.NO_CHANGE);
+                return SKIP_UNCHANGED;
+            }
+            return scanResult;
+            
+        } catch (Exception e) {
+            metrics.recordSkipped(tool, direction, SkipReason.ERROR);
+            logger.log(LogLevel.ERROR, "scan-content", () -> "检查消息内容时出错: " + e.getMessage());
+            return SKIP;
+        }
+    }
+}
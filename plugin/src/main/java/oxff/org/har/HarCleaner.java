@@ -0,0 +1,323 @@
+/*
+ * Copyright (c) 2024. All rights reserved.
+ */
+
+package oxff.org.har;
+
+import oxff.org.config.ConfigSnapshot;
+import oxff.org.metrics.MessageDirection;
+import oxff.org.metrics.SkipReason;
+import oxff.org.util.ContentAnalyzer;
+import oxff.org.util.HttpBodyView;
+import oxff.org.util.MediaTypeClassifier;
+import oxff.org.util.ProcessingResult;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * HAR 文件批量清理器
+ * 
+ * 以流的方式读取 HAR：log.entries 之外的内容逐个记号原样复制，entries 中的记录每次只读入一条，
+ * 清理后立即写出，内存占用只取决于单条记录的大小，与文件大小无关。
+ * 
+ * 每条记录清理 request.postData.text 和 response.content.text，判断规则与插件一致：
+ * - base64 编码的正文（content.encoding 为 base64）不处理
+ * - 超过大小上限的正文跳过
+ * - 先按 mimeType（没有时取 Content-Type 头部）分类，无法确定时由 ContentAnalyzer 检查正文字节
+ * - 按配置的清理策略清理，与原正文长度一致的长度字段（Content-Length、bodySize、content.size）同步更新
+ * 
+ * 单条记录处理出错时保留原样并计入统计，不影响其他记录。本类不是线程安全的。
+ */
+public class HarCleaner {
+    
+    private static final String INDENT = "  ";
+    
+    private final ConfigSnapshot snapshot;
+    private final ContentAnalyzer contentAnalyzer = new ContentAnalyzer();
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+        .onMalformedInput(CodingErrorAction.REPORT)
+        .onUnmappableCharacter(CodingErrorAction.REPORT);
+    
+    /**
+     * @param snapshot 使用的配置（清理策略、大小上限、Content-Type 分类规则等）
+     */
+    public HarCleaner(ConfigSnapshot snapshot) {
+        this.snapshot = snapshot;
+    }
+    
+    /**
+     * 清理 HAR 文件并写出到新文件
+     * 
+     * 出错时删除不完整的输出文件。
+     * 
+     * @param input 输入文件
+     * @param output 输出文件，不能与输入相同
+     * @return 统计结果
+     */
+    public HarCleaningSummary clean(Path input, Path output) throws IOException {
+        if (Files.exists(output) && Files.isSameFile(input, output)) {
+            throw new IOException("输出文件不能与输入文件相同: " + output);
+        }
+        boolean completed = false;
+        try (BufferedReader reader = Files.newBufferedReader(input, StandardCharsets.UTF_8);
+             BufferedWriter writer = Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+            HarCleaningSummary summary = clean(reader, writer);
+            completed = true;
+            return summary;
+        } finally {
+            if (!completed) {
+                Files.deleteIfExists(output);
+            }
+        }
+    }
+    
+    /**
+     * 清理 HAR 文档
+     * 
+     * @param in 输入
+     * @param out 输出，写完后刷新但不关闭
+     * @return 统计结果
+     */
+    public HarCleaningSummary clean(Reader in, Writer out) throws IOException {
+        long start = System.currentTimeMillis();
+        HarCleaningSummary summary = new HarCleaningSummary();
+        JsonReader reader = new JsonReader(in);
+        JsonWriter writer = new JsonWriter(out, INDENT);
+        
+        copyValue(reader, writer, "", summary);
+        if (reader.peek() != JsonToken.END_DOCUMENT) {
+            throw new IOException("HAR 文档只能包含一个顶层对象");
+        }
+        out.write('\n');
+        writer.flush();
+        
+        summary.setElapsedMillis(System.currentTimeMillis() - start);
+        return summary;
+    }
+    
+    /**
+     * 逐个记号复制一个值，遇到 /log/entries 数组时逐条清理
+     * 
+     * @param path 当前位置（"" 或 "/log"），其他位置为 null
+     */
+    private void copyValue(JsonReader reader, JsonWriter writer, String path, HarCleaningSummary summary)
+            throws IOException {
+        switch (reader.peek()) {
+            case BEGIN_OBJECT:
+                reader.beginObject();
+                writer.beginObject();
+                while (reader.hasNext()) {
+                    String name = reader.nextName();
+                    writer.name(name);
+                    String child = path != null ? path + "/" + name : null;
+                    if ("/log/entries".equals(child) && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                        copyEntries(reader, writer, summary);
+                    } else {
+                        copyValue(reader, writer, "/log".equals(child) ? child : null, summary);
+                    }
+                }
+                reader.endObject();
+                writer.endObject();
+                break;
+            case BEGIN_ARRAY:
+                reader.beginArray();
+                writer.beginArray();
+                while (reader.hasNext()) {
+                    copyValue(reader, writer, null, summary);
+                }
+                reader.endArray();
+                writer.endArray();
+                break;
+            case STRING:
+                writer.value(reader.nextString());
+                break;
+            case NUMBER:
+                writer.value(reader.nextNumber());
+                break;
+            case BOOLEAN:
+                writer.value(reader.nextBoolean());
+                break;
+            default:
+                reader.nextNull();
+                writer.nullValue();
+                break;
+        }
+    }
+    
+    private void copyEntries(JsonReader reader, JsonWriter writer, HarCleaningSummary summary) throws IOException {
+        reader.beginArray();
+        writer.beginArray();
+        while (reader.hasNext()) {
+            Object entry = reader.readValue();
+            if (entry instanceof Map) {
+                summary.recordEntry();
+                cleanEntry(asObject(entry), summary);
+            }
+            writer.value(entry);
+        }
+        reader.endArray();
+        writer.endArray();
+    }
+    
+    /**
+     * 清理一条记录的请求正文和响应正文
+     */
+    private void cleanEntry(Map<String, Object> entry, HarCleaningSummary summary) {
+        Map<String, Object> request = asObject(entry.get("request"));
+        if (request != null) {
+            Map<String, Object> postData = asObject(request.get("postData"));
+            if (postData != null) {
+                cleanBody(request, postData, MessageDirection.REQUEST, summary);
+            }
+        }
+        
+        Map<String, Object> response = asObject(entry.get("response"));
+        if (response != null) {
+            Map<String, Object> content = asObject(response.get("content"));
+            if (content != null) {
+                cleanBody(response, content, MessageDirection.RESPONSE, summary);
+            }
+        }
+    }
+    
+    /**
+     * 清理 postData 或 content 中的 text
+     * 
+     * @param message request 或 response 对象
+     * @param body postData 或 content 对象
+     */
+    private void cleanBody(Map<String, Object> message, Map<String, Object> body, MessageDirection direction,
+                           HarCleaningSummary summary) {
+        Object text = body.get("text");
+        if (!(text instanceof String)) {
+            return;
+        }
+        summary.recordSeen(direction);
+        
+        try {
+            // base64 编码的正文是原始字节的编码结果，不能按文本清理
+            if ("base64".equalsIgnoreCase(stringValue(body.get("encoding")))) {
+                summary.recordSkipped(direction, SkipReason.ENCODED);
+                return;
+            }
+            
+            byte[] bytes = encode((String) text);
+            if (bytes == null) {
+                // 包含无法编码为 UTF-8 的字符（例如孤立的代理字符），清理后无法原样还原
+                summary.recordSkipped(direction, SkipReason.BINARY_CONTENT);
+                return;
+            }
+            if (bytes.length == 0) {
+                summary.recordSkipped(direction, SkipReason.NO_CHANGE);
+                return;
+            }
+            if (snapshot.isTooLarge(bytes.length)) {
+                summary.recordSkipped(direction, SkipReason.TOO_LARGE);
+                return;
+            }
+            
+            String mimeType = stringValue(body.get("mimeType"));
+            if (mimeType == null || mimeType.isEmpty()) {
+                mimeType = headerValue(message, "Content-Type");
+            }
+            MediaTypeClassifier.Category category = snapshot.getMediaTypeClassifier().classify(mimeType);
+            if (category == MediaTypeClassifier.Category.BINARY) {
+                summary.recordSkipped(direction, SkipReason.BINARY_CONTENT_TYPE);
+                return;
+            }
+            if (category == MediaTypeClassifier.Category.UNKNOWN
+                    && !contentAnalyzer.containsTextContent(HttpBodyView.of(bytes), snapshot)) {
+                summary.recordSkipped(direction, SkipReason.BINARY_CONTENT);
+                return;
+            }
+            
+            ProcessingResult result = snapshot.cleaningPipelineFor(bytes.length).clean(bytes);
+            if (!result.wasModified()) {
+                summary.recordSkipped(direction, SkipReason.NO_CHANGE);
+                return;
+            }
+            
+            byte[] cleaned = result.getProcessedRawBytes();
+            body.put("text", new String(cleaned, StandardCharsets.UTF_8));
+            updateLengths(message, body, bytes.length, cleaned.length);
+            summary.recordModified(direction, bytes.length - cleaned.length);
+        } catch (RuntimeException e) {
+            // 出错时保留原始正文
+            summary.recordSkipped(direction, SkipReason.ERROR);
+        }
+    }
+    
+    /**
+     * 同步更新与原正文长度一致的长度字段
+     * 
+     * 响应的 bodySize 和 Content-Length 是传输长度，压缩传输时与正文长度不同，此时保持不变。
+     */
+    private void updateLengths(Map<String, Object> message, Map<String, Object> body, int oldLength, int newLength) {
+        JsonNumber oldValue = JsonNumber.of(oldLength);
+        JsonNumber newValue = JsonNumber.of(newLength);
+        if (oldValue.equals(body.get("size"))) {
+            body.put("size", newValue);
+        }
+        if (oldValue.equals(message.get("bodySize"))) {
+            message.put("bodySize", newValue);
+        }
+        
+        Object headers = message.get("headers");
+        if (headers instanceof List) {
+            for (Object element : (List<?>) headers) {
+                Map<String, Object> header = asObject(element);
+                if (header != null && "content-length".equalsIgnoreCase(stringValue(header.get("name")))
+                        && String.valueOf(oldLength).equals(stringValue(header.get("value")))) {
+                    header.put("value", String.valueOf(newLength));
+                }
+            }
+        }
+    }
+    
+    private byte[] encode(String text) {
+        try {
+            ByteBuffer buffer = encoder.reset().encode(CharBuffer.wrap(text));
+            byte[] bytes = new byte[buffer.remaining()];
+            buffer.get(bytes);
+            return bytes;
+        } catch (CharacterCodingException e) {
+            return null;
+        }
+    }
+    
+    private static String headerValue(Map<String, Object> message, String name) {
+        Object headers = message.get("headers");
+        if (headers instanceof List) {
+            for (Object element : (List<?>) headers) {
+                Map<String, Object> header = asObject(element);
+                if (header != null && name.equalsIgnoreCase(stringValue(header.get("name")))) {
+                    return stringValue(header.get("value"));
+                }
+            }
+        }
+        return null;
+    }
+    
+    private static String stringValue(Object value) {
+        return value instanceof String ? (String) value : null;
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> asObject(Object value) {
+        return value instanceof Map ? (Map<String, Object>) value : null;
+    }
+}
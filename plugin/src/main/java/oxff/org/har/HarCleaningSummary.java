@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2024. All rights reserved.
+ */
+
+package oxff.org.har;
+
+import oxff.org.metrics.MessageDirection;
+import oxff.org.metrics.SkipReason;
+
+/**
+ * HAR 批量清理的统计结果
+ * 
+ * 由单个线程在清理过程中累加，清理结束后只读。
+ */
+public class HarCleaningSummary {
+    
+    private long entries;
+    private final long[] seen = new long[MessageDirection.values().length];
+    private final long[] modified = new long[MessageDirection.values().length];
+    private final long[] bytesRemoved = new long[MessageDirection.values().length];
+    private final long[][] skipped = new long[MessageDirection.values().length][SkipReason.values().length];
+    private long elapsedMillis;
+    
+    void recordEntry() {
+        entries++;
+    }
+    
+    void recordSeen(MessageDirection direction) {
+        seen[direction.ordinal()]++;
+    }
+    
+    void recordModified(MessageDirection direction, long removed) {
+        modified[direction.ordinal()]++;
+        bytesRemoved[direction.ordinal()] += removed;
+    }
+    
+    void recordSkipped(MessageDirection direction, SkipReason reason) {
+        skipped[direction.ordinal()][reason.ordinal()]++;
+    }
+    
+    void setElapsedMillis(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+    
+    /**
+     * 获取处理的记录（entries 中的元素）数量
+     */
+    public long getEntries() {
+        return entries;
+    }
+    
+    /**
+     * 获取带正文文本的请求或响应数量
+     */
+    public long getSeen(MessageDirection direction) {
+        return seen[direction.ordinal()];
+    }
+    
+    public long getModified(MessageDirection direction) {
+        return modified[direction.ordinal()];
+    }
+    
+    public long getBytesRemoved(MessageDirection direction) {
+        return bytesRemoved[direction.ordinal()];
+    }
+    
+    public long getSkipped(MessageDirection direction, SkipReason reason) {
+        return skipped[direction.ordinal()][reason.ordinal()];
+    }
+    
+    public long getSkipped(MessageDirection direction) {
+        long total = 0;
+        for (long count : skipped[direction.ordinal()]) {
+            total += count;
+        }
+        return total;
+    }
+    
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+    
+    /**
+     * 格式化为多行文本，用于命令行输出
+     * 
+     * @return 格式化后的统计信息
+     */
+    public String toDisplayString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("记录数: %d，耗时: %.1f 秒%n%n", entries, elapsedMillis / 1000.0));
+        sb.append(String.format("%-4s %10s %10s %10s %14s%n", "方向", "正文", "已清理", "跳过", "移除字节"));
+        for (MessageDirection direction : MessageDirection.values()) {
+            sb.append(String.format("%-4s %10d %10d %10d %14d%n", direction.getDisplayName(), getSeen(direction),
+                getModified(direction), getSkipped(direction), getBytesRemoved(direction)));
+        }
+        
+        sb.append(System.lineSeparator()).append("跳过原因:").append(System.lineSeparator());
+        for (SkipReason reason : SkipReason.values()) {
+            long count = 0;
+            for (MessageDirection direction : MessageDirection.values()) {
+                count += getSkipped(direction, reason);
+            }
+            if (count > 0) {
+                sb.append(String.format("  %-20s %10d%n", reason.getDisplayName(), count));
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2024. All rights reserved.
+ */
+
+package oxff.org.har;
+
+/**
+ * JSON 数字的原始文本
+ * 
+ * 读取时不转换为 double 或 long，写回时原样输出，避免精度损失和格式变化（例如 1.0 变成 1）。
+ */
+public final class JsonNumber {
+    
+    private final String text;
+    
+    public JsonNumber(String text) {
+        this.text = text;
+    }
+    
+    /**
+     * 创建整数
+     */
+    public static JsonNumber of(long value) {
+        return new JsonNumber(Long.toString(value));
+    }
+    
+    /**
+     * 按 long 解析，不是整数时返回 null
+     */
+    public Long longValue() {
+        try {
+            return Long.parseLong(text);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+    
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof JsonNumber && ((JsonNumber) other).text.equals(text);
+    }
+    
+    @Override
+    public int hashCode() {
+        return text.hashCode();
+    }
+    
+    @Override
+    public String toString() {
+        return text;
+    }
+}
@@ -0,0 +1,412 @@
+/*
+ * Copyright (c) 2024. All rights reserved.
+ */
+
+package oxff.org.har;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * 拉取式 JSON 解析器
+ * 
+ * 调用方按 peek()/beginObject()/nextName()/nextString() 等方法逐个读取记号，
+ * 解析器只保留一个固定大小的字符缓冲区和嵌套层级栈，内存占用与文档大小无关。
+ * 需要整体处理的子树（例如一条 HAR 记录）可以用 readValue() 读成 Map/List。
+ * 
+ * 格式错误时抛出 IOException，消息中包含出错位置（字符偏移）。
+ */
+public class JsonReader implements Closeable {
+    
+    // 嵌套上下文
+    private static final int EMPTY_DOCUMENT = 0;
+    private static final int NONEMPTY_DOCUMENT = 1;
+    private static final int EMPTY_ARRAY = 2;
+    private static final int NONEMPTY_ARRAY = 3;
+    private static final int EMPTY_OBJECT = 4;
+    private static final int DANGLING_NAME = 5;
+    private static final int NONEMPTY_OBJECT = 6;
+    
+    private static final int BUFFER_SIZE = 16 * 1024;
+    
+    private static final Pattern NUMBER = Pattern.compile("-?(0|[1-9][0-9]*)(\\.[0-9]+)?([eE][+-]?[0-9]+)?");
+    
+    private final Reader in;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private final StringBuilder scratch = new StringBuilder();
+    private int pos;
+    private int limit;
+    private long bufferOffset;
+    
+    private int[] stack = new int[32];
+    private int depth = 1;
+    private JsonToken peeked;
+    
+    /**
+     * @param in 字符输入，调用方负责选择字符集和缓冲
+     */
+    public JsonReader(Reader in) {
+        this.in = in;
+        stack[0] = EMPTY_DOCUMENT;
+    }
+    
+    /**
+     * 查看下一个记号的类型，不消费
+     */
+    public JsonToken peek() throws IOException {
+        if (peeked != null) {
+            return peeked;
+        }
+        
+        int context = stack[depth - 1];
+        int c;
+        switch (context) {
+            case EMPTY_ARRAY:
+            case NONEMPTY_ARRAY:
+                stack[depth - 1] = NONEMPTY_ARRAY;
+                c = nextNonWhitespace();
+                if (c == ']') {
+                    return peeked = JsonToken.END_ARRAY;
+                }
+                if (context == NONEMPTY_ARRAY) {
+                    if (c != ',') {
+                        throw syntaxError("数组元素之间缺少逗号");
+                    }
+                } else if (c != -1) {
+                    pos--;
+                }
+                break;
+            case EMPTY_OBJECT:
+            case NONEMPTY_OBJECT:
+                c = nextNonWhitespace();
+                if (c == '}') {
+                    return peeked = JsonToken.END_OBJECT;
+                }
+                if (context == NONEMPTY_OBJECT) {
+                    if (c != ',') {
+                        throw syntaxError("属性之间缺少逗号");
+                    }
+                    c = nextNonWhitespace();
+                }
+                if (c != '"') {
+                    throw syntaxError("属性名必须是字符串");
+                }
+                stack[depth - 1] = DANGLING_NAME;
+                return peeked = JsonToken.NAME;
+            case DANGLING_NAME:
+                if (nextNonWhitespace() != ':') {
+                    throw syntaxError("属性名之后缺少冒号");
+                }
+                stack[depth - 1] = NONEMPTY_OBJECT;
+                break;
+            case EMPTY_DOCUMENT:
+                stack[depth - 1] = NONEMPTY_DOCUMENT;
+                break;
+            default:
+                if (nextNonWhitespace() != -1) {
+                    throw syntaxError("文档末尾有多余内容");
+                }
+                return peeked = JsonToken.END_DOCUMENT;
+        }
+        
+        c = nextNonWhitespace();
+        switch (c) {
+            case '{':
+                return peeked = JsonToken.BEGIN_OBJECT;
+            case '[':
+                return peeked = JsonToken.BEGIN_ARRAY;
+            case '"':
+                return peeked = JsonToken.STRING;
+            case 't':
+            case 'f':
+                pos--;
+                return peeked = JsonToken.BOOLEAN;
+            case 'n':
+                pos--;
+                return peeked = JsonToken.NULL;
+            case -1:
+                throw syntaxError("文档意外结束");
+            default:
+                if (c == '-' || (c >= '0' && c <= '9')) {
+                    pos--;
+                    return peeked = JsonToken.NUMBER;
+                }
+                throw syntaxError("无法识别的字符 '" + (char) c + "'");
+        }
+    }
+    
+    public void beginObject() throws IOException {
+        expect(JsonToken.BEGIN_OBJECT);
+        push(EMPTY_OBJECT);
+    }
+    
+    public void endObject() throws IOException {
+        expect(JsonToken.END_OBJECT);
+        depth--;
+    }
+    
+    public void beginArray() throws IOException {
+        expect(JsonToken.BEGIN_ARRAY);
+        push(EMPTY_ARRAY);
+    }
+    
+    public void endArray() throws IOException {
+        expect(JsonToken.END_ARRAY);
+        depth--;
+    }
+    
+    /**
+     * 当前对象或数组中是否还有元素
+     */
+    public boolean hasNext() throws IOException {
+        JsonToken token = peek();
+        return token != JsonToken.END_OBJECT && token != JsonToken.END_ARRAY && token != JsonToken.END_DOCUMENT;
+    }
+    
+    public String nextName() throws IOException {
+        expect(JsonToken.NAME);
+        return readString();
+    }
+    
+    public String nextString() throws IOException {
+        expect(JsonToken.STRING);
+        return readString();
+    }
+    
+    /**
+     * 读取数字的原始文本
+     */
+    public JsonNumber nextNumber() throws IOException {
+        expect(JsonToken.NUMBER);
+        scratch.setLength(0);
+        int c;
+        while ((c = read()) != -1) {
+            if ((c >= '0' && c <= '9') || c == '-' || c == '+' || c == '.' || c == 'e' || c == 'E') {
+                scratch.append((char) c);
+            } else {
+                pos--;
+                break;
+            }
+        }
+        String text = scratch.toString();
+        if (!NUMBER.matcher(text).matches()) {
+            throw syntaxError("无效的数字 " + text);
+        }
+        return new JsonNumber(text);
+    }
+    
+    public boolean nextBoolean() throws IOException {
+        expect(JsonToken.BOOLEAN);
+        if (peekChar() == 't') {
+            readLiteral("true");
+            return true;
+        }
+        readLiteral("false");
+        return false;
+    }
+    
+    public void nextNull() throws IOException {
+        expect(JsonToken.NULL);
+        readLiteral("null");
+    }
+    
+    /**
+     * 读取下一个完整的值
+     * 
+     * @return 对象为 LinkedHashMap（保留属性顺序），数组为 ArrayList，
+     *         其余为 String、JsonNumber、Boolean 或 null
+     */
+    public Object readValue() throws IOException {
+        switch (peek()) {
+            case BEGIN_OBJECT: {
+                beginObject();
+                Map<String, Object> object = new LinkedHashMap<>();
+                while (hasNext()) {
+                    String name = nextName();
+                    object.put(name, readValue());
+                }
+                endObject();
+                return object;
+            }
+            case BEGIN_ARRAY: {
+                beginArray();
+                List<Object> array = new ArrayList<>();
+                while (hasNext()) {
+                    array.add(readValue());
+                }
+                endArray();
+                return array;
+            }
+            case STRING:
+                return nextString();
+            case NUMBER:
+                return nextNumber();
+            case BOOLEAN:
+                return nextBoolean();
+            case NULL:
+                nextNull();
+                return null;
+            default:
+                throw syntaxError("期望一个值，实际为" + peek().getDisplayName());
+        }
+    }
+    
+    /**
+     * 获取已读取的字符数
+     */
+    public long getCharOffset() {
+        return bufferOffset + pos;
+    }
+    
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+    
+    private void expect(JsonToken expected) throws IOException {
+        JsonToken actual = peek();
+        if (actual != expected) {
+            throw syntaxError("期望" + expected.getDisplayName() + "，实际为" + actual.getDisplayName());
+        }
+        peeked = null;
+    }
+    
+    private void push(int context) {
+        if (depth == stack.length) {
+            stack = Arrays.copyOf(stack, depth * 2);
+        }
+        stack[depth++] = context;
+    }
+    
+    /**
+     * 读取字符串内容，开头的引号已被 peek() 消费
+     */
+    private String readString() throws IOException {
+        scratch.setLength(0);
+        while (true) {
+            // 在缓冲区内批量查找结束引号或转义符，整段追加
+            int start = pos;
+            while (pos < limit) {
+                char c = buffer[pos];
+                if (c == '"') {
+                    scratch.append(buffer, start, pos - start);
+                    pos++;
+                    return scratch.toString();
+                }
+                if (c == '\\') {
+                    break;
+                }
+                pos++;
+            }
+            scratch.append(buffer, start, pos - start);
+            if (pos < limit) {
+                pos++;
+                readEscape();
+            } else if (!fill()) {
+                throw syntaxError("字符串没有结束");
+            }
+        }
+    }
+    
+    private void readEscape() throws IOException {
+        int c = read();
+        switch (c) {
+            case '"':
+            case '\\':
+            case '/':
+                scratch.append((char) c);
+                break;
+            case 'b':
+                scratch.append('\b');
+                break;
+            case 'f':
+                scratch.append('\f');
+                break;
+            case 'n':
+                scratch.append('\n');
+                break;
+            case 'r':
+                scratch.append('\r');
+                break;
+            case 't':
+                scratch.append('\t');
+                break;
+            case 'u': {
+                int value = 0;
+                for (int i = 0; i < 4; i++) {
+                    int digit = Character.digit(read(), 16);
+                    if (digit < 0) {
+                        throw syntaxError("无效的 \\u 转义");
+                    }
+                    value = (value << 4) | digit;
+                }
+                scratch.append((char) value);
+                break;
+            }
+            default:
+                throw syntaxError("无效的转义字符");
+        }
+    }
+    
+    private void readLiteral(String literal) throws IOException {
+        for (int i = 0; i < literal.length(); i++) {
+            if (read() != literal.charAt(i)) {
+                throw syntaxError("期望 " + literal);
+            }
+        }
+    }
+    
+    private int nextNonWhitespace() throws IOException {
+        int c;
+        do {
+            c = read();
+        } while (c == ' ' || c == '\n' || c == '\r' || c == '\t');
+        return c;
+    }
+    
+    private int peekChar() throws IOException {
+        int c = read();
+        if (c != -1) {
+            pos--;
+        }
+        return c;
+    }
+    
+    private int read() throws IOException {
+        if (pos == limit && !fill()) {
+            return -1;
+        }
+        return buffer[pos++];
+    }
+    
+    /**
+     * 读入下一段字符，缓冲区已消费完时才调用
+     * 
+     * @return 读到字符返回 true，输入结束返回 false
+     */
+    private boolean fill() throws IOException {
+        bufferOffset += limit;
+        pos = 0;
+        limit = 0;
+        int n;
+        while ((n = in.read(buffer, 0, buffer.length)) == 0) {
+            // Reader 约定不会返回 0，防御性地重试
+        }
+        if (n < 0) {
+            return false;
+        }
+        limit = n;
+        return true;
+    }
+    
+    private IOException syntaxError(String message) {
+        return new IOException("JSON 格式错误（字符偏移 " + getCharOffset() + "）: " + message);
+    }
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright (c) 2024. All rights reserved.
+ */
+
+package oxff.org.har;
+
+/**
+ * JsonReader 返回的记号类型
+ */
+public enum JsonToken {
+    BEGIN_OBJECT("对象开始"),
+    END_OBJECT("对象结束"),
+    BEGIN_ARRAY("数组开始"),
+    END_ARRAY("数组结束"),
+    NAME("属性名"),
+    STRING("字符串"),
+    NUMBER("数字"),
+    BOOLEAN("布尔值"),
+    NULL("null"),
+    END_DOCUMENT("文档结束");
+    
+    private final String displayName;
+    
+    JsonToken(String displayName) {
+        this.displayName = displayName;
+    }
+    
+    /**
+     * 获取显示名称
+     */
+    public String getDisplayName() {
+        return displayName;
+    }
+}
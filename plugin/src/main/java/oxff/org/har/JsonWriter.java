@@ -0,0 +1,262 @@
+/*
+ * Copyright (c) 2024. All rights reserved.
+ */
+
+package oxff.org.har;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 流式 JSON 写入器
+ * 
+ * 与 JsonReader 对应，按记号逐个写出，只保留嵌套层级栈。
+ * 每个元素单独一行并按层级缩进；缩进为空字符串时输出紧凑格式。
+ */
+public class JsonWriter implements Closeable, Flushable {
+    
+    private static final int EMPTY_DOCUMENT = 0;
+    private static final int NONEMPTY_DOCUMENT = 1;
+    private static final int EMPTY_ARRAY = 2;
+    private static final int NONEMPTY_ARRAY = 3;
+    private static final int EMPTY_OBJECT = 4;
+    private static final int DANGLING_NAME = 5;
+    private static final int NONEMPTY_OBJECT = 6;
+    
+    private static final String[] CONTROL_ESCAPES = new String[0x20];
+    
+    static {
+        for (int i = 0; i < CONTROL_ESCAPES.length; i++) {
+            CONTROL_ESCAPES[i] = String.format("\\u%04x", i);
+        }
+        CONTROL_ESCAPES['\b'] = "\\b";
+        CONTROL_ESCAPES['\f'] = "\\f";
+        CONTROL_ESCAPES['\n'] = "\\n";
+        CONTROL_ESCAPES['\r'] = "\\r";
+        CONTROL_ESCAPES['\t'] = "\\t";
+    }
+    
+    private final Writer out;
+    private final String indent;
+    private int[] stack = new int[32];
+    private int depth = 1;
+    
+    /**
+     * @param out 字符输出，调用方负责选择字符集和缓冲
+     * @param indent 每层缩进，空字符串表示紧凑格式
+     */
+    public JsonWriter(Writer out, String indent) {
+        this.out = out;
+        this.indent = indent;
+        stack[0] = EMPTY_DOCUMENT;
+    }
+    
+    public JsonWriter beginObject() throws IOException {
+        beforeValue();
+        push(EMPTY_OBJECT);
+        out.write('{');
+        return this;
+    }
+    
+    public JsonWriter endObject() throws IOException {
+        return close(EMPTY_OBJECT, NONEMPTY_OBJECT, '}');
+    }
+    
+    public JsonWriter beginArray() throws IOException {
+        beforeValue();
+        push(EMPTY_ARRAY);
+        out.write('[');
+        return this;
+    }
+    
+    public JsonWriter endArray() throws IOException {
+        return close(EMPTY_ARRAY, NONEMPTY_ARRAY, ']');
+    }
+    
+    public JsonWriter name(String name) throws IOException {
+        int context = stack[depth - 1];
+        if (context == NONEMPTY_OBJECT) {
+            out.write(',');
+        } else if (context != EMPTY_OBJECT) {
+            throw new IllegalStateException("属性名只能写在对象中");
+        }
+        newline();
+        writeString(name);
+        stack[depth - 1] = DANGLING_NAME;
+        return this;
+    }
+    
+    public JsonWriter value(String value) throws IOException {
+        if (value == null) {
+            return nullValue();
+        }
+        beforeValue();
+        writeString(value);
+        return this;
+    }
+    
+    public JsonWriter value(JsonNumber value) throws IOException {
+        if (value == null) {
+            return nullValue();
+        }
+        beforeValue();
+        out.write(value.toString());
+        return this;
+    }
+    
+    public JsonWriter value(boolean value) throws IOException {
+        beforeValue();
+        out.write(value ? "true" : "false");
+        return this;
+    }
+    
+    public JsonWriter nullValue() throws IOException {
+        beforeValue();
+        out.write("null");
+        return this;
+    }
+    
+    /**
+     * 写出 JsonReader.readValue() 读取的值
+     * 
+     * @param value Map、List、String、JsonNumber、Boolean 或 null
+     */
+    public JsonWriter value(Object value) throws IOException {
+        if (value == null) {
+            return nullValue();
+        }
+        if (value instanceof String) {
+            return value((String) value);
+        }
+        if (value instanceof JsonNumber) {
+            return value((JsonNumber) value);
+        }
+        if (value instanceof Boolean) {
+            return value(((Boolean) value).booleanValue());
+        }
+        if (value instanceof Map) {
+            beginObject();
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                name(String.valueOf(entry.getKey()));
+                value(entry.getValue());
+            }
+            return endObject();
+        }
+        if (value instanceof List) {
+            beginArray();
+            for (Object element : (List<?>) value) {
+                value(element);
+            }
+            return endArray();
+        }
+        throw new IllegalArgumentException("不支持的 JSON 值类型: " + value.getClass().getName());
+    }
+    
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+    
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+    
+    private void beforeValue() throws IOException {
+        switch (stack[depth - 1]) {
+            case EMPTY_DOCUMENT:
+                stack[depth - 1] = NONEMPTY_DOCUMENT;
+                break;
+            case EMPTY_ARRAY:
+                stack[depth - 1] = NONEMPTY_ARRAY;
+                newline();
+                break;
+            case NONEMPTY_ARRAY:
+                out.write(',');
+                newline();
+                break;
+            case DANGLING_NAME:
+                out.write(indent.isEmpty() ? ":" : ": ");
+                stack[depth - 1] = NONEMPTY_OBJECT;
+                break;
+            default:
+                throw new IllegalStateException("当前位置不能写入值");
+        }
+    }
+    
+    private JsonWriter close(int empty, int nonempty, char bracket) throws IOException {
+        int context = stack[depth - 1];
+        if (context != empty && context != nonempty) {
+            throw new IllegalStateException("对象或数组没有正确嵌套");
+        }
+        depth--;
+        if (context == nonempty) {
+            newline();
+        }
+        out.write(bracket);
+        return this;
+    }
+    
+    private void push(int context) {
+        if (depth == stack.length) {
+            stack = Arrays.copyOf(stack, depth * 2);
+        }
+        stack[depth++] = context;
+    }
+    
+    private void newline() throws IOException {
+        if (indent.isEmpty()) {
+            return;
+        }
+        out.write('\n');
+        for (int i = 1; i < depth; i++) {
+            out.write(indent);
+        }
+    }
+    
+    /**
+     * 写出带引号的字符串，只转义 JSON 要求的字符和孤立的代理字符，整段写出无需转义的部分
+     */
+    private void writeString(String value) throws IOException {
+        out.write('"');
+        int last = 0;
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            String replacement;
+            if (c < 0x20) {
+                replacement = CONTROL_ESCAPES[c];
+            } else if (c == '"') {
+                replacement = "\\\"";
+            } else if (c == '\\') {
+                replacement = "\\\\";
+            } else if (c == '\u2028') {
+                replacement = "\\u2028";
+            } else if (c == '\u2029') {
+                replacement = "\\u2029";
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                i++;
+                continue;
+            } else if (Character.isSurrogate(c)) {
+                // 孤立的代理字符无法编码为 UTF-8，转义后写出，读回时与原字符串一致
+                replacement = String.format("\\u%04x", (int) c);
+            } else {
+                continue;
+            }
+            if (last < i) {
+                out.write(value, last, i - last);
+            }
+            out.write(replacement);
+            last = i + 1;
+        }
+        if (last < length) {
+            out.write(value, last, length - last);
+        }
+        out.write('"');
+    }
+}
@@ -0,0 +1,296 @@
+/*
+ * Copyright (c) 2024. All rights reserved.
+ */
+
+package oxff.org.logging;
+
+import burp.api.montoya.logging.Logging;
+import oxff.org.config.PluginConfig;
+import oxff.org.metrics.MessageDirection;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 异步日志记录器
+ * 
+ * HTTP 处理线程只把日志放入有界环形队列（队列满时丢弃并计数），由后台守护线程写入 Burp Suite，
+ * 避免 Logging 调用和字符串拼接出现在处理路径上。
+ * 
+ * 主要功能：
+ * - 日志级别（从 PluginConfig 读取最低输出级别）
+ * - 按键限流：同一个键在一个窗口内最多输出固定条数，被抑制的条数在下一次输出时附带说明
+ * - 周期汇总：按主机统计清理的消息数，定期输出一行汇总，例如
+ *   "最近 10 秒清理了 12,340 个响应（api.example.com）"
+ * - 插件卸载时停止后台线程并写出队列中剩余的日志和最后一次汇总
+ */
+public class AsyncLogger {
+    
+    // 队列容量
+    private static final int QUEUE_CAPACITY = 4096;
+    
+    // 汇总输出间隔（毫秒）
+    private static final long SUMMARY_INTERVAL_MILLIS = 10_000;
+    
+    // 限流窗口长度（毫秒）及每个窗口允许的条数
+    private static final long RATE_WINDOW_MILLIS = 1_000;
+    private static final int RATE_LIMIT = 5;
+    
+    // 限流键和汇总主机的数量上限，超过后清空或合并，避免内存无限增长
+    // 汇总主机的计数器建立后不再删除（删除会与 recordCleaned 竞争而丢失计数），达到上限后新主机计入"其他主机"
+    private static final int MAX_RATE_KEYS = 1024;
+    private static final int MAX_SUMMARY_HOSTS = 256;
+    private static final String OTHER_HOSTS = "其他主机";
+    
+    // 卸载时等待后台线程结束的时间（毫秒）
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 2_000;
+    
+    private final Logging logging;
+    private final PluginConfig config;
+    private final BlockingQueue<LogEntry> queue;
+    private final Map<String, RateWindow> rateWindows;
+    private final List<Map<String, LongAdder>> cleanedByHost;
+    private final LongAdder dropped;
+    private final Thread worker;
+    
+    private volatile boolean running;
+    
+    // 上一次输出汇总的时间，只由后台线程（或后台线程结束后的卸载线程）访问
+    private long lastSummaryAt;
+    
+    /**
+     * 构造函数，创建后立即启动后台线程
+     * 
+     * @param logging Burp Suite 日志接口
+     * @param config 插件配置管理器，日志级别从中读取
+     */
+    public AsyncLogger(Logging logging, PluginConfig config) {
+        this.logging = logging;
+        this.config = config;
+        this.queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        this.rateWindows = new ConcurrentHashMap<>();
+        this.cleanedByHost = new ArrayList<>();
+        for (int i = 0; i < MessageDirection.values().length; i++) {
+            cleanedByHost.add(new ConcurrentHashMap<>());
+        }
+        this.dropped = new LongAdder();
+        
+        this.lastSummaryAt = System.currentTimeMillis();
+        this.running = true;
+        this.worker = new Thread(this::drainLoop, "RemoveExtraBlankLines-logger");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+    
+    public void debug(String message) {
+        log(LogLevel.DEBUG, message);
+    }
+    
+    public void info(String message) {
+        log(LogLevel.INFO, message);
+    }
+    
+    public void warn(String message) {
+        log(LogLevel.WARN, message);
+    }
+    
+    public void error(String message) {
+        log(LogLevel.ERROR, message);
+    }
+    
+    /**
+     * 检查指定级别的日志是否会输出
+     */
+    public boolean isEnabled(LogLevel level) {
+        return level.isEnabled(config.getLogLevel());
+    }
+    
+    /**
+     * 记录一条日志
+     * 
+     * @param level 日志级别
+     * @param message 日志内容
+     */
+    public void log(LogLevel level, String message) {
+        if (isEnabled(level)) {
+            enqueue(level, message);
+        }
+    }
+    
+    /**
+     * 按键限流记录一条日志
+     * 
+     * 只有级别启用且未被限流时才会调用 message 生成日志内容，
+     * 因此调用方可以把字符串拼接放在 Supplier 中。
+     * 
+     * @param level 日志级别
+     * @param key 限流键，例如主机名或错误类型
+     * @param message 日志内容
+     */
+    public void log(LogLevel level, String key, Supplier<String> message) {
+        if (!isEnabled(level)) {
+            return;
+        }
+        
+        int suppressed = acquire(key);
+        if (suppressed < 0) {
+            return;
+        }
+        String text = message.get();
+        if (suppressed > 0) {
+            text += "（此前 " + suppressed + " 条同类日志已被限流）";
+        }
+        enqueue(level, text);
+    }
+    
+    /**
+     * 记录一条被清理的消息，计入周期汇总
+     * 
+     * @param direction 消息方向
+     * @param host 目标主机，可以为null
+     */
+    public void recordCleaned(MessageDirection direction, String host) {
+        Map<String, LongAdder> counts = cleanedByHost.get(direction.ordinal());
+        String key = host == null || host.isEmpty() ? OTHER_HOSTS : host;
+        LongAdder counter = counts.get(key);
+        if (counter == null) {
+            if (counts.size() >= MAX_SUMMARY_HOSTS) {
+                key = OTHER_HOSTS;
+            }
+            counter = counts.computeIfAbsent(key, k -> new LongAdder());
+        }
+        counter.increment();
+    }
+    
+    /**
+     * 停止后台线程，并写出队列中剩余的日志和最后一次汇总（插件卸载时调用）
+     */
+    public void close() {
+        running = false;
+        worker.interrupt();
+        try {
+            worker.join(SHUTDOWN_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (worker.isAlive()) {
+            return;
+        }
+        drainQueue();
+        writeSummaries(System.currentTimeMillis() - lastSummaryAt);
+    }
+    
+    /**
+     * 获取因队列已满而被丢弃的日志条数
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+    
+    private void enqueue(LogLevel level, String message) {
+        if (!running || !queue.offer(new LogEntry(level, message))) {
+            dropped.increment();
+        }
+    }
+    
+    private int acquire(String key) {
+        long now = System.currentTimeMillis();
+        RateWindow window = rateWindows.get(key);
+        if (window == null) {
+            if (rateWindows.size() >= MAX_RATE_KEYS) {
+                rateWindows.clear();
+            }
+            window = rateWindows.computeIfAbsent(key, k -> new RateWindow(now));
+        }
+        return window.tryAcquire(now, RATE_WINDOW_MILLIS, RATE_LIMIT);
+    }
+    
+    /**
+     * 后台线程主循环
+     */
+    private void drainLoop() {
+        while (running) {
+            try {
+                LogEntry entry = queue.poll(250, TimeUnit.MILLISECONDS);
+                if (entry != null) {
+                    write(entry);
+                    drainQueue();
+                }
+            } catch (InterruptedException e) {
+                break;
+            } catch (Exception e) {
+                // 写日志失败不能让后台线程退出
+            }
+            
+            long now = System.currentTimeMillis();
+            if (now - lastSummaryAt >= SUMMARY_INTERVAL_MILLIS) {
+                writeSummaries(now - lastSummaryAt);
+                lastSummaryAt = now;
+            }
+        }
+    }
+    
+    /**
+     * 写出队列中当前所有的日志
+     */
+    private void drainQueue() {
+        List<LogEntry> batch = new ArrayList<>();
+        queue.drainTo(batch);
+        for (LogEntry entry : batch) {
+            write(entry);
+        }
+        
+        long droppedCount = dropped.sumThenReset();
+        if (droppedCount > 0) {
+            logging.logToError("日志队列已满，丢弃了 " + droppedCount + " 条日志");
+        }
+    }
+    
+    /**
+     * 输出各个主机的清理汇总并清零
+     * 
+     * @param elapsedMillis 距离上次汇总的时间
+     */
+    private void writeSummaries(long elapsedMillis) {
+        if (!LogLevel.INFO.isEnabled(config.getLogLevel())) {
+            // 汇总被关闭时仍然清零，避免重新开启后输出过期的数据
+            for (Map<String, LongAdder> counts : cleanedByHost) {
+                for (LongAdder counter : counts.values()) {
+                    counter.reset();
+                }
+            }
+            return;
+        }
+        
+        long seconds = Math.max(1, Math.round(elapsedMillis / 1000.0));
+        for (MessageDirection direction : MessageDirection.values()) {
+            Map<String, LongAdder> counts = cleanedByHost.get(direction.ordinal());
+            for (Map.Entry<String, LongAdder> entry : counts.entrySet()) {
+                long count = entry.getValue().sumThenReset();
+                if (count > 0) {
+                    logging.logToOutput(String.format("最近 %d 秒清理了 %,d 个%s（%s）",
+                        seconds, count, direction.getDisplayName(), entry.getKey()));
+                }
+            }
+        }
+    }
+    
+    private void write(LogEntry entry) {
+        switch (entry.getLevel()) {
+            case WARN:
+            case ERROR:
+                logging.logToError(entry.getMessage());
+                break;
+            default:
+                logging.logToOutput(entry.getMessage());
+                break;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+/*
+ * Copyright (c) 2024. All rights reserved.
+ */
+
+package oxff.org.logging;
+
+/**
+ * 等待后台线程写出的一条日志
+ */
+class LogEntry {
+    
+    private final LogLevel level;
+    private final String message;
+    
+    LogEntry(LogLevel level, String message) {
+        this.level = level;
+        this.message = message;
+    }
+    
+    LogLevel getLevel() {
+        return level;
+    }
+    
+    String getMessage() {
+        return message;
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright (c) 2024. All rights reserved.
+ */
+
+package oxff.org.logging;
+
+/**
+ * 日志级别
+ * 
+ * DEBUG 和 INFO 写入 Burp Suite 的 Output 面板，WARN 和 ERROR 写入 Errors 面板。
+ */
+public enum LogLevel {
+    DEBUG("调试"),
+    INFO("信息"),
+    WARN("警告"),
+    ERROR("错误");
+    
+    private final String displayName;
+    
+    LogLevel(String displayName) {
+        this.displayName = displayName;
+    }
+    
+    /**
+     * 获取界面显示名称
+     */
+    public String getDisplayName() {
+        return displayName;
+    }
+    
+    /**
+     * 判断该级别的日志在指定的最低级别下是否输出
+     * 
+     * @param threshold 最低输出级别
+     * @return 如果应该输出返回 true
+     */
+    public boolean isEnabled(LogLevel threshold) {
+        return ordinal() >= threshold.ordinal();
+    }
+    
+    @Override
+    public String toString() {
+        return name() + " (" + displayName + ")";
+    }
+}
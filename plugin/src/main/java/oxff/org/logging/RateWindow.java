@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) 2024. All rights reserved.
+ */
+
+package oxff.org.logging;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 单个日志键的限流窗口
+ * 
+ * 每个窗口内最多放行固定条数，其余的只计数；下一个窗口放行的第一条日志会附带被抑制的条数。
+ */
+class RateWindow {
+    
+    private final AtomicLong windowStart;
+    private final AtomicInteger permitted;
+    private final AtomicInteger suppressed;
+    
+    RateWindow(long now) {
+        this.windowStart = new AtomicLong(now);
+        this.permitted = new AtomicInteger();
+        this.suppressed = new AtomicInteger();
+    }
+    
+    /**
+     * 尝试在当前窗口内获取一次输出许可
+     * 
+     * @param now 当前时间（毫秒）
+     * @param windowMillis 窗口长度（毫秒）
+     * @param limit 每个窗口允许的条数
+     * @return 允许输出时返回之前被抑制的条数（>= 0），不允许时返回 -1
+     */
+    int tryAcquire(long now, long windowMillis, int limit) {
+        long start = windowStart.get();
+        if (now - start >= windowMillis && windowStart.compareAndSet(start, now)) {
+            permitted.set(0);
+        }
+        if (permitted.incrementAndGet() <= limit) {
+            return suppressed.getAndSet(0);
+        }
+        suppressed.incrementAndGet();
+        return -1;
+    }
+}
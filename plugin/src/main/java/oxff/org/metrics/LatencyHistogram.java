@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2024. All rights reserved.
+ */
+
+package oxff.org.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 无锁延迟直方图
+ * 
+ * 按 2 的幂划分桶（第 i 个桶记录 [2^(i-1), 2^i) 纳秒的样本），每个桶是一个 LongAdder，
+ * 写入只有一次位运算和一次无竞争的累加，适合在 Burp 的 HTTP 处理线程上调用。
+ * 百分位数按桶的上界估算，误差不超过 2 倍，足以判断数量级。
+ */
+public class LatencyHistogram {
+    
+    // 桶数量，最后一个桶容纳 2^38 纳秒（约 275 秒）以上的全部样本
+    public static final int BUCKET_COUNT = 40;
+    
+    private final LongAdder[] buckets;
+    private final LongAdder totalNanos;
+    
+    public LatencyHistogram() {
+        this.buckets = new LongAdder[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            buckets[i] = new LongAdder();
+        }
+        this.totalNanos = new LongAdder();
+    }
+    
+    /**
+     * 记录一次耗时
+     * 
+     * @param nanos 耗时（纳秒），负数按 0 处理
+     */
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        buckets[bucketIndex(nanos)].increment();
+        totalNanos.add(nanos);
+    }
+    
+    /**
+     * 读取各个桶的当前计数（不阻塞写入方，读取期间的写入可能部分可见）
+     */
+    public long[] snapshotCounts() {
+        long[] counts = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] = buckets[i].sum();
+        }
+        return counts;
+    }
+    
+    /**
+     * 读取累计耗时（纳秒）
+     */
+    public long getTotalNanos() {
+        return totalNanos.sum();
+    }
+    
+    /**
+     * 清零
+     */
+    public void reset() {
+        for (LongAdder bucket : buckets) {
+            bucket.reset();
+        }
+        totalNanos.reset();
+    }
+    
+    /**
+     * 计算样本所在的桶
+     */
+    static int bucketIndex(long nanos) {
+        return Math.min(64 - Long.numberOfLeadingZeros(nanos), BUCKET_COUNT - 1);
+    }
+    
+    /**
+     * 获取桶的上界（纳秒）
+     */
+    static long bucketUpperBound(int index) {
+        return 1L << index;
+    }
+    
+    /**
+     * 根据桶计数估算百分位数
+     * 
+     * @param counts snapshotCounts() 返回的桶计数
+     * @param percentile 百分位（0-100）
+     * @return 估算的耗时上界（纳秒），没有样本时返回 0
+     */
+    public static long percentile(long[] counts, double percentile) {
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        if (total == 0) {
+            return 0;
+        }
+        
+        long rank = (long) Math.ceil(total * percentile / 100.0);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return bucketUpperBound(i);
+            }
+        }
+        return bucketUpperBound(counts.length - 1);
+    }
+}
@@ -0,0 +1,26 @@
+/*
+ * Copyright (c) 2024. All rights reserved.
+ */
+
+package oxff.org.metrics;
+
+/**
+ * HTTP 消息方向
+ */
+public enum MessageDirection {
+    REQUEST("请求"),
+    RESPONSE("响应");
+    
+    private final String displayName;
+    
+    MessageDirection(String displayName) {
+        this.displayName = displayName;
+    }
+    
+    /**
+     * 获取界面显示名称
+     */
+    public String getDisplayName() {
+        return displayName;
+    }
+}
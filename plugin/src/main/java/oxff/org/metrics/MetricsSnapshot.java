@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2024. All rights reserved.
+ */
+
+package oxff.org.metrics;
+
+import burp.api.montoya.core.ToolType;
+
+/**
+ * 处理指标的只读快照
+ * 
+ * 由 ProcessingMetrics.snapshot() 创建，创建后不再变化，可以在任意线程中读取和格式化。
+ */
+public class MetricsSnapshot {
+    
+    private static final int REASON_COUNT = SkipReason.values().length;
+    
+    private final long[] seen;
+    private final long[] modified;
+    private final long[] bytesRemoved;
+    private final long[] skipped;
+    private final long[][] latencyCounts;
+    private final long[] latencyTotalNanos;
+    private final long elapsedMillis;
+    
+    MetricsSnapshot(long[] seen, long[] modified, long[] bytesRemoved, long[] skipped,
+                    long[][] latencyCounts, long[] latencyTotalNanos, long elapsedMillis) {
+        this.seen = seen;
+        this.modified = modified;
+        this.bytesRemoved = bytesRemoved;
+        this.skipped = skipped;
+        this.latencyCounts = latencyCounts;
+        this.latencyTotalNanos = latencyTotalNanos;
+        this.elapsedMillis = elapsedMillis;
+    }
+    
+    public long getSeen(ToolType tool, MessageDirection direction) {
+        return seen[ProcessingMetrics.slot(tool, direction)];
+    }
+    
+    public long getModified(ToolType tool, MessageDirection direction) {
+        return modified[ProcessingMetrics.slot(tool, direction)];
+    }
+    
+    public long getBytesRemoved(ToolType tool, MessageDirection direction) {
+        return bytesRemoved[ProcessingMetrics.slot(tool, direction)];
+    }
+    
+    public long getSkipped(ToolType tool, MessageDirection direction, SkipReason reason) {
+        return skipped[ProcessingMetrics.slot(tool, direction) * REASON_COUNT + reason.ordinal()];
+    }
+    
+    /**
+     * 获取某个工具类型和方向上被跳过的消息总数
+     */
+    public long getSkipped(ToolType tool, MessageDirection direction) {
+        int base = ProcessingMetrics.slot(tool, direction) * REASON_COUNT;
+        long total = 0;
+        for (int i = 0; i < REASON_COUNT; i++) {
+            total += skipped[base + i];
+        }
+        return total;
+    }
+    
+    /**
+     * 获取所有工具类型和方向上因指定原因被跳过的消息总数
+     */
+    public long getSkipped(SkipReason reason) {
+        long total = 0;
+        for (int i = reason.ordinal(); i < skipped.length; i += REASON_COUNT) {
+            total += skipped[i];
+        }
+        return total;
+    }
+    
+    /**
+     * 获取指定方向的处理次数
+     */
+    public long getLatencyCount(MessageDirection direction) {
+        long total = 0;
+        for (long count : latencyCounts[direction.ordinal()]) {
+            total += count;
+        }
+        return total;
+    }
+    
+    /**
+     * 获取指定方向的耗时百分位数（纳秒，按直方图桶上界估算）
+     * 
+     * @param percentile 百分位（0-100）
+     */
+    public long getLatencyPercentile(MessageDirection direction, double percentile) {
+        return LatencyHistogram.percentile(latencyCounts[direction.ordinal()], percentile);
+    }
+    
+    /**
+     * 获取指定方向的平均耗时（纳秒）
+     */
+    public long getMeanLatency(MessageDirection direction) {
+        long count = getLatencyCount(direction);
+        return count == 0 ? 0 : latencyTotalNanos[direction.ordinal()] / count;
+    }
+    
+    /**
+     * 获取统计时长（毫秒）
+     */
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+    
+    /**
+     * 格式化为多行文本，用于设置面板显示
+     * 
+     * @return 格式化后的统计信息
+     */
+    public String toDisplayString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("统计时长: %d 秒%n%n", elapsedMillis / 1000));
+        sb.append(String.format("%-12s %-4s %10s %10s %10s %14s%n", "模块", "方向", "收到", "已清理", "跳过", "移除字节"));
+        
+        boolean any = false;
+        for (ToolType tool : ToolType.values()) {
+            for (MessageDirection direction : MessageDirection.values()) {
+                long count = getSeen(tool, direction);
+                if (count == 0) {
+                    continue;
+                }
+                any = true;
+                sb.append(String.format("%-12s %-4s %10d %10d %10d %14d%n",
+                    tool.toolName(), direction.getDisplayName(), count,
+                    getModified(tool, direction), getSkipped(tool, direction),
+                    getBytesRemoved(tool, direction)));
+            }
+        }
+        if (!any) {
+            sb.append("（暂无数据）").append(System.lineSeparator());
+        }
+        
+        sb.append(System.lineSeparator()).append("跳过原因:").append(System.lineSeparator());
+        for (SkipReason reason : SkipReason.values()) {
+            sb.append(String.format("  %-20s %10d%n", reason.getDisplayName(), getSkipped(reason)));
+        }
+        
+        sb.append(System.lineSeparator()).append("处理耗时:").append(System.lineSeparator());
+        for (MessageDirection direction : MessageDirection.values()) {
+            sb.append(String.format("  %s  次数 %d  平均 %s  p50 ≤%s  p99 ≤%s  p99.9 ≤%s%n",
+                direction.getDisplayName(), getLatencyCount(direction),
+                formatNanos(getMeanLatency(direction)),
+                formatNanos(getLatencyPercentile(direction, 50)),
+                formatNanos(getLatencyPercentile(direction, 99)),
+                formatNanos(getLatencyPercentile(direction, 99.9))));
+        }
+        return sb.toString();
+    }
+    
+    /**
+     * 将纳秒格式化为易读的单位
+     */
+    static String formatNanos(long nanos) {
+        if (nanos < 1_000) {
+            return nanos + "ns";
+        }
+        if (nanos < 1_000_000) {
+            return String.format("%.1fµs", nanos / 1_000.0);
+        }
+        if (nanos < 1_000_000_000) {
+            return String.format("%.1fms", nanos / 1_000_000.0);
+        }
+        return String.format("%.2fs", nanos / 1_000_000_000.0);
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2024. All rights reserved.
+ */
+
+package oxff.org.metrics;
+
+import burp.api.montoya.core.ToolType;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 处理指标
+ * 
+ * 按工具类型（ToolType）和消息方向统计：
+ * - 收到的消息数
+ * - 按原因统计的跳过数
+ * - 被修改的消息数及移除的字节数
+ * - 处理耗时直方图（按方向）
+ * 
+ * 所有计数器都是 LongAdder，写入方（Burp 的 HTTP 处理线程）之间没有共享的缓存行竞争；
+ * 读取方（设置面板）通过 snapshot() 汇总，不会阻塞写入。
+ */
+public class ProcessingMetrics {
+    
+    private static final int TOOL_COUNT = ToolType.values().length;
+    private static final int DIRECTION_COUNT = MessageDirection.values().length;
+    private static final int REASON_COUNT = SkipReason.values().length;
+    
+    // 以下数组按 slot(tool, direction) 索引
+    private final LongAdder[] seen;
+    private final LongAdder[] modified;
+    private final LongAdder[] bytesRemoved;
+    
+    // 按 slot(tool, direction) * REASON_COUNT + reason 索引
+    private final LongAdder[] skipped;
+    
+    // 按方向索引
+    private final LatencyHistogram[] latency;
+    
+    // 统计开始时间（毫秒），清零时重置
+    private volatile long startedAt;
+    
+    public ProcessingMetrics() {
+        int slots = TOOL_COUNT * DIRECTION_COUNT;
+        this.seen = newAdders(slots);
+        this.modified = newAdders(slots);
+        this.bytesRemoved = newAdders(slots);
+        this.skipped = newAdders(slots * REASON_COUNT);
+        this.latency = new LatencyHistogram[DIRECTION_COUNT];
+        for (int i = 0; i < DIRECTION_COUNT; i++) {
+            latency[i] = new LatencyHistogram();
+        }
+        this.startedAt = System.currentTimeMillis();
+    }
+    
+    /**
+     * 记录收到一条消息
+     */
+    public void recordSeen(ToolType tool, MessageDirection direction) {
+        seen[slot(tool, direction)].increment();
+    }
+    
+    /**
+     * 记录一条消息被跳过
+     */
+    public void recordSkipped(ToolType tool, MessageDirection direction, SkipReason reason) {
+        skipped[slot(tool, direction) * REASON_COUNT + reason.ordinal()].increment();
+    }
+    
+    /**
+     * 记录一条消息被修改
+     * 
+     * @param removed 移除的字节数
+     */
+    public void recordModified(ToolType tool, MessageDirection direction, long removed) {
+        int slot = slot(tool, direction);
+        modified[slot].increment();
+        if (removed > 0) {
+            bytesRemoved[slot].add(removed);
+        }
+    }
+    
+    /**
+     * 记录一次处理耗时
+     * 
+     * @param nanos 耗时（纳秒）
+     */
+    public void recordLatency(MessageDirection direction, long nanos) {
+        latency[direction.ordinal()].record(nanos);
+    }
+    
+    /**
+     * 汇总当前的统计数据
+     * 
+     * @return 只读快照
+     */
+    public MetricsSnapshot snapshot() {
+        long[][] latencyCounts = new long[DIRECTION_COUNT][];
+        long[] latencyTotals = new long[DIRECTION_COUNT];
+        for (int i = 0; i < DIRECTION_COUNT; i++) {
+            latencyCounts[i] = latency[i].snapshotCounts();
+            latencyTotals[i] = latency[i].getTotalNanos();
+        }
+        return new MetricsSnapshot(
+            sum(seen), sum(modified), sum(bytesRemoved), sum(skipped),
+            latencyCounts, latencyTotals,
+            System.currentTimeMillis() - startedAt
+        );
+    }
+    
+    /**
+     * 清零所有统计数据
+     */
+    public void reset() {
+        resetAll(seen);
+        resetAll(modified);
+        resetAll(bytesRemoved);
+        resetAll(skipped);
+        for (LatencyHistogram histogram : latency) {
+            histogram.reset();
+        }
+        startedAt = System.currentTimeMillis();
+    }
+    
+    /**
+     * 计算工具类型和方向对应的计数器位置
+     */
+    static int slot(ToolType tool, MessageDirection direction) {
+        return tool.ordinal() * DIRECTION_COUNT + direction.ordinal();
+    }
+    
+    private static LongAdder[] newAdders(int count) {
+        LongAdder[] adders = new LongAdder[count];
+        for (int i = 0; i < count; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+    
+    private static long[] sum(LongAdder[] adders) {
+        long[] values = new long[adders.length];
+        for (int i = 0; i < adders.length; i++) {
+            values[i] = adders[i].sum();
+        }
+        return values;
+    }
+    
+    private static void resetAll(LongAdder[] adders) {
+        for (LongAdder adder : adders) {
+            adder.reset();
+        }
+    }
+}
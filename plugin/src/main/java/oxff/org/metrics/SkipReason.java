@@ -0,0 +1,34 @@
+/*
+ * Copyright (c) 2024. All rights reserved.
+ */
+
+package oxff.org.metrics;
+
+/**
+ * 消息未被处理的原因
+ */
+public enum SkipReason {
+    MODULE_DISABLED("模块未启用"),
+    OUT_OF_SCOPE("不在目标域"),
+    BYPASSED("自适应跳过"),
+    TOO_SHORT("消息过短"),
+    TOO_LARGE("正文超过大小上限"),
+    BINARY_CONTENT_TYPE("Content-Type为二进制"),
+    BINARY_CONTENT("正文为二进制"),
+    ENCODED("正文已编码"),
+    NO_CHANGE("无需清理"),
+    ERROR("处理出错");
+    
+    private final String displayName;
+    
+    SkipReason(String displayName) {
+        this.displayName = displayName;
+    }
+    
+    /**
+     * 获取界面显示名称
+     */
+    public String getDisplayName() {
+        return displayName;
+    }
+}
@@ -0,0 +1,330 @@
+/*
+ * Copyright (c) 2024. All rights reserved.
+ */
+
+package oxff.org.processor;
+
+import burp.api.montoya.core.ByteArray;
+import burp.api.montoya.http.message.requests.HttpRequest;
+import burp.api.montoya.http.message.responses.HttpResponse;
+import oxff.org.cleaning.CleaningPipeline;
+import oxff.org.config.ConfigSnapshot;
+import oxff.org.logging.AsyncLogger;
+import oxff.org.logging.LogLevel;
+import oxff.org.util.ChunkedBodyCleaner;
+import oxff.org.util.CompressionCodec;
+import oxff.org.util.ContentAnalyzer;
+import oxff.org.util.ContentCoding;
+import oxff.org.util.FusedBodyScanner;
+import oxff.org.util.HttpBodyView;
+import oxff.org.util.ProcessingResult;
+import oxff.org.util.RawMessageCleaner;
+import oxff.org.util.HttpProcessingResult;
+
+/**
+ * 消息处理器
+ * 
+ * 负责处理 HTTP 消息中的空行清理逻辑
+ * 
+ * 主要功能：
+ * - 安全地处理文本内容
+ * - 避免处理二进制数据
+ * - 清理头部和正文之间的多余空行
+ * - 按配置的清理流水线执行其他清理策略
+ * - 原始报文模式：直接在完整报文字节上清理并更新Content-Length，一次拼接生成新报文
+ * - 分块传输编码：只改写第一个包含内容的分块，保持分块格式有效
+ * - 压缩正文（可选）：解压 gzip/deflate 正文后清理，再按原编码重新压缩
+ */
+public class MessageProcessor {
+    
+    private final AsyncLogger logger;
+    private final ContentAnalyzer contentAnalyzer;
+    private final RawMessageCleaner rawMessageCleaner;
+    private final ChunkedBodyCleaner chunkedCleaner;
+    private final CompressionCodec compressionCodec;
+    
+    /**
+     * 构造函数
+     * 
+     * @param logger 异步日志记录器，处理出错时的日志不在代理线程上同步写入 Burp Suite
+     */
+    public MessageProcessor(AsyncLogger logger) {
+        this.logger = logger;
+        this.contentAnalyzer = new ContentAnalyzer();
+        this.rawMessageCleaner = new RawMessageCleaner();
+        this.chunkedCleaner = new ChunkedBodyCleaner();
+        this.compressionCodec = new CompressionCodec();
+    }
+    
+    /**
+     * 按融合扫描的结果和指定的清理流水线处理 HTTP 请求
+     * 
+     * @param request 原始 HTTP 请求
+     * @param body 该请求的正文视图
+     * @param scanResult FusedBodyScanner 返回的打包结果
+     * @param pipeline 本条消息使用的清理流水线
+     * @return 处理结果，包含处理后的请求和修改标记
+     */
+    public HttpProcessingResult processRequest(HttpRequest request, HttpBodyView body, long scanResult, CleaningPipeline pipeline) {
+        try {
+            ProcessingResult result = pipeline.clean(body, scanResult);
+            if (result.wasModified()) {
+                // 使用withBody()方法自动更新Content-Length头部
+                ByteArray processedBody = result.getProcessedBytes();
+                return new HttpProcessingResult(request.withBody(processedBody), true, body.length() - processedBody.length());
+            }
+            return new HttpProcessingResult(request, false);
+        } catch (Exception e) {
+            logger.log(LogLevel.ERROR, "processor-request", () -> "处理 HTTP 请求时出错: " + e.getMessage());
+            return new HttpProcessingResult(request, false); // 出错时返回原始请求
+        }
+    }
+    
+    /**
+     * 以原始报文模式处理 HTTP 请求
+     * 
+     * 按融合扫描的结果直接在 Montoya ByteArray 上拼接新报文：只复制头部并替换Content-Length的值，
+     * 正文从第一个需要保留的字节起通过 subArray/withAppended 接在头部之后，不经过 withBody() 重建，
+     * 也不把整条报文复制为 byte[]。只用于"去掉开头空行"；HTTP/2 请求的报文格式由 Burp 转换，不使用该模式。
+     * 
+     * 该模式只清理正文，不去掉起始行之前的空行：头部的结束位置由 Burp 解析得到（bodyOffset），
+     * 报文以空行开头时该位置已经落在起始行之前，无法可靠地定位起始行。
+     * 起始行之前的空行只由 RawMessageCleaner.clean(byte[]) 在命令行清理原始报文文件时去掉。
+     * 
+     * @param request 原始 HTTP 请求
+     * @param body 该请求的正文视图
+     * @param scanResult FusedBodyScanner 返回的打包结果
+     * @return 处理结果，包含处理后的请求和修改标记
+     */
+    public HttpProcessingResult processRequestRaw(HttpRequest request, HttpBodyView body, long scanResult) {
+        try {
+            ByteArray message = spliceRawMessage(request.toByteArray(), body, scanResult);
+            if (message != null) {
+                HttpRequest processedRequest = HttpRequest.httpRequest(request.httpService(), message);
+                return new HttpProcessingResult(processedRequest, true, body.messageLength() - message.length());
+            }
+            return new HttpProcessingResult(request, false);
+        } catch (Exception e) {
+            logger.log(LogLevel.ERROR, "processor-request", () -> "处理 HTTP 请求时出错: " + e.getMessage());
+            return new HttpProcessingResult(request, false); // 出错时返回原始请求
+        }
+    }
+    
+    /**
+     * 按融合扫描的结果和指定的清理流水线处理 HTTP 响应
+     * 
+     * @param response 原始 HTTP 响应
+     * @param body 该响应的正文视图
+     * @param scanResult FusedBodyScanner 返回的打包结果
+     * @param pipeline 本条消息使用的清理流水线
+     * @return 处理结果，包含处理后的响应和修改标记
+     */
+    public HttpProcessingResult processResponse(HttpResponse response, HttpBodyView body, long scanResult, CleaningPipeline pipeline) {
+        try {
+            ProcessingResult result = pipeline.clean(body, scanResult);
+            if (result.wasModified()) {
+                // 使用withBody()方法自动更新Content-Length头部
+                ByteArray processedBody = result.getProcessedBytes();
+                return new HttpProcessingResult(response.withBody(processedBody), true, body.length() - processedBody.length());
+            }
+            return new HttpProcessingResult(response, false);
+        } catch (Exception e) {
+            logger.log(LogLevel.ERROR, "processor-response", () -> "处理 HTTP 响应时出错: " + e.getMessage());
+            return new HttpProcessingResult(response, false); // 出错时返回原始响应
+        }
+    }
+    
+    /**
+     * 以原始报文模式处理 HTTP 响应
+     * 
+     * @param response 原始 HTTP 响应
+     * @param body 该响应的正文视图
+     * @param scanResult FusedBodyScanner 返回的打包结果
+     * @return 处理结果，包含处理后的响应和修改标记
+     */
+    public HttpProcessingResult processResponseRaw(HttpResponse response, HttpBodyView body, long scanResult) {
+        try {
+            ByteArray message = spliceRawMessage(response.toByteArray(), body, scanResult);
+            if (message != null) {
+                HttpResponse processedResponse = HttpResponse.httpResponse(message);
+                return new HttpProcessingResult(processedResponse, true, body.messageLength() - message.length());
+            }
+            return new HttpProcessingResult(response, false);
+        } catch (Exception e) {
+            logger.log(LogLevel.ERROR, "processor-response", () -> "处理 HTTP 响应时出错: " + e.getMessage());
+            return new HttpProcessingResult(response, false); // 出错时返回原始响应
+        }
+    }
+    
+    /**
+     * 处理分块传输编码的 HTTP 请求
+     * 
+     * 不使用 withBody()（会改写Content-Length），而是保留原有头部，
+     * 只替换第一个包含内容的分块之前的部分，正文的其余部分不复制到中间缓冲区。
+     * 
+     * @param request 原始 HTTP 请求
+     * @param body 该请求的正文视图
+     * @return 处理结果，包含处理后的请求和修改标记
+     */
+    public HttpProcessingResult processChunkedRequest(HttpRequest request, HttpBodyView body) {
+        try {
+            ByteArray message = spliceChunkedBody(request.toByteArray(), body);
+            if (message != null) {
+                HttpRequest processedRequest = HttpRequest.httpRequest(request.httpService(), message);
+                return new HttpProcessingResult(processedRequest, true, body.messageLength() - message.length());
+            }
+            return new HttpProcessingResult(request, false);
+        } catch (Exception e) {
+            logger.log(LogLevel.ERROR, "processor-request", () -> "处理 HTTP 请求时出错: " + e.getMessage());
+            return new HttpProcessingResult(request, false); // 出错时返回原始请求
+        }
+    }
+    
+    /**
+     * 处理分块传输编码的 HTTP 响应
+     * 
+     * @param response 原始 HTTP 响应
+     * @param body 该响应的正文视图
+     * @return 处理结果，包含处理后的响应和修改标记
+     */
+    public HttpProcessingResult processChunkedResponse(HttpResponse response, HttpBodyView body) {
+        try {
+            ByteArray message = spliceChunkedBody(response.toByteArray(), body);
+            if (message != null) {
+                HttpResponse processedResponse = HttpResponse.httpResponse(message);
+                return new HttpProcessingResult(processedResponse, true, body.messageLength() - message.length());
+            }
+            return new HttpProcessingResult(response, false);
+        } catch (Exception e) {
+            logger.log(LogLevel.ERROR, "processor-response", () -> "处理 HTTP 响应时出错: " + e.getMessage());
+            return new HttpProcessingResult(response, false); // 出错时返回原始响应
+        }
+    }
+    
+    /**
+     * 处理带 Content-Encoding 的 HTTP 请求
+     * 
+     * 解压正文后按清理流水线清理，修改后按原编码重新压缩并通过 withBody() 更新Content-Length。
+     * 解压后超过上限、格式无效或不是文本内容时保持原请求不变。
+     * 
+     * @param request 原始 HTTP 请求
+     * @param body 该请求的正文视图（压缩后的正文）
+     * @param coding 正文的内容编码
+     * @param snapshot 本条消息使用的配置快照
+     * @return 处理结果，包含处理后的请求和修改标记
+     */
+    public HttpProcessingResult processEncodedRequest(HttpRequest request, HttpBodyView body, ContentCoding coding,
+                                                      ConfigSnapshot snapshot) {
+        try {
+            byte[] decoded = decodeTextBody(body, coding, snapshot);
+            if (decoded != null) {
+                ProcessingResult result = snapshot.cleaningPipelineFor(decoded.length).clean(decoded);
+                if (result.wasModified()) {
+                    byte[] cleaned = result.getProcessedRawBytes();
+                    ByteArray encoded = ByteArray.byteArray(compressionCodec.encode(cleaned, coding));
+                    return new HttpProcessingResult(request.withBody(encoded), true, decoded.length - cleaned.length);
+                }
+            }
+            return new HttpProcessingResult(request, false);
+        } catch (Exception e) {
+            logger.log(LogLevel.ERROR, "processor-request", () -> "处理 HTTP 请求时出错: " + e.getMessage());
+            return new HttpProcessingResult(request, false); // 出错时返回原始请求
+        }
+    }
+    
+    /**
+     * 处理带 Content-Encoding 的 HTTP 响应
+     * 
+     * @param response 原始 HTTP 响应
+     * @param body 该响应的正文视图（压缩后的正文）
+     * @param coding 正文的内容编码
+     * @param snapshot 本条消息使用的配置快照
+     * @return 处理结果，包含处理后的响应和修改标记
+     */
+    public HttpProcessingResult processEncodedResponse(HttpResponse response, HttpBodyView body, ContentCoding coding,
+                                                       ConfigSnapshot snapshot) {
+        try {
+            byte[] decoded = decodeTextBody(body, coding, snapshot);
+            if (decoded != null) {
+                ProcessingResult result = snapshot.cleaningPipelineFor(decoded.length).clean(decoded);
+                if (result.wasModified()) {
+                    byte[] cleaned = result.getProcessedRawBytes();
+                    ByteArray encoded = ByteArray.byteArray(compressionCodec.encode(cleaned, coding));
+                    return new HttpProcessingResult(response.withBody(encoded), true, decoded.length - cleaned.length);
+                }
+            }
+            return new HttpProcessingResult(response, false);
+        } catch (Exception e) {
+            logger.log(LogLevel.ERROR, "processor-response", () -> "处理 HTTP 响应时出错: " + e.getMessage());
+            return new HttpProcessingResult(response, false); // 出错时返回原始响应
+        }
+    }
+    
+    /**
+     * 解压正文并确认是文本内容
+     * 
+     * 压缩后的字节无法判断内容类型，因此在解压后重新检测。
+     * 
+     * @return 解压后的正文，超过解压上限、格式无效或为二进制内容时返回 null
+     */
+    private byte[] decodeTextBody(HttpBodyView body, ContentCoding coding, ConfigSnapshot snapshot) {
+        byte[] decoded = compressionCodec.decode(body.bytes(), coding, snapshot.getMaxDecodedSize());
+        if (decoded == null || decoded.length == 0) {
+            return null;
+        }
+        return contentAnalyzer.containsTextContent(HttpBodyView.of(decoded), snapshot) ? decoded : null;
+    }
+    
+    /**
+     * 按分块清理方案拼接新报文：原有头部 + 改写后的分块大小行 + 原正文的剩余部分
+     * 
+     * @param message 完整的原始报文
+     * @param body 正文视图
+     * @return 新报文，无需修改时返回 null
+     */
+    private ByteArray spliceChunkedBody(ByteArray message, HttpBodyView body) {
+        long plan = chunkedCleaner.plan(body, 0, body.length());
+        if (plan == ChunkedBodyCleaner.NO_CHANGE) {
+            return null;
+        }
+        
+        byte[] chunkHeader = ChunkedBodyCleaner.chunkHeader(plan);
+        int cut = ChunkedBodyCleaner.cutOffset(plan);
+        int headerLength = body.bodyOffset();
+        ByteArray result = ByteArray.byteArrayOfLength(headerLength + chunkHeader.length + body.length() - cut);
+        result.setBytes(0, message.subArray(0, headerLength));
+        result.setBytes(headerLength, chunkHeader);
+        result.setBytes(headerLength + chunkHeader.length, body.byteArray().subArray(cut, body.length()));
+        return result;
+    }
+    
+    /**
+     * 按融合扫描的结果拼接新报文：头部（替换Content-Length的值）+ 去掉开头空行后的正文
+     * 
+     * @param message 完整的原始报文
+     * @param body 正文视图
+     * @param scanResult FusedBodyScanner 返回的打包结果
+     * @return 新报文，无需修改时返回 null
+     */
+    private ByteArray spliceRawMessage(ByteArray message, HttpBodyView body, long scanResult) {
+        if (!FusedBodyScanner.isModified(scanResult)) {
+            return null;
+        }
+        int headerLength = body.bodyOffset();
+        int length = body.length();
+        boolean allBlank = FusedBodyScanner.isAllBlank(scanResult);
+        if (allBlank && length == 1 && body.getByte(0) == '\n') {
+            return null;
+        }
+        
+        // 整个正文都是空行时与"去掉开头空行"策略一致保留一个换行符
+        int newBodyLength = allBlank ? 1 : length - FusedBodyScanner.trimOffset(scanResult);
+        byte[] head = rawMessageCleaner.withContentLength(message.subArray(0, headerLength).getBytes(), newBodyLength);
+        if (allBlank) {
+            return ByteArray.byteArray(head).withAppended((byte) '\n');
+        }
+        return ByteArray.byteArray(head).withAppended(message.subArray(headerLength + length - newBodyLength,
+            headerLength + length));
+    }
+
+} 
\ No newline at end of file
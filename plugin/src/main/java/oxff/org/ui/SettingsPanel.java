@@ -0,0 +1,833 @@
+/*
+ * Copyright (c) 2024. All rights reserved.
+ */
+
+package oxff.org.ui;
+
+import burp.api.montoya.MontoyaApi;
+import burp.api.montoya.core.ToolType;
+import oxff.org.cleaning.CleaningStrategyType;
+import oxff.org.config.ConfigSnapshot;
+import oxff.org.config.LargeBodyPolicy;
+import oxff.org.config.PluginConfig;
+import oxff.org.handler.EndpointBypassTable;
+import oxff.org.logging.LogLevel;
+import oxff.org.metrics.ProcessingMetrics;
+
+import javax.swing.*;
+import javax.swing.border.TitledBorder;
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Remove Extra Blank Lines 插件设置面板
+ * 
+ * 提供图形化界面用于配置：
+ * - 模块生效控制（Proxy、Repeater、Intruder、Extensions）
+ * - 目标域控制（是否仅对Burp Suite目标域生效）
+ * - 清理策略
+ * - 内容检测窗口（无Content-Type时采样正文的大小）
+ * - 自定义二进制魔数
+ * - 正文大小上限与压缩正文的处理方式
+ * - 文本/二进制媒体类型列表
+ * - 日志级别
+ * - 自适应跳过
+ * 
+ * 同时以只读方式显示实时的处理统计和各端点的自适应跳过学习状态。
+ */
+public class SettingsPanel extends JPanel {
+    
+    private final MontoyaApi api;
+    private final PluginConfig config;
+    private final ProcessingMetrics metrics;
+    private final EndpointBypassTable bypassTable;
+    
+    // 统计刷新间隔（毫秒）
+    private static final int METRICS_REFRESH_INTERVAL = 1000;
+    
+    // 正文大小上限的界面单位
+    private static final int BYTES_PER_MB = 1024 * 1024;
+    
+    // 自适应跳过面板最多显示的端点数
+    private static final int MAX_DISPLAYED_ENDPOINTS = 50;
+    
+    // UI组件
+    private Map<ToolType, JCheckBox> moduleCheckboxes;
+    private JCheckBox targetScopeCheckbox;
+    private Map<CleaningStrategyType, JCheckBox> strategyCheckboxes;
+    private JCheckBox rawModeCheckbox;
+    private JSpinner sniffWindowSpinner;
+    private JSpinner sniffTailSpinner;
+    private JSpinner maxAnalysisSpinner;
+    private JSpinner maxCleanSpinner;
+    private JComboBox<LargeBodyPolicy> largeBodyPolicyComboBox;
+    private JCheckBox decodeCompressedCheckbox;
+    private JSpinner maxDecodedSpinner;
+    private JTextArea signatureTextArea;
+    private JTextArea textTypesTextArea;
+    private JTextArea binaryTypesTextArea;
+    private JComboBox<LogLevel> logLevelComboBox;
+    private JCheckBox adaptiveBypassCheckbox;
+    private JTextArea endpointsTextArea;
+    private JButton resetButton;
+    private JButton applyButton;
+    private JLabel statusLabel;
+    private JTextArea metricsTextArea;
+    private Timer metricsTimer;
+    
+    /**
+     * 构造函数
+     * 
+     * @param api Montoya API
+     * @param config 插件配置管理器
+     * @param metrics 处理指标
+     * @param bypassTable 端点自适应跳过表
+     */
+    public SettingsPanel(MontoyaApi api, PluginConfig config, ProcessingMetrics metrics,
+                         EndpointBypassTable bypassTable) {
+        this.api = api;
+        this.config = config;
+        this.metrics = metrics;
+        this.bypassTable = bypassTable;
+        initializeUI();
+        loadCurrentSettings();
+        startMetricsRefresh();
+    }
+    
+    /**
+     * 初始化用户界面
+     */
+    private void initializeUI() {
+        this.setLayout(new BorderLayout());
+        this.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+        
+        // 创建主要内容面板
+        JPanel contentPanel = new JPanel(new GridBagLayout());
+        GridBagConstraints gbc = new GridBagConstraints();
+        
+        // 标题
+        JLabel titleLabel = new JLabel("Remove Extra Blank Lines - 插件设置");
+        titleLabel.setFont(titleLabel.getFont().deriveFont(Font.BOLD, 16f));
+        gbc.gridx = 0; gbc.gridy = 0;
+        gbc.gridwidth = 2;
+        gbc.insets = new Insets(0, 0, 20, 0);
+        gbc.anchor = GridBagConstraints.WEST;
+        contentPanel.add(titleLabel, gbc);
+        
+        // 模块控制面板
+        JPanel modulePanel = createModuleControlPanel();
+        gbc.gridx = 0; gbc.gridy = 1;
+        gbc.gridwidth = 2;
+        gbc.fill = GridBagConstraints.HORIZONTAL;
+        gbc.insets = new Insets(0, 0, 20, 0);
+        contentPanel.add(modulePanel, gbc);
+        
+        // 目标域控制面板
+        JPanel scopePanel = createScopeControlPanel();
+        gbc.gridx = 0; gbc.gridy = 2;
+        gbc.gridwidth = 2;
+        gbc.fill = GridBagConstraints.HORIZONTAL;
+        gbc.insets = new Insets(0, 0, 20, 0);
+        contentPanel.add(scopePanel, gbc);
+        
+        // 清理策略面板
+        JPanel strategyPanel = createCleaningStrategyPanel();
+        gbc.gridx = 0; gbc.gridy = 3;
+        gbc.gridwidth = 2;
+        gbc.fill = GridBagConstraints.HORIZONTAL;
+        gbc.insets = new Insets(0, 0, 20, 0);
+        contentPanel.add(strategyPanel, gbc);
+        
+        // 内容检测面板
+        JPanel sniffPanel = createSniffControlPanel();
+        gbc.gridx = 0; gbc.gridy = 4;
+        gbc.gridwidth = 2;
+        gbc.fill = GridBagConstraints.HORIZONTAL;
+        gbc.insets = new Insets(0, 0, 20, 0);
+        contentPanel.add(sniffPanel, gbc);
+        
+        // 正文大小上限面板
+        JPanel sizeLimitPanel = createBodySizeLimitPanel();
+        gbc.gridx = 0; gbc.gridy = 5;
+        gbc.gridwidth = 2;
+        gbc.fill = GridBagConstraints.HORIZONTAL;
+        gbc.insets = new Insets(0, 0, 20, 0);
+        contentPanel.add(sizeLimitPanel, gbc);
+        
+        // 媒体类型面板
+        JPanel mediaTypePanel = createMediaTypePanel();
+        gbc.gridx = 0; gbc.gridy = 6;
+        gbc.gridwidth = 2;
+        gbc.fill = GridBagConstraints.HORIZONTAL;
+        gbc.insets = new Insets(0, 0, 20, 0);
+        contentPanel.add(mediaTypePanel, gbc);
+        
+        // 日志面板
+        JPanel logPanel = createLogPanel();
+        gbc.gridx = 0; gbc.gridy = 7;
+        gbc.gridwidth = 2;
+        gbc.fill = GridBagConstraints.HORIZONTAL;
+        gbc.insets = new Insets(0, 0, 20, 0);
+        contentPanel.add(logPanel, gbc);
+        
+        // 自适应跳过面板
+        JPanel bypassPanel = createAdaptiveBypassPanel();
+        gbc.gridx = 0; gbc.gridy = 8;
+        gbc.gridwidth = 2;
+        gbc.fill = GridBagConstraints.HORIZONTAL;
+        gbc.insets = new Insets(0, 0, 20, 0);
+        contentPanel.add(bypassPanel, gbc);
+        
+        // 处理统计面板
+        JPanel metricsPanel = createMetricsPanel();
+        gbc.gridx = 0; gbc.gridy = 9;
+        gbc.gridwidth = 2;
+        gbc.fill = GridBagConstraints.HORIZONTAL;
+        gbc.insets = new Insets(0, 0, 20, 0);
+        contentPanel.add(metricsPanel, gbc);
+        
+        // 按钮面板
+        JPanel buttonPanel = createButtonPanel();
+        gbc.gridx = 0; gbc.gridy = 10;
+        gbc.gridwidth = 2;
+        gbc.fill = GridBagConstraints.HORIZONTAL;
+        gbc.insets = new Insets(0, 0, 10, 0);
+        contentPanel.add(buttonPanel, gbc);
+        
+        // 状态标签
+        statusLabel = new JLabel("就绪");
+        statusLabel.setForeground(Color.BLUE);
+        gbc.gridx = 0; gbc.gridy = 11;
+        gbc.gridwidth = 2;
+        gbc.insets = new Insets(0, 0, 0, 0);
+        contentPanel.add(statusLabel, gbc);
+        
+        this.add(contentPanel, BorderLayout.NORTH);
+    }
+    
+    /**
+     * 创建模块控制面板
+     */
+    private JPanel createModuleControlPanel() {
+        JPanel panel = new JPanel(new GridBagLayout());
+        panel.setBorder(new TitledBorder("模块生效控制"));
+        
+        moduleCheckboxes = new HashMap<>();
+        GridBagConstraints gbc = new GridBagConstraints();
+        gbc.anchor = GridBagConstraints.WEST;
+        gbc.insets = new Insets(5, 10, 5, 10);
+        
+        // 说明文字
+        JLabel descLabel = new JLabel("选择插件在哪些Burp Suite模块中生效：");
+        descLabel.setFont(descLabel.getFont().deriveFont(Font.PLAIN, 12f));
+        gbc.gridx = 0; gbc.gridy = 0;
+        gbc.gridwidth = 2;
+        gbc.insets = new Insets(5, 10, 10, 10);
+        panel.add(descLabel, gbc);
+        
+        // 创建模块复选框
+        ToolType[] modules = {ToolType.PROXY, ToolType.REPEATER, ToolType.INTRUDER, ToolType.EXTENSIONS};
+        String[] moduleNames = {"Proxy (代理模块)", "Repeater (重发器)", "Intruder (入侵者)", "Extensions (扩展)"};
+        String[] moduleDescs = {
+            "拦截和修改浏览器与目标服务器之间的流量",
+            "手动重发和修改HTTP请求",
+            "自动化的HTTP请求攻击测试",
+            "来自其他扩展的HTTP请求"
+        };
+        
+        for (int i = 0; i < modules.length; i++) {
+            JCheckBox checkbox = new JCheckBox(moduleNames[i]);
+            checkbox.setToolTipText(moduleDescs[i]);
+            moduleCheckboxes.put(modules[i], checkbox);
+            
+            gbc.gridx = i % 2; gbc.gridy = 1 + i / 2;
+            gbc.gridwidth = 1;
+            gbc.insets = new Insets(2, 10, 2, 10);
+            panel.add(checkbox, gbc);
+        }
+        
+        return panel;
+    }
+    
+    /**
+     * 创建目标域控制面板
+     */
+    private JPanel createScopeControlPanel() {
+        JPanel panel = new JPanel(new GridBagLayout());
+        panel.setBorder(new TitledBorder("目标域控制"));
+        
+        GridBagConstraints gbc = new GridBagConstraints();
+        gbc.anchor = GridBagConstraints.WEST;
+        gbc.insets = new Insets(5, 10, 5, 10);
+        
+        // 说明文字
+        JLabel descLabel = new JLabel("控制插件的作用域范围：");
+        descLabel.setFont(descLabel.getFont().deriveFont(Font.PLAIN, 12f));
+        gbc.gridx = 0; gbc.gridy = 0;
+        gbc.gridwidth = 2;
+        gbc.insets = new Insets(5, 10, 10, 10);
+        panel.add(descLabel, gbc);
+        
+        // 目标域复选框
+        targetScopeCheckbox = new JCheckBox("仅对Burp Suite目标域生效");
+        targetScopeCheckbox.setToolTipText("启用后，插件只处理Target->Scope中定义的目标域的HTTP流量");
+        gbc.gridx = 0; gbc.gridy = 1;
+        gbc.gridwidth = 2;
+        gbc.insets = new Insets(2, 10, 2, 10);
+        panel.add(targetScopeCheckbox, gbc);
+        
+        // 提示信息
+        JLabel hintLabel = new JLabel("<html><i>提示：可在Target->Scope中设置目标域范围</i></html>");
+        hintLabel.setForeground(Color.GRAY);
+        hintLabel.setFont(hintLabel.getFont().deriveFont(Font.PLAIN, 11f));
+        gbc.gridx = 0; gbc.gridy = 2;
+        gbc.gridwidth = 2;
+        gbc.insets = new Insets(5, 10, 5, 10);
+        panel.add(hintLabel, gbc);
+        
+        return panel;
+    }
+    
+    /**
+     * 创建清理策略面板
+     */
+    private JPanel createCleaningStrategyPanel() {
+        JPanel panel = new JPanel(new GridBagLayout());
+        panel.setBorder(new TitledBorder("清理策略"));
+        
+        strategyCheckboxes = new HashMap<>();
+        GridBagConstraints gbc = new GridBagConstraints();
+        gbc.anchor = GridBagConstraints.WEST;
+        gbc.insets = new Insets(5, 10, 5, 10);
+        
+        // 说明文字
+        JLabel descLabel = new JLabel("选中的策略会组合为一次处理，开销低的策略先执行：");
+        descLabel.setFont(descLabel.getFont().deriveFont(Font.PLAIN, 12f));
+        gbc.gridx = 0; gbc.gridy = 0;
+        gbc.gridwidth = 2;
+        gbc.insets = new Insets(5, 10, 10, 10);
+        panel.add(descLabel, gbc);
+        
+        // 创建策略复选框
+        CleaningStrategyType[] strategies = CleaningStrategyType.values();
+        String[] strategyDescs = {
+            "去掉正文开头只包含空格和制表符的行（默认，只扫描开头）",
+            "连续的空行只保留第一个（逐行扫描整个正文）",
+            "去掉最后一个非空行之后的空行（只扫描结尾）",
+            "所有换行符统一为正文中第一个换行符的类型（逐行扫描整个正文）"
+        };
+        
+        for (int i = 0; i < strategies.length; i++) {
+            JCheckBox checkbox = new JCheckBox(strategies[i].getDisplayName());
+            checkbox.setToolTipText(strategyDescs[i]);
+            strategyCheckboxes.put(strategies[i], checkbox);
+            
+            gbc.gridx = i % 2; gbc.gridy = 1 + i / 2;
+            gbc.gridwidth = 1;
+            gbc.insets = new Insets(2, 10, 2, 10);
+            panel.add(checkbox, gbc);
+        }
+        
+        // 原始报文模式
+        rawModeCheckbox = new JCheckBox("原始报文模式（只在仅选择\"" + CleaningStrategyType.LEADING.getDisplayName() + "\"时生效）");
+        rawModeCheckbox.setToolTipText("直接在完整报文上去掉正文开头的空行并更新Content-Length，不通过withBody()重建报文（不修改起始行之前的空行）；"
+            + "选择了其他清理策略、HTTP/2 消息、分块传输或压缩的正文仍按普通方式处理");
+        gbc.gridx = 0; gbc.gridy = 1 + (strategies.length + 1) / 2;
+        gbc.gridwidth = 2;
+        panel.add(rawModeCheckbox, gbc);
+        
+        // 提示信息
+        JLabel hintLabel = new JLabel("<html><i>提示：正文超过完整分析上限时只执行去掉开头/结尾空行</i></html>");
+        hintLabel.setForeground(Color.GRAY);
+        hintLabel.setFont(hintLabel.getFont().deriveFont(Font.PLAIN, 11f));
+        gbc.gridx = 0; gbc.gridy = 2 + (strategies.length + 1) / 2;
+        gbc.gridwidth = 2;
+        gbc.insets = new Insets(5, 10, 5, 10);
+        panel.add(hintLabel, gbc);
+        
+        return panel;
+    }
+    
+    /**
+     * 创建内容检测面板
+     */
+    private JPanel createSniffControlPanel() {
+        JPanel panel = new JPanel(new GridBagLayout());
+        panel.setBorder(new TitledBorder("内容检测"));
+        
+        GridBagConstraints gbc = new GridBagConstraints();
+        gbc.anchor = GridBagConstraints.WEST;
+        gbc.insets = new Insets(5, 10, 5, 10);
+        
+        // 说明文字
+        JLabel descLabel = new JLabel("没有Content-Type头部时，只采样正文的以下部分判断是否为文本：");
+        descLabel.setFont(descLabel.getFont().deriveFont(Font.PLAIN, 12f));
+        gbc.gridx = 0; gbc.gridy = 0;
+        gbc.gridwidth = 2;
+        gbc.insets = new Insets(5, 10, 10, 10);
+        panel.add(descLabel, gbc);
+        
+        // 开头窗口大小（KB）
+        sniffWindowSpinner = new JSpinner(new SpinnerNumberModel(8, 0, 1024, 4));
+        sniffWindowSpinner.setToolTipText("检测正文开头的字节数，0 表示扫描整个正文");
+        gbc.gridx = 0; gbc.gridy = 1;
+        gbc.gridwidth = 1;
+        gbc.insets = new Insets(2, 10, 2, 10);
+        panel.add(new JLabel("开头窗口 (KB):"), gbc);
+        gbc.gridx = 1;
+        panel.add(sniffWindowSpinner, gbc);
+        
+        // 结尾采样大小（KB）
+        sniffTailSpinner = new JSpinner(new SpinnerNumberModel(0, 0, 64, 1));
+        sniffTailSpinner.setToolTipText("额外检测正文结尾的字节数，0 表示不采样结尾");
+        gbc.gridx = 0; gbc.gridy = 2;
+        panel.add(new JLabel("结尾采样 (KB):"), gbc);
+        gbc.gridx = 1;
+        panel.add(sniffTailSpinner, gbc);
+        
+        // 自定义二进制魔数
+        signatureTextArea = new JTextArea(4, 30);
+        signatureTextArea.setToolTipText("每行一个十六进制魔数，例如 89 50 4E 47，以这些字节开头的正文视为二进制");
+        gbc.gridx = 0; gbc.gridy = 3;
+        gbc.anchor = GridBagConstraints.NORTHWEST;
+        panel.add(new JLabel("自定义魔数:"), gbc);
+        gbc.gridx = 1;
+        gbc.anchor = GridBagConstraints.WEST;
+        panel.add(new JScrollPane(signatureTextArea), gbc);
+        
+        // 提示信息
+        JLabel hintLabel = new JLabel("<html><i>提示：窗口越小检测越快，大小固定时检测开销与正文大小无关</i></html>");
+        hintLabel.setForeground(Color.GRAY);
+        hintLabel.setFont(hintLabel.getFont().deriveFont(Font.PLAIN, 11f));
+        gbc.gridx = 0; gbc.gridy = 4;
+        gbc.gridwidth = 2;
+        gbc.insets = new Insets(5, 10, 5, 10);
+        panel.add(hintLabel, gbc);
+        
+        return panel;
+    }
+    
+    /**
+     * 创建正文大小上限面板（包括压缩正文的处理方式）
+     */
+    private JPanel createBodySizeLimitPanel() {
+        JPanel panel = new JPanel(new GridBagLayout());
+        panel.setBorder(new TitledBorder("正文大小上限与压缩正文"));
+        
+        GridBagConstraints gbc = new GridBagConstraints();
+        gbc.anchor = GridBagConstraints.WEST;
+        gbc.insets = new Insets(2, 10, 2, 10);
+        
+        // 完整分析上限（MB）
+        maxAnalysisSpinner = new JSpinner(new SpinnerNumberModel(16, 0, 2047, 1));
+        maxAnalysisSpinner.setToolTipText("超过该大小的正文不做完整分析，0 表示不限制");
+        gbc.gridx = 0; gbc.gridy = 0;
+        panel.add(new JLabel("完整分析上限 (MB):"), gbc);
+        gbc.gridx = 1;
+        panel.add(maxAnalysisSpinner, gbc);
+        
+        // 超过完整分析上限时的处理方式
+        largeBodyPolicyComboBox = new JComboBox<>(LargeBodyPolicy.values());
+        largeBodyPolicyComboBox.setToolTipText("只检查开头窗口时，即使配置为扫描整个正文，也只检查默认大小的开头窗口");
+        gbc.gridx = 0; gbc.gridy = 1;
+        panel.add(new JLabel("超过分析上限时:"), gbc);
+        gbc.gridx = 1;
+        panel.add(largeBodyPolicyComboBox, gbc);
+        
+        // 清理上限（MB）
+        maxCleanSpinner = new JSpinner(new SpinnerNumberModel(64, 0, 2047, 1));
+        maxCleanSpinner.setToolTipText("超过该大小的正文总是跳过，不复制也不清理，0 表示不限制");
+        gbc.gridx = 0; gbc.gridy = 2;
+        panel.add(new JLabel("清理上限 (MB):"), gbc);
+        gbc.gridx = 1;
+        panel.add(maxCleanSpinner, gbc);
+        
+        // 压缩正文（Content-Encoding）默认跳过
+        decodeCompressedCheckbox = new JCheckBox("解压 gzip/deflate 正文后清理");
+        decodeCompressedCheckbox.setToolTipText("未选中时跳过所有带 Content-Encoding 的正文；选中时解压后清理，再按原编码重新压缩（brotli 等其他编码始终跳过）");
+        gbc.gridx = 0; gbc.gridy = 3;
+        gbc.gridwidth = 2;
+        panel.add(decodeCompressedCheckbox, gbc);
+        gbc.gridwidth = 1;
+        
+        // 解压上限（MB）
+        maxDecodedSpinner = new JSpinner(new SpinnerNumberModel(8, 1, 2047, 1));
+        maxDecodedSpinner.setToolTipText("解压后超过该大小时停止解压并跳过该消息");
+        gbc.gridx = 0; gbc.gridy = 4;
+        panel.add(new JLabel("解压上限 (MB):"), gbc);
+        gbc.gridx = 1;
+        panel.add(maxDecodedSpinner, gbc);
+        
+        // 提示信息
+        JLabel hintLabel = new JLabel("<html><i>提示：上限决定了单条消息最坏情况下的处理耗时和内存占用</i></html>");
+        hintLabel.setForeground(Color.GRAY);
+        hintLabel.setFont(hintLabel.getFont().deriveFont(Font.PLAIN, 11f));
+        gbc.gridx = 0; gbc.gridy = 5;
+        gbc.gridwidth = 2;
+        gbc.insets = new Insets(5, 10, 5, 10);
+        panel.add(hintLabel, gbc);
+        
+        return panel;
+    }
+    
+    /**
+     * 创建媒体类型面板
+     */
+    private JPanel createMediaTypePanel() {
+        JPanel panel = new JPanel(new GridBagLayout());
+        panel.setBorder(new TitledBorder("Content-Type 分类"));
+        
+        GridBagConstraints gbc = new GridBagConstraints();
+        gbc.anchor = GridBagConstraints.WEST;
+        gbc.insets = new Insets(5, 10, 5, 10);
+        
+        // 说明文字
+        JLabel descLabel = new JLabel("根据Content-Type判断内容类型，每行一个媒体类型，按前缀匹配（text/* 与 text/ 相同）：");
+        descLabel.setFont(descLabel.getFont().deriveFont(Font.PLAIN, 12f));
+        gbc.gridx = 0; gbc.gridy = 0;
+        gbc.gridwidth = 2;
+        gbc.insets = new Insets(5, 10, 10, 10);
+        panel.add(descLabel, gbc);
+        
+        textTypesTextArea = new JTextArea(8, 25);
+        textTypesTextArea.setToolTipText("命中这些类型的消息按文本处理");
+        binaryTypesTextArea = new JTextArea(8, 25);
+        binaryTypesTextArea.setToolTipText("命中这些类型的消息按二进制跳过");
+        
+        gbc.gridwidth = 1;
+        gbc.insets = new Insets(2, 10, 2, 10);
+        gbc.gridx = 0; gbc.gridy = 1;
+        panel.add(new JLabel("文本类型:"), gbc);
+        gbc.gridx = 1;
+        panel.add(new JLabel("二进制类型:"), gbc);
+        gbc.gridx = 0; gbc.gridy = 2;
+        panel.add(new JScrollPane(textTypesTextArea), gbc);
+        gbc.gridx = 1;
+        panel.add(new JScrollPane(binaryTypesTextArea), gbc);
+        
+        return panel;
+    }
+    
+    /**
+     * 创建日志面板
+     */
+    private JPanel createLogPanel() {
+        JPanel panel = new JPanel(new GridBagLayout());
+        panel.setBorder(new TitledBorder("日志"));
+        
+        GridBagConstraints gbc = new GridBagConstraints();
+        gbc.anchor = GridBagConstraints.WEST;
+        gbc.insets = new Insets(5, 10, 5, 10);
+        
+        logLevelComboBox = new JComboBox<>(LogLevel.values());
+        logLevelComboBox.setToolTipText("DEBUG 输出每条被清理消息的URL（按主机限流），INFO 每 10 秒按主机输出汇总");
+        gbc.gridx = 0; gbc.gridy = 0;
+        panel.add(new JLabel("日志级别:"), gbc);
+        gbc.gridx = 1;
+        panel.add(logLevelComboBox, gbc);
+        
+        // 提示信息
+        JLabel hintLabel = new JLabel("<html><i>提示：日志由后台线程异步写出，不影响HTTP处理速度</i></html>");
+        hintLabel.setForeground(Color.GRAY);
+        hintLabel.setFont(hintLabel.getFont().deriveFont(Font.PLAIN, 11f));
+        gbc.gridx = 0; gbc.gridy = 1;
+        gbc.gridwidth = 2;
+        panel.add(hintLabel, gbc);
+        
+        return panel;
+    }
+    
+    /**
+     * 创建自适应跳过面板
+     */
+    private JPanel createAdaptiveBypassPanel() {
+        JPanel panel = new JPanel(new BorderLayout(0, 5));
+        panel.setBorder(new TitledBorder("自适应跳过"));
+        
+        adaptiveBypassCheckbox = new JCheckBox("从未需要清理的端点只做抽样检查");
+        adaptiveBypassCheckbox.setToolTipText("按 方向+方法+主机+路径 学习非空正文的清理结果，连续多次无需清理的端点直接放行，并定期抽样检查行为变化；Repeater 消息总是完整处理");
+        panel.add(adaptiveBypassCheckbox, BorderLayout.NORTH);
+        
+        endpointsTextArea = new JTextArea(10, 60);
+        endpointsTextArea.setEditable(false);
+        endpointsTextArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+        panel.add(new JScrollPane(endpointsTextArea), BorderLayout.CENTER);
+        
+        JButton resetLearningButton = new JButton("重置学习状态");
+        resetLearningButton.setToolTipText("清除所有端点的学习结果，所有端点重新完整处理");
+        resetLearningButton.addActionListener(e -> {
+            bypassTable.reset();
+            refreshMetrics();
+        });
+        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 0, 0));
+        buttonPanel.add(resetLearningButton);
+        panel.add(buttonPanel, BorderLayout.SOUTH);
+        
+        return panel;
+    }
+    
+    /**
+     * 创建处理统计面板
+     */
+    private JPanel createMetricsPanel() {
+        JPanel panel = new JPanel(new BorderLayout(0, 5));
+        panel.setBorder(new TitledBorder("处理统计"));
+        
+        metricsTextArea = new JTextArea(16, 60);
+        metricsTextArea.setEditable(false);
+        metricsTextArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+        panel.add(new JScrollPane(metricsTextArea), BorderLayout.CENTER);
+        
+        JButton clearButton = new JButton("清零统计");
+        clearButton.setToolTipText("将所有计数和耗时统计清零");
+        clearButton.addActionListener(e -> {
+            metrics.reset();
+            refreshMetrics();
+        });
+        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 0, 0));
+        buttonPanel.add(clearButton);
+        panel.add(buttonPanel, BorderLayout.SOUTH);
+        
+        return panel;
+    }
+    
+    /**
+     * 启动统计的定时刷新
+     * 
+     * 刷新在 Swing 事件线程上执行，只读取计数器的汇总值，不会阻塞 HTTP 处理线程。
+     */
+    private void startMetricsRefresh() {
+        refreshMetrics();
+        metricsTimer = new Timer(METRICS_REFRESH_INTERVAL, e -> refreshMetrics());
+        metricsTimer.start();
+    }
+    
+    /**
+     * 刷新统计显示
+     */
+    private void refreshMetrics() {
+        // 面板不可见时跳过，避免无意义的格式化
+        if (!isShowing() && !metricsTextArea.getText().isEmpty()) {
+            return;
+        }
+        metricsTextArea.setText(metrics.snapshot().toDisplayString());
+        endpointsTextArea.setText(bypassTable.toDisplayString(MAX_DISPLAYED_ENDPOINTS));
+    }
+    
+    /**
+     * 停止统计刷新（插件卸载时调用）
+     */
+    public void dispose() {
+        if (metricsTimer != null) {
+            metricsTimer.stop();
+        }
+    }
+    
+    /**
+     * 创建按钮面板
+     */
+    private JPanel createButtonPanel() {
+        JPanel panel = new JPanel(new FlowLayout(FlowLayout.CENTER, 10, 0));
+        
+        applyButton = new JButton("应用设置");
+        applyButton.setToolTipText("保存并应用当前设置");
+        applyButton.addActionListener(new ApplyActionListener());
+        
+        resetButton = new JButton("重置为默认");
+        resetButton.setToolTipText("恢复为插件默认设置");
+        resetButton.addActionListener(new ResetActionListener());
+        
+        panel.add(applyButton);
+        panel.add(resetButton);
+        
+        return panel;
+    }
+    
+    /**
+     * 从配置管理器加载当前设置到UI
+     */
+    private void loadCurrentSettings() {
+        ConfigSnapshot snapshot = config.getSnapshot();
+        Set<ToolType> enabledModules = snapshot.getEnabledModules();
+        
+        // 更新模块复选框状态
+        for (Map.Entry<ToolType, JCheckBox> entry : moduleCheckboxes.entrySet()) {
+            entry.getValue().setSelected(enabledModules.contains(entry.getKey()));
+        }
+        
+        // 更新目标域复选框状态
+        targetScopeCheckbox.setSelected(snapshot.isTargetScopeOnly());
+        
+        // 更新清理策略复选框状态
+        Set<CleaningStrategyType> strategies = snapshot.getCleaningStrategies();
+        for (Map.Entry<CleaningStrategyType, JCheckBox> entry : strategyCheckboxes.entrySet()) {
+            entry.getValue().setSelected(strategies.contains(entry.getKey()));
+        }
+        
+        rawModeCheckbox.setSelected(snapshot.isRawMode());
+        
+        // 更新内容检测窗口（配置以字节为单位，界面以KB显示）
+        sniffWindowSpinner.setValue(snapshot.getSniffWindowSize() / 1024);
+        sniffTailSpinner.setValue(snapshot.getSniffTailSize() / 1024);
+        
+        // 更新正文大小上限（配置以字节为单位，界面以MB显示）
+        maxAnalysisSpinner.setValue(snapshot.getMaxAnalysisSize() / BYTES_PER_MB);
+        maxCleanSpinner.setValue(snapshot.getMaxCleanSize() / BYTES_PER_MB);
+        largeBodyPolicyComboBox.setSelectedItem(snapshot.getLargeBodyPolicy());
+        decodeCompressedCheckbox.setSelected(snapshot.isDecodeCompressed());
+        maxDecodedSpinner.setValue(Math.max(1, snapshot.getMaxDecodedSize() / BYTES_PER_MB));
+        
+        // 更新自定义魔数
+        signatureTextArea.setText(String.join("\n", snapshot.getCustomBinarySignatures()));
+        
+        // 更新媒体类型列表
+        textTypesTextArea.setText(String.join("\n", snapshot.getTextMediaTypes()));
+        binaryTypesTextArea.setText(String.join("\n", snapshot.getBinaryMediaTypes()));
+        
+        // 更新日志级别
+        logLevelComboBox.setSelectedItem(snapshot.getLogLevel());
+        
+        // 更新自适应跳过开关
+        adaptiveBypassCheckbox.setSelected(snapshot.isAdaptiveBypass());
+        
+        updateStatusLabel("配置已加载", Color.BLUE);
+    }
+    
+    /**
+     * 将当前UI设置保存到配置管理器
+     */
+    private void saveCurrentSettings() {
+        // 获取选中的模块
+        Set<ToolType> selectedModules = EnumSet.noneOf(ToolType.class);
+        for (Map.Entry<ToolType, JCheckBox> entry : moduleCheckboxes.entrySet()) {
+            if (entry.getValue().isSelected()) {
+                selectedModules.add(entry.getKey());
+            }
+        }
+        
+        // 获取选中的清理策略
+        Set<CleaningStrategyType> selectedStrategies = EnumSet.noneOf(CleaningStrategyType.class);
+        for (Map.Entry<CleaningStrategyType, JCheckBox> entry : strategyCheckboxes.entrySet()) {
+            if (entry.getValue().isSelected()) {
+                selectedStrategies.add(entry.getKey());
+            }
+        }
+        
+        // 先读出界面上的全部取值，加锁期间不访问 Swing 组件
+        boolean targetScopeOnly = targetScopeCheckbox.isSelected();
+        boolean rawMode = rawModeCheckbox.isSelected();
+        int sniffWindowSize = (Integer) sniffWindowSpinner.getValue() * 1024;
+        int sniffTailSize = (Integer) sniffTailSpinner.getValue() * 1024;
+        int maxAnalysisSize = (Integer) maxAnalysisSpinner.getValue() * BYTES_PER_MB;
+        int maxCleanSize = (Integer) maxCleanSpinner.getValue() * BYTES_PER_MB;
+        LargeBodyPolicy largeBodyPolicy = (LargeBodyPolicy) largeBodyPolicyComboBox.getSelectedItem();
+        boolean decodeCompressed = decodeCompressedCheckbox.isSelected();
+        int maxDecodedSize = (Integer) maxDecodedSpinner.getValue() * BYTES_PER_MB;
+        List<String> signatures = splitLines(signatureTextArea);
+        List<String> textTypes = splitLines(textTypesTextArea);
+        List<String> binaryTypes = splitLines(binaryTypesTextArea);
+        LogLevel logLevel = (LogLevel) logLevelComboBox.getSelectedItem();
+        boolean adaptiveBypass = adaptiveBypassCheckbox.isSelected();
+        
+        // 在当前配置的基础上构造完整的新快照并一次性替换，处理线程不会看到只更新了一部分的配置；
+        // 自定义魔数格式无效时不保存任何设置
+        try {
+            config.update(current -> current
+                .withEnabledModules(selectedModules)
+                .withTargetScopeOnly(targetScopeOnly)
+                .withCleaningStrategies(selectedStrategies)
+                .withRawMode(rawMode)
+                .withSniffWindow(sniffWindowSize, sniffTailSize)
+                .withBodySizeLimits(maxAnalysisSize, maxCleanSize, largeBodyPolicy)
+                .withCompressedBodies(decodeCompressed, maxDecodedSize)
+                .withCustomBinarySignatures(signatures)
+                .withMediaTypes(textTypes, binaryTypes)
+                .withLogLevel(logLevel)
+                .withAdaptiveBypass(adaptiveBypass));
+        } catch (IllegalArgumentException e) {
+            updateStatusLabel(e.getMessage(), Color.RED);
+            return;
+        }
+        
+        updateStatusLabel("设置已保存并应用", Color.GREEN);
+        
+        // 记录日志
+        api.logging().logToOutput("用户通过设置面板更新了插件配置");
+    }
+    
+    /**
+     * 将文本框内容按行拆分
+     */
+    private List<String> splitLines(JTextArea textArea) {
+        return Arrays.asList(textArea.getText().split("\\r?\\n"));
+    }
+    
+    /**
+     * 重置为默认设置
+     */
+    private void resetToDefaults() {
+        config.resetToDefaults();
+        loadCurrentSettings();
+        updateStatusLabel("已重置为默认设置", Color.ORANGE);
+    }
+    
+    /**
+     * 更新状态标签
+     */
+    private void updateStatusLabel(String message, Color color) {
+        statusLabel.setText(message);
+        statusLabel.setForeground(color);
+        
+        // 3秒后恢复默认状态
+        Timer timer = new Timer(3000, e -> {
+            statusLabel.setText("就绪");
+            statusLabel.setForeground(Color.BLUE);
+        });
+        timer.setRepeats(false);
+        timer.start();
+    }
+    
+    /**
+     * 获取插件标题
+     */
+    public String getTitle() {
+        return "Remove Extra Blank Lines";
+    }
+    
+    /**
+     * 应用按钮动作监听器
+     */
+    private class ApplyActionListener implements ActionListener {
+        @Override
+        public void actionPerformed(ActionEvent e) {
+            saveCurrentSettings();
+        }
+    }
+    
+    /**
+     * 重置按钮动作监听器
+     */
+    private class ResetActionListener implements ActionListener {
+        @Override
+        public void actionPerformed(ActionEvent e) {
+            int result = JOptionPane.showConfirmDialog(
+                SettingsPanel.this,
+                "确定要重置为默认设置吗？这将清除所有自定义配置。",
+                "确认重置",
+                JOptionPane.YES_NO_OPTION,
+                JOptionPane.QUESTION_MESSAGE
+            );
+            
+            if (result == JOptionPane.YES_OPTION) {
+                resetToDefaults();
+            }
+        }
+    }
+} 
\ No newline at end of file
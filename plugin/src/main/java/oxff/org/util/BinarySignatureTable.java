@@ -0,0 +1,269 @@
+/*
+ * Copyright (c) 2024. All rights reserved.
+ */
+
+package oxff.org.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 二进制文件魔数表
+ * 
+ * 将所有魔数按首字节编译为 256 项的分派表：
+ * - 查找时先用首字节定位候选签名，绝大多数首字节没有或只有一个候选
+ * - 每次检查最多只需要比较少数几个签名，与签名总数无关
+ * - 支持在内置签名之外追加自定义签名，追加后重新编译，不影响查找速度
+ * 
+ * 编译后的表不可变，可以在多个线程之间共享。
+ */
+public final class BinarySignatureTable {
+    
+    // 常见的二进制文件魔数
+    private static final byte[][] DEFAULT_SIGNATURES = {
+        // 图像文件
+        {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF}, // JPEG
+        {(byte) 0x89, 0x50, 0x4E, 0x47}, // PNG
+        {0x47, 0x49, 0x46, 0x38}, // GIF
+        {0x42, 0x4D}, // BMP
+        {0x49, 0x49, 0x2A, 0x00}, // TIFF (little endian)
+        {0x4D, 0x4D, 0x00, 0x2A}, // TIFF (big endian)
+        {0x52, 0x49, 0x46, 0x46}, // RIFF 容器 (WEBP/WAV/AVI)
+        
+        // 压缩文件
+        {0x50, 0x4B, 0x03, 0x04}, // ZIP
+        {0x50, 0x4B, 0x05, 0x06}, // ZIP (empty)
+        {0x50, 0x4B, 0x07, 0x08}, // ZIP (spanned)
+        {0x52, 0x61, 0x72, 0x21}, // RAR v1.5+
+        {0x37, 0x7A, (byte) 0xBC, (byte) 0xAF}, // 7Z
+        {0x1F, (byte) 0x8B}, // GZIP
+        {0x42, 0x5A, 0x68}, // BZIP2
+        
+        // 音频文件
+        {0x49, 0x44, 0x33}, // MP3 (ID3v2)
+        {(byte) 0xFF, (byte) 0xFB}, // MP3 (MPEG-1 Layer 3)
+        {(byte) 0xFF, (byte) 0xF3}, // MP3 (MPEG-2 Layer 3)
+        {0x66, 0x4C, 0x61, 0x43}, // FLAC
+        {0x4F, 0x67, 0x67, 0x53}, // OGG
+        
+        // 视频文件
+        {0x00, 0x00, 0x00, 0x18, 0x66, 0x74, 0x79, 0x70}, // MP4
+        {0x00, 0x00, 0x00, 0x20, 0x66, 0x74, 0x79, 0x70}, // MP4 alternative
+        {0x1A, 0x45, (byte) 0xDF, (byte) 0xA3}, // MKV/WEBM
+        {0x46, 0x4C, 0x56, 0x01}, // FLV
+        
+        // 文档文件
+        {0x25, 0x50, 0x44, 0x46}, // PDF
+        {(byte) 0xD0, (byte) 0xCF, 0x11, (byte) 0xE0}, // MS Office (DOC, XLS, PPT)
+        {0x7B, 0x5C, 0x72, 0x74, 0x66, 0x31}, // RTF
+        
+        // 可执行文件
+        {0x4D, 0x5A}, // Windows PE/DLL/EXE
+        {0x7F, 0x45, 0x4C, 0x46}, // ELF (Linux)
+        {(byte) 0xFE, (byte) 0xED, (byte) 0xFA, (byte) 0xCE}, // Mach-O (macOS) 32-bit
+        {(byte) 0xFE, (byte) 0xED, (byte) 0xFA, (byte) 0xCF}, // Mach-O (macOS) 64-bit
+        
+        // 其他常见二进制格式
+        {0x00, 0x00, 0x02, 0x00}, // ICO
+        {0x00, 0x00, 0x01, 0x00}, // ICO alternative
+        {(byte) 0xCA, (byte) 0xFE, (byte) 0xBA, (byte) 0xBE}, // Java Class
+    };
+    
+    private static final BinarySignatureTable DEFAULT_TABLE = compile(new ArrayList<>());
+    
+    // 按首字节索引的候选签名，没有候选时为 null
+    private final byte[][][] table;
+    
+    // 签名的最小长度，正文比它短时无需查表
+    private final int minLength;
+    
+    private BinarySignatureTable(byte[][][] table, int minLength) {
+        this.table = table;
+        this.minLength = minLength;
+    }
+    
+    /**
+     * 获取只包含内置签名的魔数表
+     * 
+     * @return 内置魔数表
+     */
+    public static BinarySignatureTable defaults() {
+        return DEFAULT_TABLE;
+    }
+    
+    /**
+     * 将内置签名和自定义签名编译为魔数表
+     * 
+     * @param customSignatures 自定义签名，可以为空
+     * @return 编译后的魔数表
+     */
+    public static BinarySignatureTable compile(List<byte[]> customSignatures) {
+        List<byte[]> all = new ArrayList<>(Arrays.asList(DEFAULT_SIGNATURES));
+        all.addAll(customSignatures);
+        
+        List<List<byte[]>> buckets = new ArrayList<>(256);
+        for (int i = 0; i < 256; i++) {
+            buckets.add(null);
+        }
+        
+        int minLength = Integer.MAX_VALUE;
+        for (byte[] signature : all) {
+            if (signature == null || signature.length == 0) {
+                continue;
+            }
+            int first = signature[0] & 0xFF;
+            List<byte[]> bucket = buckets.get(first);
+            if (bucket == null) {
+                bucket = new ArrayList<>(1);
+                buckets.set(first, bucket);
+            }
+            addWithoutRedundancy(bucket, signature);
+        }
+        
+        byte[][][] table = new byte[256][][];
+        for (int i = 0; i < 256; i++) {
+            List<byte[]> bucket = buckets.get(i);
+            if (bucket != null) {
+                table[i] = bucket.toArray(new byte[0][]);
+                for (byte[] signature : bucket) {
+                    minLength = Math.min(minLength, signature.length);
+                }
+            }
+        }
+        return new BinarySignatureTable(table, minLength == Integer.MAX_VALUE ? 1 : minLength);
+    }
+    
+    /**
+     * 将签名加入候选列表，重复签名或被更短签名覆盖的签名不会重复加入
+     */
+    private static void addWithoutRedundancy(List<byte[]> bucket, byte[] signature) {
+        for (int i = bucket.size() - 1; i >= 0; i--) {
+            byte[] existing = bucket.get(i);
+            if (isPrefix(existing, signature)) {
+                return; // 已有更短（或相同）的签名覆盖
+            }
+            if (isPrefix(signature, existing)) {
+                bucket.remove(i); // 新签名更短，覆盖已有签名
+            }
+        }
+        bucket.add(signature.clone());
+    }
+    
+    private static boolean isPrefix(byte[] prefix, byte[] bytes) {
+        if (prefix.length > bytes.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (prefix[i] != bytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * 获取编译后的签名总数（去掉重复和被覆盖的签名之后）
+     */
+    int signatureCount() {
+        int count = 0;
+        for (byte[][] candidates : table) {
+            if (candidates != null) {
+                count += candidates.length;
+            }
+        }
+        return count;
+    }
+    
+    /**
+     * 解析十六进制表示的签名，例如 "89 50 4E 47" 或 "89504E47"
+     * 
+     * @param hex 十六进制字符串
+     * @return 签名字节
+     * @throws IllegalArgumentException 如果格式无效
+     */
+    public static byte[] parseHex(String hex) {
+        String digits = hex.replaceAll("[\\s:,-]", "");
+        if (digits.startsWith("0x") || digits.startsWith("0X")) {
+            digits = digits.substring(2);
+        }
+        if (digits.isEmpty() || digits.length() % 2 != 0) {
+            throw new IllegalArgumentException("无效的十六进制签名: " + hex);
+        }
+        byte[] result = new byte[digits.length() / 2];
+        for (int i = 0; i < result.length; i++) {
+            int high = Character.digit(digits.charAt(i * 2), 16);
+            int low = Character.digit(digits.charAt(i * 2 + 1), 16);
+            if (high < 0 || low < 0) {
+                throw new IllegalArgumentException("无效的十六进制签名: " + hex);
+            }
+            result[i] = (byte) ((high << 4) | low);
+        }
+        return result;
+    }
+    
+    /**
+     * 检查字节数组是否以表中的某个签名开始
+     * 
+     * @param bytes 要检查的字节数组
+     * @param length 有效长度
+     * @return 如果匹配返回 true
+     */
+    public boolean matches(byte[] bytes, int length) {
+        if (bytes == null || length < minLength) {
+            return false;
+        }
+        byte[][] candidates = table[bytes[0] & 0xFF];
+        if (candidates == null) {
+            return false;
+        }
+        for (byte[] signature : candidates) {
+            if (length >= signature.length && matchesFrom(bytes, signature)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * 检查正文视图是否以表中的某个签名开始（逐字节读取，不复制正文）
+     * 
+     * @param body 正文视图
+     * @return 如果匹配返回 true
+     */
+    public boolean matches(HttpBodyView body) {
+        int length = body.length();
+        if (length < minLength) {
+            return false;
+        }
+        byte[][] candidates = table[body.getByte(0) & 0xFF];
+        if (candidates == null) {
+            return false;
+        }
+        for (byte[] signature : candidates) {
+            if (length >= signature.length) {
+                boolean matches = true;
+                for (int i = 1; i < signature.length; i++) {
+                    if (body.getByte(i) != signature[i]) {
+                        matches = false;
+                        break;
+                    }
+                }
+                if (matches) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+    
+    private static boolean matchesFrom(byte[] bytes, byte[] signature) {
+        // 首字节已由分派表保证相等
+        for (int i = 1; i < signature.length; i++) {
+            if (bytes[i] != signature[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2024. All rights reserved.
+ */
+
+package oxff.org.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 有界的临时缓冲区池
+ * 
+ * 清理器在输出结果之前需要一个与正文等长的临时缓冲区。Intruder 等场景下每秒处理数千条消息，
+ * 每次新建大数组会产生大量短命的大对象（在 G1 中可能直接分配为 humongous 对象）。
+ * 这里按 2 的幂划分大小等级，临时缓冲区用完后归还复用，只有最终结果按实际长度分配。
+ * 
+ * - 按线程分条（stripe），每个分条每个大小等级保留一个缓冲区，借出和归还都是无锁的单次 CAS
+ * - 所有分条保留的总字节数不超过上限，超出时归还的缓冲区直接丢弃
+ * - 小于最小等级的请求按最小等级分配；超过最大等级的请求直接分配，不进入池
+ * 
+ * 借出的缓冲区内容是任意的，调用方只能读取自己写入的部分；归还后不能再使用。
+ */
+public final class BufferPool {
+    
+    // 最小等级：4 KB
+    private static final int MIN_SHIFT = 12;
+    
+    // 最大等级：16 MB
+    private static final int MAX_SHIFT = 24;
+    
+    private static final int CLASS_COUNT = MAX_SHIFT - MIN_SHIFT + 1;
+    
+    // 进入池的最大缓冲区大小（字节）
+    public static final int MAX_POOLED_SIZE = 1 << MAX_SHIFT;
+    
+    // 默认保留的总字节数上限
+    public static final long DEFAULT_MAX_RETAINED = 32L * 1024 * 1024;
+    
+    private static final BufferPool SHARED = new BufferPool(DEFAULT_MAX_RETAINED);
+    
+    private final AtomicReferenceArray<byte[]>[] stripes;
+    private final int stripeMask;
+    private final long maxRetained;
+    private final AtomicLong retained = new AtomicLong();
+    
+    /**
+     * 创建缓冲区池
+     * 
+     * @param maxRetained 保留的总字节数上限，0 表示不保留任何缓冲区
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public BufferPool(long maxRetained) {
+        int processors = Math.max(2, Runtime.getRuntime().availableProcessors());
+        // 分条数取不小于 CPU 数的 2 的幂
+        int stripeCount = 1 << (32 - Integer.numberOfLeadingZeros(processors - 1));
+        this.stripes = new AtomicReferenceArray[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new AtomicReferenceArray<>(CLASS_COUNT);
+        }
+        this.stripeMask = stripeCount - 1;
+        this.maxRetained = Math.max(0, maxRetained);
+    }
+    
+    /**
+     * 获取插件共享的缓冲区池
+     */
+    public static BufferPool shared() {
+        return SHARED;
+    }
+    
+    /**
+     * 借出一个长度至少为 minLength 的缓冲区
+     * 
+     * @param minLength 需要的最小长度
+     * @return 缓冲区，长度可能大于 minLength
+     */
+    public byte[] acquire(int minLength) {
+        if (minLength > MAX_POOLED_SIZE) {
+            return new byte[minLength];
+        }
+        int sizeClass = sizeClassOf(minLength);
+        byte[] buffer = stripe().getAndSet(sizeClass, null);
+        if (buffer != null) {
+            retained.addAndGet(-buffer.length);
+            return buffer;
+        }
+        return new byte[1 << (sizeClass + MIN_SHIFT)];
+    }
+    
+    /**
+     * 归还缓冲区
+     * 
+     * 不是由本池分配的大小（不是等级大小）、槽位已被占用或超过保留上限时直接丢弃。
+     * 
+     * @param buffer 借出的缓冲区，可以为null
+     */
+    public void release(byte[] buffer) {
+        if (buffer == null) {
+            return;
+        }
+        int length = buffer.length;
+        if (length > MAX_POOLED_SIZE || length < (1 << MIN_SHIFT) || Integer.bitCount(length) != 1) {
+            return;
+        }
+        if (retained.addAndGet(length) > maxRetained) {
+            retained.addAndGet(-length);
+            return;
+        }
+        if (!stripe().compareAndSet(sizeClassOf(length), null, buffer)) {
+            retained.addAndGet(-length);
+        }
+    }
+    
+    /**
+     * 在保留前缀数据的前提下把缓冲区扩大到至少 minLength，旧缓冲区归还到池中
+     * 
+     * @param buffer 当前借出的缓冲区
+     * @param used 已写入的字节数
+     * @param minLength 需要的最小长度
+     * @return 足够大的缓冲区（可能就是传入的缓冲区）
+     */
+    public byte[] grow(byte[] buffer, int used, int minLength) {
+        if (minLength <= buffer.length) {
+            return buffer;
+        }
+        byte[] larger = acquire(Math.max(minLength, buffer.length + (buffer.length >>> 1)));
+        System.arraycopy(buffer, 0, larger, 0, used);
+        release(buffer);
+        return larger;
+    }
+    
+    /**
+     * 获取当前保留在池中的总字节数
+     */
+    public long getRetainedBytes() {
+        return retained.get();
+    }
+    
+    /**
+     * 获取保留的总字节数上限
+     */
+    public long getMaxRetainedBytes() {
+        return maxRetained;
+    }
+    
+    private AtomicReferenceArray<byte[]> stripe() {
+        return stripes[(int) Thread.currentThread().getId() & stripeMask];
+    }
+    
+    /**
+     * 计算能容纳 length 字节的最小等级
+     */
+    private static int sizeClassOf(int length) {
+        if (length <= 1 << MIN_SHIFT) {
+            return 0;
+        }
+        return 32 - Integer.numberOfLeadingZeros(length - 1) - MIN_SHIFT;
+    }
+}
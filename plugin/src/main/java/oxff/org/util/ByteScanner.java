@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) 2024. All rights reserved.
+ */
+
+package oxff.org.util;
+
+/**
+ * 字节扫描器
+ * 
+ * 封装内容检测和空行清理中逐字节查找的内层循环。
+ * 运行环境提供 jdk.incubator.vector 模块时使用 SIMD 实现，否则使用标量实现，
+ * 两种实现的结果完全一致。
+ */
+public interface ByteScanner {
+    
+    /**
+     * 查找第一个 NULL 字节
+     * 
+     * @param bytes 字节数组
+     * @param from 起始位置（包含）
+     * @param to 结束位置（不包含）
+     * @return 第一个 NULL 字节的位置，不存在时返回 -1
+     */
+    int indexOfNull(byte[] bytes, int from, int to);
+    
+    /**
+     * 查找第一个非空白字节（空白指空格、制表符、\r 和 \n）
+     * 
+     * @param bytes 字节数组
+     * @param from 起始位置（包含）
+     * @param to 结束位置（不包含）
+     * @return 第一个非空白字节的位置，不存在时返回 -1
+     */
+    int indexOfNonWhitespace(byte[] bytes, int from, int to);
+    
+    /**
+     * 获取实现名称，用于日志输出
+     */
+    String name();
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2024. All rights reserved.
+ */
+
+package oxff.org.util;
+
+/**
+ * 字节扫描器选择器
+ * 
+ * 类加载时检测一次运行环境：
+ * - JAR 以 -Pvector 构建（包含 VectorByteScanner）且 JVM 以 --add-modules jdk.incubator.vector 启动时使用 SIMD 实现
+ * - 模块不可用、JAR 中没有 Vector 实现、加载失败或设置了 -Doxff.scanner.scalar=true 时使用标量实现
+ */
+public final class ByteScanners {
+    
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+    private static final String VECTOR_SCANNER_CLASS = "oxff.org.util.VectorByteScanner";
+    private static final String FORCE_SCALAR_PROPERTY = "oxff.scanner.scalar";
+    
+    private static final ByteScanner INSTANCE = select();
+    
+    private ByteScanners() {
+    }
+    
+    /**
+     * 获取当前环境下可用的最快实现
+     * 
+     * @return 字节扫描器
+     */
+    public static ByteScanner get() {
+        return INSTANCE;
+    }
+    
+    /**
+     * 描述当前使用的实现，以及没有使用 SIMD 实现的原因，供加载日志输出
+     * 
+     * @return 实现名称和原因
+     */
+    public static String describe() {
+        String name = INSTANCE.name();
+        if (INSTANCE != ScalarByteScanner.INSTANCE) {
+            return name;
+        }
+        if (Boolean.getBoolean(FORCE_SCALAR_PROPERTY)) {
+            return name + "（已通过 -D" + FORCE_SCALAR_PROPERTY + "=true 指定）";
+        }
+        if (ModuleLayer.boot().findModule(VECTOR_MODULE).isEmpty()) {
+            return name + "（JVM 未加入 --add-modules " + VECTOR_MODULE + "）";
+        }
+        return name + "（未能加载 Vector 实现，JAR 需要使用 mvn -Pvector package 构建）";
+    }
+    
+    /**
+     * 获取标量实现
+     * 
+     * @return 标量字节扫描器
+     */
+    public static ByteScanner scalar() {
+        return ScalarByteScanner.INSTANCE;
+    }
+    
+    private static ByteScanner select() {
+        if (Boolean.getBoolean(FORCE_SCALAR_PROPERTY)) {
+            return ScalarByteScanner.INSTANCE;
+        }
+        if (ModuleLayer.boot().findModule(VECTOR_MODULE).isEmpty()) {
+            return ScalarByteScanner.INSTANCE;
+        }
+        try {
+            return (ByteScanner) Class.forName(VECTOR_SCANNER_CLASS)
+                .getDeclaredConstructor()
+                .newInstance();
+        } catch (Throwable e) {
+            // JAR 中没有 Vector 实现，或模块存在但无法使用（例如被安全策略限制），回退到标量实现
+            return ScalarByteScanner.INSTANCE;
+        }
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2024. All rights reserved.
+ */
+
+package oxff.org.util;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 分块传输编码（Transfer-Encoding: chunked）正文的清理器
+ * 
+ * 分块正文的开头是第一个分块的大小行，真正的内容在分块数据中。
+ * 该清理器顺序读取分块头部，不解码、不复制正文：
+ * - 只包含空行的数据分块整个去掉，继续检查下一个分块
+ * - 第一个包含内容的分块去掉开头空行，并改写该分块的大小（改写后的大小行不保留分块扩展）
+ * - 之后的分块、结束分块和尾部字段原样保留
+ * 
+ * 清理结果打包为一个 long（低 32 位为保留内容的起始位置，高 32 位为改写后的分块大小），
+ * 新正文 = 改写后的分块大小行 + 原正文从起始位置开始的部分。
+ * 分块格式无效、正文被截断或所有分块都只包含空行时不做任何修改。
+ */
+public class ChunkedBodyCleaner {
+    
+    // 无需修改
+    public static final long NO_CHANGE = -1L;
+    
+    // 分块大小最多 7 个十六进制数字（256 MB），超出时视为无效格式
+    private static final int MAX_SIZE_DIGITS = 7;
+    
+    private final HttpMessageCleaner messageCleaner = new HttpMessageCleaner();
+    
+    /**
+     * 计算分块正文的清理方案
+     * 
+     * @param body 正文视图（可以是完整报文的视图）
+     * @param from 分块正文的起始位置
+     * @param to 分块正文的结束位置（不包含）
+     * @return 打包的清理方案，无需修改时返回 NO_CHANGE
+     */
+    public long plan(HttpBodyView body, int from, int to) {
+        int position = from;
+        while (position < to) {
+            // 1. 读取分块大小行
+            long header = readChunkHeader(body, position, to);
+            if (header == NO_CHANGE) {
+                return NO_CHANGE;
+            }
+            int dataStart = cutOffset(header);
+            int size = chunkSize(header);
+            
+            if (size == 0) {
+                // 结束分块：之前的分块都只包含空行
+                return NO_CHANGE;
+            }
+            int dataEnd = dataStart + size;
+            if (dataEnd > to) {
+                return NO_CHANGE; // 正文被截断
+            }
+            
+            // 2. 在分块数据中定位开头空行之后的内容
+            int start = messageCleaner.findContentStart(body, dataStart, dataEnd);
+            if (start < dataEnd) {
+                if (start == dataStart && position == from) {
+                    return NO_CHANGE;
+                }
+                return pack(start, dataEnd - start);
+            }
+            
+            // 3. 整个分块只包含空行，跳过分块数据后的换行符，继续检查下一个分块
+            position = skipLineBreak(body, dataEnd, to);
+            if (position < 0) {
+                return NO_CHANGE;
+            }
+        }
+        return NO_CHANGE;
+    }
+    
+    /**
+     * 定位第一个分块的数据
+     * 
+     * 供内容检测使用：分块正文开头是分块大小行（如 1a3f\r\n），魔数和编码检测需要从分块数据开始。
+     * 
+     * @param body 正文视图
+     * @param from 分块正文的起始位置
+     * @param to 分块正文的结束位置（不包含）
+     * @return 打包的位置（低 32 位为数据起始位置，高 32 位为数据长度，超出正文的部分已截去），
+     *         格式无效时返回 NO_CHANGE
+     */
+    public long firstChunk(HttpBodyView body, int from, int to) {
+        long header = readChunkHeader(body, from, to);
+        if (header == NO_CHANGE) {
+            return NO_CHANGE;
+        }
+        int dataStart = cutOffset(header);
+        return pack(dataStart, Math.min(chunkSize(header), to - dataStart));
+    }
+    
+    /**
+     * 获取保留内容的起始位置
+     */
+    public static int cutOffset(long plan) {
+        return (int) plan;
+    }
+    
+    /**
+     * 获取改写后的分块大小
+     */
+    public static int chunkSize(long plan) {
+        return (int) (plan >>> 32);
+    }
+    
+    /**
+     * 生成改写后的分块大小行（十六进制大小 + \r\n）
+     */
+    public static byte[] chunkHeader(long plan) {
+        return (Integer.toHexString(chunkSize(plan)) + "\r\n").getBytes(StandardCharsets.US_ASCII);
+    }
+    
+    private static long pack(int cutOffset, int chunkSize) {
+        return ((long) chunkSize << 32) | (cutOffset & 0xFFFFFFFFL);
+    }
+    
+    /**
+     * 读取一个分块大小行（大小 + 可选的分块扩展 + 换行符）
+     * 
+     * @return 打包的位置（低 32 位为数据起始位置，高 32 位为分块大小），格式无效时返回 NO_CHANGE
+     */
+    private static long readChunkHeader(HttpBodyView body, int position, int to) {
+        int size = 0;
+        int digits = 0;
+        int i = position;
+        while (i < to && digits <= MAX_SIZE_DIGITS) {
+            int value = Character.digit(body.getByte(i), 16);
+            if (value < 0) {
+                break;
+            }
+            size = (size << 4) | value;
+            digits++;
+            i++;
+        }
+        if (digits == 0 || digits > MAX_SIZE_DIGITS) {
+            return NO_CHANGE;
+        }
+        // 跳过分块扩展，直到行尾
+        while (i < to && body.getByte(i) != '\n') {
+            i++;
+        }
+        if (i >= to) {
+            return NO_CHANGE;
+        }
+        return pack(i + 1, size);
+    }
+    
+    /**
+     * 跳过分块数据之后的 \r\n 或 \n
+     * 
+     * @return 下一个分块的起始位置，格式无效时返回 -1
+     */
+    private static int skipLineBreak(HttpBodyView body, int position, int to) {
+        if (position < to && body.getByte(position) == '\r') {
+            position++;
+        }
+        if (position < to && body.getByte(position) == '\n') {
+            return position + 1;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,254 @@
+/*
+ * Copyright (c) 2024. All rights reserved.
+ */
+
+package oxff.org.util;
+
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * gzip / deflate 正文的解压与压缩
+ * 
+ * Inflater 和 Deflater 持有本地内存，每条消息新建的开销较大，这里按类型放入有界池中复用：
+ * 借出时从池中取，用完 reset() 后归还，池满时直接释放（end()）。
+ * 
+ * 解压和压缩的输出缓冲区从 BufferPool 借用并按需增长，只有最终结果按实际长度分配；
+ * 解压超过上限时立即放弃，单条消息的内存占用不超过上限。
+ * gzip 的头部和尾部（CRC32、长度）由本类直接读写，以便复用不带包装的 Inflater/Deflater。
+ * 格式无效、数据被截断或包含多个 gzip 成员时返回 null，调用方应保持原消息不变。
+ */
+public class CompressionCodec {
+    
+    // 每种类型最多保留的实例数
+    private static final int POOL_SIZE = 8;
+    
+    // gzip 头部标记位
+    private static final int FHCRC = 0x02;
+    private static final int FEXTRA = 0x04;
+    private static final int FNAME = 0x08;
+    private static final int FCOMMENT = 0x10;
+    
+    private static final byte[] GZIP_HEADER = {0x1F, (byte) 0x8B, 8, 0, 0, 0, 0, 0, 0, (byte) 0xFF};
+    
+    // nowrap=true 用于 gzip 和不带 zlib 包装的 deflate，nowrap=false 用于 zlib 格式的 deflate
+    private final BlockingQueue<Inflater> rawInflaters = new ArrayBlockingQueue<>(POOL_SIZE);
+    private final BlockingQueue<Inflater> zlibInflaters = new ArrayBlockingQueue<>(POOL_SIZE);
+    private final BlockingQueue<Deflater> rawDeflaters = new ArrayBlockingQueue<>(POOL_SIZE);
+    private final BlockingQueue<Deflater> zlibDeflaters = new ArrayBlockingQueue<>(POOL_SIZE);
+    
+    private final BufferPool bufferPool = BufferPool.shared();
+    
+    /**
+     * 解压正文
+     * 
+     * @param data 压缩后的正文
+     * @param coding 内容编码（GZIP 或 DEFLATE）
+     * @param maxSize 解压后的大小上限（字节）
+     * @return 解压后的正文，超过上限或格式无效时返回 null
+     */
+    public byte[] decode(byte[] data, ContentCoding coding, int maxSize) {
+        try {
+            switch (coding) {
+                case GZIP:
+                    return decodeGzip(data, maxSize);
+                case DEFLATE:
+                    // HTTP 规定 deflate 为 zlib 格式，但部分服务器直接发送不带包装的 deflate 数据
+                    byte[] result = inflate(zlibInflaters, false, data, 0, data.length, maxSize, 0);
+                    return result != null ? result : inflate(rawInflaters, true, data, 0, data.length, maxSize, 0);
+                default:
+                    return null;
+            }
+        } catch (DataFormatException e) {
+            return null;
+        }
+    }
+    
+    /**
+     * 压缩正文
+     * 
+     * @param data 原始正文
+     * @param coding 内容编码（GZIP 或 DEFLATE）
+     * @return 压缩后的正文
+     */
+    public byte[] encode(byte[] data, ContentCoding coding) {
+        switch (coding) {
+            case GZIP:
+                return encodeGzip(data);
+            case DEFLATE:
+                return deflate(zlibDeflaters, false, data, 0, 0);
+            default:
+                throw new IllegalArgumentException("不支持的内容编码: " + coding);
+        }
+    }
+    
+    private byte[] decodeGzip(byte[] data, int maxSize) throws DataFormatException {
+        int offset = skipGzipHeader(data);
+        if (offset < 0) {
+            return null;
+        }
+        // 尾部为 CRC32 和原始长度（各 4 字节，小端序），之后不允许再有其他成员
+        byte[] result = inflate(rawInflaters, true, data, offset, data.length - offset, maxSize, 8);
+        if (result == null) {
+            return null;
+        }
+        int trailer = data.length - 8;
+        CRC32 crc = new CRC32();
+        crc.update(result, 0, result.length);
+        if (readIntLE(data, trailer) != (int) crc.getValue() || readIntLE(data, trailer + 4) != result.length) {
+            return null;
+        }
+        return result;
+    }
+    
+    private byte[] encodeGzip(byte[] data) {
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, data.length);
+        byte[] result = deflate(rawDeflaters, true, data, GZIP_HEADER.length, 8);
+        System.arraycopy(GZIP_HEADER, 0, result, 0, GZIP_HEADER.length);
+        writeIntLE(result, result.length - 8, (int) crc.getValue());
+        writeIntLE(result, result.length - 4, data.length);
+        return result;
+    }
+    
+    /**
+     * 使用池中的 Inflater 解压
+     * 
+     * @param trailerLength 压缩数据之后必须剩余的字节数（gzip 尾部为 8，其他为 0）
+     * @return 解压结果，超过上限、数据不完整或剩余字节数不符时返回 null
+     */
+    private byte[] inflate(BlockingQueue<Inflater> pool, boolean nowrap, byte[] data, int offset, int length,
+                           int maxSize, int trailerLength) throws DataFormatException {
+        Inflater inflater = pool.poll();
+        if (inflater == null) {
+            inflater = new Inflater(nowrap);
+        }
+        byte[] out = null;
+        try {
+            inflater.setInput(data, offset, length);
+            // 多解压 1 个字节，用于判断是否超过上限
+            int limit = maxSize + 1;
+            out = bufferPool.acquire((int) Math.min(limit, Math.max(1024L, (long) length * 4)));
+            int count = 0;
+            while (!inflater.finished()) {
+                int capacity = Math.min(out.length, limit);
+                if (count == capacity) {
+                    if (capacity >= limit) {
+                        return null; // 超过上限
+                    }
+                    out = bufferPool.grow(out, count, (int) Math.min(limit, (long) capacity * 2));
+                    capacity = Math.min(out.length, limit);
+                }
+                int n = inflater.inflate(out, count, capacity - count);
+                if (n == 0 && !inflater.finished() && (inflater.needsInput() || inflater.needsDictionary())) {
+                    return null; // 数据被截断
+                }
+                count += n;
+            }
+            if (count > maxSize || inflater.getRemaining() != trailerLength) {
+                return null;
+            }
+            return Arrays.copyOf(out, count);
+        } catch (DataFormatException e) {
+            if (!nowrap) {
+                return null; // 由调用方改用不带包装的格式重试
+            }
+            throw e;
+        } finally {
+            bufferPool.release(out);
+            inflater.reset();
+            if (!pool.offer(inflater)) {
+                inflater.end();
+            }
+        }
+    }
+    
+    /**
+     * 使用池中的 Deflater 压缩
+     * 
+     * @param headerLength 结果开头预留的字节数
+     * @param trailerLength 结果末尾预留的字节数
+     */
+    private byte[] deflate(BlockingQueue<Deflater> pool, boolean nowrap, byte[] data, int headerLength, int trailerLength) {
+        Deflater deflater = pool.poll();
+        if (deflater == null) {
+            deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, nowrap);
+        }
+        byte[] out = null;
+        try {
+            deflater.setInput(data);
+            deflater.finish();
+            out = bufferPool.acquire(headerLength + data.length / 2 + 64);
+            int count = headerLength;
+            while (!deflater.finished()) {
+                if (count == out.length) {
+                    out = bufferPool.grow(out, count, out.length * 2);
+                }
+                count += deflater.deflate(out, count, out.length - count);
+            }
+            // 结果的头部和尾部由调用方写入
+            return Arrays.copyOf(out, count + trailerLength);
+        } finally {
+            bufferPool.release(out);
+            deflater.reset();
+            if (!pool.offer(deflater)) {
+                deflater.end();
+            }
+        }
+    }
+    
+    /**
+     * 跳过 gzip 头部
+     * 
+     * @return 压缩数据的起始位置，格式无效时返回 -1
+     */
+    private static int skipGzipHeader(byte[] data) {
+        if (data.length < 18 || data[0] != 0x1F || data[1] != (byte) 0x8B || data[2] != 8) {
+            return -1;
+        }
+        int flags = data[3] & 0xFF;
+        int offset = 10;
+        if ((flags & FEXTRA) != 0) {
+            if (offset + 2 > data.length) {
+                return -1;
+            }
+            offset += 2 + ((data[offset] & 0xFF) | (data[offset + 1] & 0xFF) << 8);
+        }
+        if ((flags & FNAME) != 0) {
+            offset = skipZeroTerminated(data, offset);
+        }
+        if ((flags & FCOMMENT) != 0 && offset >= 0) {
+            offset = skipZeroTerminated(data, offset);
+        }
+        if ((flags & FHCRC) != 0 && offset >= 0) {
+            offset += 2;
+        }
+        return offset >= 0 && offset + 8 <= data.length ? offset : -1;
+    }
+    
+    private static int skipZeroTerminated(byte[] data, int offset) {
+        while (offset < data.length) {
+            if (data[offset++] == 0) {
+                return offset;
+            }
+        }
+        return -1;
+    }
+    
+    private static int readIntLE(byte[] data, int offset) {
+        return (data[offset] & 0xFF) | (data[offset + 1] & 0xFF) << 8
+            | (data[offset + 2] & 0xFF) << 16 | (data[offset + 3] & 0xFF) << 24;
+    }
+    
+    private static void writeIntLE(byte[] data, int offset, int value) {
+        data[offset] = (byte) value;
+        data[offset + 1] = (byte) (value >>> 8);
+        data[offset + 2] = (byte) (value >>> 16);
+        data[offset + 3] = (byte) (value >>> 24);
+    }
+}
@@ -0,0 +1,406 @@
+/*
+ * Copyright (c) 2024. All rights reserved.
+ */
+
+package oxff.org.util;
+
+import burp.api.montoya.http.message.HttpHeader;
+import burp.api.montoya.http.message.HttpMessage;
+import burp.api.montoya.http.message.requests.HttpRequest;
+import burp.api.montoya.http.message.responses.HttpResponse;
+import oxff.org.config.ConfigSnapshot;
+import oxff.org.config.PluginConfig;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 内容分析器
+ * 
+ * 负责分析 HTTP 消息内容的类型，判断是否为二进制内容
+ * 
+ * 主要功能：
+ * - 优先检查HTTP头部的Content-Type信息（解析结果按媒体类型缓存）
+ * - 检测二进制内容
+ * - 判断是否可以安全地作为文本处理
+ * - 正确处理UTF-8编码的字符
+ * - 无Content-Type时只采样正文开头（及可选的结尾）窗口，检测开销与正文大小无关
+ */
+public class ContentAnalyzer {
+    
+    // 提供检测设置的配置管理器，为null时使用默认配置
+    private final PluginConfig config;
+    
+    /**
+     * 使用默认检测窗口的构造函数
+     */
+    public ContentAnalyzer() {
+        this(null);
+    }
+    
+    /**
+     * 构造函数
+     * 
+     * @param config 插件配置管理器，检测窗口大小从中读取
+     */
+    public ContentAnalyzer(PluginConfig config) {
+        this.config = config;
+    }
+    
+    /**
+     * 检查HTTP请求内容是否包含文本（优先检查Content-Type）
+     * 
+     * @param request HTTP请求对象
+     * @return 如果包含文本内容返回 true
+     */
+    public boolean containsTextContent(HttpRequest request) {
+        return containsTextContent(request, HttpBodyView.of(request));
+    }
+    
+    /**
+     * 检查HTTP请求内容是否包含文本（优先检查Content-Type，复用已有的正文视图）
+     * 
+     * @param request HTTP请求对象
+     * @param body 该请求的正文视图
+     * @return 如果包含文本内容返回 true
+     */
+    public boolean containsTextContent(HttpRequest request, HttpBodyView body) {
+        // 1. 首先检查Content-Type头部
+        ConfigSnapshot snapshot = currentSnapshot();
+        Boolean declared = classifyContentType(snapshot, getContentType(request.headers()));
+        if (declared != null) {
+            return declared;
+        }
+        
+        // 2. 如果Content-Type无法确定，则检查请求体内容
+        // 3. 没有请求体的情况下，认为是文本（大多数GET请求）
+        return containsTextContent(body, snapshot);
+    }
+    
+    /**
+     * 检查HTTP响应内容是否包含文本（优先检查Content-Type）
+     * 
+     * @param response HTTP响应对象
+     * @return 如果包含文本内容返回 true
+     */
+    public boolean containsTextContent(HttpResponse response) {
+        return containsTextContent(response, HttpBodyView.of(response));
+    }
+    
+    /**
+     * 检查HTTP响应内容是否包含文本（优先检查Content-Type，复用已有的正文视图）
+     * 
+     * @param response HTTP响应对象
+     * @param body 该响应的正文视图
+     * @return 如果包含文本内容返回 true
+     */
+    public boolean containsTextContent(HttpResponse response, HttpBodyView body) {
+        // 1. 首先检查Content-Type头部
+        ConfigSnapshot snapshot = currentSnapshot();
+        Boolean declared = classifyContentType(snapshot, getContentType(response.headers()));
+        if (declared != null) {
+            return declared;
+        }
+        
+        // 2. 如果Content-Type无法确定，则检查响应体内容
+        // 3. 没有响应体的情况下，认为是文本
+        return containsTextContent(body, snapshot);
+    }
+    
+    /**
+     * 检查正文视图是否包含文本（仅当无法从HTTP头部确定时使用）
+     * 
+     * 魔数检查直接读取 ByteArray，只有需要逐字节扫描时才复制一次正文，
+     * 复制结果缓存在视图中供后续的清理环节复用。
+     * 
+     * @param body 正文视图
+     * @return 如果包含文本内容返回 true
+     */
+    public boolean containsTextContent(HttpBodyView body) {
+        return containsTextContent(body, currentSnapshot());
+    }
+    
+    /**
+     * 按指定的配置快照检查正文视图是否包含文本
+     * 
+     * @param body 正文视图
+     * @param snapshot 本条消息使用的配置快照
+     * @return 如果包含文本内容返回 true
+     */
+    public boolean containsTextContent(HttpBodyView body, ConfigSnapshot snapshot) {
+        if (body.length() == 0) {
+            return true; // 空内容视为文本
+        }
+        
+        if (snapshot.getBinarySignatureTable().matches(body)) {
+            return false;
+        }
+        
+        int length = body.length();
+        int window = snapshot.sniffWindowFor(length);
+        int tail = snapshot.getSniffTailSize();
+        if (window == 0 || length <= window + tail) {
+            // 未启用窗口或正文本身不大，检查整个正文
+            byte[] bytes = body.bytes();
+            return isTextSample(bytes, 0, bytes.length, false);
+        }
+        
+        // 只复制并检查开头窗口，窗口末尾被截断的多字节字符不视为错误
+        byte[] head = body.head(window);
+        if (!isTextSample(head, 0, window, true)) {
+            return false;
+        }
+        
+        if (tail > 0) {
+            byte[] tailBytes = body.tail(tail);
+            return isTextSample(tailBytes, skipContinuationBytes(tailBytes, 0, tailBytes.length), tailBytes.length, false);
+        }
+        return true;
+    }
+    
+    /**
+     * 检查字节数组内容是否包含文本（仅当无法从HTTP头部确定时使用）
+     * 
+     * @param bytes 要检查的字节数组
+     * @return 如果包含文本内容返回 true
+     */
+    public boolean containsTextContent(byte[] bytes) {
+        if (bytes == null || bytes.length == 0) {
+            return true; // 空内容视为文本
+        }
+        
+        // 检查是否为已知的二进制格式
+        ConfigSnapshot snapshot = currentSnapshot();
+        if (snapshot.getBinarySignatureTable().matches(bytes, bytes.length)) {
+            return false;
+        }
+        
+        int window = snapshot.sniffWindowFor(bytes.length);
+        int tail = snapshot.getSniffTailSize();
+        if (window == 0 || bytes.length <= window + tail) {
+            return isTextSample(bytes, 0, bytes.length, false);
+        }
+        
+        // 只检查开头窗口和可选的结尾采样，不复制数组
+        if (!isTextSample(bytes, 0, window, true)) {
+            return false;
+        }
+        if (tail > 0) {
+            int tailStart = bytes.length - tail;
+            return isTextSample(bytes, skipContinuationBytes(bytes, tailStart, bytes.length), bytes.length, false);
+        }
+        return true;
+    }
+    
+    /**
+     * 检查字节数组中的一段采样是否为文本
+     * 
+     * @param bytes 字节数组
+     * @param from 起始位置（包含）
+     * @param to 结束位置（不包含）
+     * @param truncated 采样是否在正文中间被截断，截断时末尾不完整的多字节字符不计为错误
+     * @return 如果采样是文本返回 true
+     */
+    private boolean isTextSample(byte[] bytes, int from, int to, boolean truncated) {
+        // 检查是否包含NULL字节（强烈暗示二进制内容）
+        if (containsNullBytes(bytes, from, to)) {
+            return false;
+        }
+        
+        // 检查是否为有效的UTF-8文本
+        if (truncated) {
+            to = trimIncompleteSequence(bytes, from, to);
+        }
+        return isValidUTF8Text(bytes, from, to);
+    }
+    
+    /**
+     * 跳过采样开头的UTF-8续字节（从正文中间截取的结尾采样可能从多字节字符中间开始）
+     * 
+     * @return 第一个非续字节的位置
+     */
+    private int skipContinuationBytes(byte[] bytes, int from, int to) {
+        int limit = Math.min(to, from + 3);
+        while (from < limit && (bytes[from] & 0xC0) == 0x80) {
+            from++;
+        }
+        return from;
+    }
+    
+    /**
+     * 去掉采样末尾不完整的UTF-8多字节字符
+     * 
+     * @return 去掉不完整字符后的结束位置
+     */
+    private int trimIncompleteSequence(byte[] bytes, int from, int to) {
+        // 向前最多查找3个字节，找到多字节字符的起始字节
+        for (int i = to - 1; i >= from && i >= to - 3; i--) {
+            int b = bytes[i] & 0xFF;
+            if (b < 0x80) {
+                return to;
+            }
+            if (b >= 0xC0) {
+                int expected = b >= 0xF0 ? 4 : b >= 0xE0 ? 3 : 2;
+                return to - i < expected ? i : to;
+            }
+        }
+        return to;
+    }
+    
+    /**
+     * 获取当前的配置快照，未提供配置管理器时使用默认配置
+     */
+    private ConfigSnapshot currentSnapshot() {
+        return config != null ? config.getSnapshot() : ConfigSnapshot.defaults();
+    }
+    
+    /**
+     * 检查是否可以安全地作为文本处理
+     * 
+     * @param request HTTP请求对象
+     * @return 如果可以安全处理返回 true
+     */
+    public boolean isSafeToProcessAsText(HttpRequest request) {
+        return containsTextContent(request);
+    }
+    
+    /**
+     * 检查是否可以安全地作为文本处理  
+     * 
+     * @param response HTTP响应对象
+     * @return 如果可以安全处理返回 true
+     */
+    public boolean isSafeToProcessAsText(HttpResponse response) {
+        return containsTextContent(response);
+    }
+    
+    /**
+     * 检查字节数组是否可以安全地作为文本处理
+     * 
+     * @param bytes 要检查的字节数组
+     * @return 如果可以安全处理返回 true
+     */
+    public boolean isSafeToProcessAsText(byte[] bytes) {
+        return containsTextContent(bytes);
+    }
+    
+    /**
+     * 从HTTP头部列表中获取Content-Type值
+     * 
+     * @param headers HTTP头部列表
+     * @return Content-Type值，如果不存在返回null
+     */
+    private String getContentType(List<HttpHeader> headers) {
+        for (HttpHeader header : headers) {
+            if ("content-type".equalsIgnoreCase(header.name())) {
+                return header.value();
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * 检查消息是否使用分块传输编码（Transfer-Encoding 包含 chunked）
+     * 
+     * @param message HTTP请求或响应
+     * @return 如果正文为分块编码返回 true
+     */
+    public boolean isChunked(HttpMessage message) {
+        for (HttpHeader header : message.headers()) {
+            if ("transfer-encoding".equalsIgnoreCase(header.name())
+                    && header.value().toLowerCase(Locale.ROOT).contains("chunked")) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * 获取消息正文的内容编码（Content-Encoding）
+     * 
+     * @param message HTTP请求或响应
+     * @return 内容编码，没有 Content-Encoding 头部时为 IDENTITY
+     */
+    public ContentCoding getContentCoding(HttpMessage message) {
+        for (HttpHeader header : message.headers()) {
+            if ("content-encoding".equalsIgnoreCase(header.name())) {
+                return ContentCoding.parse(header.value());
+            }
+        }
+        return ContentCoding.IDENTITY;
+    }
+    
+    /**
+     * 仅根据HTTP头部的Content-Type对消息分类，不检查正文
+     * 
+     * @param message HTTP请求或响应
+     * @return 分类结果，没有Content-Type或无法识别时为 UNKNOWN
+     */
+    public MediaTypeClassifier.Category classifyContentType(HttpMessage message) {
+        return classifyContentType(message, currentSnapshot());
+    }
+    
+    /**
+     * 按指定的配置快照，仅根据HTTP头部的Content-Type对消息分类
+     * 
+     * @param message HTTP请求或响应
+     * @param snapshot 本条消息使用的配置快照
+     * @return 分类结果，没有Content-Type或无法识别时为 UNKNOWN
+     */
+    public MediaTypeClassifier.Category classifyContentType(HttpMessage message, ConfigSnapshot snapshot) {
+        return snapshot.getMediaTypeClassifier().classify(getContentType(message.headers()));
+    }
+    
+    /**
+     * 根据Content-Type判断内容类型
+     * 
+     * @param snapshot 配置快照
+     * @param contentType Content-Type头部值，可以为null
+     * @return 文本返回 true，二进制返回 false，无法确定返回 null
+     */
+    private Boolean classifyContentType(ConfigSnapshot snapshot, String contentType) {
+        switch (snapshot.getMediaTypeClassifier().classify(contentType)) {
+            case TEXT:
+                return Boolean.TRUE;
+            case BINARY:
+                return Boolean.FALSE;
+            default:
+                return null;
+        }
+    }
+    
+    /**
+     * 检查字节数组是否包含NULL字节
+     * 
+     * @param bytes 要检查的字节数组
+     * @param from 起始位置（包含）
+     * @param to 结束位置（不包含）
+     * @return 如果包含NULL字节返回 true
+     */
+    private boolean containsNullBytes(byte[] bytes, int from, int to) {
+        return ByteScanners.get().indexOfNull(bytes, from, to) >= 0;
+    }
+    
+    /**
+     * 检查字节数组是否为有效的UTF-8文本
+     * 
+     * @param bytes 要检查的字节数组
+     * @param from 起始位置（包含）
+     * @param to 结束位置（不包含）
+     * @return 如果是有效的UTF-8文本返回 true
+     */
+    private boolean isValidUTF8Text(byte[] bytes, int from, int to) {
+        // 单遍状态机校验，不解码、不分配内存，错误过多时提前结束
+        return Utf8Validator.isValidText(bytes, from, to);
+    }
+    
+    /**
+     * 检查内容是否主要是文本
+     * 
+     * @param bytes 要检查的字节数组
+     * @return 如果主要是文本返回 true
+     */
+    public boolean isPrimarilyText(byte[] bytes) {
+        return containsTextContent(bytes);
+    }
+} 
\ No newline at end of file
@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2024. All rights reserved.
+ */
+
+package oxff.org.util;
+
+import java.util.Locale;
+
+/**
+ * 正文的内容编码（Content-Encoding）
+ */
+public enum ContentCoding {
+    IDENTITY("未编码"),
+    GZIP("gzip"),
+    DEFLATE("deflate"),
+    UNSUPPORTED("不支持的编码");
+    
+    private final String displayName;
+    
+    ContentCoding(String displayName) {
+        this.displayName = displayName;
+    }
+    
+    /**
+     * 获取显示名称
+     */
+    public String getDisplayName() {
+        return displayName;
+    }
+    
+    /**
+     * 是否可以解压后清理
+     */
+    public boolean isDecodable() {
+        return this == GZIP || this == DEFLATE;
+    }
+    
+    /**
+     * 解析 Content-Encoding 头部的值
+     * 
+     * 多重编码（例如 "gzip, br"）、brotli、zstd 等均视为不支持。
+     * 
+     * @param value 头部值，可以为null
+     * @return 内容编码
+     */
+    public static ContentCoding parse(String value) {
+        if (value == null) {
+            return IDENTITY;
+        }
+        String coding = value.trim().toLowerCase(Locale.ROOT);
+        switch (coding) {
+            case "":
+            case "identity":
+                return IDENTITY;
+            case "gzip":
+            case "x-gzip":
+                return GZIP;
+            case "deflate":
+                return DEFLATE;
+            default:
+                return UNSUPPORTED;
+        }
+    }
+}
@@ -0,0 +1,428 @@
+/*
+ * Copyright (c) 2024. All rights reserved.
+ */
+
+package oxff.org.util;
+
+import oxff.org.config.ConfigSnapshot;
+import oxff.org.config.PluginConfig;
+
+/**
+ * 融合的正文扫描引擎
+ * 
+ * 将原先分散在 ContentAnalyzer（魔数、NULL 字节、UTF-8 校验）和 HttpMessageCleaner（开头空行）
+ * 中的多次扫描合并为一次前向扫描，结果打包为一个 long：
+ * - 第 0-31 位：需要保留的内容起始偏移量（开头空行之后）
+ * - 第 32 位：是否判定为二进制
+ * - 第 33-34 位：检测到的换行符类型（第一个换行符）
+ * - 第 35 位：是否需要修改
+ * - 第 36 位：正文是否全部由空行组成
+ * 
+ * 使用打包的 long 作为结果，热路径上不产生任何结果对象。
+ */
+public final class FusedBodyScanner {
+    
+    public static final int LINE_ENDING_NONE = 0;
+    public static final int LINE_ENDING_LF = 1;
+    public static final int LINE_ENDING_CRLF = 2;
+    public static final int LINE_ENDING_CR = 3;
+    
+    private static final long OFFSET_MASK = 0xFFFFFFFFL;
+    private static final long BINARY_BIT = 1L << 32;
+    private static final int LINE_ENDING_SHIFT = 33;
+    private static final long MODIFIED_BIT = 1L << 35;
+    private static final long ALL_BLANK_BIT = 1L << 36;
+    
+    // 允许的最大UTF-8错误比例，与 Utf8Validator 一致
+    private static final double MAX_ERROR_RATIO = 0.1;
+    
+    private final PluginConfig config;
+    private final HttpMessageCleaner messageCleaner = new HttpMessageCleaner();
+    private final ChunkedBodyCleaner chunkedCleaner = new ChunkedBodyCleaner();
+    
+    /**
+     * 使用默认检测设置的构造函数
+     */
+    public FusedBodyScanner() {
+        this(null);
+    }
+    
+    /**
+     * 构造函数
+     * 
+     * @param config 插件配置管理器，检测窗口和魔数表从中读取
+     */
+    public FusedBodyScanner(PluginConfig config) {
+        this.config = config;
+    }
+    
+    /**
+     * 获取需要保留的内容起始偏移量
+     */
+    public static int trimOffset(long result) {
+        return (int) (result & OFFSET_MASK);
+    }
+    
+    /**
+     * 是否判定为二进制内容
+     */
+    public static boolean isBinary(long result) {
+        return (result & BINARY_BIT) != 0;
+    }
+    
+    /**
+     * 获取检测到的换行符类型
+     * 
+     * @return LINE_ENDING_* 常量之一
+     */
+    public static int lineEnding(long result) {
+        return (int) ((result >>> LINE_ENDING_SHIFT) & 0x3);
+    }
+    
+    /**
+     * 是否需要修改（文本内容且开头存在空行）
+     */
+    public static boolean isModified(long result) {
+        return (result & MODIFIED_BIT) != 0;
+    }
+    
+    /**
+     * 正文是否全部由空行组成
+     */
+    public static boolean isAllBlank(long result) {
+        return (result & ALL_BLANK_BIT) != 0;
+    }
+    
+    /**
+     * 扫描正文视图
+     * 
+     * 只读取检测窗口内的字节（未启用窗口或正文较小时读取整个正文；
+     * 正文超过完整分析上限时总是只读取开头窗口）。
+     * 开头空行超出窗口时，剩余的空行直接在正文视图上继续扫描，不复制正文。
+     * 不需要分类时只读取开头空行，直接在 ByteArray 上逐字节读取，不复制正文。
+     * 
+     * @param body 正文视图
+     * @param classify 是否需要判断文本/二进制（Content-Type 已确定为文本时传 false）
+     * @return 打包的扫描结果
+     */
+    public long scan(HttpBodyView body, boolean classify) {
+        return scan(body, classify, currentSnapshot());
+    }
+    
+    /**
+     * 按指定的配置快照扫描正文视图
+     * 
+     * @param body 正文视图
+     * @param classify 是否需要判断文本/二进制（Content-Type 已确定为文本时传 false）
+     * @param snapshot 本条消息使用的配置快照
+     * @return 打包的扫描结果
+     */
+    public long scan(HttpBodyView body, boolean classify, ConfigSnapshot snapshot) {
+        int length = body.length();
+        if (length == 0) {
+            return 0L;
+        }
+        if (!classify && !body.isMaterialized() && body.byteArray() != null) {
+            return scanLeading(body, length);
+        }
+        
+        int window = snapshot.sniffWindowFor(length);
+        int tail = snapshot.getSniffTailSize();
+        boolean sampled = window > 0 && length > window + tail;
+        byte[] bytes = sampled ? body.head(window) : body.bytes();
+        int sampleLength = sampled ? window : length;
+        
+        if (classify && snapshot.getBinarySignatureTable().matches(bytes, sampleLength)) {
+            return BINARY_BIT;
+        }
+        
+        long result = scan(bytes, sampleLength, length, classify);
+        if (isBinary(result)) {
+            return result;
+        }
+        
+        if (classify && sampled && tail > 0) {
+            byte[] tailBytes = body.tail(tail);
+            if (!isTextTail(tailBytes)) {
+                return BINARY_BIT;
+            }
+        }
+        
+        if (trimOffset(result) == sampleLength && !isAllBlank(result) && sampleLength < length) {
+            // 开头空行超出了窗口，从窗口末尾起在正文视图上补完（极少发生），正文由 byte[] 包装时同样适用
+            int start = messageCleaner.findContentStart(body, sampleLength, length);
+            return pack(start, false, lineEnding(result), start > 0, start >= length);
+        }
+        return result;
+    }
+    
+    /**
+     * 检测分块传输编码的正文
+     * 
+     * 分块正文以分块大小行开头，直接扫描会让魔数表和 UTF-8 检测落在分块框架上，
+     * 因此只检测第一个分块的数据（从第一个换行符之后开始，最多检测窗口大小）。
+     * 开头空行由 ChunkedBodyCleaner 按分块处理，这里的结果只用于判断文本/二进制。
+     * 分块格式无效时按普通正文扫描。
+     * 
+     * @param body 正文视图
+     * @param classify 是否需要判断文本/二进制（Content-Type 已确定为文本时传 false）
+     * @param snapshot 本条消息使用的配置快照
+     * @return 打包的扫描结果
+     */
+    public long scanChunked(HttpBodyView body, boolean classify, ConfigSnapshot snapshot) {
+        if (!classify) {
+            return 0L;
+        }
+        long chunk = chunkedCleaner.firstChunk(body, 0, body.length());
+        if (chunk == ChunkedBodyCleaner.NO_CHANGE) {
+            return scan(body, true, snapshot);
+        }
+        int dataStart = ChunkedBodyCleaner.cutOffset(chunk);
+        int size = ChunkedBodyCleaner.chunkSize(chunk);
+        int window = snapshot.sniffWindowFor(size);
+        int sampleLength = window > 0 ? Math.min(size, window) : size;
+        byte[] sample = body.range(dataStart, dataStart + sampleLength);
+        
+        if (snapshot.getBinarySignatureTable().matches(sample, sampleLength)) {
+            return BINARY_BIT;
+        }
+        // 第一个分块之后总有其他分块，按截断的采样处理，分块边界上不完整的 UTF-8 序列不计为错误
+        return isBinary(scan(sample, sampleLength, body.length(), true)) ? BINARY_BIT : 0L;
+    }
+    
+    /**
+     * 扫描字节数组
+     * 
+     * @param bytes 正文字节数组
+     * @param classify 是否需要判断文本/二进制
+     * @return 打包的扫描结果
+     */
+    public long scan(byte[] bytes, boolean classify) {
+        return scan(bytes, classify, currentSnapshot());
+    }
+    
+    /**
+     * 按指定的配置快照扫描字节数组
+     * 
+     * @param bytes 正文字节数组
+     * @param classify 是否需要判断文本/二进制
+     * @param snapshot 本次扫描使用的配置快照
+     * @return 打包的扫描结果
+     */
+    public long scan(byte[] bytes, boolean classify, ConfigSnapshot snapshot) {
+        if (bytes == null || bytes.length == 0) {
+            return 0L;
+        }
+        
+        int length = bytes.length;
+        int window = snapshot.sniffWindowFor(length);
+        int tail = snapshot.getSniffTailSize();
+        boolean sampled = window > 0 && length > window + tail;
+        int sampleLength = sampled ? window : length;
+        
+        if (classify && snapshot.getBinarySignatureTable().matches(bytes, sampleLength)) {
+            return BINARY_BIT;
+        }
+        
+        long result = scan(bytes, sampleLength, length, classify);
+        if (isBinary(result)) {
+            return result;
+        }
+        
+        if (classify && sampled && tail > 0) {
+            int tailStart = length - tail;
+            if (ByteScanners.get().indexOfNull(bytes, tailStart, length) >= 0
+                    || !Utf8Validator.isValidText(bytes, skipContinuationBytes(bytes, tailStart, length), length)) {
+                return BINARY_BIT;
+            }
+        }
+        
+        if (trimOffset(result) == sampleLength && !isAllBlank(result) && sampleLength < length) {
+            int start = messageCleaner.findContentStart(bytes);
+            return pack(start, false, lineEnding(result), start > 0, start >= length);
+        }
+        return result;
+    }
+    
+    /**
+     * 单遍扫描的核心循环
+     * 
+     * @param bytes 字节数组，至少包含 sampleLength 个字节
+     * @param sampleLength 本次扫描的字节数
+     * @param bodyLength 正文总长度（大于 sampleLength 时表示采样被截断）
+     * @param classify 是否需要判断文本/二进制
+     * @return 打包的扫描结果
+     */
+    private long scan(byte[] bytes, int sampleLength, int bodyLength, boolean classify) {
+        boolean truncated = sampleLength < bodyLength;
+        
+        // 开头空行状态
+        int start = 0;
+        boolean contentFound = false;
+        int lineEnding = LINE_ENDING_NONE;
+        
+        // UTF-8 校验状态
+        double limit = sampleLength * MAX_ERROR_RATIO;
+        long chars = 0;
+        long replacements = 0;
+        long growth = 0;
+        int state = Utf8Validator.ACCEPT;
+        int sequenceStart = 0;
+        
+        int i = 0;
+        for (; i < sampleLength; i++) {
+            byte b = bytes[i];
+            
+            if (!contentFound) {
+                if (b == '\n') {
+                    start = i + 1;
+                    if (lineEnding == LINE_ENDING_NONE) {
+                        lineEnding = LINE_ENDING_LF;
+                    }
+                } else if (b == '\r') {
+                    boolean crlf = i + 1 < sampleLength && bytes[i + 1] == '\n';
+                    if (lineEnding == LINE_ENDING_NONE) {
+                        lineEnding = crlf ? LINE_ENDING_CRLF : LINE_ENDING_CR;
+                    }
+                    start = crlf ? i + 2 : i + 1;
+                } else if (b != ' ' && b != '\t') {
+                    contentFound = true;
+                    if (!classify) {
+                        break;
+                    }
+                }
+            } else if (lineEnding == LINE_ENDING_NONE && (b == '\n' || b == '\r')) {
+                lineEnding = b == '\n' ? LINE_ENDING_LF
+                    : (i + 1 < sampleLength && bytes[i + 1] == '\n') ? LINE_ENDING_CRLF : LINE_ENDING_CR;
+            }
+            
+            if (!classify) {
+                continue;
+            }
+            
+            if (b == 0) {
+                return BINARY_BIT;
+            }
+            
+            int next = Utf8Validator.TRANSITIONS[state * Utf8Validator.CLASS_COUNT + Utf8Validator.BYTE_CLASS[b & 0xFF]];
+            if (next == Utf8Validator.ACCEPT) {
+                int sequenceLength = i - sequenceStart + 1;
+                chars += sequenceLength == 4 ? 2 : 1;
+                if (sequenceLength == 3 && bytes[sequenceStart] == (byte) 0xEF
+                        && bytes[sequenceStart + 1] == (byte) 0xBF && b == (byte) 0xBD) {
+                    replacements++;
+                }
+                sequenceStart = i + 1;
+                state = Utf8Validator.ACCEPT;
+            } else if (next == Utf8Validator.SURROGATE) {
+                sequenceStart = i + 1;
+                state = Utf8Validator.ACCEPT;
+                chars++;
+                replacements++;
+            } else if (next == Utf8Validator.REJECT) {
+                int errorLength;
+                if (state == Utf8Validator.ACCEPT) {
+                    errorLength = 1;
+                    sequenceStart = i + 1;
+                } else {
+                    // 序列被中断：已读取的部分计为一个错误，当前字节重新作为字符起始处理。
+                    // 重新处理时空行状态的更新是幂等的，NULL 字节在第一次处理时已经返回。
+                    errorLength = i - sequenceStart;
+                    sequenceStart = i;
+                    i--;
+                }
+                state = Utf8Validator.ACCEPT;
+                chars++;
+                replacements++;
+                growth += 3 - errorLength;
+            } else {
+                state = next;
+            }
+            
+            if (growth > limit || replacements > limit) {
+                return BINARY_BIT;
+            }
+        }
+        
+        if (classify) {
+            if (state != Utf8Validator.ACCEPT && !truncated) {
+                chars++;
+                replacements++;
+                growth += 3 - (sampleLength - sequenceStart);
+            }
+            if (growth > limit || (chars > 0 && (double) replacements / chars > MAX_ERROR_RATIO)) {
+                return BINARY_BIT;
+            }
+        }
+        
+        boolean allBlank = !contentFound && !truncated && start >= sampleLength;
+        if (!contentFound && truncated) {
+            // 空行可能延续到窗口之外，由调用方补完
+            start = sampleLength;
+        }
+        return pack(start, false, lineEnding, start > 0, allBlank);
+    }
+    
+    /**
+     * 只定位开头空行，逐字节读取正文视图，遇到第一个内容字节即停止
+     * 
+     * 与核心循环在 classify 为 false 时的结果一致。
+     */
+    private static long scanLeading(HttpBodyView body, int length) {
+        int start = 0;
+        int lineEnding = LINE_ENDING_NONE;
+        for (int i = 0; i < length; i++) {
+            byte b = body.getByte(i);
+            if (b == '\n') {
+                start = i + 1;
+                if (lineEnding == LINE_ENDING_NONE) {
+                    lineEnding = LINE_ENDING_LF;
+                }
+            } else if (b == '\r') {
+                boolean crlf = i + 1 < length && body.getByte(i + 1) == '\n';
+                if (lineEnding == LINE_ENDING_NONE) {
+                    lineEnding = crlf ? LINE_ENDING_CRLF : LINE_ENDING_CR;
+                }
+                start = crlf ? i + 2 : i + 1;
+            } else if (b != ' ' && b != '\t') {
+                return pack(start, false, lineEnding, start > 0, false);
+            }
+        }
+        return pack(start, false, lineEnding, start > 0, start >= length);
+    }
+    
+    private static long pack(int offset, boolean binary, int lineEnding, boolean modified, boolean allBlank) {
+        long result = offset & OFFSET_MASK;
+        if (binary) {
+            result |= BINARY_BIT;
+        }
+        result |= ((long) lineEnding) << LINE_ENDING_SHIFT;
+        if (modified) {
+            result |= MODIFIED_BIT;
+        }
+        if (allBlank) {
+            result |= ALL_BLANK_BIT;
+        }
+        return result;
+    }
+    
+    private boolean isTextTail(byte[] tailBytes) {
+        return ByteScanners.get().indexOfNull(tailBytes, 0, tailBytes.length) < 0
+            && Utf8Validator.isValidText(tailBytes, skipContinuationBytes(tailBytes, 0, tailBytes.length), tailBytes.length);
+    }
+    
+    private static int skipContinuationBytes(byte[] bytes, int from, int to) {
+        int limit = Math.min(to, from + 3);
+        while (from < limit && (bytes[from] & 0xC0) == 0x80) {
+            from++;
+        }
+        return from;
+    }
+    
+    /**
+     * 获取当前的配置快照，未提供配置管理器时使用默认配置
+     */
+    private ConfigSnapshot currentSnapshot() {
+        return config != null ? config.getSnapshot() : ConfigSnapshot.defaults();
+    }
+}
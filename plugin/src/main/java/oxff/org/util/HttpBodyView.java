@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2024. All rights reserved.
+ */
+
+package oxff.org.util;
+
+import burp.api.montoya.core.ByteArray;
+import burp.api.montoya.http.message.HttpMessage;
+
+/**
+ * HTTP 消息正文视图
+ * 
+ * 每条消息只创建一次，由 HttpMessageHandler、ContentAnalyzer 和 MessageProcessor 共享：
+ * - 长度和偏移量直接从 Montoya 对象读取，不序列化整条消息
+ * - 需要 byte[] 时最多复制一次正文，并缓存供后续环节复用
+ * - 只需要采样时仅复制开头或结尾的窗口，不复制整个正文
+ * - 记录复制次数，便于确认处理链路上没有重复复制
+ * 
+ * 也可以直接包装 byte[]（见 of(byte[])），供不依赖 Montoya 运行环境的处理路径使用，
+ * 此时 byteArray() 返回 null。
+ */
+public class HttpBodyView {
+    
+    private final ByteArray body;
+    private final int bodyOffset;
+    private byte[] bytes;
+    private byte[] headBytes;
+    private int copyCount;
+    
+    public HttpBodyView(ByteArray body, int bodyOffset) {
+        this.body = body;
+        this.bodyOffset = bodyOffset;
+    }
+    
+    /**
+     * 为 HTTP 请求或响应创建正文视图
+     * 
+     * @param message HTTP 消息
+     * @return 正文视图
+     */
+    public static HttpBodyView of(HttpMessage message) {
+        return new HttpBodyView(message.body(), message.bodyOffset());
+    }
+    
+    /**
+     * 包装已有的正文字节数组，不复制
+     * 
+     * @param bytes 正文字节数组
+     * @return 正文视图
+     */
+    public static HttpBodyView of(byte[] bytes) {
+        HttpBodyView view = new HttpBodyView(null, 0);
+        view.bytes = bytes != null ? bytes : new byte[0];
+        return view;
+    }
+    
+    /**
+     * 获取正文长度
+     */
+    public int length() {
+        if (bytes != null) {
+            return bytes.length;
+        }
+        return body != null ? body.length() : 0;
+    }
+    
+    /**
+     * 获取正文在整条消息中的偏移量（即头部长度）
+     */
+    public int bodyOffset() {
+        return bodyOffset;
+    }
+    
+    /**
+     * 获取整条消息的长度，无需调用 toByteArray()
+     */
+    public int messageLength() {
+        return bodyOffset + length();
+    }
+    
+    /**
+     * 读取指定位置的字节，优先使用已缓存的 byte[]
+     */
+    public byte getByte(int index) {
+        return bytes != null ? bytes[index] : body.getByte(index);
+    }
+    
+    /**
+     * 获取原始的 Montoya ByteArray，不复制（包装 byte[] 的视图返回 null）
+     */
+    public ByteArray byteArray() {
+        return body;
+    }
+    
+    /**
+     * 获取正文的 byte[]，首次调用时复制一次并缓存
+     * 
+     * @return 正文字节数组
+     */
+    public byte[] bytes() {
+        if (bytes == null) {
+            bytes = body != null ? body.getBytes() : new byte[0];
+            copyCount++;
+        }
+        return bytes;
+    }
+    
+    /**
+     * 获取正文开头的窗口
+     * 
+     * 如果整个正文已经复制过，直接返回完整数组；否则只复制开头的 size 个字节并缓存。
+     * 返回的数组至少覆盖 min(size, length()) 个字节，可能更长。
+     * 
+     * @param size 窗口大小
+     * @return 从偏移量 0 开始的字节数组
+     */
+    public byte[] head(int size) {
+        if (bytes != null) {
+            return bytes;
+        }
+        int length = length();
+        if (size >= length) {
+            return bytes();
+        }
+        if (headBytes == null || headBytes.length < size) {
+            headBytes = body.subArray(0, size).getBytes();
+            copyCount++;
+        }
+        return headBytes;
+    }
+    
+    /**
+     * 获取正文结尾的窗口
+     * 
+     * @param size 窗口大小
+     * @return 正文最后 min(size, length()) 个字节
+     */
+    public byte[] tail(int size) {
+        int length = length();
+        int from = Math.max(0, length - size);
+        if (bytes != null) {
+            byte[] result = new byte[length - from];
+            System.arraycopy(bytes, from, result, 0, result.length);
+            return result;
+        }
+        copyCount++;
+        return body.subArray(from, length).getBytes();
+    }
+    
+    /**
+     * 获取正文中的一段
+     * 
+     * @param from 起始位置
+     * @param to 结束位置（不包含）
+     * @return 该范围内字节的副本（正文已复制过时从缓存的数组中截取）
+     */
+    public byte[] range(int from, int to) {
+        if (bytes != null) {
+            byte[] result = new byte[to - from];
+            System.arraycopy(bytes, from, result, 0, result.length);
+            return result;
+        }
+        copyCount++;
+        return body.subArray(from, to).getBytes();
+    }
+    
+    /**
+     * 正文是否已经被复制为 byte[]
+     */
+    public boolean isMaterialized() {
+        return bytes != null;
+    }
+    
+    /**
+     * 获取该视图复制正文的次数
+     */
+    public int getCopyCount() {
+        return copyCount;
+    }
+}
@@ -0,0 +1,427 @@
+/*
+ * Copyright (c) 2024. All rights reserved.
+ */
+
+package oxff.org.util;
+
+import burp.api.montoya.core.ByteArray;
+
+import java.util.Arrays;
+
+/**
+ * HTTP 消息清理器
+ * 
+ * 负责清理 HTTP 消息中的多余空行
+ * 
+ * 主要功能：
+ * - 安全地清理文本内容中的空行
+ * - 处理不同的换行符格式
+ * - 保护二进制数据不被破坏
+ * 
+ * 需要重写正文时，临时输出缓冲区从 BufferPool 借用，只有最终结果按实际长度分配。
+ */
+public class HttpMessageCleaner {
+    
+    private final BufferPool bufferPool = BufferPool.shared();
+    
+    /**
+     * 定位正文开头空行之后第一个需要保留的字节位置
+     * 
+     * 遇到第一个非空白字节即停止扫描，开销只与开头空行的长度相关，与正文总长度无关。
+     * 返回值等于数组长度时表示整个正文都由空行组成。
+     * 
+     * @param bytes 要检查的字节数组
+     * @return 需要保留的内容的起始偏移量，0 表示无需修改
+     */
+    public int findContentStart(byte[] bytes) {
+        if (bytes == null) {
+            return 0;
+        }
+        return findContentStart(bytes, 0, bytes.length);
+    }
+    
+    /**
+     * 在字节数组的指定范围内定位开头空行之后第一个需要保留的字节位置
+     * 
+     * @param bytes 字节数组
+     * @param from 范围起始位置（包含）
+     * @param to 范围结束位置（不包含）
+     * @return 需要保留的内容的起始位置，等于 from 表示无需修改，等于 to 表示整个范围都由空行组成
+     */
+    public int findContentStart(byte[] bytes, int from, int to) {
+        // 先定位第一个非空白字符（可使用 SIMD 加速），后续内容无需再扫描
+        int firstContent = ByteScanners.get().indexOfNonWhitespace(bytes, from, to);
+        if (firstContent < 0) {
+            firstContent = to;
+        }
+        
+        // 再从该位置向前找到最后一个换行符，保留的内容从它之后的行首开始
+        for (int i = firstContent - 1; i >= from; i--) {
+            byte b = bytes[i];
+            if (b == '\n' || b == '\r') {
+                return i + 1;
+            }
+        }
+        return from;
+    }
+    
+    /**
+     * 定位正文开头空行之后第一个需要保留的字节位置（直接读取 Montoya ByteArray，不复制数据）
+     * 
+     * @param bytes 要检查的字节数组
+     * @return 需要保留的内容的起始偏移量，0 表示无需修改
+     */
+    public int findContentStart(ByteArray bytes) {
+        if (bytes == null) {
+            return 0;
+        }
+        
+        int length = bytes.length();
+        int start = 0;
+        for (int i = 0; i < length; i++) {
+            byte b = bytes.getByte(i);
+            if (b == '\n') {
+                start = i + 1;
+            } else if (b == '\r') {
+                if (i + 1 < length && bytes.getByte(i + 1) == '\n') {
+                    i++; // 跳过 \r\n 中的 \n
+                }
+                start = i + 1;
+            } else if (b != ' ' && b != '\t') {
+                return start;
+            }
+        }
+        return start;
+    }
+    
+    /**
+     * 在正文视图的指定范围内定位开头空行之后第一个需要保留的字节位置
+     * 
+     * 通过 getByte 逐字节读取，正文未复制时也不会触发复制。
+     * 
+     * @param body 正文视图
+     * @param from 范围起始位置（包含）
+     * @param to 范围结束位置（不包含）
+     * @return 需要保留的内容的起始位置，等于 from 表示无需修改，等于 to 表示整个范围都由空行组成
+     */
+    public int findContentStart(HttpBodyView body, int from, int to) {
+        int start = from;
+        for (int i = from; i < to; i++) {
+            byte b = body.getByte(i);
+            if (b == '\n') {
+                start = i + 1;
+            } else if (b == '\r') {
+                if (i + 1 < to && body.getByte(i + 1) == '\n') {
+                    i++; // 跳过 \r\n 中的 \n
+                }
+                start = i + 1;
+            } else if (b != ' ' && b != '\t') {
+                return start;
+            }
+        }
+        return start;
+    }
+    
+    /**
+     * 移除字节数组开头的多余空行并返回处理结果（仅处理字节级别的空行）
+     * 
+     * @param bytes 要处理的字节数组
+     * @return 清理结果，包含处理后的字节数组和修改标记
+     */
+    public ProcessingResult removeLeadingBlankLinesWithResult(byte[] bytes) {
+        if (bytes == null || bytes.length == 0) {
+            return new ProcessingResult(bytes, false);
+        }
+        
+        int start = findContentStart(bytes);
+        if (start == 0) {
+            // 未修改时直接返回原始数据，不做任何复制
+            return new ProcessingResult(bytes, false);
+        }
+        
+        // 如果所有内容都是空行，返回单个换行符
+        if (start >= bytes.length) {
+            return new ProcessingResult(new byte[]{'\n'}, true);
+        }
+        
+        // 返回清理后的内容
+        byte[] result = new byte[bytes.length - start];
+        System.arraycopy(bytes, start, result, 0, result.length);
+        return new ProcessingResult(result, true);
+    }
+    
+    /**
+     * 移除 Montoya ByteArray 开头的多余空行并返回处理结果
+     * 
+     * 未修改时原样返回传入的 ByteArray；修改时通过 subArray 截取剩余内容，
+     * 不经过中间的 byte[] 复制。
+     * 
+     * @param bytes 要处理的字节数组
+     * @return 清理结果，包含处理后的字节数组和修改标记
+     */
+    public ProcessingResult removeLeadingBlankLinesWithResult(ByteArray bytes) {
+        int start = findContentStart(bytes);
+        if (start == 0) {
+            return new ProcessingResult(bytes, false);
+        }
+        
+        int length = bytes.length();
+        if (start >= length) {
+            return new ProcessingResult(new byte[]{'\n'}, true);
+        }
+        
+        return new ProcessingResult(bytes.subArray(start, length), true);
+    }
+    
+    /**
+     * 移除正文视图开头的多余空行并返回处理结果
+     * 
+     * 如果内容分析阶段已经复制过正文，则直接扫描缓存的 byte[]；否则逐字节读取 ByteArray。
+     * 两种情况下结果都是原始 ByteArray 本身或其 subArray，不会产生新的复制。
+     * 包装 byte[] 的视图没有 ByteArray，结果为原数组或其副本。
+     * 
+     * @param body 正文视图
+     * @return 清理结果，包含处理后的字节数组和修改标记
+     */
+    public ProcessingResult removeLeadingBlankLinesWithResult(HttpBodyView body) {
+        ByteArray bytes = body.byteArray();
+        int start = body.isMaterialized() || bytes == null ? findContentStart(body.bytes()) : findContentStart(bytes);
+        if (start == 0) {
+            return unchanged(body);
+        }
+        
+        int length = body.length();
+        if (start >= length) {
+            return new ProcessingResult(new byte[]{'\n'}, true);
+        }
+        
+        return trimmed(body, start);
+    }
+    
+    /**
+     * 按融合扫描的结果移除正文视图开头的多余空行，不再重复扫描
+     * 
+     * @param body 正文视图
+     * @param scanResult FusedBodyScanner 返回的打包结果
+     * @return 清理结果，包含处理后的字节数组和修改标记
+     */
+    public ProcessingResult removeLeadingBlankLinesWithResult(HttpBodyView body, long scanResult) {
+        if (!FusedBodyScanner.isModified(scanResult)) {
+            return unchanged(body);
+        }
+        if (FusedBodyScanner.isAllBlank(scanResult)) {
+            return new ProcessingResult(new byte[]{'\n'}, true);
+        }
+        return trimmed(body, FusedBodyScanner.trimOffset(scanResult));
+    }
+    
+    /**
+     * 未修改的正文：优先返回原始 ByteArray，包装 byte[] 的视图返回原数组
+     */
+    private static ProcessingResult unchanged(HttpBodyView body) {
+        ByteArray bytes = body.byteArray();
+        return bytes != null ? new ProcessingResult(bytes, false) : new ProcessingResult(body.bytes(), false);
+    }
+    
+    /**
+     * 从 start 开始截取正文：优先使用 ByteArray 的 subArray，包装 byte[] 的视图复制剩余部分
+     */
+    private static ProcessingResult trimmed(HttpBodyView body, int start) {
+        ByteArray bytes = body.byteArray();
+        if (bytes != null) {
+            return new ProcessingResult(bytes.subArray(start, body.length()), true);
+        }
+        return new ProcessingResult(Arrays.copyOfRange(body.bytes(), start, body.length()), true);
+    }
+    
+    /**
+     * 移除字节数组开头的多余空行（仅处理字节级别的空行）
+     * 
+     * @param bytes 要处理的字节数组
+     * @return 清理后的字节数组
+     */
+    public byte[] removeLeadingBlankLines(byte[] bytes) {
+        ProcessingResult result = removeLeadingBlankLinesWithResult(bytes);
+        return result.getProcessedRawBytes();
+    }
+    
+    /**
+     * 清理文本内容中的多余空行
+     * 
+     * 去掉开头的空行，并把连续的空行合并为一个。直接在字节上处理，
+     * 每行保留原有的换行符，非 UTF-8 字节原样保留。
+     * 
+     * @param bytes 要处理的字节数组
+     * @return 清理后的字节数组，未修改时返回原数组
+     */
+    public byte[] cleanTextContent(byte[] bytes) {
+        if (bytes == null || bytes.length == 0) {
+            return bytes;
+        }
+        
+        try {
+            return collapseBlankLines(bytes, false).getProcessedRawBytes();
+        } catch (Exception e) {
+            // 出现异常时退回到只处理开头空行
+            return removeLeadingBlankLines(bytes);
+        }
+    }
+    
+    /**
+     * 清理文本内容中的多余空行并返回处理结果
+     * 
+     * 修改后的结果直接从临时缓冲区生成 Montoya ByteArray，不经过中间的 byte[]；
+     * 不依赖 Montoya 运行环境的调用方应使用 cleanTextContent(byte[])。
+     * 
+     * @param bytes 要处理的字节数组
+     * @return 清理结果，包含处理后的字节数组和修改标记
+     */
+    public ProcessingResult cleanTextContentWithResult(byte[] bytes) {
+        if (bytes == null || bytes.length == 0) {
+            return new ProcessingResult(bytes, false);
+        }
+        
+        try {
+            return collapseBlankLines(bytes, true);
+        } catch (Exception e) {
+            // 出现异常时退回到只处理开头空行
+            return removeLeadingBlankLinesWithResult(bytes);
+        }
+    }
+    
+    /**
+     * 在字节级别合并空行（单遍扫描）
+     * 
+     * 行以 \n 或 \r\n 分隔；只包含空格、制表符等控制字符（<= 0x20）的行视为空行，
+     * 多字节 UTF-8 字符的每个字节都大于 0x7F，因此无需解码即可判断。
+     * 规则：
+     * - 开头的空行全部去掉
+     * - 连续的空行只保留第一个
+     * - 不含换行符的内容原样返回
+     * - 保留的行之间使用前一个保留行原有的换行符
+     * 
+     * 在遇到第一个需要删除的行之前不写入任何数据；输出缓冲区只在确实需要修改时从缓冲区池借用，
+     * 未修改时直接返回原数组；修改后只从缓冲区复制一次最终结果。
+     * 
+     * @param bytes 要处理的字节数组
+     * @param asByteArray true=结果为 Montoya ByteArray，false=结果为 byte[]
+     * @return 处理结果，未修改时包含原数组
+     */
+    private ProcessingResult collapseBlankLines(byte[] bytes, boolean asByteArray) {
+        int length = bytes.length;
+        byte[] out = null;
+        int outLength = 0;
+        
+        boolean anyKept = false;
+        boolean previousBlank = false;
+        // 上一个保留行的换行符位置，在写入下一个保留行之前输出
+        int separatorStart = 0;
+        int separatorEnd = 0;
+        
+        try {
+            int lineStart = 0;
+            while (lineStart <= length) {
+                int i = lineStart;
+                boolean blank = true;
+                while (i < length && bytes[i] != '\n') {
+                    if ((bytes[i] & 0xFF) > 0x20) {
+                        blank = false;
+                    }
+                    i++;
+                }
+                
+                int contentEnd;
+                int next;
+                if (i < length) {
+                    contentEnd = (i > lineStart && bytes[i - 1] == '\r') ? i - 1 : i;
+                    next = i + 1;
+                } else {
+                    if (lineStart == 0) {
+                        // 整个内容只有一行
+                        return new ProcessingResult(bytes, false);
+                    }
+                    contentEnd = length;
+                    next = length + 1;
+                }
+                
+                boolean keep = !blank || (anyKept && !previousBlank);
+                if (keep) {
+                    if (out != null) {
+                        if (anyKept) {
+                            int separatorLength = separatorEnd - separatorStart;
+                            System.arraycopy(bytes, separatorStart, out, outLength, separatorLength);
+                            outLength += separatorLength;
+                        }
+                        int contentLength = contentEnd - lineStart;
+                        System.arraycopy(bytes, lineStart, out, outLength, contentLength);
+                        outLength += contentLength;
+                    }
+                    separatorStart = contentEnd;
+                    separatorEnd = Math.min(next, length);
+                    anyKept = true;
+                    previousBlank = blank;
+                } else if (out == null) {
+                    // 第一次删除行：此前保留的内容与原数组完全一致，一次性复制过来
+                    out = bufferPool.acquire(length);
+                    outLength = anyKept ? separatorStart : 0;
+                    System.arraycopy(bytes, 0, out, 0, outLength);
+                }
+                
+                lineStart = next;
+            }
+            
+            if (out == null) {
+                return new ProcessingResult(bytes, false);
+            }
+            return ProcessingResult.copyOf(out, outLength, asByteArray);
+        } finally {
+            bufferPool.release(out);
+        }
+    }
+    
+    /**
+     * 清理指定位置开始的空行
+     * 
+     * 直接在原数组上定位需要保留的范围，只按最终长度分配一次结果数组，不复制前缀和后缀。
+     * 
+     * @param bytes 字节数组
+     * @param startPosition 开始位置
+     * @return 清理后的字节数组，未修改时返回原数组
+     */
+    public byte[] cleanFromPosition(byte[] bytes, int startPosition) {
+        if (bytes == null || startPosition >= bytes.length) {
+            return bytes;
+        }
+        
+        int start = findContentStart(bytes, startPosition, bytes.length);
+        if (start == startPosition) {
+            return bytes;
+        }
+        
+        // 指定位置之后全部是空行时保留一个换行符
+        if (start >= bytes.length) {
+            byte[] result = Arrays.copyOf(bytes, startPosition + 1);
+            result[startPosition] = '\n';
+            return result;
+        }
+        
+        byte[] result = new byte[startPosition + bytes.length - start];
+        System.arraycopy(bytes, 0, result, 0, startPosition);
+        System.arraycopy(bytes, start, result, startPosition, bytes.length - start);
+        return result;
+    }
+    
+    /**
+     * 检查字节数组是否只包含空白字符
+     * 
+     * @param bytes 要检查的字节数组
+     * @return 如果只包含空白字符返回 true
+     */
+    public boolean isOnlyWhitespace(byte[] bytes) {
+        if (bytes == null || bytes.length == 0) {
+            return true;
+        }
+        
+        return ByteScanners.get().indexOfNonWhitespace(bytes, 0, bytes.length) < 0;
+    }
+} 
\ No newline at end of file
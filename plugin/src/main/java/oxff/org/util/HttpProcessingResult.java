@@ -16,17 +16,28 @@ public class HttpProcessingResult {
     private final HttpRequest processedRequest;
     private final HttpResponse processedResponse;
     private final boolean wasModified;
+    private final long bytesRemoved;
     
     public HttpProcessingResult(HttpRequest request, boolean modified) {
+        this(request, modified, 0);
+    }
+    
+    public HttpProcessingResult(HttpRequest request, boolean modified, long bytesRemoved) {
         this.processedRequest = request;
         this.processedResponse = null;
         this.wasModified = modified;
+        this.bytesRemoved = bytesRemoved;
     }
     
     public HttpProcessingResult(HttpResponse response, boolean modified) {
+        this(response, modified, 0);
+    }
+    
+    public HttpProcessingResult(HttpResponse response, boolean modified, long bytesRemoved) {
         this.processedRequest = null;
         this.processedResponse = response;
         this.wasModified = modified;
+        this.bytesRemoved = bytesRemoved;
     }
     
     public HttpRequest getProcessedRequest() {
@@ -40,4 +51,11 @@ public class HttpProcessingResult {
     public boolean wasModified() {
         return wasModified;
     }
+    
+    /**
+     * 获取处理过程中从正文移除的字节数
+     */
+    public long getBytesRemoved() {
+        return bytesRemoved;
+    }
 } 
\ No newline at end of file
@@ -0,0 +1,204 @@
+/*
+ * Copyright (c) 2024. All rights reserved.
+ */
+
+package oxff.org.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Content-Type 分类器
+ * 
+ * 用手写的解析代替正则表达式匹配：
+ * - 只提取 type/subtype，忽略 charset、boundary 等参数
+ * - 规则按前缀匹配 type/subtype，与原来的 "^(规则).*" 正则一致，末尾的 * 可以省略（例如 text/*）
+ * - 分类结果缓存在有上限的表中，实际流量中的媒体类型种类很少，几乎总是命中缓存
+ * 
+ * 编译后的分类器可以在多个线程之间共享。
+ */
+public final class MediaTypeClassifier {
+    
+    /**
+     * 媒体类型分类结果
+     */
+    public enum Category {
+        TEXT,
+        BINARY,
+        UNKNOWN
+    }
+    
+    // 默认的文本类型
+    public static final List<String> DEFAULT_TEXT_TYPES = Collections.unmodifiableList(Arrays.asList(
+        "text/*", "application/json", "application/xml", "application/javascript", "application/x-javascript",
+        "application/ecmascript", "application/x-www-form-urlencoded", "application/graphql",
+        "application/x-yaml", "application/yaml", "application/rss+xml", "application/atom+xml",
+        "application/xhtml+xml", "application/soap+xml", "application/vnd.api+json",
+        "application/ld+json", "application/hal+json", "application/problem+json"
+    ));
+    
+    // 默认的二进制类型
+    public static final List<String> DEFAULT_BINARY_TYPES = Collections.unmodifiableList(Arrays.asList(
+        "image/*", "audio/*", "video/*", "application/octet-stream", "application/pdf",
+        "application/zip", "application/x-zip-compressed", "application/x-rar-compressed",
+        "application/x-7z-compressed", "application/x-tar", "application/gzip",
+        "application/x-executable", "application/x-msdownload", "application/x-msdos-program",
+        "application/java-archive", "application/x-java-archive", "font/*",
+        "application/vnd.ms-*", "application/msword", "application/vnd.openxmlformats-*",
+        "application/x-shockwave-flash", "application/x-font-*", "application/font-*"
+    ));
+    
+    // 缓存的最大条目数，超过后清空重建
+    static final int MAX_CACHE_SIZE = 256;
+    
+    private static final MediaTypeClassifier DEFAULT_CLASSIFIER = compile(DEFAULT_TEXT_TYPES, DEFAULT_BINARY_TYPES);
+    
+    private final String[] textPrefixes;
+    private final String[] binaryPrefixes;
+    private final ConcurrentHashMap<String, Category> cache = new ConcurrentHashMap<>();
+    
+    private MediaTypeClassifier(String[] textPrefixes, String[] binaryPrefixes) {
+        this.textPrefixes = textPrefixes;
+        this.binaryPrefixes = binaryPrefixes;
+    }
+    
+    /**
+     * 获取使用默认规则的分类器
+     * 
+     * @return 默认分类器
+     */
+    public static MediaTypeClassifier defaults() {
+        return DEFAULT_CLASSIFIER;
+    }
+    
+    /**
+     * 将媒体类型规则编译为分类器
+     * 
+     * 规则按前缀匹配 type/subtype，不区分大小写，因此 application/json 也匹配 application/jsonp；
+     * 末尾的 * 只是前缀的写法。同时命中文本和二进制规则时按文本处理。
+     * 
+     * @param textTypes 文本类型规则
+     * @param binaryTypes 二进制类型规则
+     * @return 编译后的分类器
+     */
+    public static MediaTypeClassifier compile(List<String> textTypes, List<String> binaryTypes) {
+        return new MediaTypeClassifier(toPrefixes(textTypes), toPrefixes(binaryTypes));
+    }
+    
+    private static String[] toPrefixes(List<String> rules) {
+        List<String> prefixes = new ArrayList<>();
+        for (String rule : rules) {
+            if (rule == null) {
+                continue;
+            }
+            String normalized = rule.trim().toLowerCase(Locale.ROOT);
+            if (normalized.isEmpty()) {
+                continue;
+            }
+            if (normalized.endsWith("*")) {
+                normalized = normalized.substring(0, normalized.length() - 1);
+            }
+            if (!normalized.isEmpty()) {
+                prefixes.add(normalized);
+            }
+        }
+        return prefixes.toArray(new String[0]);
+    }
+    
+    /**
+     * 对 Content-Type 头部值进行分类
+     * 
+     * @param contentType Content-Type 头部值，可以为 null
+     * @return 分类结果
+     */
+    public Category classify(String contentType) {
+        if (contentType == null) {
+            return Category.UNKNOWN;
+        }
+        
+        String mediaType = extractMediaType(contentType);
+        if (mediaType.isEmpty()) {
+            return Category.UNKNOWN;
+        }
+        
+        Category cached = cache.get(mediaType);
+        if (cached != null) {
+            return cached;
+        }
+        
+        Category category = lookup(mediaType);
+        if (cache.size() >= MAX_CACHE_SIZE) {
+            // 异常流量（例如随机媒体类型）下避免缓存无限增长
+            cache.clear();
+        }
+        cache.put(mediaType, category);
+        return category;
+    }
+    
+    /**
+     * 提取 type/subtype 部分并转换为小写，忽略参数
+     * 
+     * @param contentType Content-Type 头部值
+     * @return 小写的媒体类型
+     */
+    static String extractMediaType(String contentType) {
+        int length = contentType.length();
+        int start = 0;
+        while (start < length && isWhitespace(contentType.charAt(start))) {
+            start++;
+        }
+        
+        int end = start;
+        boolean hasUpperCase = false;
+        while (end < length) {
+            char c = contentType.charAt(end);
+            if (c == ';' || c == ',') {
+                break;
+            }
+            if (c >= 'A' && c <= 'Z') {
+                hasUpperCase = true;
+            }
+            end++;
+        }
+        while (end > start && isWhitespace(contentType.charAt(end - 1))) {
+            end--;
+        }
+        
+        String mediaType = (start == 0 && end == length) ? contentType : contentType.substring(start, end);
+        return hasUpperCase ? mediaType.toLowerCase(Locale.ROOT) : mediaType;
+    }
+    
+    /**
+     * 获取缓存的条目数（测试使用）
+     */
+    int cacheSize() {
+        return cache.size();
+    }
+    
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t';
+    }
+    
+    private Category lookup(String mediaType) {
+        if (startsWithAny(mediaType, textPrefixes)) {
+            return Category.TEXT;
+        }
+        if (startsWithAny(mediaType, binaryPrefixes)) {
+            return Category.BINARY;
+        }
+        return Category.UNKNOWN;
+    }
+    
+    private static boolean startsWithAny(String mediaType, String[] prefixes) {
+        for (String prefix : prefixes) {
+            if (mediaType.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
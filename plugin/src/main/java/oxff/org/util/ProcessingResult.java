@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2024. All rights reserved.
+ */
+
+package oxff.org.util;
+
+import burp.api.montoya.core.ByteArray;
+
+import java.util.Arrays;
+
+/**
+ * 处理结果类
+ * 
+ * 用于封装处理操作的结果，包含处理后的数据和修改标记
+ * 
+ * 以 byte[] 构造时不会立即包装为 ByteArray，只有调用方真正需要 Montoya 类型时才转换，
+ * 避免字节级处理路径上的重复复制。
+ */
+public class ProcessingResult {
+    private ByteArray processedBytes;
+    private final byte[] rawBytes;
+    private final boolean wasModified;
+    
+    public ProcessingResult(ByteArray bytes, boolean modified) {
+        this.processedBytes = bytes;
+        this.rawBytes = null;
+        this.wasModified = modified;
+    }
+    
+    public ProcessingResult(byte[] bytes, boolean modified) {
+        this.processedBytes = null;
+        this.rawBytes = bytes;
+        this.wasModified = modified;
+    }
+    
+    /**
+     * 从临时缓冲区创建修改后的结果
+     * 
+     * 缓冲区由调用方从 BufferPool 借用并在返回后归还，结果在这里只复制一次：
+     * 需要 Montoya 类型时直接生成最终的 ByteArray，否则按实际长度复制为 byte[]。
+     * 
+     * @param buffer 临时缓冲区
+     * @param length 缓冲区中有效数据的长度
+     * @param asByteArray true=生成 ByteArray（需要 Montoya 运行环境），false=生成 byte[]
+     * @return 标记为已修改的处理结果
+     */
+    public static ProcessingResult copyOf(byte[] buffer, int length, boolean asByteArray) {
+        if (asByteArray) {
+            return new ProcessingResult(ByteArray.byteArray(buffer).subArray(0, length), true);
+        }
+        return new ProcessingResult(Arrays.copyOf(buffer, length), true);
+    }
+    
+    public ByteArray getProcessedBytes() {
+        if (processedBytes == null) {
+            processedBytes = ByteArray.byteArray(rawBytes);
+        }
+        return processedBytes;
+    }
+    
+    /**
+     * 获取处理后的原始字节数组
+     * 
+     * @return 以 byte[] 构造时直接返回该数组，否则从 ByteArray 中复制
+     */
+    public byte[] getProcessedRawBytes() {
+        if (rawBytes != null) {
+            return rawBytes;
+        }
+        return processedBytes != null ? processedBytes.getBytes() : null;
+    }
+    
+    public boolean wasModified() {
+        return wasModified;
+    }
+}
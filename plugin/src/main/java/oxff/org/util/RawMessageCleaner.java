@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2024. All rights reserved.
+ */
+
+package oxff.org.util;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * 原始报文清理器
+ * 
+ * 直接处理完整的 HTTP 报文字节（起始行 + 头部 + 正文），不依赖 Montoya 运行环境：
+ * - 去掉起始行（请求行或状态行）之前的空行
+ * - 在头部与正文的分界处去掉正文开头的多余空行（与"去掉开头空行"策略规则一致）
+ * - 原地计算新的 Content-Length，最后一次拼接生成新报文
+ * 
+ * 与取出正文、清理后再通过 withBody() 重建整条报文相比，只需要一次扫描和一次分配。
+ * 使用分块传输编码的报文由 ChunkedBodyCleaner 只改写第一个包含内容的分块，不修改Content-Length。
+ * 头部的定位和查找由 RawMessageHead 完成，已经解析过头部的调用方可以直接传入。
+ */
+public class RawMessageCleaner {
+    
+    private final HttpMessageCleaner messageCleaner = new HttpMessageCleaner();
+    private final ChunkedBodyCleaner chunkedCleaner = new ChunkedBodyCleaner();
+    
+    /**
+     * 清理完整的报文字节
+     * 
+     * @param message 完整的报文字节
+     * @return 清理后的报文，未修改时返回原数组
+     */
+    public byte[] clean(byte[] message) {
+        if (message == null || message.length == 0) {
+            return message;
+        }
+        RawMessageHead head = RawMessageHead.parse(ByteBuffer.wrap(message));
+        if (head == null) {
+            return message;
+        }
+        return clean(message, head);
+    }
+    
+    /**
+     * 按已知的正文偏移量清理完整的报文字节
+     * 
+     * @param message 完整的报文字节
+     * @param bodyOffset 正文起始偏移量（例如 HttpMessage.bodyOffset()）
+     * @return 清理后的报文，未修改时返回原数组
+     */
+    public byte[] clean(byte[] message, int bodyOffset) {
+        if (message == null || bodyOffset <= 0 || bodyOffset > message.length) {
+            return message;
+        }
+        return clean(message, RawMessageHead.parse(ByteBuffer.wrap(message), bodyOffset));
+    }
+    
+    /**
+     * 按已经解析的头部清理完整的报文字节：去掉起始行之前的空行和正文开头的空行，并更新 Content-Length
+     * 
+     * @param message 完整的报文字节
+     * @param head 由同一报文解析的头部位置
+     * @return 清理后的报文，未修改时返回原数组
+     */
+    public byte[] clean(byte[] message, RawMessageHead head) {
+        int lead = head.lead();
+        int bodyOffset = head.bodyOffset();
+        if (lead >= bodyOffset) {
+            return message; // 没有起始行，不是有效的报文
+        }
+        int length = message.length;
+        
+        // 1. 头部已经解析：分块传输编码只改写第一个分块，否则取 Content-Length 的值的位置
+        if (head.isChunked()) {
+            return cleanChunked(message, lead, bodyOffset);
+        }
+        int valueStart = head.contentLengthStart();
+        int valueEnd = head.contentLengthEnd();
+        
+        // 2. 定位正文开头空行之后需要保留的位置
+        int bodyStart = bodyOffset;
+        byte[] replacementBody = null;
+        if (bodyOffset < length) {
+            bodyStart = messageCleaner.findContentStart(message, bodyOffset, length);
+            if (bodyStart >= length && !(length - bodyOffset == 1 && message[bodyOffset] == '\n')) {
+                // 整个正文都是空行，与"去掉开头空行"策略一致保留一个换行符
+                replacementBody = new byte[]{'\n'};
+            } else if (bodyStart >= length) {
+                bodyStart = bodyOffset;
+            }
+        }
+        
+        if (lead == 0 && bodyStart == bodyOffset) {
+            return message;
+        }
+        
+        // 3. 计算新的 Content-Length（没有该头部时不修改）
+        int newBodyLength = replacementBody != null ? replacementBody.length : length - bodyStart;
+        byte[] newValue = null;
+        if (valueStart >= 0) {
+            newValue = Integer.toString(newBodyLength).getBytes(StandardCharsets.US_ASCII);
+        } else {
+            valueStart = valueEnd = bodyOffset; // 头部原样复制
+        }
+        
+        // 4. 一次拼接：头部（替换 Content-Length 的值）+ 保留的正文
+        int headerLength = (valueStart - lead) + (newValue != null ? newValue.length : 0) + (bodyOffset - valueEnd);
+        byte[] result = new byte[headerLength + newBodyLength];
+        int position = 0;
+        System.arraycopy(message, lead, result, position, valueStart - lead);
+        position += valueStart - lead;
+        if (newValue != null) {
+            System.arraycopy(newValue, 0, result, position, newValue.length);
+            position += newValue.length;
+        }
+        System.arraycopy(message, valueEnd, result, position, bodyOffset - valueEnd);
+        position += bodyOffset - valueEnd;
+        if (replacementBody != null) {
+            System.arraycopy(replacementBody, 0, result, position, replacementBody.length);
+        } else {
+            System.arraycopy(message, bodyStart, result, position, newBodyLength);
+        }
+        return result;
+    }
+    
+    /**
+     * 替换头部中 Content-Length 的值
+     * 
+     * 供只复制头部、正文直接在 Montoya ByteArray 上拼接的调用方使用。
+     * 
+     * @param head 起始行和头部（到头部结束的空行为止）
+     * @param newBodyLength 新的正文长度
+     * @return 替换后的头部，没有 Content-Length 头部时返回原数组
+     */
+    public byte[] withContentLength(byte[] head, int newBodyLength) {
+        RawMessageHead parsed = RawMessageHead.parse(ByteBuffer.wrap(head), head.length);
+        int valueStart = parsed.contentLengthStart();
+        if (valueStart < 0) {
+            return head;
+        }
+        int valueEnd = parsed.contentLengthEnd();
+        byte[] value = Integer.toString(newBodyLength).getBytes(StandardCharsets.US_ASCII);
+        byte[] result = new byte[head.length - (valueEnd - valueStart) + value.length];
+        System.arraycopy(head, 0, result, 0, valueStart);
+        System.arraycopy(value, 0, result, valueStart, value.length);
+        System.arraycopy(head, valueEnd, result, valueStart + value.length, head.length - valueEnd);
+        return result;
+    }
+    
+    /**
+     * 清理分块传输编码的报文：头部原样保留，只改写第一个包含内容的分块
+     */
+    private byte[] cleanChunked(byte[] message, int lead, int bodyOffset) {
+        long plan = chunkedCleaner.plan(HttpBodyView.of(message), bodyOffset, message.length);
+        if (plan == ChunkedBodyCleaner.NO_CHANGE) {
+            return lead == 0 ? message : Arrays.copyOfRange(message, lead, message.length);
+        }
+        
+        byte[] chunkHeader = ChunkedBodyCleaner.chunkHeader(plan);
+        int cut = ChunkedBodyCleaner.cutOffset(plan);
+        byte[] result = new byte[(bodyOffset - lead) + chunkHeader.length + (message.length - cut)];
+        System.arraycopy(message, lead, result, 0, bodyOffset - lead);
+        System.arraycopy(chunkHeader, 0, result, bodyOffset - lead, chunkHeader.length);
+        System.arraycopy(message, cut, result, bodyOffset - lead + chunkHeader.length, message.length - cut);
+        return result;
+    }
+}
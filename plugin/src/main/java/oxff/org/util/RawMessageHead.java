@@ -0,0 +1,264 @@
+/*
+ * Copyright (c) 2024. All rights reserved.
+ */
+
+package oxff.org.util;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 原始报文的头部位置
+ * 
+ * 直接在报文字节上（堆数组包装的或映射的 ByteBuffer）一次扫描完成：
+ * - 跳过起始行之前的空行，定位头部结束位置
+ * - 记录清理需要的头部（Content-Length、Content-Type、Content-Encoding）的值的位置
+ * - 判断是否为分块传输编码
+ * 
+ * 不解码整个头部，只在取 Content-Type 等字符串时解码对应的值。
+ * 重复出现的头部取第一个。RawMessageCleaner 和批量清理共用这一份解析结果，头部只扫描一次。
+ */
+public final class RawMessageHead {
+    
+    private static final byte[] CONTENT_LENGTH = "content-length".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] CONTENT_TYPE = "content-type".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] CONTENT_ENCODING = "content-encoding".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] TRANSFER_ENCODING = "transfer-encoding".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] CHUNKED = "chunked".getBytes(StandardCharsets.US_ASCII);
+    
+    private final ByteBuffer message;
+    private final int lead;
+    private final int bodyOffset;
+    private int contentLengthStart = -1;
+    private int contentLengthEnd = -1;
+    private int contentTypeStart = -1;
+    private int contentTypeEnd = -1;
+    private int contentEncodingStart = -1;
+    private int contentEncodingEnd = -1;
+    private boolean chunked;
+    
+    private RawMessageHead(ByteBuffer message, int lead, int bodyOffset) {
+        this.message = message;
+        this.lead = lead;
+        this.bodyOffset = bodyOffset;
+        scanHeaders();
+    }
+    
+    /**
+     * 解析完整报文的头部
+     * 
+     * @param message 完整的报文字节，从位置 0 到 limit
+     * @return 头部位置，找不到头部结束标记时返回 null
+     */
+    public static RawMessageHead parse(ByteBuffer message) {
+        int lead = skipLineBreaks(message, message.limit());
+        int bodyOffset = findBodyOffset(message, lead);
+        return bodyOffset < 0 ? null : new RawMessageHead(message, lead, bodyOffset);
+    }
+    
+    /**
+     * 按已知的正文偏移量解析头部
+     * 
+     * @param message 完整的报文字节
+     * @param bodyOffset 正文起始偏移量（例如 HttpMessage.bodyOffset()）
+     * @return 头部位置；[0, bodyOffset) 全是空行时 lead() 等于 bodyOffset()
+     */
+    public static RawMessageHead parse(ByteBuffer message, int bodyOffset) {
+        return new RawMessageHead(message, skipLineBreaks(message, bodyOffset), bodyOffset);
+    }
+    
+    /**
+     * 查找头部结束位置，即正文的起始偏移量
+     * 
+     * 同时接受 \r\n\r\n 和 \n\n 作为头部结束标记。
+     * 
+     * @param message 完整的报文字节
+     * @param from 起始行的位置
+     * @return 正文起始偏移量，找不到头部结束标记时返回 -1
+     */
+    public static int findBodyOffset(ByteBuffer message, int from) {
+        int size = message.limit();
+        for (int i = from; i < size; i++) {
+            if (message.get(i) != '\n') {
+                continue;
+            }
+            // 当前行结束，检查下一行是否为空行
+            int next = i + 1;
+            if (next < size && message.get(next) == '\n') {
+                return next + 1;
+            }
+            if (next + 1 < size && message.get(next) == '\r' && message.get(next + 1) == '\n') {
+                return next + 2;
+            }
+        }
+        return -1;
+    }
+    
+    /**
+     * 获取起始行的位置（之前都是空行）
+     */
+    public int lead() {
+        return lead;
+    }
+    
+    /**
+     * 获取正文起始偏移量
+     */
+    public int bodyOffset() {
+        return bodyOffset;
+    }
+    
+    /**
+     * 是否为分块传输编码
+     */
+    public boolean isChunked() {
+        return chunked;
+    }
+    
+    /**
+     * 获取 Content-Length 的值的起始位置，没有该头部时返回 -1
+     */
+    public int contentLengthStart() {
+        return contentLengthStart;
+    }
+    
+    /**
+     * 获取 Content-Length 的值的结束位置（不包含），没有该头部时返回 -1
+     */
+    public int contentLengthEnd() {
+        return contentLengthEnd;
+    }
+    
+    /**
+     * 获取 Content-Type 的值，没有该头部时返回 null
+     */
+    public String contentType() {
+        return value(contentTypeStart, contentTypeEnd);
+    }
+    
+    /**
+     * 获取 Content-Encoding 的值，没有该头部时返回 null
+     */
+    public String contentEncoding() {
+        return value(contentEncodingStart, contentEncodingEnd);
+    }
+    
+    private String value(int start, int end) {
+        if (start < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[end - start];
+        message.get(start, bytes);
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+    
+    /**
+     * 逐行扫描头部（跳过起始行），记录需要的头部的值的位置
+     */
+    private void scanHeaders() {
+        if (lead >= bodyOffset) {
+            return; // 没有起始行，不是有效的报文
+        }
+        int lineStart = nextLine(lead, bodyOffset);
+        while (lineStart < bodyOffset) {
+            int lineEnd = nextLine(lineStart, bodyOffset);
+            int colon = indexOf((byte) ':', lineStart, lineEnd);
+            if (colon > lineStart) {
+                int nameEnd = trimEnd(lineStart, colon);
+                int valueStart = trimStart(colon + 1, lineEnd);
+                int valueEnd = trimEnd(valueStart, lineEnd);
+                if (regionMatches(lineStart, nameEnd, CONTENT_LENGTH)) {
+                    if (contentLengthStart < 0) {
+                        contentLengthStart = valueStart;
+                        contentLengthEnd = valueEnd;
+                    }
+                } else if (regionMatches(lineStart, nameEnd, CONTENT_TYPE)) {
+                    if (contentTypeStart < 0) {
+                        contentTypeStart = valueStart;
+                        contentTypeEnd = valueEnd;
+                    }
+                } else if (regionMatches(lineStart, nameEnd, CONTENT_ENCODING)) {
+                    if (contentEncodingStart < 0) {
+                        contentEncodingStart = valueStart;
+                        contentEncodingEnd = valueEnd;
+                    }
+                } else if (regionMatches(lineStart, nameEnd, TRANSFER_ENCODING)
+                        && containsIgnoreCase(valueStart, valueEnd, CHUNKED)) {
+                    chunked = true;
+                }
+            }
+            lineStart = lineEnd;
+        }
+    }
+    
+    /**
+     * 跳过起始行之前的空行（只包含 \r 和 \n）
+     */
+    private static int skipLineBreaks(ByteBuffer message, int to) {
+        int i = 0;
+        while (i < to && (message.get(i) == '\r' || message.get(i) == '\n')) {
+            i++;
+        }
+        return i;
+    }
+    
+    /**
+     * 获取下一行的起始位置（当前行的 \n 之后）
+     */
+    private int nextLine(int from, int to) {
+        int newline = indexOf((byte) '\n', from, to);
+        return newline < 0 ? to : newline + 1;
+    }
+    
+    private int indexOf(byte target, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (message.get(i) == target) {
+                return i;
+            }
+        }
+        return -1;
+    }
+    
+    private int trimStart(int from, int to) {
+        while (from < to && (message.get(from) == ' ' || message.get(from) == '\t')) {
+            from++;
+        }
+        return from;
+    }
+    
+    private int trimEnd(int from, int to) {
+        while (to > from) {
+            byte b = message.get(to - 1);
+            if (b != ' ' && b != '\t' && b != '\r' && b != '\n') {
+                break;
+            }
+            to--;
+        }
+        return to;
+    }
+    
+    /**
+     * 判断 [from, to) 是否与小写的 ASCII 名称相同（忽略大小写）
+     */
+    private boolean regionMatches(int from, int to, byte[] lowerName) {
+        if (to - from != lowerName.length) {
+            return false;
+        }
+        for (int i = 0; i < lowerName.length; i++) {
+            byte b = message.get(from + i);
+            if ((b | 0x20) != lowerName[i] && b != lowerName[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private boolean containsIgnoreCase(int from, int to, byte[] lowerToken) {
+        for (int i = from; i + lowerToken.length <= to; i++) {
+            if (regionMatches(i, i + lowerToken.length, lowerToken)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright (c) 2024. All rights reserved.
+ */
+
+package oxff.org.util;
+
+/**
+ * 标量字节扫描器
+ * 
+ * 逐字节比较的实现，在任何 JVM 上都可用，也是 SIMD 实现处理剩余尾部字节时的后备实现。
+ */
+final class ScalarByteScanner implements ByteScanner {
+    
+    static final ScalarByteScanner INSTANCE = new ScalarByteScanner();
+    
+    private ScalarByteScanner() {
+    }
+    
+    @Override
+    public int indexOfNull(byte[] bytes, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (bytes[i] == 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+    
+    @Override
+    public int indexOfNonWhitespace(byte[] bytes, int from, int to) {
+        for (int i = from; i < to; i++) {
+            byte b = bytes[i];
+            if (b != ' ' && b != '\t' && b != '\r' && b != '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+    
+    @Override
+    public String name() {
+        return "scalar";
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2024. All rights reserved.
+ */
+
+package oxff.org.util;
+
+/**
+ * 表驱动的 UTF-8 校验器
+ * 
+ * 用一个按字节分类的状态机单遍扫描字节数组，统计无效序列：
+ * - 不解码为 String、不重新编码，整个过程不分配内存
+ * - 无效序列按"最大有效前缀"计为一个替换字符，与 JDK 解码器的替换方式一致
+ * - 错误比例超过阈值后立即停止扫描
+ * 
+ * 判定规则与原先"解码 - 重新编码 - 统计 U+FFFD"的做法等价：
+ * 重新编码后长度增长超过 10%，或替换字符占字符数超过 10%，即视为非文本。
+ */
+public final class Utf8Validator {
+    
+    // 允许的最大错误比例
+    private static final double MAX_ERROR_RATIO = 0.1;
+    
+    // 字节分类数量
+    static final int CLASS_COUNT = 12;
+    
+    // 状态：0 为接受状态（位于字符边界），1 为拒绝状态，其余为等待续字节的中间状态
+    static final int ACCEPT = 0;
+    static final int REJECT = 1;
+    
+    // 伪状态：ED A0-BF 续字节构成的代理区编码，JDK 将整个三字节序列替换为一个 U+FFFD
+    static final int SURROGATE = 10;
+    
+    /**
+     * 字节分类表
+     * 
+     * 0: 00-7F  1: 80-8F  2: 90-9F  3: A0-BF  4: C0-C1, F5-FF（永远无效）
+     * 5: C2-DF  6: E0  7: E1-EC, EE-EF  8: ED  9: F0  10: F1-F3  11: F4
+     */
+    static final byte[] BYTE_CLASS = new byte[256];
+    
+    /**
+     * 状态转移表，下标为 state * CLASS_COUNT + class
+     * 
+     * 2: 还需 1 个续字节  3: 还需 2 个续字节  4: E0 之后需要 A0-BF
+     * 5: ED 之后的首个续字节  6: 还需 3 个续字节  7: F0 之后需要 90-BF  8: F4 之后需要 80-8F
+     * 9: ED A0-BF 之后（代理区编码，读完最后一个续字节即为一个错误）
+     */
+    static final byte[] TRANSITIONS = new byte[10 * CLASS_COUNT];
+    
+    static {
+        for (int b = 0x00; b <= 0x7F; b++) BYTE_CLASS[b] = 0;
+        for (int b = 0x80; b <= 0x8F; b++) BYTE_CLASS[b] = 1;
+        for (int b = 0x90; b <= 0x9F; b++) BYTE_CLASS[b] = 2;
+        for (int b = 0xA0; b <= 0xBF; b++) BYTE_CLASS[b] = 3;
+        BYTE_CLASS[0xC0] = 4;
+        BYTE_CLASS[0xC1] = 4;
+        for (int b = 0xC2; b <= 0xDF; b++) BYTE_CLASS[b] = 5;
+        BYTE_CLASS[0xE0] = 6;
+        for (int b = 0xE1; b <= 0xEC; b++) BYTE_CLASS[b] = 7;
+        BYTE_CLASS[0xED] = 8;
+        BYTE_CLASS[0xEE] = 7;
+        BYTE_CLASS[0xEF] = 7;
+        BYTE_CLASS[0xF0] = 9;
+        for (int b = 0xF1; b <= 0xF3; b++) BYTE_CLASS[b] = 10;
+        BYTE_CLASS[0xF4] = 11;
+        for (int b = 0xF5; b <= 0xFF; b++) BYTE_CLASS[b] = 4;
+        
+        java.util.Arrays.fill(TRANSITIONS, (byte) REJECT);
+        // 字符边界
+        transition(ACCEPT, 0, ACCEPT);
+        transition(ACCEPT, 5, 2);
+        transition(ACCEPT, 6, 4);
+        transition(ACCEPT, 7, 3);
+        transition(ACCEPT, 8, 5);
+        transition(ACCEPT, 9, 7);
+        transition(ACCEPT, 10, 6);
+        transition(ACCEPT, 11, 8);
+        // 通用续字节
+        for (int c = 1; c <= 3; c++) {
+            transition(2, c, ACCEPT);
+            transition(3, c, 2);
+            transition(6, c, 3);
+        }
+        // 首个续字节有范围限制的情况
+        transition(4, 3, 2);
+        transition(5, 1, 2);
+        transition(5, 2, 2);
+        transition(5, 3, 9);
+        for (int c = 1; c <= 3; c++) {
+            transition(9, c, SURROGATE);
+        }
+        transition(7, 2, 3);
+        transition(7, 3, 3);
+        transition(8, 1, 3);
+    }
+    
+    private static void transition(int state, int byteClass, int next) {
+        TRANSITIONS[state * CLASS_COUNT + byteClass] = (byte) next;
+    }
+    
+    private Utf8Validator() {
+    }
+    
+    /**
+     * 检查字节数组的指定范围是否为有效的 UTF-8 文本
+     * 
+     * @param bytes 要检查的字节数组
+     * @param from 起始位置（包含）
+     * @param to 结束位置（不包含）
+     * @return 如果错误比例在阈值以内返回 true
+     */
+    public static boolean isValidText(byte[] bytes, int from, int to) {
+        int length = to - from;
+        if (length <= 0) {
+            return true;
+        }
+        
+        double limit = length * MAX_ERROR_RATIO;
+        long chars = 0;          // 解码后的 UTF-16 字符数
+        long replacements = 0;   // 替换字符数（无效序列 + 原文中的 U+FFFD）
+        long growth = 0;         // 重新编码后增加的字节数
+        
+        int state = ACCEPT;
+        int sequenceStart = from;
+        for (int i = from; i < to; i++) {
+            int next = TRANSITIONS[state * CLASS_COUNT + BYTE_CLASS[bytes[i] & 0xFF]];
+            if (next == ACCEPT) {
+                int sequenceLength = i - sequenceStart + 1;
+                chars += sequenceLength == 4 ? 2 : 1;
+                if (sequenceLength == 3 && bytes[sequenceStart] == (byte) 0xEF
+                        && bytes[sequenceStart + 1] == (byte) 0xBF && bytes[i] == (byte) 0xBD) {
+                    replacements++;
+                }
+                sequenceStart = i + 1;
+                state = ACCEPT;
+            } else if (next == SURROGATE) {
+                // 完整的代理区编码：三个字节整体替换为一个 U+FFFD，长度不变
+                sequenceStart = i + 1;
+                state = ACCEPT;
+                chars++;
+                replacements++;
+                if (replacements > limit) {
+                    return false;
+                }
+            } else if (next == REJECT) {
+                int errorLength;
+                if (state == ACCEPT) {
+                    // 单个无效字节
+                    errorLength = 1;
+                    sequenceStart = i + 1;
+                } else {
+                    // 序列被中断：已读取的部分计为一个错误，当前字节重新作为字符起始处理
+                    errorLength = i - sequenceStart;
+                    sequenceStart = i;
+                    i--;
+                }
+                state = ACCEPT;
+                chars++;
+                replacements++;
+                growth += 3 - errorLength;
+                if (growth > limit || replacements > limit) {
+                    return false;
+                }
+            } else {
+                state = next;
+            }
+        }
+        
+        if (state != ACCEPT) {
+            // 末尾不完整的序列计为一个错误
+            chars++;
+            replacements++;
+            growth += 3 - (to - sequenceStart);
+        }
+        
+        if (growth > limit) {
+            return false;
+        }
+        return (double) replacements / chars <= MAX_ERROR_RATIO;
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2024. All rights reserved.
+ */
+
+package oxff.org.batch;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 验证原子写入：成功时替换目标文件，失败时不留下临时文件
+ */
+class AtomicFilesTest {
+    
+    @TempDir
+    Path directory;
+    
+    @Test
+    void writeReplacesTheTarget() throws IOException {
+        Path target = directory.resolve("out/message.http");
+        
+        AtomicFiles.write(target, bytes("first"));
+        AtomicFiles.write(target, bytes("second"));
+        
+        assertEquals("second", Files.readString(target));
+        assertEquals(List.of("message.http"), names(target.getParent()));
+    }
+    
+    @Test
+    void copyReplacesTheTarget() throws IOException {
+        Path source = Files.writeString(directory.resolve("source.http"), "content");
+        Path target = Files.writeString(directory.resolve("target.http"), "old");
+        
+        AtomicFiles.copy(source, target);
+        
+        assertEquals("content", Files.readString(target));
+        assertEquals(List.of("source.http", "target.http"), names(directory));
+    }
+    
+    @Test
+    void failedWriteLeavesNoTempFile() throws IOException {
+        // 目标是非空目录，移动到位时失败
+        Path target = Files.createDirectories(directory.resolve("message.http"));
+        Files.writeString(target.resolve("inside"), "x");
+        
+        assertThrows(IOException.class, () -> AtomicFiles.write(target, bytes("content")));
+        
+        assertEquals(List.of("message.http"), names(directory));
+        assertTrue(Files.isDirectory(target));
+    }
+    
+    @Test
+    void failedCopyLeavesNoTempFile() throws IOException {
+        Path target = directory.resolve("target.http");
+        
+        assertThrows(IOException.class, () -> AtomicFiles.copy(directory.resolve("missing.http"), target));
+        
+        assertEquals(List.of(), names(directory));
+    }
+    
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+    
+    private static List<String> names(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> file.getFileName().toString()).sorted().collect(Collectors.toList());
+        }
+    }
+}
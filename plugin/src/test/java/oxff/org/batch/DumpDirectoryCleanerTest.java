@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2024. All rights reserved.
+ */
+
+package oxff.org.batch;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import oxff.org.config.ConfigSnapshot;
+import oxff.org.metrics.SkipReason;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 验证目录树的并行清理：多个批次和子目录的任务拆分、三种写出方式和报告
+ */
+class DumpDirectoryCleanerTest {
+    
+    private static final String DIRTY = "HTTP/1.1 200 OK\r\nContent-Length: 8\r\n\r\n\r\n\r\nhello!";
+    // 清理后与已经规范的文件相同
+    private static final String CLEAN = "HTTP/1.1 200 OK\r\nContent-Length: 6\r\n\r\nhello!";
+    
+    // 根目录中的文件多于两个批次，最后一个批次不满
+    private static final int ROOT_FILES = DumpDirectoryTask.BATCH_SIZE * 2 + 5;
+    private static final int SUBDIRECTORY_FILES = 7;
+    private static final int SUBDIRECTORIES = 3;
+    private static final int TOTAL_FILES = ROOT_FILES + SUBDIRECTORIES * SUBDIRECTORY_FILES;
+    
+    @TempDir
+    Path directory;
+    
+    @Test
+    void everyFileInEveryBatchIsWrittenToTheOutput() throws IOException {
+        Path input = createTree();
+        Path output = directory.resolve("output");
+        Path report = directory.resolve("report.txt");
+        
+        DumpCleaningSummary summary = new DumpDirectoryCleaner(ConfigSnapshot.defaults(), input, output, false)
+            .run(4, report);
+        
+        assertEquals(TOTAL_FILES, summary.getFiles());
+        assertEquals(TOTAL_FILES / 2, summary.getModified());
+        assertEquals(TOTAL_FILES - TOTAL_FILES / 2, summary.getSkipped(SkipReason.NO_CHANGE));
+        assertEquals(0, summary.getErrors());
+        for (Path file : files(input)) {
+            Path target = output.resolve(input.relativize(file));
+            assertEquals(CLEAN, Files.readString(target), target.toString());
+        }
+        assertFalse(Files.exists(output.resolve("notes.md")));
+        try (Stream<Path> written = Files.walk(output)) {
+            assertEquals(TOTAL_FILES, written.filter(Files::isRegularFile).count());
+        }
+        
+        List<String> lines = Files.readAllLines(report);
+        assertEquals(TOTAL_FILES / 2, lines.stream().filter(line -> line.startsWith("已清理\t")).count());
+    }
+    
+    @Test
+    void inPlaceRunRewritesOnlyModifiedFiles() throws IOException {
+        Path input = createTree();
+        
+        DumpCleaningSummary summary = new DumpDirectoryCleaner(ConfigSnapshot.defaults(), input, null, false)
+            .run(2, null);
+        
+        assertEquals(TOTAL_FILES / 2, summary.getModified());
+        for (Path file : files(input)) {
+            assertEquals(CLEAN, Files.readString(file), file.toString());
+        }
+        assertEquals(DIRTY, Files.readString(input.resolve("notes.md")));
+        try (Stream<Path> left = Files.walk(input)) {
+            assertTrue(left.noneMatch(file -> file.getFileName().toString().endsWith(".tmp")));
+        }
+    }
+    
+    @Test
+    void dryRunWritesNothing() throws IOException {
+        Path input = createTree();
+        Path output = directory.resolve("output");
+        
+        DumpCleaningSummary summary = new DumpDirectoryCleaner(ConfigSnapshot.defaults(), input, output, true)
+            .run(3, null);
+        
+        assertEquals(TOTAL_FILES / 2, summary.getModified());
+        assertFalse(Files.exists(output));
+        long dirty = files(input).stream().filter(file -> {
+            try {
+                return Files.readString(file).equals(DIRTY);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }).count();
+        assertEquals(TOTAL_FILES / 2, dirty);
+    }
+    
+    @Test
+    void outputInsideInputIsRejected() throws IOException {
+        Path input = createTree();
+        
+        assertThrows(IOException.class,
+            () -> new DumpDirectoryCleaner(ConfigSnapshot.defaults(), input, input.resolve("out"), false).run(1, null));
+        assertThrows(IOException.class,
+            () -> new DumpDirectoryCleaner(ConfigSnapshot.defaults(), directory.resolve("missing"), null, false).run(1, null));
+    }
+    
+    /**
+     * 创建输入目录：偶数编号的文件需要清理，另有一个不处理的文件
+     */
+    private Path createTree() throws IOException {
+        Path input = Files.createDirectories(directory.resolve("input"));
+        int index = 0;
+        for (int i = 0; i < ROOT_FILES; i++) {
+            writeMessage(input, index++);
+        }
+        for (int d = 0; d < SUBDIRECTORIES; d++) {
+            Path subdirectory = Files.createDirectories(input.resolve("dir" + d).resolve("nested"));
+            for (int i = 0; i < SUBDIRECTORY_FILES; i++) {
+                writeMessage(subdirectory, index++);
+            }
+        }
+        Files.writeString(input.resolve("notes.md"), DIRTY);
+        return input;
+    }
+    
+    private static void writeMessage(Path directory, int index) throws IOException {
+        String extension = index % 3 == 0 ? ".txt" : ".http";
+        Files.writeString(directory.resolve(index + extension), index % 2 == 0 ? DIRTY : CLEAN);
+    }
+    
+    /**
+     * 列出目录树中的报文文件（.http、.txt）
+     */
+    private static List<Path> files(Path root) throws IOException {
+        try (Stream<Path> stream = Files.walk(root)) {
+            return stream.filter(Files::isRegularFile)
+                .filter(file -> !file.getFileName().toString().endsWith(".md"))
+                .collect(Collectors.toList());
+        }
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2024. All rights reserved.
+ */
+
+package oxff.org.batch;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import oxff.org.config.ConfigSnapshot;
+import oxff.org.metrics.SkipReason;
+import oxff.org.util.RawMessageCleaner;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * 验证单个报文文件的清理：读入和映射两条路径、映射字节上的提前跳过判断
+ */
+class DumpFileCleanerTest {
+    
+    @TempDir
+    Path directory;
+    
+    private final DumpFileCleaner cleaner = new DumpFileCleaner(ConfigSnapshot.defaults());
+    private final DumpCleaningSummary summary = new DumpCleaningSummary();
+    
+    @Test
+    void smallFileIsReadAndCleaned() throws IOException {
+        byte[] cleaned = cleaner.clean(write(response("\r\n\r\n{\"key\": \"value\"}")), summary);
+        
+        assertEquals(response("{\"key\": \"value\"}"), text(cleaned));
+        assertEquals(1, summary.getModified());
+        assertEquals(4, summary.getBytesRemoved());
+    }
+    
+    @Test
+    void filesAroundTheMapThresholdAreCleanedAlike() throws IOException {
+        for (int delta = -1; delta <= 1; delta++) {
+            String message = responseOfSize(DumpFileCleaner.MAP_THRESHOLD + delta, "\n\n");
+            byte[] bytes = message.getBytes(StandardCharsets.ISO_8859_1);
+            
+            byte[] cleaned = cleaner.clean(write(message), summary);
+            
+            assertArrayEquals(new RawMessageCleaner().clean(bytes), cleaned);
+            assertEquals(bytes.length - 2, cleaned.length);
+        }
+        assertEquals(3, summary.getModified());
+        assertEquals(3 * (DumpFileCleaner.MAP_THRESHOLD - 1) + 3, summary.getBytesRead());
+    }
+    
+    @Test
+    void blankLinesBeforeStartLineAreRemoved() throws IOException {
+        String message = responseOfSize(DumpFileCleaner.MAP_THRESHOLD * 2, "");
+        
+        byte[] cleaned = cleaner.clean(write("\r\n\n" + message), summary);
+        
+        assertEquals(message, text(cleaned));
+    }
+    
+    @Test
+    void cleanFilesStopAtTheHeadCheck() throws IOException {
+        assertNull(cleaner.clean(write(response("{\"key\": \"value\"}")), summary));
+        assertNull(cleaner.clean(write(responseOfSize(DumpFileCleaner.MAP_THRESHOLD * 2, "")), summary));
+        assertNull(cleaner.clean(write("HTTP/1.1 204 No Content\r\n\r\n"), summary));
+        
+        assertEquals(3, summary.getSkipped(SkipReason.NO_CHANGE));
+        assertEquals(0, summary.getModified());
+    }
+    
+    @Test
+    void bodyStartingWithSpacesIsCheckedButNotChanged() throws IOException {
+        assertNull(cleaner.clean(write(response("  {\"key\": \"value\"}")), summary));
+        
+        assertEquals(1, summary.getSkipped(SkipReason.NO_CHANGE));
+    }
+    
+    @Test
+    void skipReasonsComeFromTheHead() throws IOException {
+        assertNull(cleaner.clean(write(""), summary));
+        assertNull(cleaner.clean(write("HTTP/1.1 200 OK\r\nContent-Type: text/plain\r\n"), summary));
+        assertNull(cleaner.clean(write("HTTP/1.1 200 OK\r\nContent-Encoding: gzip\r\n\r\n\r\nx"), summary));
+        assertNull(cleaner.clean(write("HTTP/1.1 200 OK\r\nContent-Type: image/png\r\n\r\n\r\nx"), summary));
+        
+        assertEquals(2, summary.getSkipped(SkipReason.TOO_SHORT));
+        assertEquals(1, summary.getSkipped(SkipReason.ENCODED));
+        assertEquals(1, summary.getSkipped(SkipReason.BINARY_CONTENT_TYPE));
+    }
+    
+    @Test
+    void undeclaredBinaryBodyIsNotCleaned() throws IOException {
+        StringBuilder body = new StringBuilder("\r\n");
+        for (int i = 0; i < 256; i++) {
+            body.append((char) (0x80 + i % 64));
+        }
+        
+        assertNull(cleaner.clean(write("HTTP/1.1 200 OK\r\n\r\n" + body), summary));
+        assertEquals(1, summary.getSkipped(SkipReason.BINARY_CONTENT));
+    }
+    
+    @Test
+    void chunkedBodyIsCleanedWithoutContentLength() throws IOException {
+        String head = "HTTP/1.1 200 OK\r\nContent-Type: text/plain\r\nTransfer-Encoding: chunked\r\n\r\n";
+        
+        byte[] cleaned = cleaner.clean(write(head + "7\r\n\n\nhello\r\n0\r\n\r\n"), summary);
+        
+        assertEquals(head + "5\r\nhello\r\n0\r\n\r\n", text(cleaned));
+    }
+    
+    private Path write(String message) throws IOException {
+        Path file = Files.createTempFile(directory, "message", ".http");
+        Files.write(file, message.getBytes(StandardCharsets.ISO_8859_1));
+        return file;
+    }
+    
+    private static String response(String body) {
+        return "HTTP/1.1 200 OK\r\nContent-Type: application/json\r\nContent-Length: "
+            + body.length() + "\r\n\r\n" + body;
+    }
+    
+    /**
+     * 生成总长度恰好为 size 的 JSON 响应
+     */
+    private static String responseOfSize(int size, String leadingBlankLines) {
+        String head = "HTTP/1.1 200 OK\r\nContent-Type: application/json\r\nContent-Length: ";
+        // Content-Length 的位数取决于正文长度
+        int digits = Integer.toString(size).length();
+        int bodyLength = size - head.length() - digits - 4;
+        if (Integer.toString(bodyLength).length() < digits) {
+            bodyLength++;
+        }
+        String body = leadingBlankLines + "\"" + "a".repeat(bodyLength - leadingBlankLines.length() - 2) + "\"";
+        String message = head + body.length() + "\r\n\r\n" + body;
+        assertEquals(size, message.length());
+        return message;
+    }
+    
+    private static String text(byte[] bytes) {
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2024. All rights reserved.
+ */
+
+package oxff.org.config;
+
+import burp.api.montoya.core.ToolType;
+import org.junit.jupiter.api.Test;
+import oxff.org.cleaning.CleaningStrategyType;
+import oxff.org.logging.LogLevel;
+import oxff.org.util.BinarySignatureTable;
+import oxff.org.util.MediaTypeClassifier;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 验证 with* 方法只替换对应的字段，其余字段原样带入新快照，原快照不受影响
+ */
+class ConfigSnapshotTest {
+    
+    @Test
+    void defaultsMatchPluginConfigConstants() {
+        ConfigSnapshot defaults = ConfigSnapshot.defaults();
+        
+        assertEquals(ConfigSnapshot.DEFAULT_ENABLED_MODULES, defaults.getEnabledModules());
+        assertFalse(defaults.isTargetScopeOnly());
+        assertEquals(PluginConfig.DEFAULT_SNIFF_WINDOW_SIZE, defaults.getSniffWindowSize());
+        assertEquals(PluginConfig.DEFAULT_SNIFF_TAIL_SIZE, defaults.getSniffTailSize());
+        assertTrue(defaults.getCustomBinarySignatures().isEmpty());
+        assertSame(BinarySignatureTable.defaults(), defaults.getBinarySignatureTable());
+        assertSame(MediaTypeClassifier.defaults(), defaults.getMediaTypeClassifier());
+        assertEquals(PluginConfig.DEFAULT_LOG_LEVEL, defaults.getLogLevel());
+        assertEquals(PluginConfig.DEFAULT_MAX_ANALYSIS_SIZE, defaults.getMaxAnalysisSize());
+        assertEquals(PluginConfig.DEFAULT_MAX_CLEAN_SIZE, defaults.getMaxCleanSize());
+        assertEquals(PluginConfig.DEFAULT_LARGE_BODY_POLICY, defaults.getLargeBodyPolicy());
+        assertEquals(PluginConfig.DEFAULT_CLEANING_STRATEGIES, defaults.getCleaningStrategies());
+        assertEquals(PluginConfig.DEFAULT_MAX_DECODED_SIZE, defaults.getMaxDecodedSize());
+    }
+    
+    @Test
+    void eachWithKeepsTheOtherFields() {
+        ConfigSnapshot defaults = ConfigSnapshot.defaults();
+        ConfigSnapshot snapshot = defaults
+            .withEnabledModules(EnumSet.of(ToolType.REPEATER))
+            .withTargetScopeOnly(true)
+            .withSniffWindow(1024, 256)
+            .withCustomBinarySignatures(List.of("DE AD BE EF"))
+            .withMediaTypes(List.of("application/x-custom"), List.of("application/x-blob"))
+            .withLogLevel(LogLevel.DEBUG)
+            .withAdaptiveBypass(true)
+            .withBodySizeLimits(4096, 8192, LargeBodyPolicy.SKIP)
+            .withCleaningStrategies(EnumSet.of(CleaningStrategyType.TRAILING))
+            .withRawMode(true)
+            .withCompressedBodies(true, 2048);
+        
+        assertEquals(Set.of(ToolType.REPEATER), snapshot.getEnabledModules());
+        assertTrue(snapshot.isModuleEnabled(ToolType.REPEATER));
+        assertFalse(snapshot.isModuleEnabled(ToolType.PROXY));
+        assertTrue(snapshot.isTargetScopeOnly());
+        assertEquals(1024, snapshot.getSniffWindowSize());
+        assertEquals(256, snapshot.getSniffTailSize());
+        assertEquals(List.of("DE AD BE EF"), snapshot.getCustomBinarySignatures());
+        assertNotSame(BinarySignatureTable.defaults(), snapshot.getBinarySignatureTable());
+        assertEquals(List.of("application/x-custom"), snapshot.getTextMediaTypes());
+        assertEquals(List.of("application/x-blob"), snapshot.getBinaryMediaTypes());
+        assertEquals(MediaTypeClassifier.Category.BINARY, snapshot.getMediaTypeClassifier().classify("application/x-blob"));
+        assertEquals(LogLevel.DEBUG, snapshot.getLogLevel());
+        assertTrue(snapshot.isAdaptiveBypass());
+        assertEquals(4096, snapshot.getMaxAnalysisSize());
+        assertEquals(8192, snapshot.getMaxCleanSize());
+        assertEquals(LargeBodyPolicy.SKIP, snapshot.getLargeBodyPolicy());
+        assertEquals(Set.of(CleaningStrategyType.TRAILING), snapshot.getCleaningStrategies());
+        assertTrue(snapshot.isRawMode());
+        assertTrue(snapshot.isDecodeCompressed());
+        assertEquals(2048, snapshot.getMaxDecodedSize());
+        
+        // 原快照不受影响
+        assertEquals(ConfigSnapshot.DEFAULT_ENABLED_MODULES, defaults.getEnabledModules());
+        assertFalse(defaults.isTargetScopeOnly());
+        assertFalse(defaults.isRawMode());
+    }
+    
+    @Test
+    void invalidValuesAreClamped() {
+        ConfigSnapshot snapshot = ConfigSnapshot.defaults()
+            .withSniffWindow(-1, -1)
+            .withBodySizeLimits(-1, -1, null)
+            .withLogLevel(null)
+            .withCompressedBodies(false, 0);
+        
+        assertEquals(0, snapshot.getSniffWindowSize());
+        assertEquals(0, snapshot.getSniffTailSize());
+        assertEquals(0, snapshot.getMaxAnalysisSize());
+        assertEquals(0, snapshot.getMaxCleanSize());
+        assertEquals(PluginConfig.DEFAULT_LARGE_BODY_POLICY, snapshot.getLargeBodyPolicy());
+        assertEquals(PluginConfig.DEFAULT_LOG_LEVEL, snapshot.getLogLevel());
+        assertEquals(1, snapshot.getMaxDecodedSize());
+    }
+    
+    @Test
+    void emptyModuleSetDisablesEveryTool() {
+        ConfigSnapshot snapshot = ConfigSnapshot.defaults().withEnabledModules(Set.of());
+        
+        for (ToolType toolType : ToolType.values()) {
+            assertFalse(snapshot.isModuleEnabled(toolType), toolType.name());
+        }
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2024. All rights reserved.
+ */
+
+package oxff.org.handler;
+
+import burp.api.montoya.http.HttpService;
+import burp.api.montoya.http.message.requests.HttpRequest;
+import org.junit.jupiter.api.Test;
+import oxff.org.config.ConfigSnapshot;
+import oxff.org.metrics.MessageDirection;
+
+import java.lang.reflect.Proxy;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 验证端点表的分键、按配置快照重新学习和按访问时间淘汰
+ * 
+ * HttpRequest 用动态代理模拟，只实现生成端点键用到的方法。
+ */
+class EndpointBypassTableTest {
+    
+    private final ConfigSnapshot snapshot = ConfigSnapshot.defaults();
+    private long now;
+    private final EndpointBypassTable table = new EndpointBypassTable(() -> now);
+    
+    @Test
+    void methodsAndDirectionsAreLearnedSeparately() {
+        EndpointStats get = table.lookup(MessageDirection.REQUEST, request("GET", "/api"), snapshot);
+        EndpointStats post = table.lookup(MessageDirection.REQUEST, request("POST", "/api"), snapshot);
+        EndpointStats response = table.lookup(MessageDirection.RESPONSE, request("GET", "/api"), snapshot);
+        
+        assertNotSame(get, post);
+        assertNotSame(get, response);
+        assertSame(get, table.lookup(MessageDirection.REQUEST, request("GET", "/api"), snapshot));
+        assertEquals(3, table.size());
+    }
+    
+    @Test
+    void longPathsShareTheTruncatedKey() {
+        String prefix = "/" + "a".repeat(200);
+        
+        EndpointStats first = table.lookup(MessageDirection.REQUEST, request("GET", prefix + "/1"), snapshot);
+        EndpointStats second = table.lookup(MessageDirection.REQUEST, request("GET", prefix + "/2"), snapshot);
+        
+        assertSame(first, second);
+    }
+    
+    @Test
+    void newSnapshotClearsLearnedState() {
+        EndpointStats stats = table.lookup(MessageDirection.RESPONSE, request("GET", "/api"), snapshot);
+        for (int i = 0; i < EndpointStats.LEARNING_SAMPLES; i++) {
+            stats.recordOutcome(false);
+        }
+        assertTrue(table.shouldBypass(stats));
+        assertSame(stats, table.lookup(MessageDirection.RESPONSE, request("GET", "/api"), snapshot));
+        
+        ConfigSnapshot changed = snapshot.withCompressedBodies(true, snapshot.getMaxDecodedSize());
+        EndpointStats relearning = table.lookup(MessageDirection.RESPONSE, request("GET", "/api"), changed);
+        
+        assertNotSame(stats, relearning);
+        assertFalse(table.shouldBypass(relearning));
+        assertEquals(1, table.size());
+        assertEquals(0, table.getBypassingCount());
+    }
+    
+    @Test
+    void leastRecentlySeenEntriesAreEvicted() {
+        for (int i = 0; i < EndpointBypassTable.MAX_ENTRIES; i++) {
+            now = i;
+            table.lookup(MessageDirection.REQUEST, request("GET", "/" + i), snapshot);
+        }
+        // 最早创建的条目最近又被访问过，不应被淘汰
+        now = EndpointBypassTable.MAX_ENTRIES;
+        EndpointStats recent = table.lookup(MessageDirection.REQUEST, request("GET", "/0"), snapshot);
+        table.shouldBypass(recent);
+        
+        now++;
+        table.lookup(MessageDirection.REQUEST, request("GET", "/new"), snapshot);
+        
+        int evicted = EndpointBypassTable.MAX_ENTRIES / 8;
+        assertEquals(EndpointBypassTable.MAX_ENTRIES - evicted + 1, table.size());
+        Set<String> keys = new HashSet<>();
+        for (EndpointStats stats : table.entries()) {
+            keys.add(stats.getKey());
+        }
+        assertTrue(keys.contains(recent.getKey()));
+        assertTrue(keys.contains(recent.getKey().replace("/0", "/new")));
+        for (int i = 1; i <= evicted; i++) {
+            assertFalse(keys.contains(recent.getKey().replace("/0", "/" + i)), "/" + i);
+        }
+        assertTrue(keys.contains(recent.getKey().replace("/0", "/" + (evicted + 1))));
+        assertSame(recent, table.lookup(MessageDirection.REQUEST, request("GET", "/0"), snapshot));
+    }
+    
+    private static HttpRequest request(String method, String path) {
+        HttpService service = (HttpService) Proxy.newProxyInstance(HttpService.class.getClassLoader(),
+            new Class<?>[]{HttpService.class}, (proxy, m, args) -> {
+                if (m.getName().equals("host")) {
+                    return "example.com";
+                }
+                throw new UnsupportedOperationException("HttpService." + m.getName());
+            });
+        return (HttpRequest) Proxy.newProxyInstance(HttpRequest.class.getClassLoader(),
+            new Class<?>[]{HttpRequest.class}, (proxy, m, args) -> {
+                switch (m.getName()) {
+                    case "method":
+                        return method;
+                    case "pathWithoutQuery":
+                        return path;
+                    case "httpService":
+                        return service;
+                    default:
+                        throw new UnsupportedOperationException("HttpRequest." + m.getName());
+                }
+            });
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2024. All rights reserved.
+ */
+
+package oxff.org.handler;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 验证端点统计的学习、抽样和重新学习
+ */
+class EndpointStatsTest {
+    
+    private final EndpointStats stats = new EndpointStats("响应 GET example.com/api", 0);
+    
+    @Test
+    void endpointEntersBypassAfterLearningSamples() {
+        recordClean(EndpointStats.LEARNING_SAMPLES - 1);
+        assertFalse(stats.isBypassing());
+        assertFalse(stats.shouldBypass(1));
+        
+        recordClean(1);
+        assertTrue(stats.isBypassing());
+        assertTrue(stats.shouldBypass(2));
+        assertEquals(EndpointStats.LEARNING_SAMPLES, stats.getObserved());
+        assertEquals(1, stats.getBypassed());
+        assertEquals(2, stats.getLastSeen());
+    }
+    
+    @Test
+    void modifiedMessageRestartsLearning() {
+        recordClean(EndpointStats.LEARNING_SAMPLES - 1);
+        stats.recordOutcome(true);
+        recordClean(EndpointStats.LEARNING_SAMPLES);
+        
+        assertFalse(stats.isBypassing());
+        assertEquals(1, stats.getModified());
+    }
+    
+    @Test
+    void bypassingEndpointProbesEveryInterval() {
+        recordClean(EndpointStats.LEARNING_SAMPLES);
+        
+        int probes = 0;
+        for (int i = 0; i < EndpointStats.PROBE_INTERVAL * 3; i++) {
+            if (!stats.shouldBypass(i)) {
+                probes++;
+                assertEquals(EndpointStats.PROBE_INTERVAL - 1, i % EndpointStats.PROBE_INTERVAL);
+            }
+        }
+        
+        assertEquals(3, probes);
+        assertEquals(EndpointStats.PROBE_INTERVAL * 3 - 3, stats.getBypassed());
+    }
+    
+    @Test
+    void modifiedProbeLeavesBypass() {
+        recordClean(EndpointStats.LEARNING_SAMPLES);
+        int bypassed = 0;
+        while (stats.shouldBypass(0)) {
+            bypassed++;
+        }
+        assertEquals(EndpointStats.PROBE_INTERVAL - 1, bypassed);
+        
+        stats.recordOutcome(true);
+        
+        assertFalse(stats.isBypassing());
+        assertFalse(stats.shouldBypass(0));
+    }
+    
+    @Test
+    void previouslyModifiedEndpointNeedsRelearningSamples() {
+        stats.recordOutcome(true);
+        recordClean(EndpointStats.LEARNING_SAMPLES);
+        assertFalse(stats.isBypassing());
+        
+        recordClean(EndpointStats.RELEARNING_SAMPLES - EndpointStats.LEARNING_SAMPLES - 1);
+        assertFalse(stats.isBypassing());
+        
+        recordClean(1);
+        assertTrue(stats.isBypassing());
+    }
+    
+    @Test
+    void cleanCountStopsAtRelearningSamples() {
+        recordClean(EndpointStats.RELEARNING_SAMPLES * 3);
+        
+        // 计数不会无限增长，一次修改后同样需要完整的重新学习
+        stats.recordOutcome(true);
+        recordClean(EndpointStats.RELEARNING_SAMPLES - 1);
+        assertFalse(stats.isBypassing());
+        recordClean(1);
+        assertTrue(stats.isBypassing());
+    }
+    
+    private void recordClean(int count) {
+        for (int i = 0; i < count; i++) {
+            stats.recordOutcome(false);
+        }
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2024. All rights reserved.
+ */
+
+package oxff.org.har;
+
+import oxff.org.config.ConfigSnapshot;
+import oxff.org.metrics.MessageDirection;
+import oxff.org.metrics.SkipReason;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 使用 har/sample.har 验证 HAR 文件的清理结果
+ * 
+ * 样例包含 4 条记录：
+ * 1. JSON 请求正文和 HTML 响应正文，开头都有空行，长度字段与正文一致
+ * 2. gzip 传输的脚本，content.size 为正文长度，bodySize 和 Content-Length 为传输长度
+ * 3. base64 编码的响应正文
+ * 4. 包含孤立代理字符（\ud800）的响应正文
+ */
+class HarCleanerTest {
+    
+    private final HarCleaner cleaner = new HarCleaner(ConfigSnapshot.defaults());
+    
+    @Test
+    void textAndLengthFieldsAreUpdated() throws IOException {
+        List<Object> entries = entries(clean(fixture()));
+        
+        Map<String, Object> request = object(entries.get(0), "request");
+        assertEquals("{\"a\":1}", object(request, "postData").get("text"));
+        assertEquals(JsonNumber.of(7), request.get("bodySize"));
+        assertEquals("7", headerValue(request, "Content-Length"));
+        
+        Map<String, Object> response = object(entries.get(0), "response");
+        Map<String, Object> content = object(response, "content");
+        assertEquals("<html></html>", content.get("text"));
+        assertEquals(JsonNumber.of(13), content.get("size"));
+        assertEquals(JsonNumber.of(13), response.get("bodySize"));
+        assertEquals("13", headerValue(response, "content-length"));
+    }
+    
+    @Test
+    void transferLengthsOfCompressedResponseAreKept() throws IOException {
+        Map<String, Object> response = object(entries(clean(fixture())).get(1), "response");
+        Map<String, Object> content = object(response, "content");
+        
+        assertEquals("var a = 1;\n", content.get("text"));
+        assertEquals(JsonNumber.of(11), content.get("size"));
+        assertEquals(JsonNumber.of(9), response.get("bodySize"));
+        assertEquals("9", headerValue(response, "Content-Length"));
+    }
+    
+    @Test
+    void base64AndUnpairedSurrogateBodiesAreUntouched() throws IOException {
+        List<Object> entries = entries(clean(fixture()));
+        
+        Map<String, Object> base64 = object(object(entries.get(2), "response"), "content");
+        assertEquals("DQoNCmFiYw==", base64.get("text"));
+        assertEquals(JsonNumber.of(7), base64.get("size"));
+        
+        Map<String, Object> surrogate = object(object(entries.get(3), "response"), "content");
+        assertEquals("\n\n\ud800ab", surrogate.get("text"));
+        assertEquals(JsonNumber.of(6), surrogate.get("size"));
+    }
+    
+    @Test
+    void summaryCountsEveryBody() throws IOException {
+        StringWriter out = new StringWriter();
+        HarCleaningSummary summary = cleaner.clean(new StringReader(fixture()), out);
+        
+        assertEquals(4, summary.getEntries());
+        assertEquals(1, summary.getSeen(MessageDirection.REQUEST));
+        assertEquals(1, summary.getModified(MessageDirection.REQUEST));
+        assertEquals(4, summary.getBytesRemoved(MessageDirection.REQUEST));
+        assertEquals(4, summary.getSeen(MessageDirection.RESPONSE));
+        assertEquals(2, summary.getModified(MessageDirection.RESPONSE));
+        assertEquals(4, summary.getBytesRemoved(MessageDirection.RESPONSE));
+        assertEquals(1, summary.getSkipped(MessageDirection.RESPONSE, SkipReason.ENCODED));
+        assertEquals(1, summary.getSkipped(MessageDirection.RESPONSE, SkipReason.BINARY_CONTENT));
+    }
+    
+    @Test
+    void contentOutsideEntriesIsCopiedAsIs() throws IOException {
+        String cleaned = clean(fixture());
+        
+        assertTrue(cleaned.contains("\"time\": 12.50"));
+        assertTrue(cleaned.contains("\"time\": 1e1"));
+        assertEquals(clean(cleaned), cleaned);
+    }
+    
+    @Test
+    void fileIsCleanedWithUnpairedSurrogateKept(@TempDir Path dir) throws IOException {
+        Path input = dir.resolve("input.har");
+        Path output = dir.resolve("output.har");
+        Files.writeString(input, fixture(), StandardCharsets.UTF_8);
+        
+        cleaner.clean(input, output);
+        
+        List<Object> entries = entries(Files.readString(output, StandardCharsets.UTF_8));
+        assertEquals("{\"a\":1}", object(object(entries.get(0), "request"), "postData").get("text"));
+        assertEquals("\n\n\ud800ab", object(object(entries.get(3), "response"), "content").get("text"));
+    }
+    
+    @Test
+    void malformedFileLeavesNoOutput(@TempDir Path dir) throws IOException {
+        Path input = dir.resolve("input.har");
+        Path output = dir.resolve("output.har");
+        Files.writeString(input, "{\"log\": {\"entries\": [{\"request\": {}}", StandardCharsets.UTF_8);
+        
+        assertThrows(IOException.class, () -> cleaner.clean(input, output));
+        assertFalse(Files.exists(output));
+        assertThrows(IOException.class, () -> cleaner.clean(input, input));
+    }
+    
+    @Test
+    void malformedDocumentsAreRejected() {
+        assertThrows(IOException.class, () -> clean(""));
+        assertThrows(IOException.class, () -> clean("{\"log\": {\"entries\": [{} {}]}}"));
+        assertThrows(IOException.class, () -> clean("{\"log\": {}} {\"log\": {}}"));
+        assertThrows(IOException.class, () -> clean("{\"log\": {\"entries\": [{\"request\": tru}]}}"));
+    }
+    
+    private String clean(String har) throws IOException {
+        StringWriter out = new StringWriter();
+        cleaner.clean(new StringReader(har), out);
+        return out.toString();
+    }
+    
+    private static String fixture() throws IOException {
+        try (InputStream in = HarCleanerTest.class.getResourceAsStream("/har/sample.har")) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static List<Object> entries(String har) throws IOException {
+        Map<String, Object> root = (Map<String, Object>) new JsonReader(new StringReader(har)).readValue();
+        return (List<Object>) object(root, "log").get("entries");
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> object(Object parent, String name) {
+        return (Map<String, Object>) ((Map<String, Object>) parent).get(name);
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static String headerValue(Map<String, Object> message, String name) {
+        for (Object header : (List<Object>) message.get("headers")) {
+            Map<String, Object> map = (Map<String, Object>) header;
+            if (name.equals(map.get("name"))) {
+                return (String) map.get("value");
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2024. All rights reserved.
+ */
+
+package oxff.org.har;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 验证拉取式 JSON 解析器的记号读取、转义处理和格式错误检查
+ */
+class JsonReaderTest {
+    
+    @Test
+    void tokensAreReadInOrder() throws IOException {
+        JsonReader reader = reader("{\"a\": [1, \"x\", true, null], \"b\": {}}");
+        
+        assertEquals(JsonToken.BEGIN_OBJECT, reader.peek());
+        reader.beginObject();
+        assertEquals("a", reader.nextName());
+        reader.beginArray();
+        assertEquals(JsonNumber.of(1), reader.nextNumber());
+        assertEquals("x", reader.nextString());
+        assertTrue(reader.nextBoolean());
+        assertEquals(JsonToken.NULL, reader.peek());
+        reader.nextNull();
+        assertFalse(reader.hasNext());
+        reader.endArray();
+        assertEquals("b", reader.nextName());
+        reader.beginObject();
+        reader.endObject();
+        reader.endObject();
+        assertEquals(JsonToken.END_DOCUMENT, reader.peek());
+    }
+    
+    @Test
+    void readValueBuildsMapsAndLists() throws IOException {
+        Object value = reader("{\"n\": -1.50e+3, \"list\": [false, {\"k\": \"v\"}], \"z\": null}").readValue();
+        
+        Map<?, ?> object = (Map<?, ?>) value;
+        assertEquals(Arrays.asList("n", "list", "z"), List.copyOf(object.keySet()));
+        assertEquals("-1.50e+3", object.get("n").toString());
+        List<?> list = (List<?>) object.get("list");
+        assertEquals(Boolean.FALSE, list.get(0));
+        assertEquals("v", ((Map<?, ?>) list.get(1)).get("k"));
+        assertTrue(object.containsKey("z"));
+        assertNull(object.get("z"));
+    }
+    
+    @Test
+    void escapesAreDecoded() throws IOException {
+        String json = "\"\\r\\n\\t\\b\\f\\\"\\\\\\/\\u00e9\\ud83d\\ude00\\ud800\"";
+        
+        assertEquals("\r\n\t\b\f\"\\/\u00e9\ud83d\ude00\ud800", reader(json).nextString());
+    }
+    
+    @Test
+    void stringsAcrossBufferBoundariesAreRead() throws IOException {
+        String text = "a\\n".repeat(10000) + "end";
+        
+        assertEquals("a\n".repeat(10000) + "end", reader("\"" + text + "\"").nextString());
+    }
+    
+    @Test
+    void deepNestingIsSupported() throws IOException {
+        int depth = 100;
+        String json = "[".repeat(depth) + "]".repeat(depth);
+        
+        Object value = reader(json).readValue();
+        for (int i = 1; i < depth; i++) {
+            value = ((List<?>) value).get(0);
+        }
+        assertEquals(List.of(), value);
+    }
+    
+    @Test
+    void missingSeparatorsAreRejected() {
+        assertSyntaxError("[1 2]");
+        assertSyntaxError("{\"a\": 1 \"b\": 2}");
+        assertSyntaxError("{\"a\" 1}");
+        assertSyntaxError("{a: 1}");
+    }
+    
+    @Test
+    void invalidStringsAreRejected() {
+        assertSyntaxError("\"unterminated");
+        assertSyntaxError("\"\\x\"");
+        assertSyntaxError("\"\\u12g4\"");
+    }
+    
+    @Test
+    void invalidNumbersAndLiteralsAreRejected() {
+        assertSyntaxError("01");
+        assertSyntaxError("1.");
+        assertSyntaxError("-");
+        assertSyntaxError("[tru]");
+        assertSyntaxError("nul");
+        assertSyntaxError("@");
+    }
+    
+    @Test
+    void incompleteOrExtraContentIsRejected() {
+        assertSyntaxError("");
+        assertSyntaxError("{\"a\": ");
+        assertSyntaxError("[1, 2");
+        assertSyntaxError("{} {}");
+    }
+    
+    @Test
+    void wrongTokenIsRejected() {
+        assertThrows(IOException.class, () -> reader("[]").beginObject());
+        assertThrows(IOException.class, () -> reader("\"a\"").nextNumber());
+    }
+    
+    @Test
+    void errorMessageContainsOffset() {
+        IOException e = assertThrows(IOException.class, () -> readAll("[1, 2 3]"));
+        
+        assertTrue(e.getMessage().contains("字符偏移 7"), e.getMessage());
+    }
+    
+    private static JsonReader reader(String json) {
+        return new JsonReader(new StringReader(json));
+    }
+    
+    /**
+     * 读取完整文档，并确认之后没有多余内容
+     */
+    private static void readAll(String json) throws IOException {
+        JsonReader reader = reader(json);
+        reader.readValue();
+        reader.peek();
+    }
+    
+    private static void assertSyntaxError(String json) {
+        assertThrows(IOException.class, () -> readAll(json), json);
+    }
+}
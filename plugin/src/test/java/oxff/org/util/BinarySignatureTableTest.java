@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2024. All rights reserved.
+ */
+
+package oxff.org.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 验证魔数表的编译（去重、前缀覆盖、自定义签名、最小长度）和十六进制签名解析
+ */
+class BinarySignatureTableTest {
+    
+    private static final BinarySignatureTable DEFAULTS = BinarySignatureTable.defaults();
+    
+    @Test
+    void builtInSignaturesMatchByFirstByte() {
+        assertTrue(matches(DEFAULTS, "89 50 4E 47 0D 0A 1A 0A"));
+        assertTrue(matches(DEFAULTS, "52 49 46 46 24 00 00 00 57 41 56 45"));
+        assertTrue(matches(DEFAULTS, "00 00 00 20 66 74 79 70"));
+        assertFalse(matches(DEFAULTS, "00 00 00 20 66 74 79"));
+        assertFalse(matches(DEFAULTS, "7B 22 6B 65 79 22 3A"));
+        assertFalse(matches(DEFAULTS, "89 50 4E"));
+    }
+    
+    @Test
+    void duplicateSignaturesAreCompiledOnce() {
+        // 原先的魔数表中 RIFF 出现两次（WEBP 和 WAV/AVI），再加一次也只保留一个
+        int count = DEFAULTS.signatureCount();
+        
+        BinarySignatureTable table = BinarySignatureTable.compile(List.of(hex("52 49 46 46"), hex("52494646")));
+        
+        assertEquals(count, table.signatureCount());
+        assertTrue(matches(table, "52 49 46 46 00"));
+    }
+    
+    @Test
+    void longerSignatureCoveredByAPrefixIsDropped() {
+        int count = DEFAULTS.signatureCount();
+        
+        BinarySignatureTable longer = BinarySignatureTable.compile(List.of(hex("52 49 46 46 57 41 56 45")));
+        
+        assertEquals(count, longer.signatureCount());
+    }
+    
+    @Test
+    void shorterCustomSignatureReplacesTheLongerOnes() {
+        int count = DEFAULTS.signatureCount();
+        
+        // "PK" 覆盖三个 ZIP 签名
+        BinarySignatureTable table = BinarySignatureTable.compile(List.of(hex("50 4B")));
+        
+        assertEquals(count - 2, table.signatureCount());
+        assertTrue(matches(table, "50 4B 03 04"));
+        assertTrue(matches(table, "50 4B 01 02"));
+        assertFalse(matches(DEFAULTS, "50 4B 01 02"));
+    }
+    
+    @Test
+    void customSignaturesAreMatchedAndIgnoredWhenEmpty() {
+        BinarySignatureTable table = BinarySignatureTable.compile(List.of(hex("AB CD EF"), new byte[0]));
+        
+        assertEquals(DEFAULTS.signatureCount() + 1, table.signatureCount());
+        assertTrue(matches(table, "AB CD EF 01"));
+        assertFalse(matches(table, "AB CD"));
+        assertFalse(matches(table, "AB CD EE"));
+        assertFalse(matches(DEFAULTS, "AB CD EF 01"));
+    }
+    
+    @Test
+    void minimumLengthFollowsTheShortestSignature() {
+        // 内置签名最短为 2 字节，"B" 不能单独匹配 BMP 的 "BM"
+        assertFalse(matches(DEFAULTS, "42"));
+        assertFalse(DEFAULTS.matches(hex("42 4D"), 1));
+        assertTrue(DEFAULTS.matches(hex("42 4D"), 2));
+        
+        BinarySignatureTable table = BinarySignatureTable.compile(List.of(hex("AB")));
+        assertTrue(matches(table, "AB"));
+        assertTrue(table.matches(HttpBodyView.of(hex("AB"))));
+        assertFalse(matches(table, ""));
+        assertFalse(table.matches(null, 0));
+    }
+    
+    @Test
+    void viewAndArrayLookupsAgree() {
+        String[] samples = {"FF D8 FF E0", "FF FB", "FF F3 00", "FF F4", "4D 5A", "4D 4D 00 2A", "4D 4D 00", "1F 8B 08"};
+        for (String sample : samples) {
+            byte[] bytes = hex(sample);
+            assertEquals(DEFAULTS.matches(bytes, bytes.length), DEFAULTS.matches(HttpBodyView.of(bytes)), sample);
+        }
+    }
+    
+    @Test
+    void hexIsParsedWithSeparatorsAndPrefix() {
+        byte[] png = {(byte) 0x89, 0x50, 0x4E, 0x47};
+        
+        assertArrayEquals(png, BinarySignatureTable.parseHex("89 50 4E 47"));
+        assertArrayEquals(png, BinarySignatureTable.parseHex("89504e47"));
+        assertArrayEquals(png, BinarySignatureTable.parseHex("0x89504E47"));
+        assertArrayEquals(png, BinarySignatureTable.parseHex("89:50-4E,47"));
+        assertArrayEquals(png, BinarySignatureTable.parseHex(" 0X 89 50\t4E 47 "));
+    }
+    
+    @Test
+    void invalidHexIsRejected() {
+        for (String invalid : new String[]{"", " ", "0x", "ABC", "8G", "GG 00", "12 3", "0x1", "89 50 4E 4?"}) {
+            assertThrows(IllegalArgumentException.class, () -> BinarySignatureTable.parseHex(invalid), invalid);
+        }
+    }
+    
+    private static boolean matches(BinarySignatureTable table, String hex) {
+        byte[] bytes = hex.isEmpty() ? new byte[0] : hex(hex);
+        return table.matches(bytes, bytes.length);
+    }
+    
+    private static byte[] hex(String hex) {
+        return BinarySignatureTable.parseHex(hex);
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2024. All rights reserved.
+ */
+
+package oxff.org.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * 验证分块正文的清理方案：按方案拼接出的新正文必须仍是有效的分块格式
+ */
+class ChunkedBodyCleanerTest {
+    
+    private final ChunkedBodyCleaner cleaner = new ChunkedBodyCleaner();
+    
+    @Test
+    void leadingBlankLinesInFirstChunkAreRemoved() {
+        assertEquals("5\r\nhello\r\n0\r\n\r\n", clean("9\r\n\r\n\r\nhello\r\n0\r\n\r\n"));
+    }
+    
+    @Test
+    void allBlankLeadingChunksAreDropped() {
+        assertEquals("5\r\nhello\r\n0\r\n\r\n", clean("2\r\n\r\n\r\n2\r\n\n\n\r\n5\r\nhello\r\n0\r\n\r\n"));
+    }
+    
+    @Test
+    void laterChunksAreKeptAsIs() {
+        assertEquals("5\r\nhello\r\n3\r\n\n\nx\r\n0\r\n\r\n", clean("7\r\n\n\nhello\r\n3\r\n\n\nx\r\n0\r\n\r\n"));
+    }
+    
+    @Test
+    void unchangedBodyIsNotRewritten() {
+        assertNull(clean("5\r\nhello\r\n0\r\n\r\n"));
+        assertNull(clean("5;name=value\r\nhello\r\n0\r\n\r\n"));
+    }
+    
+    @Test
+    void onlyBlankChunksAreLeftAlone() {
+        assertNull(clean("2\r\n\r\n\r\n0\r\n\r\n"));
+    }
+    
+    @Test
+    void chunkExtensionsAreSkippedAndNotKept() {
+        assertEquals("5\r\nhello\r\n0\r\n\r\n", clean("9;name=value\r\n\r\n\r\nhello\r\n0\r\n\r\n"));
+        assertEquals("5\r\nhello\r\n0\r\n\r\n", clean("2;a=b\r\n\r\n\r\n5;c=d\r\nhello\r\n0\r\n\r\n"));
+    }
+    
+    @Test
+    void missingFinalChunkStillCleansTheFirstContentChunk() {
+        assertEquals("5\r\nhello\r\n", clean("2\r\n\r\n\r\n5\r\nhello\r\n"));
+    }
+    
+    @Test
+    void blankChunksWithoutFinalChunkAreLeftAlone() {
+        assertNull(clean("2\r\n\r\n\r\n"));
+        assertNull(clean("2\r\n\r\n"));
+    }
+    
+    @Test
+    void truncatedChunkIsLeftAlone() {
+        assertNull(clean("9\r\n\r\n\r\nhel"));
+        assertNull(clean("9"));
+    }
+    
+    @Test
+    void sizeLineWithSevenHexDigitsIsAccepted() {
+        assertEquals("5\r\nhello\r\n0\r\n\r\n", clean("0000009\r\n\r\n\r\nhello\r\n0\r\n\r\n"));
+    }
+    
+    @Test
+    void sizeLineLongerThanSevenHexDigitsIsRejected() {
+        assertNull(clean("00000009\r\n\r\n\r\nhello\r\n0\r\n\r\n"));
+        assertNull(clean("2\r\n\r\n\r\n100000000\r\nhello\r\n0\r\n\r\n"));
+    }
+    
+    @Test
+    void invalidSizeLineIsRejected() {
+        assertNull(clean("\r\n\r\nhello"));
+        assertNull(clean("zz\r\n\r\n\r\n"));
+    }
+    
+    @Test
+    void planWorksInsideAFullMessage() {
+        String head = "HTTP/1.1 200 OK\r\nTransfer-Encoding: chunked\r\n\r\n";
+        byte[] message = (head + "7\r\n\n\nhello\r\n0\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+        
+        long plan = cleaner.plan(HttpBodyView.of(message), head.length(), message.length);
+        
+        assertEquals(head.length() + 5, ChunkedBodyCleaner.cutOffset(plan));
+        assertEquals(5, ChunkedBodyCleaner.chunkSize(plan));
+    }
+    
+    @Test
+    void firstChunkSkipsSizeLineAndExtensions() {
+        HttpBodyView body = view("5;name=value\r\nhello\r\n0\r\n\r\n");
+        
+        long chunk = cleaner.firstChunk(body, 0, body.length());
+        
+        assertEquals(14, ChunkedBodyCleaner.cutOffset(chunk));
+        assertEquals(5, ChunkedBodyCleaner.chunkSize(chunk));
+    }
+    
+    @Test
+    void firstChunkIsClippedToTheBody() {
+        HttpBodyView body = view("a\r\nhello");
+        
+        long chunk = cleaner.firstChunk(body, 0, body.length());
+        
+        assertEquals(3, ChunkedBodyCleaner.cutOffset(chunk));
+        assertEquals(5, ChunkedBodyCleaner.chunkSize(chunk));
+        assertEquals(ChunkedBodyCleaner.NO_CHANGE, cleaner.firstChunk(view("123456789\r\n"), 0, 11));
+    }
+    
+    /**
+     * 按清理方案拼接新正文（与 MessageProcessor 拼接报文的方式相同）
+     * 
+     * @return 新正文，无需修改时返回 null
+     */
+    private String clean(String chunked) {
+        byte[] bytes = chunked.getBytes(StandardCharsets.US_ASCII);
+        long plan = cleaner.plan(HttpBodyView.of(bytes), 0, bytes.length);
+        if (plan == ChunkedBodyCleaner.NO_CHANGE) {
+            return null;
+        }
+        byte[] header = ChunkedBodyCleaner.chunkHeader(plan);
+        byte[] rest = Arrays.copyOfRange(bytes, ChunkedBodyCleaner.cutOffset(plan), bytes.length);
+        return new String(header, StandardCharsets.US_ASCII) + new String(rest, StandardCharsets.US_ASCII);
+    }
+    
+    private static HttpBodyView view(String text) {
+        return HttpBodyView.of(text.getBytes(StandardCharsets.US_ASCII));
+    }
+}
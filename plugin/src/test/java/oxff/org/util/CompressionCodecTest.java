@@ -0,0 +1,194 @@
+/*
+ * Copyright (c) 2024. All rights reserved.
+ */
+
+package oxff.org.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * 验证 gzip / deflate 正文的解压与压缩，以及解压大小上限
+ */
+class CompressionCodecTest {
+    
+    private static final int MAX_SIZE = 1024 * 1024;
+    
+    // gzip 头部标记位：FEXTRA | FNAME
+    private static final int FEXTRA_AND_FNAME = 0x04 | 0x08;
+    
+    private final CompressionCodec codec = new CompressionCodec();
+    private final byte[] text = "\r\n\r\n{\"key\": \"value\"}\n".repeat(50).getBytes(StandardCharsets.UTF_8);
+    
+    @Test
+    void gzipFromJdkIsDecoded() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(text);
+        }
+        
+        assertArrayEquals(text, codec.decode(out.toByteArray(), ContentCoding.GZIP, MAX_SIZE));
+    }
+    
+    @Test
+    void gzipWithExtraFieldAndFileNameIsDecoded() throws IOException {
+        // 附加字段：XLEN=6，一个子字段 "AB"，长度 2
+        byte[] gzip = gzip(FEXTRA_AND_FNAME, new byte[]{6, 0, 'A', 'B', 2, 0, 'x', 'y'}, "body.json", text);
+        
+        assertArrayEquals(text, readAll(new GZIPInputStream(new ByteArrayInputStream(gzip))));
+        assertArrayEquals(text, codec.decode(gzip, ContentCoding.GZIP, MAX_SIZE));
+    }
+    
+    @Test
+    void gzipWithExtraFieldPastTheEndIsRejected() {
+        byte[] gzip = gzip(FEXTRA_AND_FNAME, new byte[]{(byte) 0xFF, (byte) 0xFF}, "body.json", text);
+        
+        assertNull(codec.decode(gzip, ContentCoding.GZIP, MAX_SIZE));
+    }
+    
+    @Test
+    void gzipWithUnterminatedFileNameIsRejected() {
+        byte[] header = {0x1F, (byte) 0x8B, 8, 0x08, 0, 0, 0, 0, 0, (byte) 0xFF};
+        byte[] gzip = Arrays.copyOf(header, 30);
+        Arrays.fill(gzip, header.length, gzip.length, (byte) 'a');
+        
+        assertNull(codec.decode(gzip, ContentCoding.GZIP, MAX_SIZE));
+    }
+    
+    @Test
+    void encodedGzipIsReadableByJdk() throws IOException {
+        byte[] gzip = codec.encode(text, ContentCoding.GZIP);
+        
+        assertArrayEquals(text, readAll(new GZIPInputStream(new ByteArrayInputStream(gzip))));
+        assertArrayEquals(text, codec.decode(gzip, ContentCoding.GZIP, MAX_SIZE));
+    }
+    
+    @Test
+    void rawDeflateIsDecoded() {
+        assertArrayEquals(text, codec.decode(deflate(text, true), ContentCoding.DEFLATE, MAX_SIZE));
+    }
+    
+    @Test
+    void zlibDeflateIsDecoded() {
+        assertArrayEquals(text, codec.decode(deflate(text, false), ContentCoding.DEFLATE, MAX_SIZE));
+    }
+    
+    @Test
+    void encodedDeflateIsZlibFormat() throws IOException {
+        byte[] deflate = codec.encode(text, ContentCoding.DEFLATE);
+        
+        assertArrayEquals(text, readAll(new InflaterInputStream(new ByteArrayInputStream(deflate))));
+    }
+    
+    @Test
+    void outputOverTheCapIsRejected() {
+        byte[] gzip = codec.encode(text, ContentCoding.GZIP);
+        byte[] zlib = deflate(text, false);
+        byte[] raw = deflate(text, true);
+        
+        assertArrayEquals(text, codec.decode(gzip, ContentCoding.GZIP, text.length));
+        assertNull(codec.decode(gzip, ContentCoding.GZIP, text.length - 1));
+        assertArrayEquals(text, codec.decode(zlib, ContentCoding.DEFLATE, text.length));
+        assertNull(codec.decode(zlib, ContentCoding.DEFLATE, text.length - 1));
+        assertArrayEquals(text, codec.decode(raw, ContentCoding.DEFLATE, text.length));
+        assertNull(codec.decode(raw, ContentCoding.DEFLATE, text.length - 1));
+    }
+    
+    @Test
+    void highlyCompressedBodyOverTheCapIsRejected() {
+        byte[] zeros = new byte[8 * 1024 * 1024];
+        byte[] gzip = codec.encode(zeros, ContentCoding.GZIP);
+        
+        assertNull(codec.decode(gzip, ContentCoding.GZIP, 64 * 1024));
+    }
+    
+    @Test
+    void corruptedGzipIsRejected() {
+        byte[] gzip = codec.encode(text, ContentCoding.GZIP);
+        byte[] badCrc = gzip.clone();
+        badCrc[badCrc.length - 8] ^= 1;
+        byte[] twoMembers = Arrays.copyOf(gzip, gzip.length * 2);
+        System.arraycopy(gzip, 0, twoMembers, gzip.length, gzip.length);
+        
+        assertNull(codec.decode(badCrc, ContentCoding.GZIP, MAX_SIZE));
+        assertNull(codec.decode(twoMembers, ContentCoding.GZIP, MAX_SIZE));
+        assertNull(codec.decode(Arrays.copyOf(gzip, gzip.length - 12), ContentCoding.GZIP, MAX_SIZE));
+        assertNull(codec.decode(text, ContentCoding.GZIP, MAX_SIZE));
+    }
+    
+    @Test
+    void invalidDeflateIsRejected() {
+        byte[] zlib = deflate(text, false);
+        
+        assertNull(codec.decode(Arrays.copyOf(zlib, zlib.length / 2), ContentCoding.DEFLATE, MAX_SIZE));
+        assertNull(codec.decode(text, ContentCoding.DEFLATE, MAX_SIZE));
+    }
+    
+    /**
+     * 按 RFC 1952 拼接 gzip 成员：头部 + 可选的附加字段和文件名 + 不带包装的 deflate 数据 + CRC32 + 原始长度
+     */
+    private static byte[] gzip(int flags, byte[] extra, String name, byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(0x1F);
+        out.write(0x8B);
+        out.write(8);
+        out.write(flags);
+        out.writeBytes(new byte[]{0, 0, 0, 0, 0, (byte) 0xFF});
+        if ((flags & 0x04) != 0) {
+            out.writeBytes(extra);
+        }
+        if ((flags & 0x08) != 0) {
+            out.writeBytes(name.getBytes(StandardCharsets.ISO_8859_1));
+            out.write(0);
+        }
+        out.writeBytes(deflate(data, true));
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        writeIntLE(out, (int) crc.getValue());
+        writeIntLE(out, data.length);
+        return out.toByteArray();
+    }
+    
+    private static byte[] deflate(byte[] data, boolean nowrap) {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, nowrap);
+        try {
+            deflater.setInput(data);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+    
+    private static void writeIntLE(ByteArrayOutputStream out, int value) {
+        out.write(value);
+        out.write(value >>> 8);
+        out.write(value >>> 16);
+        out.write(value >>> 24);
+    }
+    
+    private static byte[] readAll(InputStream in) throws IOException {
+        try (InputStream stream = in) {
+            return stream.readAllBytes();
+        }
+    }
+}
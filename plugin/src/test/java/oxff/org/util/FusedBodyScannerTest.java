@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2024. All rights reserved.
+ */
+
+package oxff.org.util;
+
+import oxff.org.config.ConfigSnapshot;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 验证融合扫描的结果：开头空行超出检测窗口时的补充扫描，以及分块传输编码正文的内容检测
+ */
+class FusedBodyScannerTest {
+    
+    private final FusedBodyScanner scanner = new FusedBodyScanner();
+    private final ConfigSnapshot snapshot = ConfigSnapshot.defaults();
+    
+    @Test
+    void binarySignatureInFirstChunkIsDetected() {
+        byte[] png = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n', 0, 0, 0, 0x0D, 'I', 'H', 'D', 'R'};
+        HttpBodyView body = HttpBodyView.of(chunked(png));
+        
+        assertTrue(FusedBodyScanner.isBinary(scanner.scanChunked(body, true, snapshot)));
+    }
+    
+    @Test
+    void textInFirstChunkIsNotBinary() {
+        HttpBodyView body = HttpBodyView.of(chunked("\n\n{\"key\": \"value\"}".getBytes(StandardCharsets.UTF_8)));
+        
+        assertFalse(FusedBodyScanner.isBinary(scanner.scanChunked(body, true, snapshot)));
+    }
+    
+    @Test
+    void leadingBlankLinesBeyondWindowAreFoundInWrappedByteArray() {
+        ConfigSnapshot smallWindow = snapshot.withSniffWindow(16, 0);
+        byte[] bytes = ("\r\n".repeat(40) + "{\"key\": \"value\"}").getBytes(StandardCharsets.UTF_8);
+        
+        long result = scanner.scan(HttpBodyView.of(bytes), true, smallWindow);
+        
+        assertFalse(FusedBodyScanner.isBinary(result));
+        assertTrue(FusedBodyScanner.isModified(result));
+        assertFalse(FusedBodyScanner.isAllBlank(result));
+        assertEquals(80, FusedBodyScanner.trimOffset(result));
+    }
+    
+    @Test
+    void blankRunEndingInsideCrlfAtWindowEdgeIsFullyTrimmed() {
+        ConfigSnapshot smallWindow = snapshot.withSniffWindow(17, 0);
+        byte[] bytes = ("\r\n".repeat(20) + "text").getBytes(StandardCharsets.UTF_8);
+        
+        long result = scanner.scan(HttpBodyView.of(bytes), false, smallWindow);
+        
+        assertTrue(FusedBodyScanner.isModified(result));
+        assertEquals(40, FusedBodyScanner.trimOffset(result));
+    }
+    
+    @Test
+    void bodyOfBlankLinesBeyondWindowIsAllBlank() {
+        ConfigSnapshot smallWindow = snapshot.withSniffWindow(16, 0);
+        byte[] bytes = "\n".repeat(64).getBytes(StandardCharsets.UTF_8);
+        
+        long result = scanner.scan(HttpBodyView.of(bytes), true, smallWindow);
+        
+        assertTrue(FusedBodyScanner.isModified(result));
+        assertTrue(FusedBodyScanner.isAllBlank(result));
+        assertEquals(64, FusedBodyScanner.trimOffset(result));
+    }
+    
+    private static byte[] chunked(byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.writeBytes((Integer.toHexString(data.length) + "\r\n").getBytes(StandardCharsets.US_ASCII));
+        out.writeBytes(data);
+        out.writeBytes("\r\n0\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+        return out.toByteArray();
+    }
+}
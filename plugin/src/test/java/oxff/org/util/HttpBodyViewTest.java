@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2024. All rights reserved.
+ */
+
+package oxff.org.util;
+
+import burp.api.montoya.core.ByteArray;
+import oxff.org.config.ConfigSnapshot;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 验证正文视图在处理链路上的复制次数
+ * 
+ * Burp 的 ByteArray 每次 getBytes()/subArray() 都会复制，这里用动态代理模拟同样的行为。
+ */
+class HttpBodyViewTest {
+    
+    private final FusedBodyScanner scanner = new FusedBodyScanner();
+    private final ConfigSnapshot snapshot = ConfigSnapshot.defaults();
+    
+    @Test
+    void unmodifiedTextBodyIsNotCopied() {
+        HttpBodyView body = view("{\"key\": \"value\"}\r\n");
+        
+        long result = scanner.scan(body, false, snapshot);
+        
+        assertFalse(FusedBodyScanner.isModified(result));
+        assertEquals(0, body.getCopyCount());
+    }
+    
+    @Test
+    void leadingBlankLinesInTextBodyAreFoundWithoutCopy() {
+        HttpBodyView body = view("\r\n\r\n{\"key\": \"value\"}");
+        
+        long result = scanner.scan(body, false, snapshot);
+        
+        assertTrue(FusedBodyScanner.isModified(result));
+        assertEquals(4, FusedBodyScanner.trimOffset(result));
+        assertEquals(FusedBodyScanner.LINE_ENDING_CRLF, FusedBodyScanner.lineEnding(result));
+        assertEquals(0, body.getCopyCount());
+    }
+    
+    @Test
+    void sniffedBodyIsCopiedOnce() {
+        HttpBodyView body = view("\n\nplain text without content type");
+        
+        long result = scanner.scan(body, true, snapshot);
+        byte[] bytes = body.bytes();
+        
+        assertFalse(FusedBodyScanner.isBinary(result));
+        assertTrue(FusedBodyScanner.isModified(result));
+        assertEquals(body.length(), bytes.length);
+        assertEquals(1, body.getCopyCount());
+    }
+    
+    @Test
+    void largeSniffedBodyCopiesOnlyTheWindow() {
+        byte[] text = new byte[snapshot.getSniffWindowSize() * 4];
+        Arrays.fill(text, (byte) 'a');
+        HttpBodyView body = new HttpBodyView(byteArray(text), 0);
+        
+        long result = scanner.scan(body, true, snapshot);
+        
+        assertFalse(FusedBodyScanner.isBinary(result));
+        assertFalse(body.isMaterialized());
+        assertEquals(1, body.getCopyCount());
+    }
+    
+    @Test
+    void wrappedByteArrayIsNotCopied() {
+        byte[] bytes = "\n\ntext".getBytes(StandardCharsets.UTF_8);
+        HttpBodyView body = HttpBodyView.of(bytes);
+        
+        scanner.scan(body, true, snapshot);
+        
+        assertEquals(0, body.getCopyCount());
+        assertTrue(bytes == body.bytes());
+    }
+    
+    @Test
+    void wrappedByteArrayIsTrimmedWithoutMontoyaByteArray() {
+        HttpMessageCleaner cleaner = new HttpMessageCleaner();
+        byte[] bytes = "\r\n\r\ntext".getBytes(StandardCharsets.UTF_8);
+        HttpBodyView body = HttpBodyView.of(bytes);
+        long result = scanner.scan(body, false, snapshot);
+        
+        ProcessingResult scanned = cleaner.removeLeadingBlankLinesWithResult(body, result);
+        ProcessingResult rescanned = cleaner.removeLeadingBlankLinesWithResult(body);
+        
+        assertTrue(scanned.wasModified());
+        assertEquals("text", new String(scanned.getProcessedRawBytes(), StandardCharsets.UTF_8));
+        assertTrue(rescanned.wasModified());
+        assertEquals("text", new String(rescanned.getProcessedRawBytes(), StandardCharsets.UTF_8));
+    }
+    
+    @Test
+    void unchangedWrappedByteArrayReturnsTheSameArray() {
+        HttpMessageCleaner cleaner = new HttpMessageCleaner();
+        byte[] bytes = "text\r\n".getBytes(StandardCharsets.UTF_8);
+        HttpBodyView body = HttpBodyView.of(bytes);
+        long result = scanner.scan(body, false, snapshot);
+        
+        ProcessingResult scanned = cleaner.removeLeadingBlankLinesWithResult(body, result);
+        ProcessingResult rescanned = cleaner.removeLeadingBlankLinesWithResult(body);
+        
+        assertFalse(scanned.wasModified());
+        assertTrue(bytes == scanned.getProcessedRawBytes());
+        assertFalse(rescanned.wasModified());
+        assertTrue(bytes == rescanned.getProcessedRawBytes());
+    }
+    
+    private static HttpBodyView view(String text) {
+        return new HttpBodyView(byteArray(text.getBytes(StandardCharsets.UTF_8)), 0);
+    }
+    
+    /**
+     * 创建只支持正文视图用到的方法的 ByteArray
+     */
+    private static ByteArray byteArray(byte[] data) {
+        return (ByteArray) Proxy.newProxyInstance(ByteArray.class.getClassLoader(), new Class<?>[]{ByteArray.class},
+            (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "length":
+                        return data.length;
+                    case "getByte":
+                        return data[(Integer) args[0]];
+                    case "getBytes":
+                        return data.clone();
+                    case "subArray":
+                        return byteArray(Arrays.copyOfRange(data, (Integer) args[0], (Integer) args[1]));
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    case "equals":
+                        return proxy == args[0];
+                    case "toString":
+                        return new String(data, StandardCharsets.ISO_8859_1);
+                    default:
+                        throw new UnsupportedOperationException("ByteArray." + method.getName());
+                }
+            });
+    }
+}
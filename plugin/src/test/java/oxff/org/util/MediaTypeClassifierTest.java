@@ -0,0 +1,209 @@
+/*
+ * Copyright (c) 2024. All rights reserved.
+ */
+
+package oxff.org.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 将手写的媒体类型解析和分类与原先的 Content-Type 正则逐一比较，并验证分类缓存有上限
+ * 
+ * 原正则复制在本类中（TEXT_CONTENT_TYPE_PATTERN / BINARY_CONTENT_TYPE_PATTERN），作为判定结果的参照。
+ */
+class MediaTypeClassifierTest {
+    
+    private static final Pattern TEXT_CONTENT_TYPE_PATTERN = Pattern.compile(
+        "^(text/.*|application/json|application/xml|application/javascript|application/x-javascript|" +
+        "application/ecmascript|application/x-www-form-urlencoded|application/graphql|" +
+        "application/x-yaml|application/yaml|application/rss\\+xml|application/atom\\+xml|" +
+        "application/xhtml\\+xml|application/soap\\+xml|application/vnd\\.api\\+json|" +
+        "application/ld\\+json|application/hal\\+json|application/problem\\+json).*",
+        Pattern.CASE_INSENSITIVE
+    );
+    
+    private static final Pattern BINARY_CONTENT_TYPE_PATTERN = Pattern.compile(
+        "^(image/.*|audio/.*|video/.*|application/octet-stream|application/pdf|" +
+        "application/zip|application/x-zip-compressed|application/x-rar-compressed|" +
+        "application/x-7z-compressed|application/x-tar|application/gzip|" +
+        "application/x-executable|application/x-msdownload|application/x-msdos-program|" +
+        "application/java-archive|application/x-java-archive|font/.*|" +
+        "application/vnd\\.ms-.*|application/msword|application/vnd\\.openxmlformats-.*|" +
+        "application/x-shockwave-flash|application/x-font-.*|application/font-.*).*",
+        Pattern.CASE_INSENSITIVE
+    );
+    
+    private static final String[] MEDIA_TYPES = {
+        "text/html", "text/plain", "text/", "application/json", "application/xml", "application/javascript",
+        "application/x-www-form-urlencoded", "application/graphql", "application/yaml", "application/rss+xml",
+        "application/atom+xml", "application/xhtml+xml", "application/soap+xml", "application/vnd.api+json",
+        "application/ld+json", "application/hal+json", "application/problem+json",
+        "image/png", "audio/mpeg", "video/mp4", "font/woff2", "application/octet-stream", "application/pdf",
+        "application/zip", "application/gzip", "application/msword", "application/vnd.ms-excel",
+        "application/vnd.openxmlformats-officedocument.wordprocessingml.document", "application/x-font-ttf",
+        "application/font-woff", "application/x-shockwave-flash",
+        // 规则的更长形式：原正则按前缀匹配
+        "application/jsonp", "application/json-patch+json", "application/xml-dtd", "application/zipx",
+        // 不在规则中的 +json / +xml 后缀
+        "application/merge-patch+json", "application/vnd.github+json", "application/svg+xml",
+        "image/svg+xml", "application/manifest+json",
+        // 未知类型
+        "application/cbor", "application/wasm", "multipart/form-data", "message/http", "x/y"
+    };
+    
+    private static final String[] SUFFIXES = {
+        "", ";charset=utf-8", "; charset=UTF-8", ";  boundary=----abc; charset=\"utf-8\"", "\t;q=0.9",
+        " ", ",text/plain", ", image/png", ";", ";;"
+    };
+    
+    private final MediaTypeClassifier classifier = MediaTypeClassifier.defaults();
+    
+    @Test
+    void mediaTypesWithParametersMatchLegacy() {
+        for (String mediaType : MEDIA_TYPES) {
+            for (String suffix : SUFFIXES) {
+                assertMatchesLegacy(mediaType + suffix);
+                assertMatchesLegacy(mediaType.toUpperCase() + suffix);
+                assertMatchesLegacy(mixedCase(mediaType) + suffix);
+            }
+        }
+    }
+    
+    @Test
+    void malformedValuesMatchLegacy() {
+        String[] cases = {
+            "", ";", ",", ";charset=utf-8", "text", "TEXT", "image", "/", "/html", "text\\html",
+            "application", "application/", "application/js", "application/ json", "application /json",
+            "\u0000text/html", "é/json", "image/é", "application/JSONÿ",
+            "*/*", "text/*", "application/*"
+        };
+        for (String contentType : cases) {
+            assertMatchesLegacy(contentType);
+        }
+    }
+    
+    @Test
+    void randomValuesMatchLegacy() {
+        String alphabet = "aAtTeExXiImMpPlLjJsSoOnN/+-.;, =\t";
+        Random random = new Random(42);
+        for (int i = 0; i < 20000; i++) {
+            StringBuilder value = new StringBuilder();
+            if (random.nextBoolean()) {
+                value.append(mixedCase(MEDIA_TYPES[random.nextInt(MEDIA_TYPES.length)], random));
+            }
+            int extra = random.nextInt(8);
+            for (int j = 0; j < extra; j++) {
+                value.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            String contentType = value.toString();
+            if (!contentType.isEmpty() && (contentType.charAt(0) == ' ' || contentType.charAt(0) == '\t')) {
+                continue; // 开头的空白单独验证
+            }
+            assertMatchesLegacy(contentType);
+        }
+    }
+    
+    @Test
+    void surroundingWhitespaceIsIgnored() {
+        // 头部的值不含换行，Burp 的 HttpHeader.value() 和 RawMessageHead 也已去掉开头的空白，
+        // 原正则在这些输入上不匹配，这里只验证解析器本身
+        assertEquals(MediaTypeClassifier.Category.TEXT, classifier.classify("text/html\r\n"));
+        assertEquals(MediaTypeClassifier.Category.TEXT, classifier.classify("  text/html"));
+        assertEquals(MediaTypeClassifier.Category.BINARY, classifier.classify("\timage/png ; q=1"));
+        assertEquals(MediaTypeClassifier.Category.UNKNOWN, classifier.classify(" \t"));
+    }
+    
+    @Test
+    void nullIsUnknown() {
+        assertEquals(MediaTypeClassifier.Category.UNKNOWN, classifier.classify(null));
+    }
+    
+    @Test
+    void extractMediaTypeDropsParametersAndLowerCases() {
+        assertEquals("application/vnd.api+json", MediaTypeClassifier.extractMediaType(" Application/VND.api+JSON ; charset=utf-8"));
+        assertEquals("text/html", MediaTypeClassifier.extractMediaType("text/html,application/xhtml+xml"));
+        assertEquals("multipart/form-data", MediaTypeClassifier.extractMediaType("multipart/form-data;boundary=X"));
+        assertEquals("", MediaTypeClassifier.extractMediaType("  ;charset=utf-8"));
+        String lower = "text/plain";
+        assertTrue(lower == MediaTypeClassifier.extractMediaType(lower), "小写且无参数的值不复制");
+    }
+    
+    @Test
+    void compiledRulesArePrefixesWithOptionalStar() {
+        MediaTypeClassifier custom = MediaTypeClassifier.compile(
+            List.of(" Application/X-Custom ", "text/*", ""), List.of("application/x-*", "application/x-custom-bin"));
+        
+        assertEquals(MediaTypeClassifier.Category.TEXT, custom.classify("application/x-custom"));
+        assertEquals(MediaTypeClassifier.Category.TEXT, custom.classify("application/x-custom-bin"));
+        assertEquals(MediaTypeClassifier.Category.TEXT, custom.classify("TEXT/CSV"));
+        assertEquals(MediaTypeClassifier.Category.BINARY, custom.classify("application/x-other"));
+        assertEquals(MediaTypeClassifier.Category.UNKNOWN, custom.classify("application/json"));
+    }
+    
+    @Test
+    void cacheStaysBounded() {
+        MediaTypeClassifier fresh = MediaTypeClassifier.compile(
+            MediaTypeClassifier.DEFAULT_TEXT_TYPES, MediaTypeClassifier.DEFAULT_BINARY_TYPES);
+        for (int i = 0; i < MediaTypeClassifier.MAX_CACHE_SIZE * 10; i++) {
+            assertEquals(MediaTypeClassifier.Category.UNKNOWN, fresh.classify("application/x-random-" + i));
+            assertTrue(fresh.cacheSize() <= MediaTypeClassifier.MAX_CACHE_SIZE);
+        }
+        
+        // 清空后结果不变
+        assertEquals(MediaTypeClassifier.Category.TEXT, fresh.classify("application/json; charset=utf-8"));
+        assertEquals(MediaTypeClassifier.Category.BINARY, fresh.classify("image/png"));
+    }
+    
+    @Test
+    void parametersShareOneCacheEntry() {
+        MediaTypeClassifier fresh = MediaTypeClassifier.compile(
+            MediaTypeClassifier.DEFAULT_TEXT_TYPES, MediaTypeClassifier.DEFAULT_BINARY_TYPES);
+        for (String suffix : SUFFIXES) {
+            fresh.classify("Application/JSON" + suffix);
+        }
+        
+        assertEquals(1, fresh.cacheSize());
+    }
+    
+    private void assertMatchesLegacy(String contentType) {
+        assertEquals(legacyClassify(contentType), classifier.classify(contentType), contentType);
+    }
+    
+    /**
+     * 原 ContentAnalyzer 的判定顺序：先匹配文本正则，再匹配二进制正则
+     */
+    private static MediaTypeClassifier.Category legacyClassify(String contentType) {
+        if (TEXT_CONTENT_TYPE_PATTERN.matcher(contentType).matches()) {
+            return MediaTypeClassifier.Category.TEXT;
+        }
+        if (BINARY_CONTENT_TYPE_PATTERN.matcher(contentType).matches()) {
+            return MediaTypeClassifier.Category.BINARY;
+        }
+        return MediaTypeClassifier.Category.UNKNOWN;
+    }
+    
+    private static String mixedCase(String value) {
+        StringBuilder result = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            result.append(i % 2 == 0 ? Character.toUpperCase(c) : c);
+        }
+        return result.toString();
+    }
+    
+    private static String mixedCase(String value, Random random) {
+        StringBuilder result = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            result.append(random.nextBoolean() ? Character.toUpperCase(c) : c);
+        }
+        return result.toString();
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright (c) 2024. All rights reserved.
+ */
+
+package oxff.org.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HexFormat;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 将表驱动的 UTF-8 校验器与原先"解码 - 重新编码 - 统计 U+FFFD"的实现逐一比较
+ * 
+ * 原实现复制在本类中（legacyIsValidText），作为判定结果的参照。
+ */
+class Utf8ValidatorTest {
+    
+    // 随机片段：有效的多字节字符、各类无效序列和代理区编码
+    private static final String[] FRAGMENTS = {
+        "C2A9", "DFBF", "E282AC", "EFBFBD", "E0A080", "ED9FBF", "EE8080", "F0908080", "F48FBFBF", "F3BFBFBF",
+        "80", "BF", "C0AF", "C1BF", "C2", "E282", "E080", "E09F80", "EDA080", "EDBFBF", "F0", "F09080",
+        "F08F8080", "F4908080", "F5808080", "FE", "FF", "E2C2A9", "F0E282AC"
+    };
+    
+    @Test
+    void targetedSequencesMatchLegacy() {
+        String[] cases = {
+            "",
+            "61",
+            // 截断的序列
+            "C2", "E282", "F09080", "6162C2", "616263E282", "61F090806162",
+            // 过长编码
+            "C080", "C1BF", "E08080", "E09FBF", "F0808080", "F08FBFBF",
+            // 代理区编码
+            "EDA080", "EDBFBF", "EDA08061", "EDA0", "ED9FBF",
+            // 超过 U+10FFFF
+            "F4908080", "F5808080", "F7BFBFBF", "F8888080",
+            // 多余的续字节和被中断的序列
+            "80", "BFBFBF", "E2C2A9", "F0E282AC", "C2C2C2", "E2828261"
+        };
+        for (String hex : cases) {
+            byte[] bytes = HexFormat.of().parseHex(hex);
+            assertSameVerdict(bytes, 0, bytes.length);
+            // 同样的序列埋在文本中间，错误比例接近阈值
+            for (int padding = 0; padding <= 40; padding++) {
+                byte[] padded = concat("a".repeat(padding), bytes, "b".repeat(padding / 2));
+                assertSameVerdict(padded, 0, padded.length);
+            }
+        }
+    }
+    
+    @Test
+    void replacementCountLimitMatchesLegacy() {
+        // 原文中的 U+FFFD 和代理区编码不改变长度，只受替换字符比例限制
+        byte[] atLimit = concat("a".repeat(9), hex("EFBFBD"), "");
+        byte[] overLimit = concat("a".repeat(8), hex("EFBFBD"), "");
+        byte[] surrogateOverLimit = concat("a".repeat(8), hex("EDA080"), "");
+        
+        assertTrue(Utf8Validator.isValidText(atLimit, 0, atLimit.length));
+        assertFalse(Utf8Validator.isValidText(overLimit, 0, overLimit.length));
+        assertFalse(Utf8Validator.isValidText(surrogateOverLimit, 0, surrogateOverLimit.length));
+        for (int errors = 0; errors <= 6; errors++) {
+            for (int text = 0; text <= 80; text++) {
+                byte[] bytes = repeat(hex("EFBFBD"), errors, "a".repeat(text));
+                assertSameVerdict(bytes, 0, bytes.length);
+            }
+        }
+    }
+    
+    @Test
+    void growthLimitMatchesLegacy() {
+        // 单个无效字节替换为 3 字节的 U+FFFD，长度增加 2
+        byte[] atLimit = concat("a".repeat(19), hex("80"), "");
+        byte[] overLimit = concat("a".repeat(18), hex("80"), "");
+        
+        assertTrue(Utf8Validator.isValidText(atLimit, 0, atLimit.length));
+        assertFalse(Utf8Validator.isValidText(overLimit, 0, overLimit.length));
+        for (String invalid : new String[]{"80", "C2", "FF", "C080", "E282"}) {
+            for (int errors = 1; errors <= 4; errors++) {
+                for (int text = 0; text <= 100; text++) {
+                    byte[] bytes = repeat(hex(invalid), errors, "a".repeat(text));
+                    assertSameVerdict(bytes, 0, bytes.length);
+                }
+            }
+        }
+    }
+    
+    @Test
+    void randomBytesMatchLegacy() {
+        Random random = new Random(0x5EED);
+        for (int n = 0; n < 20_000; n++) {
+            byte[] bytes = new byte[random.nextInt(48)];
+            random.nextBytes(bytes);
+            assertSameVerdict(bytes, 0, bytes.length);
+        }
+    }
+    
+    @Test
+    void randomMixedTextMatchesLegacy() {
+        Random random = new Random(42);
+        for (int n = 0; n < 20_000; n++) {
+            // 错误密度在阈值附近变化，两种限制都会被触发
+            int errorPercent = random.nextInt(30);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            int pieces = 1 + random.nextInt(60);
+            for (int i = 0; i < pieces; i++) {
+                if (random.nextInt(100) < errorPercent) {
+                    out.writeBytes(hex(FRAGMENTS[random.nextInt(FRAGMENTS.length)]));
+                } else {
+                    out.write('a' + random.nextInt(26));
+                }
+            }
+            byte[] bytes = out.toByteArray();
+            int from = bytes.length == 0 ? 0 : random.nextInt(Math.min(4, bytes.length));
+            int to = bytes.length - random.nextInt(Math.min(4, bytes.length - from) + 1);
+            assertSameVerdict(bytes, from, to);
+        }
+    }
+    
+    private static void assertSameVerdict(byte[] bytes, int from, int to) {
+        assertEquals(legacyIsValidText(bytes, from, to), Utf8Validator.isValidText(bytes, from, to),
+            () -> HexFormat.of().formatHex(bytes, from, to));
+    }
+    
+    /**
+     * 原先的实现（ContentAnalyzer.isValidUTF8Text）
+     */
+    private static boolean legacyIsValidText(byte[] bytes, int from, int to) {
+        int length = to - from;
+        if (length <= 0) {
+            return true;
+        }
+        try {
+            // 尝试解码为UTF-8字符串
+            String text = new String(bytes, from, length, StandardCharsets.UTF_8);
+            
+            // 重新编码并比较
+            byte[] reencoded = text.getBytes(StandardCharsets.UTF_8);
+            
+            // 如果重新编码后的长度差距太大，可能不是有效的UTF-8
+            if (Math.abs(reencoded.length - length) > length * 0.1) {
+                return false;
+            }
+            
+            // 检查是否包含太多替换字符（U+FFFD）
+            long replacementCount = text.codePoints()
+                .filter(cp -> cp == 0xFFFD)
+                .count();
+            
+            // 如果替换字符超过10%，认为不是有效文本
+            double replacementRatio = (double) replacementCount / text.length();
+            if (replacementRatio > 0.1) {
+                return false;
+            }
+            
+            // 通过所有检查，认为是有效的UTF-8文本
+            return true;
+            
+        } catch (Exception e) {
+            return false;
+        }
+    }
+    
+    private static byte[] hex(String hex) {
+        return HexFormat.of().parseHex(hex);
+    }
+    
+    private static byte[] concat(String before, byte[] bytes, String after) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.writeBytes(before.getBytes(StandardCharsets.US_ASCII));
+        out.writeBytes(bytes);
+        out.writeBytes(after.getBytes(StandardCharsets.US_ASCII));
+        return out.toByteArray();
+    }
+    
+    private static byte[] repeat(byte[] bytes, int count, String text) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int i = 0; i < count; i++) {
+            out.writeBytes(bytes);
+        }
+        out.writeBytes(text.getBytes(StandardCharsets.US_ASCII));
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2024. All rights reserved.
+ */
+
+package oxff.org.util;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * 基于 Vector API 的字节扫描器
+ * 
+ * 每次比较一整个向量（x86 AVX2 下为 32 字节，ARM NEON 下为 16 字节），
+ * 不足一个向量的尾部交给标量实现处理。
+ * 
+ * 此类引用了 jdk.incubator.vector 模块，只能通过 ByteScanners 在确认模块可用后反射加载。
+ */
+final class VectorByteScanner implements ByteScanner {
+    
+    private static final VectorSpecies<Byte> SPECIES = ByteVector.SPECIES_PREFERRED;
+    
+    VectorByteScanner() {
+    }
+    
+    @Override
+    public int indexOfNull(byte[] bytes, int from, int to) {
+        int i = from;
+        int upper = from + SPECIES.loopBound(to - from);
+        for (; i < upper; i += SPECIES.length()) {
+            VectorMask<Byte> mask = ByteVector.fromArray(SPECIES, bytes, i).eq((byte) 0);
+            if (mask.anyTrue()) {
+                return i + mask.firstTrue();
+            }
+        }
+        return ScalarByteScanner.INSTANCE.indexOfNull(bytes, i, to);
+    }
+    
+    @Override
+    public int indexOfNonWhitespace(byte[] bytes, int from, int to) {
+        int i = from;
+        int upper = from + SPECIES.loopBound(to - from);
+        for (; i < upper; i += SPECIES.length()) {
+            ByteVector vector = ByteVector.fromArray(SPECIES, bytes, i);
+            VectorMask<Byte> whitespace = vector.eq((byte) ' ')
+                .or(vector.eq((byte) '\t'))
+                .or(vector.eq((byte) '\r'))
+                .or(vector.eq((byte) '\n'));
+            if (!whitespace.allTrue()) {
+                return i + whitespace.not().firstTrue();
+            }
+        }
+        return ScalarByteScanner.INSTANCE.indexOfNonWhitespace(bytes, i, to);
+    }
+    
+    @Override
+    public String name() {
+        return "vector(" + SPECIES.vectorBitSize() + " bit)";
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2024. All rights reserved.
+ */
+
+package oxff.org.util;
+
+import jdk.incubator.vector.ByteVector;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 将 SIMD 扫描器与标量实现逐一比较（只在 -Pvector 构建中编译和运行）
+ * 
+ * 长度覆盖向量宽度附近的各种情况，匹配位置覆盖整向量部分、最后一个整向量和交给标量实现的尾部。
+ */
+class VectorByteScannerTest {
+    
+    private static final int LANES = ByteVector.SPECIES_PREFERRED.length();
+    private static final byte[] WHITESPACE = {' ', '\t', '\r', '\n'};
+    
+    private final ByteScanner vector = new VectorByteScanner();
+    private final ByteScanner scalar = ScalarByteScanner.INSTANCE;
+    
+    @Test
+    void vectorScannerIsSelectedWhenTheModuleIsPresent() {
+        assertEquals(vector.name(), ByteScanners.get().name());
+    }
+    
+    @Test
+    void everyMatchPositionAroundTheLaneWidth() {
+        for (int length = 0; length <= LANES * 4 + 1; length++) {
+            for (int from = 0; from <= Math.min(length, LANES + 1); from++) {
+                byte[] noNull = filled(length, (byte) 'a');
+                byte[] blank = filled(length, (byte) ' ');
+                assertSameResults(noNull, from, length);
+                assertSameResults(blank, from, length);
+                for (int match = from; match < length; match++) {
+                    noNull[match] = 0;
+                    blank[match] = 'x';
+                    assertSameResults(noNull, from, length);
+                    assertSameResults(blank, from, length);
+                    noNull[match] = 'a';
+                    blank[match] = ' ';
+                }
+            }
+        }
+    }
+    
+    @Test
+    void matchInTheVectorTailIsFound() {
+        for (int tail = 1; tail < LANES; tail++) {
+            int length = LANES * 3 + tail;
+            for (int match = LANES * 3; match < length; match++) {
+                byte[] bytes = filled(length, (byte) '\n');
+                bytes[match] = 0;
+                assertEquals(match, vector.indexOfNull(bytes, 0, length));
+                assertEquals(match, vector.indexOfNonWhitespace(bytes, 0, length));
+            }
+        }
+    }
+    
+    @Test
+    void randomInputsMatchScalar() {
+        Random random = new Random(7);
+        for (int n = 0; n < 50_000; n++) {
+            int length = random.nextInt(LANES * 6 + 2);
+            byte[] bytes = new byte[length];
+            // 大部分为空白或非零字节，偶尔出现要查找的字节，匹配位置分布在各个向量和尾部
+            int density = 1 + random.nextInt(LANES * 4);
+            for (int i = 0; i < length; i++) {
+                if (random.nextInt(density) == 0) {
+                    bytes[i] = random.nextBoolean() ? 0 : (byte) random.nextInt(256);
+                } else {
+                    bytes[i] = WHITESPACE[random.nextInt(WHITESPACE.length)];
+                }
+            }
+            int from = length == 0 ? 0 : random.nextInt(length + 1);
+            int to = from + random.nextInt(length - from + 1);
+            assertSameResults(bytes, from, to);
+        }
+    }
+    
+    private void assertSameResults(byte[] bytes, int from, int to) {
+        assertEquals(scalar.indexOfNull(bytes, from, to), vector.indexOfNull(bytes, from, to),
+            () -> "indexOfNull " + from + ".." + to + " " + Arrays.toString(bytes));
+        assertEquals(scalar.indexOfNonWhitespace(bytes, from, to), vector.indexOfNonWhitespace(bytes, from, to),
+            () -> "indexOfNonWhitespace " + from + ".." + to + " " + Arrays.toString(bytes));
+    }
+    
+    private static byte[] filled(int length, byte value) {
+        byte[] bytes = new byte[length];
+        Arrays.fill(bytes, value);
+        return bytes;
+    }
+}
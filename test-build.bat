@@ -48,14 +48,14 @@ if errorlevel 1 (
 
 REM 验证构建产物
 echo 验证构建产物...
-dir target\*.jar >nul 2>&1
+dir plugin\target\*.jar >nul 2>&1
 if errorlevel 1 (
     echo ❌ 没有生成 JAR 文件
     exit /b 1
 )
 
 echo ✅ 构建产物验证成功:
-dir target\*.jar
+dir plugin\target\*.jar
 
 echo 🎉 本地构建测试成功！
 echo 现在可以安全地推送到 GitHub 了。
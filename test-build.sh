@@ -43,20 +43,20 @@ fi
 
 # 验证构建产物
 echo "验证构建产物..."
-ls -la target/
+ls -la plugin/target/
 
 # 检查 JAR 文件是否生成
-JAR_FILES=$(find target/ -name "*.jar" -type f | wc -l)
+JAR_FILES=$(find plugin/target/ -name "*.jar" -type f | wc -l)
 if [ $JAR_FILES -eq 0 ]; then
     echo "❌ 没有生成 JAR 文件"
     exit 1
 fi
 
 echo "✅ 找到 $JAR_FILES 个 JAR 文件:"
-find target/ -name "*.jar" -type f -exec ls -lh {} \;
+find plugin/target/ -name "*.jar" -type f -exec ls -lh {} \;
 
 # 验证 JAR 文件内容
-MAIN_JAR=$(find target/ -name "RemoveExtraBlankLines-*.jar" -not -name "*sources*" | head -1)
+MAIN_JAR=$(find plugin/target/ -name "RemoveExtraBlankLines-*.jar" -not -name "*sources*" | head -1)
 if [ -n "$MAIN_JAR" ]; then
     echo "验证主要 JAR 文件: $MAIN_JAR"
     jar -tf "$MAIN_JAR" | head -10
@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2024. All rights reserved.
+ */
+
+package oxff.org.testkit;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 记录插件对 Montoya API 的调用
+ * 
+ * 按 "类型.方法" 统计调用次数，并单独统计由 getBytes()、body()、toByteArray()、subArray() 等
+ * 复制出去的字节数，用于确认处理链路上没有多余的调用和复制。线程安全。
+ */
+public class CallRecorder {
+    
+    private final ConcurrentHashMap<String, LongAdder> calls = new ConcurrentHashMap<>();
+    private final LongAdder bytesCopied = new LongAdder();
+    private final LongAdder copies = new LongAdder();
+    
+    /**
+     * 记录一次调用
+     * 
+     * @param type 类型名称（例如 "HttpRequest"）
+     * @param method 方法名称
+     */
+    public void recordCall(String type, String method) {
+        calls.computeIfAbsent(type + "." + method, key -> new LongAdder()).increment();
+    }
+    
+    /**
+     * 记录一次复制
+     * 
+     * @param length 复制的字节数
+     */
+    public void recordCopy(int length) {
+        copies.increment();
+        bytesCopied.add(length);
+    }
+    
+    /**
+     * 获取指定方法的调用次数
+     * 
+     * @param type 类型名称
+     * @param method 方法名称
+     * @return 调用次数
+     */
+    public long getCallCount(String type, String method) {
+        LongAdder count = calls.get(type + "." + method);
+        return count != null ? count.sum() : 0;
+    }
+    
+    /**
+     * 获取全部调用次数（按名称排序）
+     */
+    public Map<String, Long> getCallCounts() {
+        Map<String, Long> result = new TreeMap<>();
+        calls.forEach((key, count) -> result.put(key, count.sum()));
+        return result;
+    }
+    
+    /**
+     * 获取复制的总字节数
+     */
+    public long getBytesCopied() {
+        return bytesCopied.sum();
+    }
+    
+    /**
+     * 获取复制次数
+     */
+    public long getCopyCount() {
+        return copies.sum();
+    }
+    
+    /**
+     * 清零所有记录
+     */
+    public void reset() {
+        calls.clear();
+        bytesCopied.reset();
+        copies.reset();
+    }
+    
+    /**
+     * 获取记录的文本描述，每行一个方法
+     */
+    public String toDisplayString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("复制: ").append(getCopyCount()).append(" 次，共 ").append(getBytesCopied()).append(" 字节\n");
+        for (Map.Entry<String, Long> entry : getCallCounts().entrySet()) {
+            sb.append(String.format("  %-40s %d%n", entry.getKey(), entry.getValue()));
+        }
+        return sb.toString();
+    }
+}
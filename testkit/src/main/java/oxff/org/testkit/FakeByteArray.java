@@ -0,0 +1,290 @@
+/*
+ * Copyright (c) 2024. All rights reserved.
+ */
+
+package oxff.org.testkit;
+
+import burp.api.montoya.core.ByteArray;
+import burp.api.montoya.core.Range;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+
+/**
+ * 基于 byte[] 的 ByteArray 内存实现
+ * 
+ * getByte/length 直接读取数组，getBytes/subArray/copy/withAppended 与 Burp 一样返回副本。
+ * 每次调用和每次复制都记录到 CallRecorder。
+ */
+public class FakeByteArray implements ByteArray {
+    
+    private final byte[] bytes;
+    private final CallRecorder recorder;
+    
+    /**
+     * 包装字节数组（不复制）
+     * 
+     * @param bytes 字节数组
+     * @param recorder 调用记录
+     */
+    public FakeByteArray(byte[] bytes, CallRecorder recorder) {
+        this.bytes = bytes;
+        this.recorder = recorder;
+    }
+    
+    @Override
+    public byte getByte(int index) {
+        recorder.recordCall("ByteArray", "getByte");
+        return bytes[index];
+    }
+    
+    @Override
+    public void setByte(int index, byte value) {
+        recorder.recordCall("ByteArray", "setByte");
+        bytes[index] = value;
+    }
+    
+    @Override
+    public void setByte(int index, int value) {
+        recorder.recordCall("ByteArray", "setByte");
+        bytes[index] = (byte) value;
+    }
+    
+    @Override
+    public void setBytes(int index, byte... data) {
+        recorder.recordCall("ByteArray", "setBytes");
+        System.arraycopy(data, 0, bytes, index, data.length);
+    }
+    
+    @Override
+    public void setBytes(int index, int... data) {
+        recorder.recordCall("ByteArray", "setBytes");
+        for (int i = 0; i < data.length; i++) {
+            bytes[index + i] = (byte) data[i];
+        }
+    }
+    
+    @Override
+    public void setBytes(int index, ByteArray data) {
+        recorder.recordCall("ByteArray", "setBytes");
+        setBytes(index, data.getBytes());
+    }
+    
+    @Override
+    public int length() {
+        recorder.recordCall("ByteArray", "length");
+        return bytes.length;
+    }
+    
+    @Override
+    public byte[] getBytes() {
+        recorder.recordCall("ByteArray", "getBytes");
+        recorder.recordCopy(bytes.length);
+        return bytes.clone();
+    }
+    
+    @Override
+    public ByteArray subArray(int startIndexInclusive, int endIndexExclusive) {
+        recorder.recordCall("ByteArray", "subArray");
+        recorder.recordCopy(endIndexExclusive - startIndexInclusive);
+        return new FakeByteArray(Arrays.copyOfRange(bytes, startIndexInclusive, endIndexExclusive), recorder);
+    }
+    
+    @Override
+    public ByteArray subArray(Range range) {
+        recorder.recordCall("ByteArray", "subArray");
+        return subArray(range.startIndexInclusive(), range.endIndexExclusive());
+    }
+    
+    @Override
+    public ByteArray copy() {
+        recorder.recordCall("ByteArray", "copy");
+        recorder.recordCopy(bytes.length);
+        return new FakeByteArray(bytes.clone(), recorder);
+    }
+    
+    @Override
+    public ByteArray copyToTempFile() {
+        recorder.recordCall("ByteArray", "copyToTempFile");
+        return copy();
+    }
+    
+    @Override
+    public int indexOf(ByteArray searchTerm) {
+        recorder.recordCall("ByteArray", "indexOf");
+        return indexOf(searchTerm, true);
+    }
+    
+    @Override
+    public int indexOf(String searchTerm) {
+        recorder.recordCall("ByteArray", "indexOf");
+        return indexOf(searchTerm, true);
+    }
+    
+    @Override
+    public int indexOf(ByteArray searchTerm, boolean caseSensitive) {
+        recorder.recordCall("ByteArray", "indexOf");
+        return indexOf(searchTerm, caseSensitive, 0, bytes.length);
+    }
+    
+    @Override
+    public int indexOf(String searchTerm, boolean caseSensitive) {
+        recorder.recordCall("ByteArray", "indexOf");
+        return indexOf(searchTerm, caseSensitive, 0, bytes.length);
+    }
+    
+    @Override
+    public int indexOf(ByteArray searchTerm, boolean caseSensitive, int startIndexInclusive, int endIndexExclusive) {
+        recorder.recordCall("ByteArray", "indexOf");
+        return indexOf(searchTerm.getBytes(), caseSensitive, startIndexInclusive, endIndexExclusive);
+    }
+    
+    @Override
+    public int indexOf(String searchTerm, boolean caseSensitive, int startIndexInclusive, int endIndexExclusive) {
+        recorder.recordCall("ByteArray", "indexOf");
+        return indexOf(searchTerm.getBytes(StandardCharsets.ISO_8859_1), caseSensitive, startIndexInclusive, endIndexExclusive);
+    }
+    
+    @Override
+    public int indexOf(Pattern pattern) {
+        recorder.recordCall("ByteArray", "indexOf");
+        return indexOf(pattern, 0, bytes.length);
+    }
+    
+    @Override
+    public int indexOf(Pattern pattern, int startIndexInclusive, int endIndexExclusive) {
+        recorder.recordCall("ByteArray", "indexOf");
+        Matcher matcher = pattern.matcher(toString().substring(startIndexInclusive, endIndexExclusive));
+        return matcher.find() ? startIndexInclusive + matcher.start() : -1;
+    }
+    
+    @Override
+    public int countMatches(ByteArray searchTerm) {
+        recorder.recordCall("ByteArray", "countMatches");
+        return countMatches(searchTerm, true);
+    }
+    
+    @Override
+    public int countMatches(String searchTerm) {
+        recorder.recordCall("ByteArray", "countMatches");
+        return countMatches(searchTerm, true);
+    }
+    
+    @Override
+    public int countMatches(ByteArray searchTerm, boolean caseSensitive) {
+        recorder.recordCall("ByteArray", "countMatches");
+        return countMatches(searchTerm, caseSensitive, 0, bytes.length);
+    }
+    
+    @Override
+    public int countMatches(String searchTerm, boolean caseSensitive) {
+        recorder.recordCall("ByteArray", "countMatches");
+        return countMatches(searchTerm, caseSensitive, 0, bytes.length);
+    }
+    
+    @Override
+    public int countMatches(ByteArray searchTerm, boolean caseSensitive, int startIndexInclusive, int endIndexExclusive) {
+        recorder.recordCall("ByteArray", "countMatches");
+        return countMatches(searchTerm.getBytes(), caseSensitive, startIndexInclusive, endIndexExclusive);
+    }
+    
+    @Override
+    public int countMatches(String searchTerm, boolean caseSensitive, int startIndexInclusive, int endIndexExclusive) {
+        recorder.recordCall("ByteArray", "countMatches");
+        return countMatches(searchTerm.getBytes(StandardCharsets.ISO_8859_1), caseSensitive, startIndexInclusive, endIndexExclusive);
+    }
+    
+    @Override
+    public int countMatches(Pattern pattern) {
+        recorder.recordCall("ByteArray", "countMatches");
+        return countMatches(pattern, 0, bytes.length);
+    }
+    
+    @Override
+    public int countMatches(Pattern pattern, int startIndexInclusive, int endIndexExclusive) {
+        recorder.recordCall("ByteArray", "countMatches");
+        Matcher matcher = pattern.matcher(toString().substring(startIndexInclusive, endIndexExclusive));
+        int count = 0;
+        while (matcher.find()) {
+            count++;
+        }
+        return count;
+    }
+    
+    @Override
+    public ByteArray withAppended(byte... data) {
+        recorder.recordCall("ByteArray", "withAppended");
+        recorder.recordCopy(bytes.length + data.length);
+        byte[] result = Arrays.copyOf(bytes, bytes.length + data.length);
+        System.arraycopy(data, 0, result, bytes.length, data.length);
+        return new FakeByteArray(result, recorder);
+    }
+    
+    @Override
+    public ByteArray withAppended(int... data) {
+        recorder.recordCall("ByteArray", "withAppended");
+        byte[] converted = new byte[data.length];
+        for (int i = 0; i < data.length; i++) {
+            converted[i] = (byte) data[i];
+        }
+        return withAppended(converted);
+    }
+    
+    @Override
+    public ByteArray withAppended(String text) {
+        recorder.recordCall("ByteArray", "withAppended");
+        return withAppended(text.getBytes(StandardCharsets.ISO_8859_1));
+    }
+    
+    @Override
+    public ByteArray withAppended(ByteArray data) {
+        recorder.recordCall("ByteArray", "withAppended");
+        return withAppended(data.getBytes());
+    }
+    
+    @Override
+    public Iterator<Byte> iterator() {
+        recorder.recordCall("ByteArray", "iterator");
+        return IntStream.range(0, bytes.length).mapToObj(index -> bytes[index]).iterator();
+    }
+    
+    @Override
+    public String toString() {
+        recorder.recordCall("ByteArray", "toString");
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+    
+    private int indexOf(byte[] term, boolean caseSensitive, int from, int to) {
+        outer:
+        for (int i = from; i <= to - term.length; i++) {
+            for (int j = 0; j < term.length; j++) {
+                if (!equalBytes(bytes[i + j], term[j], caseSensitive)) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+    
+    private int countMatches(byte[] term, boolean caseSensitive, int from, int to) {
+        int count = 0;
+        int index = indexOf(term, caseSensitive, from, to);
+        while (index >= 0 && term.length > 0) {
+            count++;
+            index = indexOf(term, caseSensitive, index + term.length, to);
+        }
+        return count;
+    }
+    
+    private static boolean equalBytes(byte a, byte b, boolean caseSensitive) {
+        if (a == b) {
+            return true;
+        }
+        return !caseSensitive && Character.toLowerCase((char) (a & 0xFF)) == Character.toLowerCase((char) (b & 0xFF));
+    }
+}
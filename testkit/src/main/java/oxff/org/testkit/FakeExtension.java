@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2024. All rights reserved.
+ */
+
+package oxff.org.testkit;
+
+import burp.api.montoya.core.Registration;
+import burp.api.montoya.extension.Extension;
+import burp.api.montoya.extension.ExtensionUnloadingHandler;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 内存中的插件信息，unload() 依次执行已注册的卸载处理器
+ */
+public class FakeExtension implements Extension {
+    
+    private final List<ExtensionUnloadingHandler> unloadingHandlers = new CopyOnWriteArrayList<>();
+    private final CallRecorder recorder;
+    private volatile String name;
+    private volatile boolean unloaded;
+    
+    public FakeExtension(CallRecorder recorder) {
+        this.recorder = recorder;
+    }
+    
+    @Override
+    public void setName(String name) {
+        recorder.recordCall("Extension", "setName");
+        this.name = name;
+    }
+    
+    @Override
+    public String filename() {
+        return "RemoveExtraBlankLines.jar";
+    }
+    
+    @Override
+    public boolean isBapp() {
+        return false;
+    }
+    
+    @Override
+    public synchronized void unload() {
+        recorder.recordCall("Extension", "unload");
+        if (unloaded) {
+            return;
+        }
+        unloaded = true;
+        for (ExtensionUnloadingHandler handler : unloadingHandlers) {
+            handler.extensionUnloaded();
+        }
+    }
+    
+    @Override
+    public Registration registerUnloadingHandler(ExtensionUnloadingHandler handler) {
+        recorder.recordCall("Extension", "registerUnloadingHandler");
+        unloadingHandlers.add(handler);
+        return new FakeRegistration(() -> unloadingHandlers.remove(handler));
+    }
+    
+    /**
+     * 获取插件设置的名称
+     */
+    public String getName() {
+        return name;
+    }
+    
+    /**
+     * 获取已注册的卸载处理器数量
+     */
+    public int getUnloadingHandlerCount() {
+        return unloadingHandlers.size();
+    }
+    
+    /**
+     * 是否已经卸载
+     */
+    public boolean isUnloaded() {
+        return unloaded;
+    }
+}
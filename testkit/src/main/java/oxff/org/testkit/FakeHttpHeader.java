@@ -0,0 +1,36 @@
+/*
+ * Copyright (c) 2024. All rights reserved.
+ */
+
+package oxff.org.testkit;
+
+import burp.api.montoya.http.message.HttpHeader;
+
+/**
+ * 内存中的 HTTP 头部
+ */
+public class FakeHttpHeader implements HttpHeader {
+    
+    private final String name;
+    private final String value;
+    
+    public FakeHttpHeader(String name, String value) {
+        this.name = name;
+        this.value = value;
+    }
+    
+    @Override
+    public String name() {
+        return name;
+    }
+    
+    @Override
+    public String value() {
+        return value;
+    }
+    
+    @Override
+    public String toString() {
+        return name + ": " + value;
+    }
+}
@@ -0,0 +1,361 @@
+/*
+ * Copyright (c) 2024. All rights reserved.
+ */
+
+package oxff.org.testkit;
+
+import burp.api.montoya.core.ByteArray;
+import burp.api.montoya.core.ToolSource;
+import burp.api.montoya.core.ToolType;
+import burp.api.montoya.http.HttpService;
+import burp.api.montoya.http.handler.HttpRequestToBeSent;
+import burp.api.montoya.http.handler.HttpResponseReceived;
+import burp.api.montoya.http.message.HttpHeader;
+import burp.api.montoya.http.message.requests.HttpRequest;
+import burp.api.montoya.http.message.responses.HttpResponse;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 内存中的 HTTP 请求/响应
+ * 
+ * 通过动态代理实现 HttpRequest、HttpResponse、HttpRequestToBeSent 和 HttpResponseReceived，
+ * 只实现插件处理路径上会用到的方法，其余方法抛出 UnsupportedOperationException。
+ * 
+ * - 消息不可变，withBody() 返回新消息，并像 Burp 一样更新或补上 Content-Length
+ * - body()/toByteArray() 与 Burp 一样每次返回副本，复制的字节数记录到 CallRecorder
+ * - 由原始字节解析的消息保留原始头部字节，toByteArray() 与输入逐字节一致
+ */
+public class FakeHttpMessage implements InvocationHandler {
+    
+    private final boolean request;
+    private final HttpService service;
+    private final String startLine;
+    private final List<HttpHeader> headers;
+    private final byte[] head;
+    private final byte[] body;
+    private final CallRecorder recorder;
+    private final ToolSource toolSource;
+    private final int messageId;
+    private final HttpRequest initiatingRequest;
+    
+    private FakeHttpMessage(boolean request, HttpService service, String startLine, List<HttpHeader> headers,
+                            byte[] head, byte[] body, CallRecorder recorder, ToolSource toolSource,
+                            int messageId, HttpRequest initiatingRequest) {
+        this.request = request;
+        this.service = service;
+        this.startLine = startLine;
+        this.headers = Collections.unmodifiableList(headers);
+        this.head = head;
+        this.body = body;
+        this.recorder = recorder;
+        this.toolSource = toolSource;
+        this.messageId = messageId;
+        this.initiatingRequest = initiatingRequest;
+    }
+    
+    /**
+     * 创建 HTTP 请求
+     * 
+     * @param service 目标服务
+     * @param startLine 起始行，例如 "POST /api/items HTTP/1.1"
+     * @param headers 头部
+     * @param body 正文（不复制）
+     * @param recorder 调用记录
+     * @return HTTP 请求
+     */
+    public static HttpRequest request(HttpService service, String startLine, List<HttpHeader> headers, byte[] body,
+                                      CallRecorder recorder) {
+        return proxy(HttpRequest.class, new FakeHttpMessage(true, service, startLine, new ArrayList<>(headers),
+            headBytes(startLine, headers), body, recorder, null, 0, null));
+    }
+    
+    /**
+     * 创建 HTTP 响应
+     * 
+     * @param startLine 状态行，例如 "HTTP/1.1 200 OK"
+     * @param headers 头部
+     * @param body 正文（不复制）
+     * @param recorder 调用记录
+     * @return HTTP 响应
+     */
+    public static HttpResponse response(String startLine, List<HttpHeader> headers, byte[] body,
+                                        CallRecorder recorder) {
+        return proxy(HttpResponse.class, new FakeHttpMessage(false, null, startLine, new ArrayList<>(headers),
+            headBytes(startLine, headers), body, recorder, null, 0, null));
+    }
+    
+    /**
+     * 从原始字节解析 HTTP 请求
+     * 
+     * @param service 目标服务
+     * @param raw 完整的请求字节
+     * @param recorder 调用记录
+     * @return HTTP 请求
+     */
+    public static HttpRequest parseRequest(HttpService service, byte[] raw, CallRecorder recorder) {
+        return proxy(HttpRequest.class, parse(true, service, raw, recorder));
+    }
+    
+    /**
+     * 从原始字节解析 HTTP 响应
+     * 
+     * @param raw 完整的响应字节
+     * @param recorder 调用记录
+     * @return HTTP 响应
+     */
+    public static HttpResponse parseResponse(byte[] raw, CallRecorder recorder) {
+        return proxy(HttpResponse.class, parse(false, null, raw, recorder));
+    }
+    
+    /**
+     * 包装为 HttpHandler 收到的待发送请求
+     * 
+     * @param request 由本类创建的请求
+     * @param tool 来源模块
+     * @param messageId 消息 ID
+     * @return 待发送请求
+     */
+    public static HttpRequestToBeSent requestToBeSent(HttpRequest request, ToolType tool, int messageId) {
+        FakeHttpMessage message = handlerOf(request);
+        return proxy(HttpRequestToBeSent.class, new FakeHttpMessage(true, message.service, message.startLine,
+            message.headers, message.head, message.body, message.recorder, new FakeToolSource(tool), messageId, null));
+    }
+    
+    /**
+     * 包装为 HttpHandler 收到的响应
+     * 
+     * @param response 由本类创建的响应
+     * @param initiatingRequest 对应的请求
+     * @param tool 来源模块
+     * @param messageId 消息 ID
+     * @return 收到的响应
+     */
+    public static HttpResponseReceived responseReceived(HttpResponse response, HttpRequest initiatingRequest,
+                                                        ToolType tool, int messageId) {
+        FakeHttpMessage message = handlerOf(response);
+        return proxy(HttpResponseReceived.class, new FakeHttpMessage(false, null, message.startLine,
+            message.headers, message.head, message.body, message.recorder, new FakeToolSource(tool), messageId,
+            initiatingRequest));
+    }
+    
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) {
+        String name = method.getName();
+        switch (name) {
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "toString":
+                return new String(toBytes(), StandardCharsets.ISO_8859_1);
+            default:
+                break;
+        }
+        recorder.recordCall(request ? "HttpRequest" : "HttpResponse", name);
+        switch (name) {
+            case "headers":
+                return headers;
+            case "headerValue": {
+                HttpHeader header = findHeader((String) args[0]);
+                return header != null ? header.value() : null;
+            }
+            case "header":
+                return findHeader((String) args[0]);
+            case "hasHeader":
+                return hasHeader(args);
+            case "body":
+                recorder.recordCopy(body.length);
+                return new FakeByteArray(body.clone(), recorder);
+            case "bodyToString":
+                recorder.recordCopy(body.length);
+                return new String(body, StandardCharsets.ISO_8859_1);
+            case "bodyOffset":
+                return head.length;
+            case "toByteArray": {
+                byte[] message = toBytes();
+                recorder.recordCopy(message.length);
+                return new FakeByteArray(message, recorder);
+            }
+            case "httpVersion":
+                return httpVersion();
+            case "withBody":
+                return withBody(args[0]);
+            case "toolSource":
+                return toolSource;
+            case "messageId":
+                return messageId;
+            case "initiatingRequest":
+                return initiatingRequest;
+            default:
+                return request ? requestMethod(name) : responseMethod(name);
+        }
+    }
+    
+    private Object requestMethod(String name) {
+        switch (name) {
+            case "httpService":
+                return service;
+            case "method":
+                return startLine.split(" ")[0];
+            case "path":
+                return path();
+            case "pathWithoutQuery": {
+                String path = path();
+                int query = path.indexOf('?');
+                return query < 0 ? path : path.substring(0, query);
+            }
+            case "url":
+                return service + path();
+            default:
+                throw new UnsupportedOperationException("HttpRequest." + name);
+        }
+    }
+    
+    private Object responseMethod(String name) {
+        switch (name) {
+            case "statusCode": {
+                String[] parts = startLine.split(" ");
+                return parts.length > 1 ? Short.parseShort(parts[1]) : (short) 0;
+            }
+            case "reasonPhrase": {
+                String[] parts = startLine.split(" ", 3);
+                return parts.length > 2 ? parts[2] : "";
+            }
+            default:
+                throw new UnsupportedOperationException("HttpResponse." + name);
+        }
+    }
+    
+    private Object withBody(Object argument) {
+        byte[] newBody;
+        if (argument instanceof ByteArray) {
+            newBody = ((ByteArray) argument).getBytes();
+        } else {
+            newBody = ((String) argument).getBytes(StandardCharsets.UTF_8);
+        }
+        
+        // 与 Burp 一样更新 Content-Length；没有该头部且不是分块传输时补上
+        List<HttpHeader> newHeaders = new ArrayList<>(headers.size() + 1);
+        boolean hasLength = false;
+        for (HttpHeader header : headers) {
+            if (header.name().equalsIgnoreCase("Content-Length")) {
+                newHeaders.add(new FakeHttpHeader(header.name(), String.valueOf(newBody.length)));
+                hasLength = true;
+            } else {
+                newHeaders.add(header);
+            }
+        }
+        if (!hasLength && findHeader("Transfer-Encoding") == null) {
+            newHeaders.add(new FakeHttpHeader("Content-Length", String.valueOf(newBody.length)));
+        }
+        
+        FakeHttpMessage message = new FakeHttpMessage(request, service, startLine, newHeaders,
+            headBytes(startLine, newHeaders), newBody, recorder, null, 0, null);
+        return request ? proxy(HttpRequest.class, message) : proxy(HttpResponse.class, message);
+    }
+    
+    private boolean hasHeader(Object[] args) {
+        if (args.length == 2) {
+            HttpHeader header = findHeader((String) args[0]);
+            return header != null && header.value().equalsIgnoreCase((String) args[1]);
+        }
+        if (args[0] instanceof HttpHeader) {
+            HttpHeader expected = (HttpHeader) args[0];
+            HttpHeader header = findHeader(expected.name());
+            return header != null && header.value().equals(expected.value());
+        }
+        return findHeader((String) args[0]) != null;
+    }
+    
+    private HttpHeader findHeader(String name) {
+        for (HttpHeader header : headers) {
+            if (header.name().equalsIgnoreCase(name)) {
+                return header;
+            }
+        }
+        return null;
+    }
+    
+    private String path() {
+        String[] parts = startLine.split(" ");
+        return parts.length > 1 ? parts[1] : "/";
+    }
+    
+    private String httpVersion() {
+        String[] parts = startLine.split(" ");
+        if (request) {
+            return parts.length > 2 ? parts[2] : "HTTP/1.1";
+        }
+        return parts[0];
+    }
+    
+    private byte[] toBytes() {
+        byte[] message = new byte[head.length + body.length];
+        System.arraycopy(head, 0, message, 0, head.length);
+        System.arraycopy(body, 0, message, head.length, body.length);
+        return message;
+    }
+    
+    /**
+     * 解析原始报文：头部在第一个空行（CRLF CRLF 或 LF LF）处结束，之后都是正文
+     */
+    private static FakeHttpMessage parse(boolean request, HttpService service, byte[] raw, CallRecorder recorder) {
+        int headEnd = raw.length;
+        for (int i = 0; i < raw.length - 1; i++) {
+            if (raw[i] != '\n') {
+                continue;
+            }
+            if (raw[i + 1] == '\n') {
+                headEnd = i + 2;
+                break;
+            }
+            if (raw[i + 1] == '\r' && i + 2 < raw.length && raw[i + 2] == '\n') {
+                headEnd = i + 3;
+                break;
+            }
+        }
+        
+        String[] lines = new String(raw, 0, headEnd, StandardCharsets.ISO_8859_1).split("\r?\n");
+        List<HttpHeader> headers = new ArrayList<>();
+        for (int i = 1; i < lines.length; i++) {
+            int colon = lines[i].indexOf(':');
+            if (colon > 0) {
+                headers.add(new FakeHttpHeader(lines[i].substring(0, colon), lines[i].substring(colon + 1).trim()));
+            }
+        }
+        String startLine = lines.length > 0 ? lines[0] : "";
+        byte[] head = new byte[headEnd];
+        System.arraycopy(raw, 0, head, 0, headEnd);
+        byte[] body = new byte[raw.length - headEnd];
+        System.arraycopy(raw, headEnd, body, 0, body.length);
+        return new FakeHttpMessage(request, service, startLine, headers, head, body, recorder, null, 0, null);
+    }
+    
+    private static byte[] headBytes(String startLine, List<HttpHeader> headers) {
+        StringBuilder sb = new StringBuilder(startLine).append("\r\n");
+        for (HttpHeader header : headers) {
+            sb.append(header.name()).append(": ").append(header.value()).append("\r\n");
+        }
+        return sb.append("\r\n").toString().getBytes(StandardCharsets.ISO_8859_1);
+    }
+    
+    private static FakeHttpMessage handlerOf(Object message) {
+        if (Proxy.isProxyClass(message.getClass())
+            && Proxy.getInvocationHandler(message) instanceof FakeHttpMessage) {
+            return (FakeHttpMessage) Proxy.getInvocationHandler(message);
+        }
+        throw new IllegalArgumentException("消息不是由 FakeHttpMessage 创建的: " + message.getClass().getName());
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, FakeHttpMessage handler) {
+        return (T) Proxy.newProxyInstance(FakeHttpMessage.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2024. All rights reserved.
+ */
+
+package oxff.org.testkit;
+
+import burp.api.montoya.http.HttpService;
+
+/**
+ * 内存中的 HTTP 服务（主机、端口、协议），不做 DNS 解析
+ */
+public class FakeHttpService implements HttpService {
+    
+    private final String host;
+    private final int port;
+    private final boolean secure;
+    
+    public FakeHttpService(String host, int port, boolean secure) {
+        this.host = host;
+        this.port = port;
+        this.secure = secure;
+    }
+    
+    @Override
+    public String host() {
+        return host;
+    }
+    
+    @Override
+    public int port() {
+        return port;
+    }
+    
+    @Override
+    public boolean secure() {
+        return secure;
+    }
+    
+    @Override
+    public String ipAddress() {
+        return "127.0.0.1";
+    }
+    
+    @Override
+    public String toString() {
+        boolean defaultPort = secure ? port == 443 : port == 80;
+        return (secure ? "https://" : "http://") + host + (defaultPort ? "" : ":" + port);
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2024. All rights reserved.
+ */
+
+package oxff.org.testkit;
+
+import burp.api.montoya.logging.Logging;
+
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 内存中的日志输出
+ * 
+ * logToOutput/logToError 写入的每一行都保存在列表中，可选同时回显到标准输出。
+ * output()/error() 返回的 PrintStream 直接写到标准输出和标准错误，不计入列表。
+ */
+public class FakeLogging implements Logging {
+    
+    private final List<String> outputLines = Collections.synchronizedList(new ArrayList<>());
+    private final List<String> errorLines = Collections.synchronizedList(new ArrayList<>());
+    private final PrintStream output = new PrintStream(System.out, true, StandardCharsets.UTF_8);
+    private final PrintStream error = new PrintStream(System.err, true, StandardCharsets.UTF_8);
+    private final boolean echo;
+    
+    /**
+     * @param echo 是否把日志同时回显到标准输出和标准错误
+     */
+    public FakeLogging(boolean echo) {
+        this.echo = echo;
+    }
+    
+    // output()/error() 在 Montoya 中已弃用，这里只为实现接口，保持弃用标记
+    @Deprecated
+    @Override
+    public PrintStream output() {
+        return output;
+    }
+    
+    @Deprecated
+    @Override
+    public PrintStream error() {
+        return error;
+    }
+    
+    @Override
+    public void logToOutput(String message) {
+        outputLines.add(message);
+        if (echo) {
+            output.println(message);
+        }
+    }
+    
+    @Override
+    public void logToError(String message) {
+        errorLines.add(message);
+        if (echo) {
+            error.println(message);
+        }
+    }
+    
+    @Override
+    public void logToError(String message, Throwable cause) {
+        logToError(message + ": " + cause);
+    }
+    
+    @Override
+    public void logToError(Throwable cause) {
+        logToError(String.valueOf(cause));
+    }
+    
+    @Override
+    public void raiseDebugEvent(String message) {
+    }
+    
+    @Override
+    public void raiseInfoEvent(String message) {
+    }
+    
+    @Override
+    public void raiseErrorEvent(String message) {
+    }
+    
+    @Override
+    public void raiseCriticalEvent(String message) {
+    }
+    
+    /**
+     * 获取写入输出面板的全部行
+     */
+    public List<String> getOutputLines() {
+        synchronized (outputLines) {
+            return new ArrayList<>(outputLines);
+        }
+    }
+    
+    /**
+     * 获取写入错误面板的全部行
+     */
+    public List<String> getErrorLines() {
+        synchronized (errorLines) {
+            return new ArrayList<>(errorLines);
+        }
+    }
+}
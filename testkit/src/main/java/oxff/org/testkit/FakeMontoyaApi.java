@@ -0,0 +1,210 @@
+/*
+ * Copyright (c) 2024. All rights reserved.
+ */
+
+package oxff.org.testkit;
+
+import burp.api.montoya.MontoyaApi;
+import burp.api.montoya.core.ToolType;
+import burp.api.montoya.http.Http;
+import burp.api.montoya.http.HttpService;
+import burp.api.montoya.http.handler.HttpHandler;
+import burp.api.montoya.http.message.requests.HttpRequest;
+import burp.api.montoya.http.message.responses.HttpResponse;
+import burp.api.montoya.ui.UserInterface;
+
+import java.awt.Component;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 进程内的 Montoya API
+ * 
+ * 在普通 JVM 中运行插件：initialize(kit.api()) 之后用 sendRequest()/receiveResponse()
+ * 把消息交给插件注册的 HttpHandler，就像 Burp 转发流量一样；unload() 模拟卸载插件。
+ * 
+ * 实现了 logging、scope、extension、http().registerHttpHandler 和
+ * userInterface().registerSuiteTab/applyThemeToComponent，其余方法抛出 UnsupportedOperationException。
+ * 所有调用和复制都记录到 recorder()。
+ */
+public class FakeMontoyaApi {
+    
+    private final CallRecorder recorder = new CallRecorder();
+    private final FakeLogging logging;
+    private final FakeScope scope;
+    private final FakeExtension extension;
+    private final HttpService service = new FakeHttpService("example.com", 443, true);
+    private final List<HttpHandler> httpHandlers = new CopyOnWriteArrayList<>();
+    private final Map<String, Component> suiteTabs = new LinkedHashMap<>();
+    private final AtomicInteger nextMessageId = new AtomicInteger(1);
+    private final MontoyaApi api;
+    
+    /**
+     * 创建进程内 API，并把 Montoya 的对象工厂指向本实例的 recorder
+     * 
+     * @param echoLogs 是否把插件日志回显到标准输出
+     */
+    public FakeMontoyaApi(boolean echoLogs) {
+        this.logging = new FakeLogging(echoLogs);
+        this.scope = new FakeScope(recorder);
+        this.extension = new FakeExtension(recorder);
+        FakeObjectFactory.install(recorder);
+        
+        Http http = proxy(Http.class, (proxy, method, args) -> {
+            recorder.recordCall("Http", method.getName());
+            if ("registerHttpHandler".equals(method.getName())) {
+                HttpHandler handler = (HttpHandler) args[0];
+                httpHandlers.add(handler);
+                return new FakeRegistration(() -> httpHandlers.remove(handler));
+            }
+            throw new UnsupportedOperationException("Http." + method.getName());
+        });
+        UserInterface userInterface = proxy(UserInterface.class, (proxy, method, args) -> {
+            recorder.recordCall("UserInterface", method.getName());
+            switch (method.getName()) {
+                case "registerSuiteTab": {
+                    String title = (String) args[0];
+                    synchronized (suiteTabs) {
+                        suiteTabs.put(title, (Component) args[1]);
+                    }
+                    return new FakeRegistration(() -> {
+                        synchronized (suiteTabs) {
+                            suiteTabs.remove(title);
+                        }
+                    });
+                }
+                case "applyThemeToComponent":
+                    return null;
+                default:
+                    throw new UnsupportedOperationException("UserInterface." + method.getName());
+            }
+        });
+        this.api = proxy(MontoyaApi.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "logging":
+                    return logging;
+                case "scope":
+                    return scope;
+                case "extension":
+                    return extension;
+                case "http":
+                    return http;
+                case "userInterface":
+                    return userInterface;
+                default:
+                    throw new UnsupportedOperationException("MontoyaApi." + method.getName());
+            }
+        });
+    }
+    
+    /**
+     * 获取传给 BurpExtension.initialize() 的 MontoyaApi
+     */
+    public MontoyaApi api() {
+        return api;
+    }
+    
+    public CallRecorder recorder() {
+        return recorder;
+    }
+    
+    public FakeLogging logging() {
+        return logging;
+    }
+    
+    public FakeScope scope() {
+        return scope;
+    }
+    
+    public FakeExtension extension() {
+        return extension;
+    }
+    
+    /**
+     * 获取当前已注册的 HTTP 处理器
+     */
+    public List<HttpHandler> httpHandlers() {
+        return new ArrayList<>(httpHandlers);
+    }
+    
+    /**
+     * 获取当前已注册的标签页（标题 -> 组件）
+     */
+    public Map<String, Component> suiteTabs() {
+        synchronized (suiteTabs) {
+            return new LinkedHashMap<>(suiteTabs);
+        }
+    }
+    
+    /**
+     * 解析原始请求，目标服务为 https://example.com
+     * 
+     * @param raw 完整的请求报文（ISO-8859-1）
+     */
+    public HttpRequest parseRequest(String raw) {
+        return FakeHttpMessage.parseRequest(service, raw.getBytes(StandardCharsets.ISO_8859_1), recorder);
+    }
+    
+    /**
+     * 解析原始响应
+     * 
+     * @param raw 完整的响应报文（ISO-8859-1）
+     */
+    public HttpResponse parseResponse(String raw) {
+        return FakeHttpMessage.parseResponse(raw.getBytes(StandardCharsets.ISO_8859_1), recorder);
+    }
+    
+    /**
+     * 像 Burp 发送请求之前一样，依次交给已注册的 HTTP 处理器
+     * 
+     * @param request 请求
+     * @param tool 来源模块
+     * @return 最后一个处理器返回的请求
+     */
+    public HttpRequest sendRequest(HttpRequest request, ToolType tool) {
+        int messageId = nextMessageId.getAndIncrement();
+        HttpRequest current = request;
+        for (HttpHandler handler : httpHandlers) {
+            current = handler.handleHttpRequestToBeSent(
+                FakeHttpMessage.requestToBeSent(current, tool, messageId)).request();
+        }
+        return current;
+    }
+    
+    /**
+     * 像 Burp 收到响应之后一样，依次交给已注册的 HTTP 处理器
+     * 
+     * @param response 响应
+     * @param initiatingRequest 对应的请求
+     * @param tool 来源模块
+     * @return 最后一个处理器返回的响应
+     */
+    public HttpResponse receiveResponse(HttpResponse response, HttpRequest initiatingRequest, ToolType tool) {
+        int messageId = nextMessageId.getAndIncrement();
+        HttpResponse current = response;
+        for (HttpHandler handler : httpHandlers) {
+            current = handler.handleHttpResponseReceived(
+                FakeHttpMessage.responseReceived(current, initiatingRequest, tool, messageId)).response();
+        }
+        return current;
+    }
+    
+    /**
+     * 模拟卸载插件，执行插件注册的卸载处理器
+     */
+    public void unload() {
+        extension.unload();
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(FakeMontoyaApi.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2024. All rights reserved.
+ */
+
+package oxff.org.testkit;
+
+import burp.api.montoya.core.ByteArray;
+import burp.api.montoya.http.HttpService;
+import burp.api.montoya.http.handler.RequestToBeSentAction;
+import burp.api.montoya.http.handler.ResponseReceivedAction;
+import burp.api.montoya.http.message.requests.HttpRequest;
+import burp.api.montoya.http.message.responses.HttpResponse;
+import burp.api.montoya.internal.MontoyaObjectFactory;
+import burp.api.montoya.internal.ObjectFactoryLocator;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Montoya 静态工厂方法（ByteArray.byteArray(...)、HttpRequest.httpRequest(...)、
+ * RequestToBeSentAction.continueWith(...) 等）使用的对象工厂
+ * 
+ * Montoya API 通过全局的 ObjectFactoryLocator.FACTORY 创建对象，在 Burp Suite 之外需要自行安装。
+ * 工厂是进程级的，创建的对象使用最近一次安装时指定的 CallRecorder。
+ */
+public class FakeObjectFactory implements InvocationHandler {
+    
+    private static final FakeObjectFactory INSTANCE = new FakeObjectFactory();
+    
+    private volatile CallRecorder recorder = new CallRecorder();
+    
+    private FakeObjectFactory() {
+    }
+    
+    /**
+     * 安装对象工厂，之后创建的对象记录到 recorder
+     * 
+     * @param recorder 调用记录
+     */
+    public static synchronized void install(CallRecorder recorder) {
+        INSTANCE.recorder = recorder;
+        if (ObjectFactoryLocator.FACTORY == null || !Proxy.isProxyClass(ObjectFactoryLocator.FACTORY.getClass())
+            || Proxy.getInvocationHandler(ObjectFactoryLocator.FACTORY) != INSTANCE) {
+            ObjectFactoryLocator.FACTORY = (MontoyaObjectFactory) Proxy.newProxyInstance(
+                FakeObjectFactory.class.getClassLoader(), new Class<?>[]{MontoyaObjectFactory.class}, INSTANCE);
+        }
+    }
+    
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) {
+        CallRecorder current = recorder;
+        String name = method.getName();
+        current.recordCall("ObjectFactory", name);
+        switch (name) {
+            case "byteArray":
+                return byteArray(args[0], current);
+            case "byteArrayOfLength":
+                return new FakeByteArray(new byte[(Integer) args[0]], current);
+            case "httpHeader":
+                if (args.length == 2) {
+                    return new FakeHttpHeader((String) args[0], (String) args[1]);
+                } else {
+                    String line = (String) args[0];
+                    int colon = line.indexOf(':');
+                    return new FakeHttpHeader(line.substring(0, colon), line.substring(colon + 1).trim());
+                }
+            case "httpService":
+                return httpService(args);
+            case "httpRequest":
+                if (args != null && args.length == 2) {
+                    return FakeHttpMessage.parseRequest((HttpService) args[0], rawBytes(args[1]), current);
+                }
+                break;
+            case "httpResponse":
+                if (args != null && args.length == 1) {
+                    return FakeHttpMessage.parseResponse(rawBytes(args[0]), current);
+                }
+                break;
+            case "requestResult": {
+                HttpRequest request = (HttpRequest) args[0];
+                return Proxy.newProxyInstance(FakeObjectFactory.class.getClassLoader(),
+                    new Class<?>[]{RequestToBeSentAction.class}, (p, m, a) ->
+                        "request".equals(m.getName()) ? request : null);
+            }
+            case "responseResult": {
+                HttpResponse response = (HttpResponse) args[0];
+                return Proxy.newProxyInstance(FakeObjectFactory.class.getClassLoader(),
+                    new Class<?>[]{ResponseReceivedAction.class}, (p, m, a) ->
+                        "response".equals(m.getName()) ? response : null);
+            }
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "equals":
+                return proxy == args[0];
+            case "toString":
+                return "FakeObjectFactory";
+            default:
+                break;
+        }
+        throw new UnsupportedOperationException("MontoyaObjectFactory." + name);
+    }
+    
+    private static ByteArray byteArray(Object argument, CallRecorder recorder) {
+        if (argument instanceof byte[]) {
+            byte[] bytes = (byte[]) argument;
+            recorder.recordCopy(bytes.length);
+            return new FakeByteArray(bytes.clone(), recorder);
+        }
+        if (argument instanceof String) {
+            return new FakeByteArray(((String) argument).getBytes(StandardCharsets.ISO_8859_1), recorder);
+        }
+        int[] ints = (int[]) argument;
+        byte[] bytes = new byte[ints.length];
+        for (int i = 0; i < ints.length; i++) {
+            bytes[i] = (byte) ints[i];
+        }
+        return new FakeByteArray(bytes, recorder);
+    }
+    
+    private static byte[] rawBytes(Object argument) {
+        if (argument instanceof ByteArray) {
+            return ((ByteArray) argument).getBytes();
+        }
+        return ((String) argument).getBytes(StandardCharsets.ISO_8859_1);
+    }
+    
+    private static HttpService httpService(Object[] args) {
+        if (args.length == 3) {
+            return new FakeHttpService((String) args[0], (Integer) args[1], (Boolean) args[2]);
+        }
+        if (args.length == 2) {
+            boolean secure = (Boolean) args[1];
+            return new FakeHttpService((String) args[0], secure ? 443 : 80, secure);
+        }
+        URI uri = URI.create((String) args[0]);
+        boolean secure = "https".equalsIgnoreCase(uri.getScheme());
+        int port = uri.getPort() > 0 ? uri.getPort() : (secure ? 443 : 80);
+        return new FakeHttpService(uri.getHost(), port, secure);
+    }
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright (c) 2024. All rights reserved.
+ */
+
+package oxff.org.testkit;
+
+import burp.api.montoya.core.Registration;
+
+/**
+ * 内存中的注册句柄，注销时执行给定的动作
+ */
+public class FakeRegistration implements Registration {
+    
+    private final Runnable onDeregister;
+    private volatile boolean registered = true;
+    
+    /**
+     * @param onDeregister 注销时执行的动作（例如从处理器列表中移除）
+     */
+    public FakeRegistration(Runnable onDeregister) {
+        this.onDeregister = onDeregister;
+    }
+    
+    @Override
+    public boolean isRegistered() {
+        return registered;
+    }
+    
+    @Override
+    public synchronized void deregister() {
+        if (registered) {
+            registered = false;
+            onDeregister.run();
+        }
+    }
+}
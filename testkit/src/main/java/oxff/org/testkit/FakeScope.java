@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2024. All rights reserved.
+ */
+
+package oxff.org.testkit;
+
+import burp.api.montoya.core.Registration;
+import burp.api.montoya.scope.Scope;
+import burp.api.montoya.scope.ScopeChange;
+import burp.api.montoya.scope.ScopeChangeHandler;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 内存中的目标范围
+ * 
+ * 按 URL 前缀包含和排除，排除优先。没有任何包含前缀时所有 URL 都在范围内。
+ * includeInScope/excludeFromScope 会像 Burp 一样通知已注册的范围变更处理器。
+ */
+public class FakeScope implements Scope {
+    
+    private final List<String> included = new CopyOnWriteArrayList<>();
+    private final List<String> excluded = new CopyOnWriteArrayList<>();
+    private final List<ScopeChangeHandler> handlers = new CopyOnWriteArrayList<>();
+    private final CallRecorder recorder;
+    
+    public FakeScope(CallRecorder recorder) {
+        this.recorder = recorder;
+    }
+    
+    @Override
+    public boolean isInScope(String url) {
+        recorder.recordCall("Scope", "isInScope");
+        for (String prefix : excluded) {
+            if (url.startsWith(prefix)) {
+                return false;
+            }
+        }
+        if (included.isEmpty()) {
+            return true;
+        }
+        for (String prefix : included) {
+            if (url.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    @Override
+    public void includeInScope(String url) {
+        recorder.recordCall("Scope", "includeInScope");
+        included.add(url);
+        fireScopeChanged();
+    }
+    
+    @Override
+    public void excludeFromScope(String url) {
+        recorder.recordCall("Scope", "excludeFromScope");
+        excluded.add(url);
+        fireScopeChanged();
+    }
+    
+    @Override
+    public Registration registerScopeChangeHandler(ScopeChangeHandler handler) {
+        recorder.recordCall("Scope", "registerScopeChangeHandler");
+        handlers.add(handler);
+        return new FakeRegistration(() -> handlers.remove(handler));
+    }
+    
+    private void fireScopeChanged() {
+        // ScopeChange 没有任何方法，用代理对象表示一次变更
+        ScopeChange change = (ScopeChange) Proxy.newProxyInstance(FakeScope.class.getClassLoader(),
+            new Class<?>[]{ScopeChange.class}, (proxy, method, args) -> {
+                if ("toString".equals(method.getName())) {
+                    return "ScopeChange";
+                }
+                return "hashCode".equals(method.getName()) ? System.identityHashCode(proxy) : proxy == args[0];
+            });
+        for (ScopeChangeHandler handler : handlers) {
+            handler.scopeChanged(change);
+        }
+    }
+}
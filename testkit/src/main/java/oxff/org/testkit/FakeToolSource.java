@@ -0,0 +1,35 @@
+/*
+ * Copyright (c) 2024. All rights reserved.
+ */
+
+package oxff.org.testkit;
+
+import burp.api.montoya.core.ToolSource;
+import burp.api.montoya.core.ToolType;
+
+/**
+ * 内存中的消息来源模块
+ */
+public class FakeToolSource implements ToolSource {
+    
+    private final ToolType toolType;
+    
+    public FakeToolSource(ToolType toolType) {
+        this.toolType = toolType;
+    }
+    
+    @Override
+    public ToolType toolType() {
+        return toolType;
+    }
+    
+    @Override
+    public boolean isFromTool(ToolType... toolTypes) {
+        for (ToolType candidate : toolTypes) {
+            if (candidate == toolType) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
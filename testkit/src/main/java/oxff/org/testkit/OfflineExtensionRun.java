@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2024. All rights reserved.
+ */
+
+package oxff.org.testkit;
+
+import burp.api.montoya.core.ToolType;
+import burp.api.montoya.http.message.HttpMessage;
+import burp.api.montoya.http.message.requests.HttpRequest;
+import burp.api.montoya.http.message.responses.HttpResponse;
+import oxff.org.RemoveExtraBlankLinesExtension;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 在普通 JVM 中端到端运行插件
+ * 
+ * 用 FakeMontoyaApi 初始化插件，发送几条典型的请求和响应，检查清理结果、注册的处理器和标签页、
+ * 卸载处理器，最后输出 Montoya API 的调用次数和复制的字节数。任何检查失败时以非零状态码退出。
+ * mvn verify 时由 OfflineExtensionRunTest 调用 run() 执行同样的检查。
+ * 
+ * 用法：java -jar testkit/target/testkit.jar [-v]（-v 回显插件日志）
+ */
+public class OfflineExtensionRun {
+    
+    private static int failures;
+    
+    public static void main(String[] args) {
+        boolean verbose = args.length > 0 && "-v".equals(args[0]);
+        if (run(verbose) > 0) {
+            System.exit(1);
+        }
+    }
+    
+    /**
+     * 执行全部检查
+     * 
+     * @param verbose 是否回显插件日志
+     * @return 失败的检查数
+     */
+    public static synchronized int run(boolean verbose) {
+        System.setProperty("java.awt.headless", "true");
+        failures = 0;
+        
+        FakeMontoyaApi kit = new FakeMontoyaApi(verbose);
+        RemoveExtraBlankLinesExtension extension = new RemoveExtraBlankLinesExtension();
+        extension.initialize(kit.api());
+        
+        check("插件名称", "Remove Extra Blank Lines".equals(kit.extension().getName()));
+        check("注册 1 个 HTTP 处理器", kit.httpHandlers().size() == 1);
+        check("注册 1 个标签页", kit.suiteTabs().size() == 1);
+        check("注册卸载处理器", kit.extension().getUnloadingHandlerCount() == 1);
+        
+        // 开头有多余空行的 JSON 请求：应当清理
+        HttpRequest request = kit.parseRequest("POST /api/items HTTP/1.1\r\n"
+            + "Host: example.com\r\n"
+            + "Content-Type: application/json\r\n"
+            + "Content-Length: 22\r\n"
+            + "\r\n"
+            + "\r\n\r\n\r\n{\"key\": \"value\"}");
+        HttpRequest sent = kit.sendRequest(request, ToolType.REPEATER);
+        check("JSON 请求去掉开头空行", "{\"key\": \"value\"}".equals(sent.bodyToString()));
+        check("JSON 请求更新 Content-Length", "16".equals(sent.headerValue("Content-Length")));
+        
+        // 没有多余空行的 HTML 响应：应当原样放行
+        HttpResponse html = kit.parseResponse("HTTP/1.1 200 OK\r\n"
+            + "Content-Type: text/html; charset=utf-8\r\n"
+            + "Content-Length: 13\r\n"
+            + "\r\n"
+            + "<html></html>");
+        check("HTML 响应原样放行", sameBytes(kit.receiveResponse(html, request, ToolType.PROXY), html));
+        
+        // PNG 响应：二进制内容，应当原样放行
+        HttpResponse png = kit.parseResponse("HTTP/1.1 200 OK\r\n"
+            + "Content-Type: image/png\r\n"
+            + "Content-Length: 12\r\n"
+            + "\r\n"
+            + "\r\n\r\n\u0089PNG\r\n\u001a\n\u0000\u0000");
+        check("PNG 响应原样放行", sameBytes(kit.receiveResponse(png, request, ToolType.PROXY), png));
+        
+        // 分块传输的响应：去掉第一个分块开头的空行并改写分块大小
+        HttpResponse chunked = kit.parseResponse("HTTP/1.1 200 OK\r\n"
+            + "Content-Type: text/plain\r\n"
+            + "Transfer-Encoding: chunked\r\n"
+            + "\r\n"
+            + "9\r\n\r\n\r\nhello\r\n0\r\n\r\n");
+        HttpResponse received = kit.receiveResponse(chunked, request, ToolType.PROXY);
+        check("分块响应去掉开头空行",
+            "5\r\nhello\r\n0\r\n\r\n".equals(new String(received.body().getBytes(), StandardCharsets.ISO_8859_1)));
+        
+        // 未启用的模块：应当原样放行
+        check("Sequencer 请求原样放行", sameBytes(kit.sendRequest(request, ToolType.SEQUENCER), request));
+        
+        System.out.println(extension.getMetrics().snapshot().toDisplayString());
+        System.out.println(kit.recorder().toDisplayString());
+        System.out.println("日志行数: " + kit.logging().getOutputLines().size()
+            + "，错误行数: " + kit.logging().getErrorLines().size());
+        
+        kit.unload();
+        check("执行卸载处理器", kit.extension().isUnloaded());
+        check("没有错误日志", kit.logging().getErrorLines().isEmpty());
+        
+        if (failures > 0) {
+            System.out.println("失败: " + failures);
+        } else {
+            System.out.println("全部检查通过");
+        }
+        return failures;
+    }
+    
+    /**
+     * 处理器返回的是包装后的消息对象，按完整报文比较是否原样放行
+     */
+    private static boolean sameBytes(HttpMessage actual, HttpMessage expected) {
+        return actual.toString().equals(expected.toString());
+    }
+    
+    private static void check(String name, boolean passed) {
+        System.out.println((passed ? "[通过] " : "[失败] ") + name);
+        if (!passed) {
+            failures++;
+        }
+    }
+}
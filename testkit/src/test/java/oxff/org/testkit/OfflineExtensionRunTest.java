@@ -0,0 +1,20 @@
+/*
+ * Copyright (c) 2024. All rights reserved.
+ */
+
+package oxff.org.testkit;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 在 mvn verify 中执行离线端到端检查，任何一项失败都会使构建失败
+ */
+class OfflineExtensionRunTest {
+    
+    @Test
+    void allOfflineChecksPass() {
+        assertEquals(0, OfflineExtensionRun.run(false));
+    }
+}